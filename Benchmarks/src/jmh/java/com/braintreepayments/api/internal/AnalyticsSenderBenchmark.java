@@ -0,0 +1,75 @@
+package com.braintreepayments.api.internal;
+
+import com.braintreepayments.api.exceptions.InvalidArgumentException;
+import com.braintreepayments.api.models.Authorization;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.braintreepayments.benchmarks.FixturesHelper.stringFromFixture;
+
+@State(Scope.Benchmark)
+public class AnalyticsSenderBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int eventCount;
+
+    @Param({"tokenizationKey", "clientToken"})
+    public String authorizationType;
+
+    private Authorization mAuthorization;
+    private String mMetadata;
+    private List<AnalyticsEvent> mEvents;
+
+    @Setup
+    public void setup() throws InvalidArgumentException, JSONException {
+        if ("clientToken".equals(authorizationType)) {
+            mAuthorization = Authorization.fromString(stringFromFixture("base_64_client_token.txt"));
+        } else {
+            mAuthorization = Authorization.fromString("development_testing_integration_merchant_id");
+        }
+
+        mMetadata = new JSONObject()
+                .put("sessionId", "f4a7b3c2d1e04f5a9b8c7d6e5f4a3b2c")
+                .put("deviceNetworkType", "WIFI")
+                .put("userInterfaceOrientation", "Portrait")
+                .put("merchantAppVersion", "1.0.0")
+                .put("paypalInstalled", false)
+                .put("venmoInstalled", false)
+                .put("platform", "Android")
+                .put("integrationType", "custom")
+                .put("platformVersion", "25")
+                .put("sdkVersion", "2.5.3")
+                .put("merchantAppId", "com.braintreepayments.demo")
+                .put("merchantAppName", "Braintree Demo")
+                .put("deviceRooted", "false")
+                .put("deviceManufacturer", "Google")
+                .put("deviceModel", "Pixel")
+                .put("androidId", "8e3a1f2b4c5d6e7f")
+                .put("deviceAppGeneratedPersistentUuid", "0a1b2c3d4e5f60718293a4b5c6d7e8f9")
+                .put("isSimulator", "false")
+                .toString();
+
+        mEvents = new ArrayList<>();
+        for (int i = 0; i < eventCount; i++) {
+            AnalyticsEvent event = new AnalyticsEvent();
+            event.id = i;
+            event.event = "android.custom.card.nonce-received";
+            event.timestamp = 1480000000 + i;
+            mEvents.add(event);
+        }
+    }
+
+    @Benchmark
+    public String serializeEvents() throws JSONException {
+        return AnalyticsSender.serializeEvents(mAuthorization, new JSONObject(mMetadata), mEvents).toString();
+    }
+}
@@ -0,0 +1,37 @@
+package com.braintreepayments.api.models;
+
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import static com.braintreepayments.benchmarks.FixturesHelper.stringFromFixture;
+
+@State(Scope.Benchmark)
+public class ConfigurationBenchmark {
+
+    @Param({"configuration.json", "configuration_with_analytics.json", "configuration_with_android_pay.json",
+            "configuration_with_unionpay.json", "configuration/with_visa_checkout.json"})
+    public String fixture;
+
+    private String mConfigurationJson;
+    private Configuration mConfiguration;
+
+    @Setup
+    public void setup() throws JSONException {
+        mConfigurationJson = stringFromFixture(fixture);
+        mConfiguration = Configuration.fromJson(mConfigurationJson);
+    }
+
+    @Benchmark
+    public Configuration fromJson() throws JSONException {
+        return Configuration.fromJson(mConfigurationJson);
+    }
+
+    @Benchmark
+    public String toJson() {
+        return mConfiguration.toJson();
+    }
+}
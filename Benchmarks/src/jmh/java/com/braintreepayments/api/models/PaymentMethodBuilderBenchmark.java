@@ -0,0 +1,49 @@
+package com.braintreepayments.api.models;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Benchmark)
+public class PaymentMethodBuilderBenchmark {
+
+    private CardBuilder mMinimalCardBuilder;
+    private CardBuilder mCardBuilder;
+
+    @Setup
+    public void setup() {
+        mMinimalCardBuilder = new CardBuilder()
+                .cardNumber("4111111111111111")
+                .expirationDate("12/2020")
+                .setSessionId("sessionId");
+
+        mCardBuilder = new CardBuilder()
+                .cardNumber("4111111111111111")
+                .cvv("123")
+                .expirationMonth("12")
+                .expirationYear("2020")
+                .cardholderName("Joe Smith")
+                .firstName("Joe")
+                .lastName("Smith")
+                .streetAddress("1 Main St")
+                .locality("Chicago")
+                .region("IL")
+                .postalCode("60606")
+                .countryName("United States of America")
+                .validate(true)
+                .integration("custom")
+                .source("form")
+                .setSessionId("sessionId");
+    }
+
+    @Benchmark
+    public String buildMinimalCard() {
+        return mMinimalCardBuilder.build();
+    }
+
+    @Benchmark
+    public String buildCard() {
+        return mCardBuilder.build();
+    }
+}
@@ -0,0 +1,41 @@
+package com.braintreepayments.api.models;
+
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+import static com.braintreepayments.benchmarks.FixturesHelper.stringFromFixture;
+
+@State(Scope.Benchmark)
+public class PaymentMethodNonceBenchmark {
+
+    private String mPaymentMethodsResponse;
+    private String mCardResponse;
+    private String mPayPalAccountResponse;
+
+    @Setup
+    public void setup() {
+        mPaymentMethodsResponse = stringFromFixture("payment_methods/get_payment_methods_response.json");
+        mCardResponse = stringFromFixture("payment_methods/visa_credit_card_response.json");
+        mPayPalAccountResponse = stringFromFixture("payment_methods/paypal_account_response.json");
+    }
+
+    @Benchmark
+    public List<PaymentMethodNonce> parsePaymentMethodNonces() throws JSONException {
+        return PaymentMethodNonce.parsePaymentMethodNonces(mPaymentMethodsResponse);
+    }
+
+    @Benchmark
+    public PaymentMethodNonce parseCardNonce() throws JSONException {
+        return PaymentMethodNonce.parsePaymentMethodNonces(mCardResponse, CardNonce.TYPE);
+    }
+
+    @Benchmark
+    public PaymentMethodNonce parsePayPalAccountNonce() throws JSONException {
+        return PaymentMethodNonce.parsePaymentMethodNonces(mPayPalAccountResponse, PayPalAccountNonce.TYPE);
+    }
+}
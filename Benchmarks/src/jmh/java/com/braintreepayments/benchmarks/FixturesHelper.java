@@ -0,0 +1,44 @@
+package com.braintreepayments.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+
+/**
+ * Loads fixture payloads from the benchmark classpath. Fixtures are shared with the instrumentation
+ * tests in {@code Braintree/src/androidTest/assets/fixtures}.
+ */
+public class FixturesHelper {
+
+    private static final String FIXTURES_PATH = "fixtures/";
+
+    public static String stringFromFixture(String filename) {
+        return stringFromResource(FIXTURES_PATH + filename);
+    }
+
+    public static String stringFromResource(String path) {
+        InputStream inputStream = FixturesHelper.class.getClassLoader().getResourceAsStream(path);
+        if (inputStream == null) {
+            throw new IllegalArgumentException("Fixture not found: " + path);
+        }
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, Charset.forName("UTF-8")));
+        try {
+            StringBuilder data = new StringBuilder();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                data.append(line);
+            }
+
+            return data.toString();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            try {
+                reader.close();
+            } catch (IOException ignored) {}
+        }
+    }
+}
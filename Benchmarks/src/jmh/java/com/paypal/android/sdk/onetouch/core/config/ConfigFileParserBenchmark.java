@@ -0,0 +1,34 @@
+package com.paypal.android.sdk.onetouch.core.config;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import static com.braintreepayments.benchmarks.FixturesHelper.stringFromResource;
+
+@State(Scope.Benchmark)
+public class ConfigFileParserBenchmark {
+
+    private final ConfigFileParser mConfigFileParser = new ConfigFileParser();
+    private String mConfigJson;
+    private JSONObject mConfig;
+
+    @Setup
+    public void setup() throws JSONException {
+        mConfigJson = stringFromResource("otc-config.android.json");
+        mConfig = new JSONObject(mConfigJson);
+    }
+
+    @Benchmark
+    public OtcConfiguration getParsedConfig() throws JSONException {
+        return mConfigFileParser.getParsedConfig(mConfig);
+    }
+
+    @Benchmark
+    public OtcConfiguration parseAndGetParsedConfig() throws JSONException {
+        return mConfigFileParser.getParsedConfig(new JSONObject(mConfigJson));
+    }
+}
@@ -0,0 +1,118 @@
+package com.paypal.android.sdk.onetouch.core.encryption;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.security.GeneralSecurityException;
+import java.security.cert.X509Certificate;
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import static com.braintreepayments.benchmarks.FixturesHelper.stringFromResource;
+
+@State(Scope.Benchmark)
+public class EncryptionBenchmark {
+
+    private static final int PAYLOAD_SIZE = 1024;
+
+    private final OtcCrypto mOtcCrypto = new OtcCrypto();
+    private final Random mRandom = new Random(42);
+
+    private byte[] mKey;
+    private String mKeyHex;
+    private byte[] mCipherData;
+    private byte[] mRsaPayload;
+    private String mCertificate;
+    private X509Certificate mX509Certificate;
+
+    @Setup
+    public void setup() throws GeneralSecurityException, JSONException {
+        mKey = randomBytes(32);
+        mKeyHex = EncryptionUtils.byteArrayToHexString(mKey);
+        mCipherData = encryptAESCTRData(randomBytes(PAYLOAD_SIZE), mKey, randomBytes(16));
+        mRsaPayload = new JSONObject()
+                .put("timestamp", "2016-03-10T21:15:00Z")
+                .put("msg_GUID", "0a1b2c3d-4e5f-6071-8293-a4b5c6d7e8f9")
+                .put("sym_key", mKeyHex)
+                .put("device_name", "Pixel")
+                .toString()
+                .getBytes();
+
+        JSONArray recipes = new JSONObject(stringFromResource("otc-config.android.json"))
+                .getJSONObject("1.0")
+                .getJSONArray("oauth2_recipes_in_decreasing_priority_order");
+        for (int i = 0; i < recipes.length() && mCertificate == null; i++) {
+            JSONObject endpoints = recipes.getJSONObject(i).optJSONObject("endpoints");
+            if (endpoints != null && endpoints.has("live")) {
+                mCertificate = endpoints.getJSONObject("live").getString("certificate");
+            }
+        }
+        mX509Certificate = EncryptionUtils.getX509CertificateFromBase64String(mCertificate);
+    }
+
+    @Benchmark
+    public String byteArrayToHexString() {
+        return EncryptionUtils.byteArrayToHexString(mKey);
+    }
+
+    @Benchmark
+    public byte[] hexStringToByteArray() {
+        return EncryptionUtils.hexStringToByteArray(mKeyHex);
+    }
+
+    @Benchmark
+    public X509Certificate getX509CertificateFromBase64String() throws GeneralSecurityException {
+        return EncryptionUtils.getX509CertificateFromBase64String(mCertificate);
+    }
+
+    @Benchmark
+    public byte[] decryptAESCTRData() throws Exception {
+        return mOtcCrypto.decryptAESCTRData(mCipherData, mKey);
+    }
+
+    @Benchmark
+    public byte[] encryptRSAData() throws Exception {
+        return mOtcCrypto.encryptRSAData(mRsaPayload, mX509Certificate);
+    }
+
+    private byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        mRandom.nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * Produces data in the format {@link OtcCrypto#decryptAESCTRData(byte[], byte[])} expects:
+     * HMAC-SHA256 signature, followed by the nonce, followed by the AES/CTR cipher text.
+     */
+    private static byte[] encryptAESCTRData(byte[] plainData, byte[] key, byte[] nonce)
+            throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance("AES/CTR/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(Arrays.copyOfRange(key, 0, 16), "AES"),
+                new IvParameterSpec(nonce));
+        byte[] encrypted = cipher.doFinal(plainData);
+
+        byte[] signedData = new byte[nonce.length + encrypted.length];
+        System.arraycopy(nonce, 0, signedData, 0, nonce.length);
+        System.arraycopy(encrypted, 0, signedData, nonce.length, encrypted.length);
+
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(Arrays.copyOfRange(key, 16, 32), "HmacSHA256"));
+        byte[] signature = mac.doFinal(signedData);
+
+        byte[] cipherData = new byte[signature.length + signedData.length];
+        System.arraycopy(signature, 0, cipherData, 0, signature.length);
+        System.arraycopy(signedData, 0, cipherData, signature.length, signedData.length);
+        return cipherData;
+    }
+}
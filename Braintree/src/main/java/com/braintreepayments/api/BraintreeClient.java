@@ -0,0 +1,455 @@
+package com.braintreepayments.api;
+
+import android.content.Context;
+import android.content.Intent;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import com.braintreepayments.api.exceptions.ConfigurationException;
+import com.braintreepayments.api.exceptions.InvalidArgumentException;
+import com.braintreepayments.api.interfaces.BraintreeResponseListener;
+import com.braintreepayments.api.interfaces.ConfigurationListener;
+import com.braintreepayments.api.internal.AnalyticsDatabase;
+import com.braintreepayments.api.internal.AnalyticsEvent;
+import com.braintreepayments.api.internal.AnalyticsIntentService;
+import com.braintreepayments.api.internal.AnalyticsSender;
+import com.braintreepayments.api.internal.BraintreeHttpClient;
+import com.braintreepayments.api.internal.BraintreeHttpClientRegistry;
+import com.braintreepayments.api.internal.ConfigurationCache;
+import com.braintreepayments.api.internal.LatencyHistograms;
+import com.braintreepayments.api.internal.UUIDHelper;
+import com.braintreepayments.api.models.Authorization;
+import com.braintreepayments.api.models.BatchTokenizationResult;
+import com.braintreepayments.api.models.Configuration;
+import com.braintreepayments.api.models.PaymentMethodBuilder;
+import com.braintreepayments.api.models.PaymentMethodNonce;
+import com.braintreepayments.api.models.TokenizationKey;
+import com.braintreepayments.api.models.UnionPayCapabilities;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Owns the authorization, {@link Configuration}, HTTP client and analytics for a Braintree session without
+ * requiring a {@link BraintreeFragment} or an {@link android.app.Activity}, so flows that do not need UI can run
+ * from a background service or worker. All methods may be called from any thread and results are delivered as
+ * {@link BraintreeFuture}s.
+ * <p/>
+ * Clients for the same authorization share their HTTP threads and TLS setup. Call {@link #shutdown()} when the
+ * client is no longer needed to release its share of them.
+ */
+public class BraintreeClient {
+
+    private static final String TAG = BraintreeClient.class.getSimpleName();
+    private static final String INTEGRATION_TYPE = "custom";
+    private static final int MAX_CONFIGURATION_REQUEST_ATTEMPTS = 3;
+    private static final int MAX_PENDING_ANALYTICS_EVENTS = 100;
+
+    private final Context mContext;
+    private final Authorization mAuthorization;
+    private final String mSessionId;
+    private final String mIntegrationType;
+    private final BraintreeHttpClient mHttpClient;
+    private final AnalyticsDatabase mAnalyticsDatabase;
+    private final TokenizationDeduplicator mTokenizationDeduplicator = new TokenizationDeduplicator();
+    private final UnionPayCapabilitiesCache mUnionPayCapabilitiesCache = new UnionPayCapabilitiesCache();
+
+    private final List<BraintreeFuture<Configuration>> mConfigurationFutures = new ArrayList<>();
+    private final List<AnalyticsEvent> mPendingAnalyticsEvents = new ArrayList<>();
+    private volatile Configuration mConfiguration;
+    private boolean mFetchingConfiguration;
+    private int mConfigurationRequestAttempts;
+    private ConfigurationListener mConfigurationListener;
+    private BraintreeResponseListener<Exception> mConfigurationErrorListener;
+
+    /**
+     * Create a new instance of {@link BraintreeClient}.
+     *
+     * @param context any {@link Context}. Only the application {@link Context} is retained.
+     * @param authorization The tokenization key or client token to use.
+     * @return {@link BraintreeClient}
+     * @throws InvalidArgumentException If the tokenization key or client token is not valid or cannot be
+     *         parsed.
+     */
+    public static BraintreeClient newInstance(Context context, String authorization)
+            throws InvalidArgumentException {
+        if (context == null) {
+            throw new InvalidArgumentException("Context is null");
+        }
+
+        Authorization auth;
+        try {
+            auth = Authorization.fromString(authorization);
+        } catch (InvalidArgumentException e) {
+            throw new InvalidArgumentException("Tokenization Key or client token was invalid.");
+        }
+
+        Context applicationContext = context.getApplicationContext();
+        BraintreeHttpClient httpClient = BraintreeHttpClientRegistry.acquire(auth);
+        httpClient.setHttpEventListener(LatencyHistograms.getInstance(applicationContext), false);
+
+        BraintreeClient client = new BraintreeClient(applicationContext, auth, UUIDHelper.getFormattedUUID(),
+                INTEGRATION_TYPE, httpClient, AnalyticsDatabase.getInstance(applicationContext));
+        if (auth instanceof TokenizationKey) {
+            client.sendAnalyticsEvent("started.client-key");
+        } else {
+            client.sendAnalyticsEvent("started.client-token");
+        }
+
+        return client;
+    }
+
+    BraintreeClient(Context context, Authorization authorization, String sessionId, String integrationType,
+            BraintreeHttpClient httpClient, AnalyticsDatabase analyticsDatabase) {
+        mContext = context;
+        mAuthorization = authorization;
+        mSessionId = sessionId;
+        mIntegrationType = integrationType;
+        mHttpClient = httpClient;
+        mAnalyticsDatabase = analyticsDatabase;
+    }
+
+    /**
+     * Fetches the {@link Configuration} if it has not been fetched yet. Concurrent calls share a single
+     * request and failed requests are retried by later calls up to 3 times.
+     *
+     * @return a {@link BraintreeFuture} that succeeds with the {@link Configuration} or fails with a
+     * {@link ConfigurationException}.
+     */
+    public BraintreeFuture<Configuration> fetchConfiguration() {
+        BraintreeFuture<Configuration> future = new BraintreeFuture<>();
+        boolean retryLimitExceeded = false;
+        synchronized (mConfigurationFutures) {
+            if (mConfiguration != null) {
+                future.complete(mConfiguration);
+                return future;
+            }
+
+            mConfigurationFutures.add(future);
+            if (mFetchingConfiguration) {
+                return future;
+            }
+
+            if (mConfigurationRequestAttempts < MAX_CONFIGURATION_REQUEST_ATTEMPTS) {
+                mConfigurationRequestAttempts++;
+                mFetchingConfiguration = true;
+            } else {
+                retryLimitExceeded = true;
+            }
+        }
+
+        if (retryLimitExceeded) {
+            onConfigurationError(new ConfigurationException("Configuration retry limit has been exceeded. Create " +
+                    "a new BraintreeClient and try again."));
+            return future;
+        }
+
+        ConfigurationManager.getConfiguration(this, new ConfigurationListener() {
+            @Override
+            public void onConfigurationFetched(Configuration configuration) {
+                setConfiguration(configuration);
+                for (BraintreeFuture<Configuration> future : finishConfigurationRequest()) {
+                    future.complete(configuration);
+                }
+
+                if (mConfigurationListener != null) {
+                    mConfigurationListener.onConfigurationFetched(configuration);
+                }
+            }
+        }, new BraintreeResponseListener<Exception>() {
+            @Override
+            public void onResponse(Exception e) {
+                onConfigurationError(new ConfigurationException("Request for configuration has failed: " +
+                        e.getMessage() + ". Future requests will retry up to 3 times", e));
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * Create a {@link PaymentMethodNonce} in the Braintree Gateway.
+     *
+     * @param paymentMethodBuilder {@link PaymentMethodBuilder} for the {@link PaymentMethodNonce} to be created.
+     * @return a {@link BraintreeFuture} for the {@link PaymentMethodNonce}.
+     */
+    public BraintreeFuture<PaymentMethodNonce> tokenize(PaymentMethodBuilder paymentMethodBuilder) {
+        return TokenizationClient.tokenize(this, paymentMethodBuilder);
+    }
+
+    /**
+     * Create a {@link PaymentMethodNonce} for each {@link PaymentMethodBuilder} with up to 4 requests in flight
+     * at once.
+     *
+     * @see #tokenizeAll(List, int)
+     */
+    public BraintreeFuture<BatchTokenizationResult> tokenizeAll(
+            List<? extends PaymentMethodBuilder> paymentMethodBuilders) {
+        return tokenizeAll(paymentMethodBuilders, TokenizationClient.DEFAULT_BATCH_CONCURRENCY);
+    }
+
+    /**
+     * Create a {@link PaymentMethodNonce} for each {@link PaymentMethodBuilder} in the Braintree Gateway,
+     * reusing the HTTP client's connections.
+     *
+     * @param paymentMethodBuilders the {@link PaymentMethodBuilder}s to tokenize.
+     * @param maxConcurrency the maximum number of requests in flight at once.
+     * @return a {@link BraintreeFuture} for the {@link BatchTokenizationResult}, which contains a nonce or an
+     * error for each builder. The future does not fail when individual builders fail.
+     */
+    public BraintreeFuture<BatchTokenizationResult> tokenizeAll(
+            List<? extends PaymentMethodBuilder> paymentMethodBuilders, int maxConcurrency) {
+        return TokenizationClient.tokenize(this, paymentMethodBuilders, maxConcurrency);
+    }
+
+    /**
+     * Retrieves the current list of {@link PaymentMethodNonce}s for the current customer. Requires a client
+     * token with a customer id.
+     *
+     * @param defaultFirst when {@code true} the customer's default payment method will be first in the list,
+     *        otherwise payment methods will be ordered my most recently used.
+     * @return a {@link BraintreeFuture} for the {@link PaymentMethodNonce}s.
+     */
+    public BraintreeFuture<List<PaymentMethodNonce>> getPaymentMethodNonces(boolean defaultFirst) {
+        return PaymentMethod.getPaymentMethodNonces(this, defaultFirst);
+    }
+
+    /**
+     * Fetches the capabilities of a card. Capabilities are cached by the card's BIN, so checking the
+     * capabilities as the card number is typed only makes a request when the first 6 digits change.
+     *
+     * @param cardNumber The card number to check for Union Pay capabilities.
+     * @return a {@link BraintreeFuture} for the {@link UnionPayCapabilities}.
+     */
+    public BraintreeFuture<UnionPayCapabilities> fetchUnionPayCapabilities(String cardNumber) {
+        return UnionPay.fetchCapabilities(this, cardNumber);
+    }
+
+    /**
+     * Collect device information for fraud identification purposes.
+     *
+     * @param merchantId The fraud merchant id from Braintree, or {@code null} to use the merchant id from the
+     *        {@link Configuration}.
+     * @return a {@link BraintreeFuture} for the device data String to send to Braintree.
+     */
+    public BraintreeFuture<String> collectDeviceData(@Nullable String merchantId) {
+        return DataCollector.collectDeviceData(this, merchantId);
+    }
+
+    /**
+     * Records an analytics event. Events sent before the {@link Configuration} has been fetched are held until it
+     * is, without requesting it or using up a configuration retry. Up to 100 events are held, including after the
+     * configuration retry limit is exceeded, and the oldest are dropped beyond that.
+     */
+    public void sendAnalyticsEvent(String eventFragment) {
+        AnalyticsEvent request = new AnalyticsEvent(mContext, mSessionId, mIntegrationType, eventFragment);
+        Configuration configuration;
+        boolean dropped = false;
+        synchronized (mConfigurationFutures) {
+            configuration = mConfiguration;
+            if (configuration == null) {
+                if (mPendingAnalyticsEvents.size() >= MAX_PENDING_ANALYTICS_EVENTS) {
+                    mPendingAnalyticsEvents.remove(0);
+                    dropped = true;
+                }
+                mPendingAnalyticsEvents.add(request);
+            }
+        }
+
+        if (configuration == null) {
+            if (dropped) {
+                Log.w(TAG, "Configuration has not been fetched, dropping the oldest pending analytics event");
+            }
+            return;
+        }
+
+        addAnalyticsEvent(configuration, request);
+    }
+
+    /**
+     * Sends {@code succeededEvent} or {@code failedEvent} when {@code future} completes, like the listener API does
+     * for the same operation. Cancelled futures send neither.
+     *
+     * @return {@code future} for chaining.
+     */
+    <T> BraintreeFuture<T> sendAnalyticsEvents(BraintreeFuture<T> future, final String succeededEvent,
+            final String failedEvent) {
+        return future.addCallback(new BraintreeFuture.Callback<T>() {
+            @Override
+            public void onSuccess(T result) {
+                sendAnalyticsEvent(succeededEvent);
+            }
+
+            @Override
+            public void onFailure(Exception exception) {
+                if (!(exception instanceof CancellationException)) {
+                    sendAnalyticsEvent(failedEvent);
+                }
+            }
+        });
+    }
+
+    /**
+     * Uploads pending analytics events. Events are otherwise uploaded when a {@link BraintreeFragment} is stopped.
+     */
+    public void flushAnalyticsEvents() {
+        Configuration configuration = mConfiguration;
+        if (configuration == null || configuration.toJson() == null || !configuration.getAnalytics().isEnabled()) {
+            return;
+        }
+
+        String configurationKey = ConfigurationCache.getKey(mAuthorization);
+        ConfigurationCache.remember(configurationKey, configuration);
+
+        Intent intent = new Intent(mContext, AnalyticsIntentService.class)
+                .putExtra(AnalyticsIntentService.EXTRA_AUTHORIZATION, mAuthorization.toString())
+                .putExtra(AnalyticsIntentService.EXTRA_CONFIGURATION_KEY, configurationKey);
+
+        try {
+            mContext.startService(intent);
+        } catch (RuntimeException e) {
+            AnalyticsSender.send(mContext, mAuthorization, mHttpClient, configuration.getAnalytics().getUrl(), false);
+        }
+    }
+
+    /**
+     * Identical tokenization requests, such as those caused by a double tap on a pay button, share a single
+     * request and receive the same {@link PaymentMethodNonce} while the request is in flight. Batches from
+     * {@link #tokenizeAll(List, int)} are never shared.
+     *
+     * @param windowMillis how long after completing a successful tokenization identical requests continue to
+     *        receive its {@link PaymentMethodNonce}. Defaults to {@code 0}, which only shares in flight requests.
+     */
+    public void setTokenizationDedupWindow(long windowMillis) {
+        mTokenizationDeduplicator.setWindowMillis(windowMillis);
+    }
+
+    /**
+     * Sets how long {@link UnionPayCapabilities} are cached by BIN after they are received.
+     *
+     * @param ttlMillis the time to live of cached capabilities. Defaults to 10 minutes. {@code 0} disables the
+     *        cache, while lookups for a BIN that is in flight still share the request.
+     */
+    public void setUnionPayCapabilitiesCacheTtl(long ttlMillis) {
+        mUnionPayCapabilitiesCache.setTtlMillis(ttlMillis);
+    }
+
+    /**
+     * Delays UnionPay capability requests until the card number has not changed BIN for {@code debounceMillis}.
+     * Lookups replaced by a lookup for a different BIN fail with a
+     * {@link java.util.concurrent.CancellationException}, and {@link BraintreeFragment} does not deliver them.
+     *
+     * @param debounceMillis the delay before a request is sent. Defaults to {@code 0}, which sends immediately.
+     */
+    public void setUnionPayCapabilitiesDebounce(long debounceMillis) {
+        mUnionPayCapabilitiesCache.setDebounceMillis(debounceMillis);
+    }
+
+    /**
+     * Cancels every request that is in flight or waiting to be sent. Their {@link BraintreeFuture}s fail with a
+     * {@link java.util.concurrent.CancellationException} and listener callbacks are not called.
+     */
+    public void cancelAllRequests() {
+        mHttpClient.cancelAll();
+    }
+
+    /**
+     * Releases this client's share of the HTTP threads, which are stopped once every client for the same
+     * authorization has been shut down. Requests made after shutdown fail.
+     */
+    public void shutdown() {
+        mHttpClient.shutdown();
+    }
+
+    public Authorization getAuthorization() {
+        return mAuthorization;
+    }
+
+    public String getSessionId() {
+        return mSessionId;
+    }
+
+    Context getApplicationContext() {
+        return mContext;
+    }
+
+    String getIntegrationType() {
+        return mIntegrationType;
+    }
+
+    BraintreeHttpClient getHttpClient() {
+        return mHttpClient;
+    }
+
+    TokenizationDeduplicator getTokenizationDeduplicator() {
+        return mTokenizationDeduplicator;
+    }
+
+    UnionPayCapabilitiesCache getUnionPayCapabilitiesCache() {
+        return mUnionPayCapabilitiesCache;
+    }
+
+    /**
+     * @return the {@link Configuration} if it has been fetched, otherwise {@code null}.
+     */
+    @Nullable
+    Configuration getConfiguration() {
+        return mConfiguration;
+    }
+
+    void setConfiguration(Configuration configuration) {
+        List<AnalyticsEvent> pendingAnalyticsEvents;
+        synchronized (mConfigurationFutures) {
+            mConfiguration = configuration;
+            pendingAnalyticsEvents = new ArrayList<>(mPendingAnalyticsEvents);
+            mPendingAnalyticsEvents.clear();
+        }
+
+        mHttpClient.setBaseUrl(configuration.getClientApiUrl());
+        for (AnalyticsEvent event : pendingAnalyticsEvents) {
+            addAnalyticsEvent(configuration, event);
+        }
+    }
+
+    boolean isFetchingConfiguration() {
+        synchronized (mConfigurationFutures) {
+            return mFetchingConfiguration;
+        }
+    }
+
+    /**
+     * Sets the listeners notified of each configuration request. Used by {@link BraintreeFragment} to deliver
+     * configuration through its callback queue.
+     */
+    void setConfigurationListeners(ConfigurationListener listener,
+            BraintreeResponseListener<Exception> errorListener) {
+        mConfigurationListener = listener;
+        mConfigurationErrorListener = errorListener;
+    }
+
+    void addAnalyticsEvent(Configuration configuration, AnalyticsEvent event) {
+        if (configuration.getAnalytics().isEnabled()) {
+            mAnalyticsDatabase.addEvent(event);
+        }
+    }
+
+    private void onConfigurationError(ConfigurationException exception) {
+        for (BraintreeFuture<Configuration> future : finishConfigurationRequest()) {
+            future.fail(exception);
+        }
+
+        if (mConfigurationErrorListener != null) {
+            mConfigurationErrorListener.onResponse(exception);
+        }
+    }
+
+    private List<BraintreeFuture<Configuration>> finishConfigurationRequest() {
+        synchronized (mConfigurationFutures) {
+            mFetchingConfiguration = false;
+            List<BraintreeFuture<Configuration>> futures = new ArrayList<>(mConfigurationFutures);
+            mConfigurationFutures.clear();
+            return futures;
+        }
+    }
+}
@@ -10,6 +10,8 @@ import android.net.Uri;
 import android.os.Build.VERSION;
 import android.os.Build.VERSION_CODES;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.os.Parcelable;
 import android.support.annotation.Nullable;
 import android.support.annotation.VisibleForTesting;
@@ -25,21 +27,25 @@ import com.braintreepayments.api.interfaces.BraintreeListener;
 import com.braintreepayments.api.interfaces.BraintreeResponseListener;
 import com.braintreepayments.api.interfaces.ConfigurationListener;
 import com.braintreepayments.api.interfaces.PaymentMethodNonceCreatedListener;
+import com.braintreepayments.api.interfaces.PaymentMethodNoncesDiffListener;
 import com.braintreepayments.api.interfaces.PaymentMethodNoncesUpdatedListener;
 import com.braintreepayments.api.interfaces.QueuedCallback;
 import com.braintreepayments.api.interfaces.UnionPayListener;
 import com.braintreepayments.api.internal.AnalyticsDatabase;
 import com.braintreepayments.api.internal.AnalyticsEvent;
-import com.braintreepayments.api.internal.AnalyticsIntentService;
-import com.braintreepayments.api.internal.AnalyticsSender;
 import com.braintreepayments.api.internal.BraintreeHttpClient;
+import com.braintreepayments.api.internal.BraintreeHttpClientRegistry;
+import com.braintreepayments.api.internal.ConfigurationCache;
 import com.braintreepayments.api.internal.IntegrationType;
+import com.braintreepayments.api.internal.LatencyHistograms;
+import com.braintreepayments.api.internal.TraceTimeline;
 import com.braintreepayments.api.internal.UUIDHelper;
 import com.braintreepayments.api.models.AndroidPayCardNonce;
 import com.braintreepayments.api.models.Authorization;
 import com.braintreepayments.api.models.BraintreeRequestCodes;
 import com.braintreepayments.api.models.Configuration;
 import com.braintreepayments.api.models.PaymentMethodNonce;
+import com.braintreepayments.api.models.PaymentMethodNoncesDiff;
 import com.braintreepayments.api.models.TokenizationKey;
 import com.braintreepayments.api.models.UnionPayCapabilities;
 import com.braintreepayments.browserswitch.BrowserSwitchFragment;
@@ -49,14 +55,11 @@ import com.google.android.gms.common.api.GoogleApiClient.ConnectionCallbacks;
 import com.google.android.gms.common.api.GoogleApiClient.OnConnectionFailedListener;
 import com.google.android.gms.wallet.Wallet;
 import com.google.android.gms.wallet.WalletConstants;
+import com.paypal.android.sdk.onetouch.core.sdk.CustomTabsHelper;
 
-import org.json.JSONException;
-
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Queue;
 
 /**
  * Core Braintree class that handles network requests and managing callbacks.
@@ -70,28 +73,25 @@ public class BraintreeFragment extends BrowserSwitchFragment {
     private static final String EXTRA_SESSION_ID = "com.braintreepayments.api.EXTRA_SESSION_ID";
 
     @VisibleForTesting
-    static final String EXTRA_CONFIGURATION = "com.braintreepayments.api.EXTRA_CONFIGURATION";
+    static final String EXTRA_CONFIGURATION_KEY = "com.braintreepayments.api.EXTRA_CONFIGURATION_KEY";
     @VisibleForTesting
     static final String EXTRA_CACHED_PAYMENT_METHOD_NONCES = "com.braintreepayments.api.EXTRA_CACHED_PAYMENT_METHOD_NONCES";
     @VisibleForTesting
     static final String EXTRA_FETCHED_PAYMENT_METHOD_NONCES = "com.braintreepayments.api.EXTRA_FETCHED_PAYMENT_METHOD_NONCES";
 
-    @VisibleForTesting
-    protected BraintreeHttpClient mHttpClient;
     @VisibleForTesting
     protected GoogleApiClient mGoogleApiClient;
 
     private CrashReporter mCrashReporter;
-    private Authorization mAuthorization;
-    private Configuration mConfiguration;
-    private final Queue<QueuedCallback> mCallbackQueue = new ArrayDeque<>();
+    private BraintreeClient mBraintreeClient;
+    private final CallbackQueue mCallbackQueue = new CallbackQueue();
     private final List<PaymentMethodNonce> mCachedPaymentMethodNonces = new ArrayList<>();
     private boolean mHasFetchedPaymentMethodNonces = false;
+    private boolean mPaymentMethodNoncesFromVaultCache;
     private boolean mNewActivityNeedsConfiguration;
-    private int mConfigurationRequestAttempts = 0;
-    private String mIntegrationType;
-    private String mSessionId;
-    private AnalyticsDatabase mAnalyticsDatabase;
+    private boolean mBrowserSwitchWarmedUp;
+    private final TraceTimeline mStartupTrace = new TraceTimeline();
+    private long mFirstConfigurationRequestStart = -1;
 
     private ConfigurationListener mConfigurationListener;
     private BraintreeResponseListener<Exception> mConfigurationErrorListener;
@@ -164,6 +164,7 @@ public class BraintreeFragment extends BrowserSwitchFragment {
 
     @Override
     public void onCreate(Bundle savedInstanceState) {
+        long onCreateStart = mStartupTrace.begin("onCreate");
         super.onCreate(savedInstanceState);
         setRetainInstance(true);
 
@@ -172,17 +173,68 @@ public class BraintreeFragment extends BrowserSwitchFragment {
         }
 
         mNewActivityNeedsConfiguration = false;
-        mCrashReporter = CrashReporter.setup(this);
-        mSessionId = getArguments().getString(EXTRA_SESSION_ID);
-        mIntegrationType = getArguments().getString(EXTRA_INTEGRATION_TYPE);
-        mAuthorization = getArguments().getParcelable(EXTRA_AUTHORIZATION_TOKEN);
-        mAnalyticsDatabase = AnalyticsDatabase.getInstance(getApplicationContext());
 
-        if (mHttpClient == null) {
-            mHttpClient = new BraintreeHttpClient(mAuthorization);
+        long sectionStart = mStartupTrace.begin("CrashReporter.setup");
+        mCrashReporter = CrashReporter.setup(this);
+        mStartupTrace.end("CrashReporter.setup", sectionStart);
+
+        if (mBraintreeClient == null) {
+            sectionStart = mStartupTrace.begin("Authorization.unparcel");
+            String sessionId = getArguments().getString(EXTRA_SESSION_ID);
+            String integrationType = getArguments().getString(EXTRA_INTEGRATION_TYPE);
+            Authorization authorization = getArguments().getParcelable(EXTRA_AUTHORIZATION_TOKEN);
+            mStartupTrace.end("Authorization.unparcel", sectionStart);
+
+            sectionStart = mStartupTrace.begin("AnalyticsDatabase.getInstance");
+            AnalyticsDatabase analyticsDatabase = AnalyticsDatabase.getInstance(getApplicationContext());
+            mStartupTrace.end("AnalyticsDatabase.getInstance", sectionStart);
+
+            sectionStart = mStartupTrace.begin("BraintreeHttpClient.init");
+            BraintreeHttpClient httpClient = BraintreeHttpClientRegistry.acquire(authorization);
+            httpClient.setHttpEventListener(LatencyHistograms.getInstance(getApplicationContext()), false);
+            mStartupTrace.end("BraintreeHttpClient.init", sectionStart);
+
+            mBraintreeClient = new BraintreeClient(getApplicationContext(), authorization, sessionId,
+                    integrationType, httpClient, analyticsDatabase);
+            mBraintreeClient.setConfigurationListeners(new ConfigurationListener() {
+                @Override
+                public void onConfigurationFetched(Configuration configuration) {
+                    runOnMainThread(new Runnable() {
+                        @Override
+                        public void run() {
+                            recordFirstConfigurationResponse("firstConfigurationCallback");
+                            postConfigurationCallback();
+                            flushCallbacks(Configuration.class);
+                        }
+                    });
+                }
+            }, new BraintreeResponseListener<Exception>() {
+                @Override
+                public void onResponse(final Exception exception) {
+                    runOnMainThread(new Runnable() {
+                        @Override
+                        public void run() {
+                            recordFirstConfigurationResponse("firstConfigurationError");
+                            postCallback(exception);
+                            postOrQueueCallback(BraintreeResponseListener.class, new QueuedCallback() {
+                                @Override
+                                public boolean shouldRun() {
+                                    return mConfigurationErrorListener != null;
+                                }
+
+                                @Override
+                                public void run() {
+                                    mConfigurationErrorListener.onResponse(exception);
+                                }
+                            });
+                        }
+                    });
+                }
+            });
         }
 
         if (savedInstanceState != null) {
+            sectionStart = mStartupTrace.begin("restoreInstanceState");
             List<PaymentMethodNonce> paymentMethodNonces =
                     savedInstanceState.getParcelableArrayList(EXTRA_CACHED_PAYMENT_METHOD_NONCES);
             if (paymentMethodNonces != null) {
@@ -190,18 +242,31 @@ public class BraintreeFragment extends BrowserSwitchFragment {
             }
 
             mHasFetchedPaymentMethodNonces = savedInstanceState.getBoolean(EXTRA_FETCHED_PAYMENT_METHOD_NONCES);
-            try {
-                setConfiguration(Configuration.fromJson(savedInstanceState.getString(EXTRA_CONFIGURATION)));
-            } catch (JSONException ignored) {}
+
+            Configuration configuration =
+                    ConfigurationCache.get(mContext, savedInstanceState.getString(EXTRA_CONFIGURATION_KEY));
+            if (configuration != null) {
+                setConfiguration(configuration);
+            }
+            mStartupTrace.end("restoreInstanceState", sectionStart);
         } else {
-            if (mAuthorization instanceof TokenizationKey) {
+            sectionStart = mStartupTrace.begin("sendAnalyticsEvent");
+            if (getAuthorization() instanceof TokenizationKey) {
                 sendAnalyticsEvent("started.client-key");
             } else {
                 sendAnalyticsEvent("started.client-token");
             }
+            mStartupTrace.end("sendAnalyticsEvent", sectionStart);
         }
 
+        sectionStart = mStartupTrace.begin("fetchConfiguration");
+        if (getConfiguration() == null) {
+            mFirstConfigurationRequestStart = sectionStart;
+        }
         fetchConfiguration();
+        mStartupTrace.end("fetchConfiguration", sectionStart);
+
+        mStartupTrace.end("onCreate", onCreateStart);
     }
 
     @TargetApi(VERSION_CODES.M)
@@ -230,7 +295,7 @@ public class BraintreeFragment extends BrowserSwitchFragment {
             }
         }
 
-        flushCallbacks();
+        flushCallbacks(Configuration.class);
 
         if (mGoogleApiClient != null && !mGoogleApiClient.isConnected() &&
                 !mGoogleApiClient.isConnecting()) {
@@ -254,8 +319,10 @@ public class BraintreeFragment extends BrowserSwitchFragment {
                 (ArrayList<? extends Parcelable>) mCachedPaymentMethodNonces);
         outState.putBoolean(EXTRA_FETCHED_PAYMENT_METHOD_NONCES, mHasFetchedPaymentMethodNonces);
 
-        if (mConfiguration != null) {
-            outState.putString(EXTRA_CONFIGURATION, mConfiguration.toJson());
+        if (getConfiguration() != null) {
+            String configurationKey = ConfigurationCache.getKey(getAuthorization());
+            ConfigurationCache.remember(configurationKey, getConfiguration());
+            outState.putString(EXTRA_CONFIGURATION_KEY, configurationKey);
         }
     }
 
@@ -285,6 +352,16 @@ public class BraintreeFragment extends BrowserSwitchFragment {
         super.onDestroy();
 
         mCrashReporter.tearDown();
+
+        if (mBraintreeClient != null) {
+            mBraintreeClient.cancelAllRequests();
+            mBraintreeClient.shutdown();
+        }
+
+        if (mBrowserSwitchWarmedUp) {
+            mBrowserSwitchWarmedUp = false;
+            CustomTabsHelper.unbind(mContext);
+        }
     }
 
     @Override
@@ -345,31 +422,39 @@ public class BraintreeFragment extends BrowserSwitchFragment {
      * @param listener the listener to add.
      */
     public <T extends BraintreeListener> void addListener(T listener) {
+        List<Class<?>> listenerTypes = new ArrayList<>();
+
         if (listener instanceof ConfigurationListener) {
             mConfigurationListener = (ConfigurationListener) listener;
+            listenerTypes.add(ConfigurationListener.class);
         }
 
         if (listener instanceof BraintreeCancelListener) {
             mCancelListener = (BraintreeCancelListener) listener;
+            listenerTypes.add(BraintreeCancelListener.class);
         }
 
         if (listener instanceof PaymentMethodNoncesUpdatedListener) {
             mPaymentMethodNoncesUpdatedListener = (PaymentMethodNoncesUpdatedListener) listener;
+            listenerTypes.add(PaymentMethodNoncesUpdatedListener.class);
         }
 
         if (listener instanceof PaymentMethodNonceCreatedListener) {
             mPaymentMethodNonceCreatedListener = (PaymentMethodNonceCreatedListener) listener;
+            listenerTypes.add(PaymentMethodNonceCreatedListener.class);
         }
 
         if (listener instanceof BraintreeErrorListener) {
             mErrorListener = (BraintreeErrorListener) listener;
+            listenerTypes.add(BraintreeErrorListener.class);
         }
 
         if (listener instanceof UnionPayListener) {
             mUnionPayListener = (UnionPayListener) listener;
+            listenerTypes.add(UnionPayListener.class);
         }
 
-        flushCallbacks();
+        mCallbackQueue.drain(listenerTypes);
     }
 
     /**
@@ -459,35 +544,24 @@ public class BraintreeFragment extends BrowserSwitchFragment {
     }
 
     public void sendAnalyticsEvent(final String eventFragment) {
-        final AnalyticsEvent request = new AnalyticsEvent(mContext, getSessionId(), mIntegrationType, eventFragment);
+        final AnalyticsEvent request = new AnalyticsEvent(mContext, getSessionId(), getIntegrationType(),
+                eventFragment);
         waitForConfiguration(new ConfigurationListener() {
             @Override
             public void onConfigurationFetched(Configuration configuration) {
-                if (configuration.getAnalytics().isEnabled()) {
-                    mAnalyticsDatabase.addEvent(request);
-                }
+                mBraintreeClient.addAnalyticsEvent(configuration, request);
             }
         });
     }
 
     private void flushAnalyticsEvents() {
-        if (getConfiguration() != null && getConfiguration().toJson() != null &&
-                getConfiguration().getAnalytics().isEnabled()) {
-            Intent intent = new Intent(mContext, AnalyticsIntentService.class)
-                    .putExtra(AnalyticsIntentService.EXTRA_AUTHORIZATION, getAuthorization().toString())
-                    .putExtra(AnalyticsIntentService.EXTRA_CONFIGURATION, getConfiguration().toJson());
-
-            try {
-                getApplicationContext().startService(intent);
-            } catch (RuntimeException e) {
-                AnalyticsSender.send(getApplicationContext(), mAuthorization, getHttpClient(),
-                        getConfiguration().getAnalytics().getUrl(), false);
-            }
+        if (mBraintreeClient != null) {
+            mBraintreeClient.flushAnalyticsEvents();
         }
     }
 
     protected void postConfigurationCallback() {
-        postOrQueueCallback(new QueuedCallback() {
+        postOrQueueCallback(ConfigurationListener.class, new QueuedCallback() {
             @Override
             public boolean shouldRun() {
                 return mConfigurationListener != null;
@@ -501,7 +575,7 @@ public class BraintreeFragment extends BrowserSwitchFragment {
     }
 
     protected void postCancelCallback(final int requestCode) {
-        postOrQueueCallback(new QueuedCallback() {
+        postOrQueueCallback(BraintreeCancelListener.class, new QueuedCallback() {
             @Override
             public boolean shouldRun() {
                 return mCancelListener != null;
@@ -525,7 +599,7 @@ public class BraintreeFragment extends BrowserSwitchFragment {
 
         mCachedPaymentMethodNonces.add(0, paymentMethodNonce);
 
-        postOrQueueCallback(new QueuedCallback() {
+        postOrQueueCallback(PaymentMethodNonceCreatedListener.class, new QueuedCallback() {
             @Override
             public boolean shouldRun() {
                 return mPaymentMethodNonceCreatedListener != null;
@@ -539,7 +613,7 @@ public class BraintreeFragment extends BrowserSwitchFragment {
     }
 
     protected void postCallback(final UnionPayCapabilities capabilities) {
-        postOrQueueCallback(new QueuedCallback() {
+        postOrQueueCallback(UnionPayListener.class, new QueuedCallback() {
             @Override
             public boolean shouldRun() {
                 return mUnionPayListener != null;
@@ -553,7 +627,7 @@ public class BraintreeFragment extends BrowserSwitchFragment {
     }
 
     protected void postUnionPayCallback(final String enrollmentId, final boolean smsCodeRequired) {
-        postOrQueueCallback(new QueuedCallback() {
+        postOrQueueCallback(UnionPayListener.class, new QueuedCallback() {
             @Override
             public boolean shouldRun() {
                 return mUnionPayListener != null;
@@ -567,10 +641,17 @@ public class BraintreeFragment extends BrowserSwitchFragment {
     }
 
     protected void postCallback(final List<PaymentMethodNonce> paymentMethodNonceList) {
+        if (mPaymentMethodNoncesFromVaultCache && acceptsVaultCachedPaymentMethodNonces()) {
+            postPaymentMethodNoncesDiff(PaymentMethodNoncesDiff.between(mCachedPaymentMethodNonces,
+                    paymentMethodNonceList));
+            return;
+        }
+
+        mPaymentMethodNoncesFromVaultCache = false;
         mCachedPaymentMethodNonces.clear();
         mCachedPaymentMethodNonces.addAll(paymentMethodNonceList);
         mHasFetchedPaymentMethodNonces = true;
-        postOrQueueCallback(new QueuedCallback() {
+        postOrQueueCallback(PaymentMethodNoncesUpdatedListener.class, new QueuedCallback() {
             @Override
             public boolean shouldRun() {
                 return mPaymentMethodNoncesUpdatedListener != null;
@@ -583,8 +664,69 @@ public class BraintreeFragment extends BrowserSwitchFragment {
         });
     }
 
+    /**
+     * @return {@code true} if the {@link PaymentMethodNoncesUpdatedListener} opted in to {@link PaymentMethodNonce}s
+     *         from the {@link VaultCache} by implementing {@link PaymentMethodNoncesDiffListener}.
+     */
+    protected boolean acceptsVaultCachedPaymentMethodNonces() {
+        return mPaymentMethodNoncesUpdatedListener instanceof PaymentMethodNoncesDiffListener;
+    }
+
+    /**
+     * Shows {@link PaymentMethodNonce}s from the {@link VaultCache} until the current ones are fetched, if the
+     * listener {@link #acceptsVaultCachedPaymentMethodNonces() accepts them}. The next {@link #postCallback(List)} is
+     * delivered as a {@link PaymentMethodNoncesDiff} from these.
+     */
+    protected void postVaultCacheCallback(final List<PaymentMethodNonce> paymentMethodNonceList) {
+        if (!acceptsVaultCachedPaymentMethodNonces()) {
+            return;
+        }
+
+        mCachedPaymentMethodNonces.clear();
+        mCachedPaymentMethodNonces.addAll(paymentMethodNonceList);
+        mPaymentMethodNoncesFromVaultCache = true;
+        postOrQueueCallback(PaymentMethodNoncesUpdatedListener.class, new QueuedCallback() {
+            @Override
+            public boolean shouldRun() {
+                return mPaymentMethodNoncesUpdatedListener != null;
+            }
+
+            @Override
+            public void run() {
+                mPaymentMethodNoncesUpdatedListener.onPaymentMethodNoncesUpdated(paymentMethodNonceList);
+            }
+        });
+    }
+
+    private void postPaymentMethodNoncesDiff(final PaymentMethodNoncesDiff diff) {
+        mCachedPaymentMethodNonces.clear();
+        mCachedPaymentMethodNonces.addAll(diff.getPaymentMethodNonces());
+        mHasFetchedPaymentMethodNonces = true;
+        mPaymentMethodNoncesFromVaultCache = false;
+        if (diff.isEmpty()) {
+            return;
+        }
+
+        postOrQueueCallback(PaymentMethodNoncesUpdatedListener.class, new QueuedCallback() {
+            @Override
+            public boolean shouldRun() {
+                return mPaymentMethodNoncesUpdatedListener != null;
+            }
+
+            @Override
+            public void run() {
+                if (mPaymentMethodNoncesUpdatedListener instanceof PaymentMethodNoncesDiffListener) {
+                    ((PaymentMethodNoncesDiffListener) mPaymentMethodNoncesUpdatedListener)
+                            .onPaymentMethodNoncesChanged(diff);
+                } else {
+                    mPaymentMethodNoncesUpdatedListener.onPaymentMethodNoncesUpdated(diff.getPaymentMethodNonces());
+                }
+            }
+        });
+    }
+
     protected void postCallback(final Exception error) {
-        postOrQueueCallback(new QueuedCallback() {
+        postOrQueueCallback(BraintreeErrorListener.class, new QueuedCallback() {
             @Override
             public boolean shouldRun() {
                 return mErrorListener != null;
@@ -606,71 +748,55 @@ public class BraintreeFragment extends BrowserSwitchFragment {
         }
     }
 
+    /**
+     * Runs {@code callback} now if it can run, otherwise queues it until {@link #flushCallbacks(Class)} is called for
+     * {@code waitsFor}.
+     *
+     * @param waitsFor the listener interface, or other type such as {@link Configuration}, {@code callback} is
+     * waiting for.
+     */
+    protected void postOrQueueCallback(Class<?> waitsFor, QueuedCallback callback) {
+        if (!callback.shouldRun()) {
+            mCallbackQueue.add(waitsFor, callback);
+        } else {
+            callback.run();
+        }
+    }
+
     @VisibleForTesting
     protected void flushCallbacks() {
-        Queue<QueuedCallback> queue = new ArrayDeque<>();
-        queue.addAll(mCallbackQueue);
-        for (QueuedCallback callback : queue) {
-            if (callback.shouldRun()) {
-                callback.run();
-                mCallbackQueue.remove(callback);
-            }
-        }
+        mCallbackQueue.drainAll();
+    }
+
+    /**
+     * Runs the queued callbacks waiting for {@code waitsFor} that can run now.
+     */
+    protected void flushCallbacks(Class<?> waitsFor) {
+        mCallbackQueue.drain(Collections.<Class<?>>singletonList(waitsFor));
     }
 
     @VisibleForTesting
     protected void fetchConfiguration() {
-        if (getConfiguration() != null || ConfigurationManager.isFetchingConfiguration() || mAuthorization == null ||
-                mHttpClient == null) {
+        if (getConfiguration() != null || mBraintreeClient == null) {
             return;
         }
 
-        if (mConfigurationRequestAttempts >= 3) {
-            postCallback(new ConfigurationException("Configuration retry limit has been exceeded. Create a new " +
-                    "BraintreeFragment and try again."));
-            return;
-        }
-
-        mConfigurationRequestAttempts++;
-
-        ConfigurationManager.getConfiguration(this, new ConfigurationListener() {
-            @Override
-            public void onConfigurationFetched(Configuration configuration) {
-                setConfiguration(configuration);
-                postConfigurationCallback();
-                flushCallbacks();
-            }
-        }, new BraintreeResponseListener<Exception>() {
-            @Override
-            public void onResponse(final Exception e) {
-                final ConfigurationException exception =
-                        new ConfigurationException("Request for configuration has failed: " + e.getMessage() + ". " +
-                                "Future requests will retry up to 3 times", e);
-                postCallback(exception);
-                postOrQueueCallback(new QueuedCallback() {
-                    @Override
-                    public boolean shouldRun() {
-                        return mConfigurationErrorListener != null;
-                    }
-
-                    @Override
-                    public void run() {
-                        mConfigurationErrorListener.onResponse(exception);
-                    }
-                });
-                flushCallbacks();
-            }
-        });
+        mBraintreeClient.fetchConfiguration();
     }
 
+    /**
+     * Sets the listener for configuration errors. An error that occurred before a listener was set is delivered to it
+     * now.
+     */
     protected void setConfigurationErrorListener(BraintreeResponseListener<Exception> listener) {
         mConfigurationErrorListener = listener;
+        flushCallbacks(BraintreeResponseListener.class);
     }
 
     protected void waitForConfiguration(final ConfigurationListener listener) {
         fetchConfiguration();
 
-        postOrQueueCallback(new QueuedCallback() {
+        postOrQueueCallback(Configuration.class, new QueuedCallback() {
             @Override
             public boolean shouldRun() {
                 return getConfiguration() != null && isAdded();
@@ -684,7 +810,7 @@ public class BraintreeFragment extends BrowserSwitchFragment {
     }
 
     protected Authorization getAuthorization() {
-        return mAuthorization;
+        return mBraintreeClient.getAuthorization();
     }
 
     protected Context getApplicationContext() {
@@ -692,24 +818,69 @@ public class BraintreeFragment extends BrowserSwitchFragment {
     }
 
     protected Configuration getConfiguration() {
-        return mConfiguration;
+        return mBraintreeClient == null ? null : mBraintreeClient.getConfiguration();
     }
 
     protected void setConfiguration(Configuration configuration) {
-        mConfiguration = configuration;
-        getHttpClient().setBaseUrl(configuration.getClientApiUrl());
+        mBraintreeClient.setConfiguration(configuration);
+    }
+
+    /**
+     * Returns the {@link Configuration} as a {@link BraintreeFuture}, fetching it if it has not been fetched yet.
+     * Unlike {@link #waitForConfiguration(ConfigurationListener)} the result is not routed through the callback
+     * queue, so it does not depend on an {@link Activity} being attached.
+     *
+     * @return a {@link BraintreeFuture} that succeeds with the {@link Configuration} or fails with a
+     * {@link ConfigurationException}.
+     */
+    public BraintreeFuture<Configuration> getConfigurationFuture() {
+        return mBraintreeClient.fetchConfiguration();
+    }
+
+    /**
+     * @return the {@link BraintreeClient} backing this fragment. It can be used for flows that do not need an
+     * {@link Activity}, and shares authorization, {@link Configuration}, session and analytics with this
+     * fragment. It is shut down when this fragment is destroyed.
+     */
+    public BraintreeClient getBraintreeClient() {
+        return mBraintreeClient;
+    }
+
+    private void recordFirstConfigurationResponse(String name) {
+        if (mFirstConfigurationRequestStart != -1) {
+            mStartupTrace.record(name, mFirstConfigurationRequestStart);
+            mFirstConfigurationRequestStart = -1;
+        }
+    }
+
+    private void runOnMainThread(Runnable runnable) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            runnable.run();
+        } else {
+            new Handler(Looper.getMainLooper()).post(runnable);
+        }
     }
 
     protected BraintreeHttpClient getHttpClient() {
-        return mHttpClient;
+        return mBraintreeClient.getHttpClient();
     }
 
     protected String getSessionId() {
-        return mSessionId;
+        return mBraintreeClient.getSessionId();
     }
 
     protected String getIntegrationType() {
-        return mIntegrationType;
+        return mBraintreeClient.getIntegrationType();
+    }
+
+    /**
+     * @return the {@link TraceTimeline} of this fragment's initialization. Each step of {@link #onCreate(Bundle)}
+     * is recorded as a section, along with the time until the first configuration response
+     * ({@code firstConfigurationCallback} or {@code firstConfigurationError}). Synchronous steps are also
+     * emitted as system trace markers prefixed with {@code Braintree:}.
+     */
+    public TraceTimeline getStartupTrace() {
+        return mStartupTrace;
     }
 
     /**
@@ -775,4 +946,15 @@ public class BraintreeFragment extends BrowserSwitchFragment {
 
         return mGoogleApiClient;
     }
+
+    /**
+     * Binds a Custom Tabs session and warms up the browser so a browser switch that is about to start opens
+     * faster. Binds at most once per fragment; the session is released when the fragment is destroyed.
+     */
+    protected void warmUpBrowserSwitch() {
+        if (!mBrowserSwitchWarmedUp) {
+            mBrowserSwitchWarmedUp = true;
+            CustomTabsHelper.bind(mContext);
+        }
+    }
 }
@@ -0,0 +1,486 @@
+package com.braintreepayments.api;
+
+import android.support.annotation.Nullable;
+
+import com.braintreepayments.api.internal.HttpRequest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The result of an asynchronous SDK operation that can be composed with other operations.
+ * <p/>
+ * Unlike the listener API, results are not routed through {@link BraintreeFragment}'s callback queue. Functions
+ * passed to {@link #then(Function)} and {@link #thenAsync(AsyncFunction)} and callbacks added with
+ * {@link #addCallback(Callback)} run on the thread that completes the previous step, which is usually an SDK
+ * network thread. Use {@link #addCallback(Executor, Callback)} to receive the result on a specific thread.
+ *
+ * @param <T> the type of the result.
+ */
+public class BraintreeFuture<T> {
+
+    /**
+     * Synchronously transforms the result of a {@link BraintreeFuture}.
+     */
+    public interface Function<I, O> {
+        O apply(I input) throws Exception;
+    }
+
+    /**
+     * Starts another asynchronous operation with the result of a {@link BraintreeFuture}.
+     */
+    public interface AsyncFunction<I, O> {
+        BraintreeFuture<O> apply(I input) throws Exception;
+    }
+
+    /**
+     * Receives the outcome of a {@link BraintreeFuture}. Exactly one method is called.
+     */
+    public interface Callback<T> {
+        void onSuccess(T result);
+
+        void onFailure(Exception exception);
+    }
+
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private final Object mLock = new Object();
+    private final List<Runnable> mListeners = new ArrayList<>();
+    private final CountDownLatch mDoneLatch = new CountDownLatch(1);
+
+    private boolean mDone;
+    private T mResult;
+    private Exception mException;
+    private BraintreeFuture<?> mUpstream;
+    private HttpRequest mHttpRequest;
+    private int mDerivedFutures;
+
+    BraintreeFuture() {}
+
+    /**
+     * @return a {@link BraintreeFuture} that has already succeeded with {@code result}.
+     */
+    public static <T> BraintreeFuture<T> completed(T result) {
+        BraintreeFuture<T> future = new BraintreeFuture<>();
+        future.complete(result);
+        return future;
+    }
+
+    /**
+     * @return a {@link BraintreeFuture} that has already failed with {@code exception}.
+     */
+    public static <T> BraintreeFuture<T> failed(Exception exception) {
+        BraintreeFuture<T> future = new BraintreeFuture<>();
+        future.fail(exception);
+        return future;
+    }
+
+    /**
+     * @return a {@link BraintreeFuture} that succeeds with {@code null} once {@code delay} has elapsed. The
+     * callbacks run on a shared scheduler thread and must not block.
+     */
+    static BraintreeFuture<Void> delay(long delay, TimeUnit unit) {
+        final BraintreeFuture<Void> future = new BraintreeFuture<>();
+        TimeoutScheduler.SCHEDULER.schedule(new Runnable() {
+            @Override
+            public void run() {
+                future.complete(null);
+            }
+        }, delay, unit);
+        return future;
+    }
+
+    /**
+     * Combines several futures that run concurrently.
+     *
+     * @return a {@link BraintreeFuture} that succeeds with the results in the same order once all futures
+     * succeed, or fails with the first failure.
+     */
+    public static <T> BraintreeFuture<List<T>> all(final List<BraintreeFuture<T>> futures) {
+        final BraintreeFuture<List<T>> combined = new BraintreeFuture<>();
+        if (futures.isEmpty()) {
+            combined.complete(Collections.<T>emptyList());
+            return combined;
+        }
+
+        final Object[] results = new Object[futures.size()];
+        final AtomicInteger remaining = new AtomicInteger(futures.size());
+        for (int i = 0; i < futures.size(); i++) {
+            final int index = i;
+            futures.get(i).retain();
+            futures.get(i).addCallback(new Callback<T>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public void onSuccess(T result) {
+                    results[index] = result;
+                    if (remaining.decrementAndGet() == 0) {
+                        List<T> list = new ArrayList<>(results.length);
+                        for (Object value : results) {
+                            list.add((T) value);
+                        }
+                        combined.complete(list);
+                    }
+                }
+
+                @Override
+                public void onFailure(Exception exception) {
+                    if (combined.fail(exception)) {
+                        for (BraintreeFuture<T> future : futures) {
+                            future.release();
+                        }
+                    }
+                }
+            });
+        }
+
+        return combined;
+    }
+
+    /**
+     * @param function applied to the result once this future succeeds.
+     * @return a {@link BraintreeFuture} for the transformed result. Failures of this future, or exceptions
+     * thrown by {@code function}, fail the returned future.
+     */
+    public <O> BraintreeFuture<O> then(final Function<? super T, O> function) {
+        final BraintreeFuture<O> next = new BraintreeFuture<>();
+        next.mUpstream = this;
+        retain();
+        addCallback(new Callback<T>() {
+            @Override
+            public void onSuccess(T result) {
+                try {
+                    next.complete(function.apply(result));
+                } catch (Exception e) {
+                    next.fail(e);
+                }
+            }
+
+            @Override
+            public void onFailure(Exception exception) {
+                next.fail(exception);
+            }
+        });
+
+        return next;
+    }
+
+    /**
+     * @param function started with the result once this future succeeds.
+     * @return a {@link BraintreeFuture} that completes with the future returned by {@code function}.
+     */
+    public <O> BraintreeFuture<O> thenAsync(final AsyncFunction<? super T, O> function) {
+        final BraintreeFuture<O> next = new BraintreeFuture<>();
+        next.mUpstream = this;
+        retain();
+        addCallback(new Callback<T>() {
+            @Override
+            public void onSuccess(T result) {
+                BraintreeFuture<O> inner;
+                try {
+                    inner = function.apply(result);
+                } catch (Exception e) {
+                    next.fail(e);
+                    return;
+                }
+
+                inner.retain();
+                synchronized (next.mLock) {
+                    next.mUpstream = inner;
+                }
+                inner.addCallback(new Callback<O>() {
+                    @Override
+                    public void onSuccess(O innerResult) {
+                        next.complete(innerResult);
+                    }
+
+                    @Override
+                    public void onFailure(Exception exception) {
+                        next.fail(exception);
+                    }
+                });
+
+                if (next.isCancelled()) {
+                    inner.release();
+                }
+            }
+
+            @Override
+            public void onFailure(Exception exception) {
+                next.fail(exception);
+            }
+        });
+
+        return next;
+    }
+
+    /**
+     * @return a {@link BraintreeFuture} that fails with a {@link TimeoutException} if this future has not
+     * completed within the given time. The underlying operation is cancelled on timeout.
+     */
+    public BraintreeFuture<T> timeout(long timeout, TimeUnit unit) {
+        final BraintreeFuture<T> next = new BraintreeFuture<>();
+        next.mUpstream = this;
+        retain();
+
+        final ScheduledFuture<?> timer = TimeoutScheduler.SCHEDULER.schedule(new Runnable() {
+            @Override
+            public void run() {
+                if (next.fail(new TimeoutException("Operation did not complete in time"))) {
+                    release();
+                }
+            }
+        }, timeout, unit);
+
+        addCallback(new Callback<T>() {
+            @Override
+            public void onSuccess(T result) {
+                timer.cancel(false);
+                next.complete(result);
+            }
+
+            @Override
+            public void onFailure(Exception exception) {
+                timer.cancel(false);
+                next.fail(exception);
+            }
+        });
+
+        return next;
+    }
+
+    /**
+     * Cancels this future and the operation it depends on. Callbacks receive a {@link CancellationException}.
+     * <p/>
+     * The operation a future was derived from with {@link #then(Function)}, {@link #thenAsync(AsyncFunction)} or
+     * {@link #timeout(long, TimeUnit)} may be shared by other derived futures. It is only cancelled once every future
+     * derived from it has been cancelled.
+     *
+     * @return {@code true} if the future was cancelled, {@code false} if it had already completed.
+     */
+    public boolean cancel() {
+        BraintreeFuture<?> upstream;
+        HttpRequest httpRequest;
+        synchronized (mLock) {
+            upstream = mUpstream;
+            httpRequest = mHttpRequest;
+        }
+
+        if (!fail(new CancellationException("Operation was cancelled"))) {
+            return false;
+        }
+
+        if (upstream != null) {
+            upstream.release();
+        }
+        if (httpRequest != null) {
+            httpRequest.cancel();
+        }
+
+        return true;
+    }
+
+    /**
+     * Records a future derived from this one, which keeps this future from being cancelled by {@link #release()}
+     * while it is waiting.
+     */
+    private void retain() {
+        synchronized (mLock) {
+            mDerivedFutures++;
+        }
+    }
+
+    /**
+     * Called when a future derived from this one no longer needs its result. Cancels this future once no derived
+     * future is waiting for it.
+     */
+    private void release() {
+        synchronized (mLock) {
+            if (mDerivedFutures > 0 && --mDerivedFutures > 0) {
+                return;
+            }
+        }
+
+        cancel();
+    }
+
+    public boolean isDone() {
+        synchronized (mLock) {
+            return mDone;
+        }
+    }
+
+    public boolean isCancelled() {
+        synchronized (mLock) {
+            return mException instanceof CancellationException;
+        }
+    }
+
+    /**
+     * Adds a callback that runs on the thread completing this future, or immediately on the calling thread
+     * if it has already completed.
+     *
+     * @return this {@link BraintreeFuture} for chaining.
+     */
+    public BraintreeFuture<T> addCallback(Callback<? super T> callback) {
+        return addCallback(DIRECT_EXECUTOR, callback);
+    }
+
+    /**
+     * Adds a callback that runs on {@code executor}.
+     *
+     * @return this {@link BraintreeFuture} for chaining.
+     */
+    public BraintreeFuture<T> addCallback(final Executor executor, final Callback<? super T> callback) {
+        Runnable listener = new Runnable() {
+            @Override
+            public void run() {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (mException == null) {
+                            callback.onSuccess(mResult);
+                        } else {
+                            callback.onFailure(mException);
+                        }
+                    }
+                });
+            }
+        };
+
+        synchronized (mLock) {
+            if (!mDone) {
+                mListeners.add(listener);
+                return this;
+            }
+        }
+
+        listener.run();
+        return this;
+    }
+
+    /**
+     * Blocks until the future completes. Must not be called on the main thread.
+     *
+     * @return the result.
+     * @throws ExecutionException wrapping the failure if the future failed.
+     * @throws CancellationException if the future was cancelled.
+     */
+    public T get() throws InterruptedException, ExecutionException {
+        mDoneLatch.await();
+        return getResult();
+    }
+
+    /**
+     * Blocks until the future completes or the timeout elapses. Must not be called on the main thread.
+     *
+     * @throws TimeoutException if the future did not complete in time.
+     * @see #get()
+     */
+    public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        if (!mDoneLatch.await(timeout, unit)) {
+            throw new TimeoutException("Operation did not complete in time");
+        }
+        return getResult();
+    }
+
+    private T getResult() throws ExecutionException {
+        synchronized (mLock) {
+            if (mException instanceof CancellationException) {
+                throw (CancellationException) mException;
+            } else if (mException != null) {
+                throw new ExecutionException(mException);
+            }
+            return mResult;
+        }
+    }
+
+    /**
+     * Sets the HTTP request this future is waiting for, so cancelling the future aborts the request and
+     * cancelling the request, e.g. when a {@link BraintreeFragment} is destroyed, cancels the future.
+     */
+    void setHttpRequest(@Nullable HttpRequest httpRequest) {
+        if (httpRequest == null) {
+            return;
+        }
+
+        httpRequest.setCancellationListener(new Runnable() {
+            @Override
+            public void run() {
+                cancel();
+            }
+        });
+
+        synchronized (mLock) {
+            if (!mDone) {
+                mHttpRequest = httpRequest;
+                return;
+            }
+        }
+
+        if (isCancelled()) {
+            httpRequest.cancel();
+        }
+    }
+
+    boolean complete(@Nullable T result) {
+        return finish(result, null);
+    }
+
+    boolean fail(Exception exception) {
+        return finish(null, exception);
+    }
+
+    private boolean finish(T result, Exception exception) {
+        List<Runnable> listeners;
+        synchronized (mLock) {
+            if (mDone) {
+                return false;
+            }
+
+            mDone = true;
+            mResult = result;
+            mException = exception;
+            mUpstream = null;
+            mHttpRequest = null;
+            listeners = new ArrayList<>(mListeners);
+            mListeners.clear();
+        }
+
+        mDoneLatch.countDown();
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+
+        return true;
+    }
+
+    private static class TimeoutScheduler {
+
+        static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "BraintreeFuture-timeout");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+    }
+}
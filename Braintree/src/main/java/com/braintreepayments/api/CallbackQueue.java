@@ -0,0 +1,132 @@
+package com.braintreepayments.api;
+
+import com.braintreepayments.api.interfaces.QueuedCallback;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread safe queue of {@link QueuedCallback}s that could not run when they were posted. Callbacks are kept in a
+ * bucket per type they wait for, usually the listener interface that will receive them, so draining after a
+ * listener is added only looks at the callbacks waiting for that listener. Callbacks from different buckets run in
+ * the order they were queued.
+ * <p/>
+ * Callbacks queued without a type are kept in a separate bucket that is checked on every drain.
+ */
+class CallbackQueue {
+
+    private static final Class<?> UNTYPED = QueuedCallback.class;
+
+    private static final Comparator<Entry> QUEUE_ORDER = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry lhs, Entry rhs) {
+            return lhs.sequence < rhs.sequence ? -1 : (lhs.sequence == rhs.sequence ? 0 : 1);
+        }
+    };
+
+    private final ConcurrentMap<Class<?>, Queue<Entry>> mBuckets = new ConcurrentHashMap<>();
+    private final AtomicLong mSequence = new AtomicLong();
+
+    void add(QueuedCallback callback) {
+        add(UNTYPED, callback);
+    }
+
+    void add(Class<?> type, QueuedCallback callback) {
+        getBucket(type).add(new Entry(mSequence.getAndIncrement(), type, callback));
+    }
+
+    /**
+     * Runs the callbacks waiting for any of {@code types}, and the untyped callbacks, that are ready to run. Callbacks
+     * that are not ready stay queued.
+     */
+    void drain(Collection<Class<?>> types) {
+        List<Entry> entries = new ArrayList<>();
+        poll(UNTYPED, entries);
+        for (Class<?> type : types) {
+            if (type != UNTYPED) {
+                poll(type, entries);
+            }
+        }
+
+        run(entries);
+    }
+
+    /**
+     * Runs every queued callback that is ready to run.
+     */
+    void drainAll() {
+        List<Entry> entries = new ArrayList<>();
+        for (Class<?> type : mBuckets.keySet()) {
+            poll(type, entries);
+        }
+
+        run(entries);
+    }
+
+    int size() {
+        int size = 0;
+        for (Queue<Entry> bucket : mBuckets.values()) {
+            size += bucket.size();
+        }
+        return size;
+    }
+
+    private Queue<Entry> getBucket(Class<?> type) {
+        Queue<Entry> bucket = mBuckets.get(type);
+        if (bucket == null) {
+            Queue<Entry> newBucket = new ConcurrentLinkedQueue<>();
+            bucket = mBuckets.putIfAbsent(type, newBucket);
+            if (bucket == null) {
+                bucket = newBucket;
+            }
+        }
+        return bucket;
+    }
+
+    private void poll(Class<?> type, List<Entry> entries) {
+        Queue<Entry> bucket = mBuckets.get(type);
+        if (bucket == null) {
+            return;
+        }
+
+        Entry entry;
+        while ((entry = bucket.poll()) != null) {
+            entries.add(entry);
+        }
+    }
+
+    private void run(List<Entry> entries) {
+        if (entries.size() > 1) {
+            Collections.sort(entries, QUEUE_ORDER);
+        }
+
+        for (Entry entry : entries) {
+            if (entry.callback.shouldRun()) {
+                entry.callback.run();
+            } else {
+                getBucket(entry.type).add(entry);
+            }
+        }
+    }
+
+    private static class Entry {
+
+        final long sequence;
+        final Class<?> type;
+        final QueuedCallback callback;
+
+        Entry(long sequence, Class<?> type, QueuedCallback callback) {
+            this.sequence = sequence;
+            this.type = type;
+            this.callback = callback;
+        }
+    }
+}
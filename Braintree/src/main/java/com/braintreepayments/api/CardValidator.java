@@ -0,0 +1,376 @@
+package com.braintreepayments.api;
+
+import android.support.annotation.Nullable;
+
+import com.braintreepayments.api.exceptions.ErrorWithResponse;
+import com.braintreepayments.api.models.CardConfiguration;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Arrays;
+
+/**
+ * Validates card numbers and security codes on the device so obviously invalid cards are rejected before a
+ * tokenization request is made. Brands are detected with a BIN prefix trie.
+ * <p/>
+ * Validation does not allocate and may be run on every keystroke. Spaces and dashes in card numbers are
+ * ignored. Cards with an unknown BIN are only checked with the Luhn algorithm and a length of 12 to 19 digits, so
+ * numbers from new ranges are left to the Braintree gateway.
+ */
+public class CardValidator {
+
+    /**
+     * The card number and security code are valid.
+     */
+    public static final int VALID = 0;
+
+    /**
+     * The card number contains characters other than digits, spaces and dashes, or fails the Luhn check.
+     */
+    public static final int INVALID_NUMBER = 1;
+
+    /**
+     * The card number has the wrong number of digits for its brand.
+     */
+    public static final int INVALID_LENGTH = 1 << 1;
+
+    /**
+     * The security code is not made of digits or has the wrong length for the brand.
+     */
+    public static final int INVALID_CVV = 1 << 2;
+
+    /**
+     * The brand of the card is not in {@link CardConfiguration#getSupportedCardTypes()}. Only returned when a
+     * {@link CardConfiguration} is passed to {@link #validate(CharSequence, CharSequence, CardConfiguration)}.
+     */
+    public static final int UNSUPPORTED_CARD_TYPE = 1 << 3;
+
+    private static final int MIN_LENGTH = 12;
+    private static final int MAX_LENGTH = 19;
+
+    /**
+     * Card brands that can be detected from the start of a card number.
+     */
+    public enum CardBrand {
+        VISA("Visa", lengths(13, 16, 19), 3, true, "4"),
+        MASTERCARD("MasterCard", lengths(16), 3, true, "51-55", "2221-2720"),
+        AMEX("American Express", lengths(15), 4, true, "34", "37"),
+        DISCOVER("Discover", lengths(16, 17, 18, 19), 3, true, "6011", "644-649", "65"),
+        JCB("JCB", lengths(16, 17, 18, 19), 3, true, "3528-3589"),
+        DINERS_CLUB("Diners Club", lengths(14, 15, 16, 17, 18, 19), 3, true, "300-305", "309", "36", "38-39"),
+        MAESTRO("Maestro", lengths(12, 13, 14, 15, 16, 17, 18, 19), 3, true, "5018", "5020", "5038", "5893",
+                "6304", "6759", "6761-6763"),
+        UNIONPAY("UnionPay", lengths(16, 17, 18, 19), 3, false, "62", "81");
+
+        private final String mName;
+        private final int mLengths;
+        private final int mCvvLength;
+        private final boolean mLuhn;
+        private final String[] mBinRanges;
+
+        CardBrand(String name, int lengths, int cvvLength, boolean luhn, String... binRanges) {
+            mName = name;
+            mLengths = lengths;
+            mCvvLength = cvvLength;
+            mLuhn = luhn;
+            mBinRanges = binRanges;
+        }
+
+        /**
+         * @return the name of the brand used by the Braintree gateway, e.g. in
+         * {@link CardConfiguration#getSupportedCardTypes()}.
+         */
+        public String getName() {
+            return mName;
+        }
+
+        /**
+         * @return {@code true} if {@code length} digits is a valid card number length for this brand.
+         */
+        public boolean isValidLength(int length) {
+            return length < 32 && (mLengths & (1 << length)) != 0;
+        }
+
+        public int getCvvLength() {
+            return mCvvLength;
+        }
+
+        /**
+         * @return {@code true} if card numbers of this brand have a Luhn check digit. UnionPay numbers may not.
+         */
+        public boolean isLuhnChecked() {
+            return mLuhn;
+        }
+
+        private static int lengths(int... lengths) {
+            int mask = 0;
+            for (int length : lengths) {
+                mask |= 1 << length;
+            }
+            return mask;
+        }
+    }
+
+    private static final CardBrand[] BRANDS = CardBrand.values();
+    private static final BinTrie BIN_TRIE = new BinTrie();
+
+    /**
+     * @param number the card number, or the digits entered so far.
+     * @return the {@link CardBrand} of the longest matching BIN prefix, or {@code null} if the brand is unknown.
+     */
+    @Nullable
+    public static CardBrand getBrand(@Nullable CharSequence number) {
+        return BIN_TRIE.find(number);
+    }
+
+    /**
+     * @param number the card number.
+     * @return {@code true} if {@code number} has a valid Luhn check digit.
+     */
+    public static boolean isLuhnValid(@Nullable CharSequence number) {
+        if (number == null) {
+            return false;
+        }
+
+        int sum = 0;
+        int digits = 0;
+        for (int i = number.length() - 1; i >= 0; i--) {
+            char c = number.charAt(i);
+            if (isSeparator(c)) {
+                continue;
+            } else if (c < '0' || c > '9') {
+                return false;
+            }
+
+            int digit = c - '0';
+            if ((digits & 1) == 1) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            digits++;
+        }
+
+        return digits > 0 && sum % 10 == 0;
+    }
+
+    /**
+     * Validates a card.
+     *
+     * @param number the card number.
+     * @param cvv the security code, or {@code null} if it was not collected.
+     * @param cardConfiguration the merchant's {@link CardConfiguration} to also reject brands the merchant does not
+     *        accept, or {@code null} to only check the format and check digit. Co-branded cards, such as Maestro or
+     *        UnionPay cards that are also issued on another network, may be accepted by the gateway even when the
+     *        brand detected from the BIN is not supported, so brand checks are opt-in.
+     * @return {@link #VALID}, or a combination of {@link #INVALID_NUMBER}, {@link #INVALID_LENGTH},
+     * {@link #INVALID_CVV} and {@link #UNSUPPORTED_CARD_TYPE}.
+     */
+    public static int validate(@Nullable CharSequence number, @Nullable CharSequence cvv,
+            @Nullable CardConfiguration cardConfiguration) {
+        int length = countDigits(number);
+        if (length < 0) {
+            return INVALID_NUMBER;
+        }
+
+        int errors = VALID;
+        int cvvLength = cvv == null || cvv.length() == 0 ? 0 : countDigits(cvv);
+        CardBrand brand = getBrand(number);
+        if (brand == null) {
+            if (length < MIN_LENGTH || length > MAX_LENGTH) {
+                errors |= INVALID_LENGTH;
+            } else if (!isLuhnValid(number)) {
+                errors |= INVALID_NUMBER;
+            }
+
+            if (cvvLength != 0 && cvvLength != 3 && cvvLength != 4) {
+                errors |= INVALID_CVV;
+            }
+        } else {
+            if (!brand.isValidLength(length)) {
+                errors |= INVALID_LENGTH;
+            } else if (brand.isLuhnChecked() && !isLuhnValid(number)) {
+                errors |= INVALID_NUMBER;
+            }
+
+            if (cvvLength != 0 && cvvLength != brand.getCvvLength()) {
+                errors |= INVALID_CVV;
+            }
+
+            if (cardConfiguration != null && !cardConfiguration.isCardTypeSupported(brand.getName())) {
+                errors |= UNSUPPORTED_CARD_TYPE;
+            }
+        }
+
+        return errors;
+    }
+
+    /**
+     * Creates the {@link ErrorWithResponse} the Braintree gateway would return for the errors from
+     * {@link #validate(CharSequence, CharSequence, CardConfiguration)}, so pre-validation failures can be handled
+     * in the same way as gateway validation failures.
+     *
+     * @param errors the result of {@link #validate(CharSequence, CharSequence, CardConfiguration)}.
+     * @return an {@link ErrorWithResponse} with field errors under {@code creditCard}.
+     */
+    static ErrorWithResponse toErrorWithResponse(int errors) {
+        JSONArray fieldErrors = new JSONArray();
+        try {
+            if ((errors & INVALID_NUMBER) != 0) {
+                fieldErrors.put(fieldError("number", "Credit card number is invalid"));
+            }
+            if ((errors & INVALID_LENGTH) != 0) {
+                fieldErrors.put(fieldError("number", "Credit card number has an invalid length"));
+            }
+            if ((errors & UNSUPPORTED_CARD_TYPE) != 0) {
+                fieldErrors.put(fieldError("number", "Credit card type is not accepted by this merchant account"));
+            }
+            if ((errors & INVALID_CVV) != 0) {
+                fieldErrors.put(fieldError("cvv", "CVV must be 4 digits for American Express and 3 digits for " +
+                        "other card types"));
+            }
+
+            return new ErrorWithResponse(422, new JSONObject()
+                    .put("error", new JSONObject().put("message", "Credit card is invalid"))
+                    .put("fieldErrors", new JSONArray().put(new JSONObject()
+                            .put("field", "creditCard")
+                            .put("fieldErrors", fieldErrors)))
+                    .toString());
+        } catch (JSONException e) {
+            return new ErrorWithResponse(422, null);
+        }
+    }
+
+    private static JSONObject fieldError(String field, String message) throws JSONException {
+        return new JSONObject()
+                .put("field", field)
+                .put("message", message);
+    }
+
+    /**
+     * @return the number of digits, or {@code -1} if there are characters other than digits and separators.
+     */
+    private static int countDigits(@Nullable CharSequence value) {
+        if (value == null) {
+            return 0;
+        }
+
+        int digits = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits++;
+            } else if (!isSeparator(c)) {
+                return -1;
+            }
+        }
+        return digits;
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == ' ' || c == '-';
+    }
+
+    /**
+     * Digit trie flattened into arrays. Node {@code n}'s child for digit {@code d} is {@code children[n * 10 + d]},
+     * where {@code 0} means no child since the root is never a child.
+     */
+    private static class BinTrie {
+
+        private int[] mChildren = new int[10 * 64];
+        private byte[] mBrands = new byte[64];
+        private int mNodeCount = 1;
+
+        BinTrie() {
+            for (CardBrand brand : BRANDS) {
+                for (String range : brand.mBinRanges) {
+                    int separator = range.indexOf('-');
+                    if (separator < 0) {
+                        insert(range, brand);
+                    } else {
+                        insertRange(range.substring(0, separator), range.substring(separator + 1), brand);
+                    }
+                }
+            }
+
+            mChildren = Arrays.copyOf(mChildren, mNodeCount * 10);
+            mBrands = Arrays.copyOf(mBrands, mNodeCount);
+        }
+
+        CardBrand find(@Nullable CharSequence number) {
+            if (number == null) {
+                return null;
+            }
+
+            int node = 0;
+            int brand = 0;
+            for (int i = 0; i < number.length(); i++) {
+                char c = number.charAt(i);
+                if (isSeparator(c)) {
+                    continue;
+                } else if (c < '0' || c > '9') {
+                    break;
+                }
+
+                node = mChildren[node * 10 + (c - '0')];
+                if (node == 0) {
+                    break;
+                }
+                if (mBrands[node] != 0) {
+                    brand = mBrands[node];
+                }
+            }
+
+            return brand == 0 ? null : BRANDS[brand - 1];
+        }
+
+        /**
+         * Inserts the smallest set of prefixes covering every prefix from {@code low} to {@code high}, which have
+         * the same number of digits. For example 2221-2720 becomes 2221-2229, 223-229, 23-26, 270-271 and 2720.
+         */
+        private void insertRange(String low, String high, CardBrand brand) {
+            int length = low.length();
+            long end = Long.parseLong(high);
+            long value = Long.parseLong(low);
+            while (value <= end) {
+                int trailingDigits = 0;
+                long block = 1;
+                while (trailingDigits < length && value % (block * 10) == 0 && value + block * 10 - 1 <= end) {
+                    block *= 10;
+                    trailingDigits++;
+                }
+
+                String prefix = String.valueOf(value / block);
+                while (prefix.length() < length - trailingDigits) {
+                    prefix = "0" + prefix;
+                }
+                insert(prefix, brand);
+                value += block;
+            }
+        }
+
+        private void insert(String prefix, CardBrand brand) {
+            int node = 0;
+            for (int i = 0; i < prefix.length(); i++) {
+                int index = node * 10 + (prefix.charAt(i) - '0');
+                if (mChildren[index] == 0) {
+                    mChildren[index] = newNode();
+                }
+                node = mChildren[index];
+            }
+            mBrands[node] = (byte) (brand.ordinal() + 1);
+        }
+
+        private int newNode() {
+            if (mNodeCount == mBrands.length) {
+                mChildren = Arrays.copyOf(mChildren, mChildren.length * 2);
+                mBrands = Arrays.copyOf(mBrands, mBrands.length * 2);
+            }
+            return mNodeCount++;
+        }
+    }
+}
@@ -1,110 +1,92 @@
 package com.braintreepayments.api;
 
 import android.content.Context;
-import android.content.SharedPreferences;
 import android.net.Uri;
 import android.support.annotation.NonNull;
-import android.support.annotation.Nullable;
-import android.support.annotation.VisibleForTesting;
-import android.util.Base64;
 
 import com.braintreepayments.api.interfaces.BraintreeResponseListener;
 import com.braintreepayments.api.interfaces.ConfigurationListener;
-import com.braintreepayments.api.interfaces.HttpResponseCallback;
-import com.braintreepayments.api.internal.BraintreeSharedPreferences;
-import com.braintreepayments.api.models.ClientToken;
+import com.braintreepayments.api.internal.BraintreeHttpClient;
+import com.braintreepayments.api.internal.ConfigurationCache;
+import com.braintreepayments.api.internal.DecodingHttpResponseCallback;
+import com.braintreepayments.api.models.Authorization;
 import com.braintreepayments.api.models.Configuration;
-import com.braintreepayments.api.models.TokenizationKey;
 
 import org.json.JSONException;
 
 import java.util.concurrent.TimeUnit;
 
 /**
- * Manages on-disk {@link Configuration} cache and fetching configuration from the Gateway
+ * Manages the {@link ConfigurationCache} and fetching configuration from the Gateway
  */
-class ConfigurationManager {
+public class ConfigurationManager {
 
     static final long TTL = TimeUnit.MINUTES.toMillis(5);
-    @VisibleForTesting
-    static boolean sFetchingConfiguration = false;
 
     private ConfigurationManager() {}
 
-    static boolean isFetchingConfiguration() {
-        return sFetchingConfiguration;
+    static void getConfiguration(BraintreeClient client, @NonNull ConfigurationListener listener,
+            @NonNull BraintreeResponseListener<Exception> errorListener) {
+        getConfiguration(client.getApplicationContext(), client.getAuthorization(), client.getHttpClient(),
+                listener, errorListener);
     }
 
-    static void getConfiguration(final BraintreeFragment fragment, final @NonNull ConfigurationListener listener,
-            final @NonNull BraintreeResponseListener<Exception> errorListener) {
-        final String authorization;
-        if (fragment.getAuthorization() instanceof ClientToken) {
-            authorization = ((ClientToken) fragment.getAuthorization()).getAuthorizationFingerprint();
-        } else if (fragment.getAuthorization() instanceof TokenizationKey) {
-            authorization = fragment.getAuthorization().toString();
-        } else {
-            authorization = "";
-        }
+    /**
+     * For use outside of a {@link BraintreeClient}, e.g. by SDK services.
+     *
+     * @return a {@link BraintreeFuture} for the cached {@link Configuration}, or, if it has expired, the
+     * {@link Configuration} fetched with {@code httpClient}.
+     */
+    public static BraintreeFuture<Configuration> getConfiguration(Context context, Authorization authorization,
+            BraintreeHttpClient httpClient) {
+        final BraintreeFuture<Configuration> future = new BraintreeFuture<>();
+        getConfiguration(context, authorization, httpClient, new ConfigurationListener() {
+            @Override
+            public void onConfigurationFetched(Configuration configuration) {
+                future.complete(configuration);
+            }
+        }, new BraintreeResponseListener<Exception>() {
+            @Override
+            public void onResponse(Exception exception) {
+                future.fail(exception);
+            }
+        });
+
+        return future;
+    }
 
-        final String configUrl = Uri.parse(fragment.getAuthorization().getConfigUrl())
+    private static void getConfiguration(final Context context, Authorization authorization,
+            BraintreeHttpClient httpClient, final @NonNull ConfigurationListener listener,
+            final @NonNull BraintreeResponseListener<Exception> errorListener) {
+        final String configUrl = Uri.parse(authorization.getConfigUrl())
                 .buildUpon()
                 .appendQueryParameter("configVersion", "3")
                 .build()
                 .toString();
+        final String cacheKey = ConfigurationCache.getKey(authorization);
 
-        Configuration cachedConfig = getCachedConfiguration(fragment.getApplicationContext(), configUrl + authorization);
+        Configuration cachedConfig = ConfigurationCache.getFresh(context, cacheKey, TTL);
         if (cachedConfig != null) {
             listener.onConfigurationFetched(cachedConfig);
         } else {
-            sFetchingConfiguration = true;
-            fragment.getHttpClient().get(configUrl, new HttpResponseCallback() {
+            httpClient.get(configUrl, new DecodingHttpResponseCallback<Configuration>() {
                 @Override
-                public void success(String responseBody) {
-                    try {
-                        Configuration configuration = Configuration.fromJson(responseBody);
-                        cacheConfiguration(fragment.getApplicationContext(), configUrl + authorization, configuration);
+                protected Configuration decode(String responseBody) throws JSONException {
+                    Configuration configuration = Configuration.fromJson(responseBody);
+                    ConfigurationCache.put(context, cacheKey, configuration);
+                    return configuration;
+                }
 
-                        sFetchingConfiguration = false;
-                        listener.onConfigurationFetched(configuration);
-                    } catch (final JSONException e) {
-                        sFetchingConfiguration = false;
-                        errorListener.onResponse(e);
-                    }
+                @Override
+                public void onDecoded(Configuration configuration) {
+                    listener.onConfigurationFetched(configuration);
                 }
 
                 @Override
                 public void failure(final Exception exception) {
-                    sFetchingConfiguration = false;
                     errorListener.onResponse(exception);
                 }
             });
         }
     }
-
-    @Nullable
-    private static Configuration getCachedConfiguration(Context context, String configUrl) {
-        SharedPreferences prefs = BraintreeSharedPreferences.getSharedPreferences(context);
-        configUrl = Base64.encodeToString(configUrl.getBytes(), 0);
-
-        String timestampKey = configUrl + "_timestamp";
-        if ((System.currentTimeMillis() - prefs.getLong(timestampKey, 0)) > TTL) {
-            return null;
-        }
-
-        try {
-            return Configuration.fromJson(prefs.getString(configUrl, ""));
-        } catch (JSONException e) {
-            return null;
-        }
-    }
-
-    private static void cacheConfiguration(Context context, String configUrl, Configuration configuration) {
-        configUrl = Base64.encodeToString(configUrl.getBytes(), 0);
-
-        String timestampKey = configUrl + "_timestamp";
-        BraintreeSharedPreferences.getSharedPreferences(context).edit()
-                .putString(configUrl, configuration.toJson())
-                .putLong(timestampKey, System.currentTimeMillis())
-                .apply();
-    }
 }
@@ -52,26 +52,59 @@ public class DataCollector {
         fragment.waitForConfiguration(new ConfigurationListener() {
             @Override
             public void onConfigurationFetched(Configuration configuration) {
-                final JSONObject deviceData = new JSONObject();
+                collectDeviceData(fragment.getApplicationContext(), configuration, merchantId,
+                        getAnalyticsListener(fragment), listener);
+            }
+        });
+    }
 
-                try {
-                    String clientMetadataId = getPayPalClientMetadataId(fragment.getApplicationContext());
-                    if (!TextUtils.isEmpty(clientMetadataId)) {
-                        deviceData.put(CORRELATION_ID_KEY, clientMetadataId);
-                    }
-                } catch (JSONException ignored) {}
-
-                if (configuration.getKount().isEnabled()) {
-                    final String id;
-                    if (merchantId != null) {
-                        id = merchantId;
-                    } else {
-                        id = configuration.getKount().getKountMerchantId();
-                    }
+    static BraintreeFuture<String> collectDeviceData(final BraintreeClient client, @Nullable final String merchantId) {
+        return client.fetchConfiguration().thenAsync(new BraintreeFuture.AsyncFunction<Configuration, String>() {
+            @Override
+            public BraintreeFuture<String> apply(Configuration configuration) {
+                final BraintreeFuture<String> future = new BraintreeFuture<>();
+                collectDeviceData(client.getApplicationContext(), configuration, merchantId,
+                        new BraintreeResponseListener<String>() {
+                            @Override
+                            public void onResponse(String event) {
+                                client.sendAnalyticsEvent(event);
+                            }
+                        }, new BraintreeResponseListener<String>() {
+                            @Override
+                            public void onResponse(String deviceData) {
+                                future.complete(deviceData);
+                            }
+                        });
+                return future;
+            }
+        });
+    }
+
+    private static void collectDeviceData(Context context, Configuration configuration, String merchantId,
+            BraintreeResponseListener<String> analyticsListener, final BraintreeResponseListener<String> listener) {
+        final JSONObject deviceData = new JSONObject();
+
+        try {
+            String clientMetadataId = getPayPalClientMetadataId(context);
+            if (!TextUtils.isEmpty(clientMetadataId)) {
+                deviceData.put(CORRELATION_ID_KEY, clientMetadataId);
+            }
+        } catch (JSONException ignored) {}
 
-                    try {
-                        final String deviceSessionId = UUIDHelper.getFormattedUUID();
-                        startDeviceCollector(fragment, id, deviceSessionId, new BraintreeResponseListener<String>() {
+        if (configuration.getKount().isEnabled()) {
+            final String id;
+            if (merchantId != null) {
+                id = merchantId;
+            } else {
+                id = configuration.getKount().getKountMerchantId();
+            }
+
+            try {
+                final String deviceSessionId = UUIDHelper.getFormattedUUID();
+                analyticsListener.onResponse("data-collector.kount.started");
+                Class.forName(com.kount.api.DataCollector.class.getName());
+                collectForSession(context, configuration, id, deviceSessionId, analyticsListener,
+                        new BraintreeResponseListener<String>() {
                             @Override
                             public void onResponse(String sessionId) {
                                 try {
@@ -82,14 +115,12 @@ public class DataCollector {
                                 listener.onResponse(deviceData.toString());
                             }
                         });
-                    } catch (ClassNotFoundException | NoClassDefFoundError | NumberFormatException ignored) {
-                        listener.onResponse(deviceData.toString());
-                    }
-                } else {
-                    listener.onResponse(deviceData.toString());
-                }
+            } catch (ClassNotFoundException | NoClassDefFoundError | NumberFormatException ignored) {
+                listener.onResponse(deviceData.toString());
             }
-        });
+        } else {
+            listener.onResponse(deviceData.toString());
+        }
     }
 
     /**
@@ -168,40 +199,56 @@ public class DataCollector {
         fragment.waitForConfiguration(new ConfigurationListener() {
             @Override
             public void onConfigurationFetched(Configuration configuration) {
-                final com.kount.api.DataCollector dataCollector = com.kount.api.DataCollector.getInstance();
-                dataCollector.setContext(fragment.getApplicationContext());
-                dataCollector.setMerchantID(Integer.parseInt(merchantId));
-                dataCollector.setLocationCollectorConfig(com.kount.api.DataCollector.LocationConfig.COLLECT);
-                dataCollector.setEnvironment(getDeviceCollectorEnvironment(configuration.getEnvironment()));
+                collectForSession(fragment.getApplicationContext(), configuration, merchantId, deviceSessionId,
+                        getAnalyticsListener(fragment), listener);
+            }
+        });
+    }
+
+    private static void collectForSession(Context context, Configuration configuration, String merchantId,
+            final String deviceSessionId, final BraintreeResponseListener<String> analyticsListener,
+            @Nullable final BraintreeResponseListener<String> listener) throws NumberFormatException {
+        final com.kount.api.DataCollector dataCollector = com.kount.api.DataCollector.getInstance();
+        dataCollector.setContext(context);
+        dataCollector.setMerchantID(Integer.parseInt(merchantId));
+        dataCollector.setLocationCollectorConfig(com.kount.api.DataCollector.LocationConfig.COLLECT);
+        dataCollector.setEnvironment(getDeviceCollectorEnvironment(configuration.getEnvironment()));
 
-                new Handler(Looper.getMainLooper()).post(new Runnable() {
+        new Handler(Looper.getMainLooper()).post(new Runnable() {
+            @Override
+            public void run() {
+                dataCollector.collectForSession(deviceSessionId, new com.kount.api.DataCollector.CompletionHandler() {
                     @Override
-                    public void run() {
-                        dataCollector.collectForSession(deviceSessionId, new com.kount.api.DataCollector.CompletionHandler() {
-                            @Override
-                            public void completed(String sessionID) {
-                                fragment.sendAnalyticsEvent("data-collector.kount.succeeded");
+                    public void completed(String sessionID) {
+                        analyticsListener.onResponse("data-collector.kount.succeeded");
 
-                                if (listener != null) {
-                                    listener.onResponse(sessionID);
-                                }
-                            }
+                        if (listener != null) {
+                            listener.onResponse(sessionID);
+                        }
+                    }
 
-                            @Override
-                            public void failed(String sessionID, final com.kount.api.DataCollector.Error error) {
-                                fragment.sendAnalyticsEvent("data-collector.kount.failed");
+                    @Override
+                    public void failed(String sessionID, final com.kount.api.DataCollector.Error error) {
+                        analyticsListener.onResponse("data-collector.kount.failed");
 
-                                if (listener != null) {
-                                    listener.onResponse(sessionID);
-                                }
-                            }
-                        });
+                        if (listener != null) {
+                            listener.onResponse(sessionID);
+                        }
                     }
                 });
             }
         });
     }
 
+    private static BraintreeResponseListener<String> getAnalyticsListener(final BraintreeFragment fragment) {
+        return new BraintreeResponseListener<String>() {
+            @Override
+            public void onResponse(String event) {
+                fragment.sendAnalyticsEvent(event);
+            }
+        };
+    }
+
     @VisibleForTesting
     static int getDeviceCollectorEnvironment(String environment) {
         if ("production".equalsIgnoreCase(environment)) {
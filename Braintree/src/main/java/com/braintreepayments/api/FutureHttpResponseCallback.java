@@ -0,0 +1,40 @@
+package com.braintreepayments.api;
+
+import com.braintreepayments.api.internal.DecodingHttpResponseCallback;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Completes a {@link BraintreeFuture} with a decoded response directly on the request thread, skipping the
+ * hop to the HTTP client's callback executor.
+ */
+abstract class FutureHttpResponseCallback<T> extends DecodingHttpResponseCallback<T> {
+
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private final BraintreeFuture<T> mFuture;
+
+    FutureHttpResponseCallback(BraintreeFuture<T> future) {
+        mFuture = future;
+    }
+
+    @Override
+    protected Executor getCallbackExecutor() {
+        return DIRECT_EXECUTOR;
+    }
+
+    @Override
+    public void onDecoded(T response) {
+        mFuture.complete(response);
+    }
+
+    @Override
+    public void failure(Exception exception) {
+        mFuture.fail(exception);
+    }
+}
@@ -3,14 +3,11 @@ package com.braintreepayments.api;
 import android.app.Activity;
 import android.content.Context;
 import android.content.Intent;
-import android.content.SharedPreferences;
 import android.content.pm.ActivityInfo;
 import android.net.Uri;
-import android.os.Parcel;
 import android.support.annotation.Nullable;
 import android.support.annotation.VisibleForTesting;
 import android.text.TextUtils;
-import android.util.Base64;
 
 import com.braintreepayments.api.exceptions.BraintreeException;
 import com.braintreepayments.api.exceptions.BrowserSwitchException;
@@ -21,7 +18,7 @@ import com.braintreepayments.api.interfaces.PayPalApprovalCallback;
 import com.braintreepayments.api.interfaces.PayPalApprovalHandler;
 import com.braintreepayments.api.interfaces.PaymentMethodNonceCallback;
 import com.braintreepayments.api.internal.AppHelper;
-import com.braintreepayments.api.internal.BraintreeSharedPreferences;
+import com.braintreepayments.api.internal.HttpRequest;
 import com.braintreepayments.api.internal.ManifestValidator;
 import com.braintreepayments.api.models.BraintreeRequestCodes;
 import com.braintreepayments.api.models.ClientToken;
@@ -39,8 +36,10 @@ import com.paypal.android.sdk.onetouch.core.CheckoutRequest;
 import com.paypal.android.sdk.onetouch.core.PayPalOneTouchCore;
 import com.paypal.android.sdk.onetouch.core.Request;
 import com.paypal.android.sdk.onetouch.core.Result;
+import com.paypal.android.sdk.onetouch.core.config.Recipe;
 import com.paypal.android.sdk.onetouch.core.enums.RequestTarget;
 import com.paypal.android.sdk.onetouch.core.network.EnvironmentManager;
+import com.paypal.android.sdk.onetouch.core.sdk.CustomTabsHelper;
 import com.paypal.android.sdk.onetouch.core.sdk.PayPalScope;
 import com.paypal.android.sdk.onetouch.core.sdk.PendingRequest;
 
@@ -48,6 +47,7 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.util.List;
+import java.util.concurrent.CancellationException;
 
 /**
  * Used to create and tokenize PayPal accounts. For more information see the
@@ -71,10 +71,6 @@ public class PayPal {
      */
     public static final String SCOPE_ADDRESS = PayPalScope.ADDRESS.getScopeUri();
 
-    private static final String REQUEST_KEY = "com.braintreepayments.api.PayPal.REQUEST_KEY";
-    private static final String REQUEST_TYPE_KEY = "com.braintreepayments.api.PayPal.REQUEST_TYPE_KEY";
-    private static final String PAYPAL_REQUEST_KEY = "com.braintreepayments.api.PayPal.PAYPAL_REQUEST_KEY";
-
     protected static boolean sFuturePaymentsOverride = false;
 
     private static final String SETUP_BILLING_AGREEMENT_ENDPOINT = "paypal_hermes/setup_billing_agreement";
@@ -142,6 +138,7 @@ public class PayPal {
                 }
 
                 fragment.sendAnalyticsEvent("paypal.future-payments.selected");
+                fragment.warmUpBrowserSwitch();
 
                 AuthorizationRequest request = getAuthorizationRequest(fragment);
 
@@ -221,40 +218,13 @@ public class PayPal {
         }
     }
 
+    /**
+     * Validates the manifest, then creates the payment resource and, while the request is in flight, does the local
+     * work the approval flow needs: request persistence, request population and app switch recipe resolution. Only
+     * the approval url and the client metadata id, which depends on it, are left for the response.
+     */
     private static void requestOneTimePayment(final BraintreeFragment fragment, final PayPalRequest paypalRequest,
             final boolean isBillingAgreement, final PayPalApprovalHandler handler) {
-        final HttpResponseCallback callback = new HttpResponseCallback() {
-            @Override
-            public void success(String responseBody) {
-                final PayPalPaymentResource paypalPaymentResource;
-                try {
-                    paypalPaymentResource = PayPalPaymentResource.fromJson(responseBody);
-                } catch (JSONException e) {
-                    fragment.postCallback(e);
-                    return;
-                }
-
-                String redirectUrl = Uri.parse(paypalPaymentResource.getRedirectUrl())
-                        .buildUpon()
-                        .appendQueryParameter(USER_ACTION_KEY, paypalRequest.getUserAction())
-                        .toString();
-
-                Request request;
-                if (isBillingAgreement) {
-                    request = getBillingAgreementRequest(fragment, redirectUrl);
-                } else {
-                    request = getCheckoutRequest(fragment, redirectUrl);
-                }
-
-                startPayPal(fragment, request, handler);
-            }
-
-            @Override
-            public void failure(Exception e) {
-                fragment.postCallback(e);
-            }
-        };
-
         fragment.waitForConfiguration(new ConfigurationListener() {
             @Override
             public void onConfigurationFetched(Configuration configuration) {
@@ -273,12 +243,66 @@ public class PayPal {
                     return;
                 }
 
+                final BraintreeFuture<PayPalPaymentResource> paymentResource = new BraintreeFuture<>();
                 try {
-                    persistPayPalRequest(fragment.getApplicationContext(), paypalRequest);
-                    createPaymentResource(fragment, paypalRequest, isBillingAgreement, callback);
+                    paymentResource.setHttpRequest(createPaymentResource(fragment, paypalRequest, isBillingAgreement,
+                            new HttpResponseCallback() {
+                                @Override
+                                public void success(String responseBody) {
+                                    try {
+                                        paymentResource.complete(PayPalPaymentResource.fromJson(responseBody));
+                                    } catch (JSONException e) {
+                                        paymentResource.fail(e);
+                                    }
+                                }
+
+                                @Override
+                                public void failure(Exception e) {
+                                    paymentResource.fail(e);
+                                }
+                            }));
                 } catch (JSONException | ErrorWithResponse | BraintreeException ex) {
                     fragment.postCallback(ex);
+                    return;
                 }
+
+                fragment.warmUpBrowserSwitch();
+                PayPalRequestJournal.putPayPalRequest(fragment.getApplicationContext(), paypalRequest);
+
+                final CheckoutRequest request;
+                if (isBillingAgreement) {
+                    request = getBillingAgreementRequest(fragment, null);
+                } else {
+                    request = getCheckoutRequest(fragment, null);
+                }
+
+                final Recipe appSwitchRecipe;
+                if (handler == null) {
+                    appSwitchRecipe = PayPalOneTouchCore.getAppSwitchRecipe(fragment.getApplicationContext(), request);
+                } else {
+                    appSwitchRecipe = null;
+                }
+
+                paymentResource.addCallback(new BraintreeFuture.Callback<PayPalPaymentResource>() {
+                    @Override
+                    public void onSuccess(PayPalPaymentResource paypalPaymentResource) {
+                        String redirectUrl = Uri.parse(paypalPaymentResource.getRedirectUrl())
+                                .buildUpon()
+                                .appendQueryParameter(USER_ACTION_KEY, paypalRequest.getUserAction())
+                                .toString();
+                        CustomTabsHelper.mayLaunchUrl(redirectUrl);
+
+                        setApprovalUrl(fragment, request, redirectUrl);
+                        startPayPal(fragment, request, handler, appSwitchRecipe);
+                    }
+
+                    @Override
+                    public void onFailure(Exception exception) {
+                        if (!(exception instanceof CancellationException)) {
+                            fragment.postCallback(exception);
+                        }
+                    }
+                });
             }
         });
     }
@@ -292,8 +316,9 @@ public class PayPal {
      * @param isBillingAgreement A boolean. If true, this will use the Billing Agreement. Otherwise,
      *        PayPal will perform a Single Payment.
      * @param callback A callback on the http request.
+     * @return the {@link HttpRequest} creating the payment resource.
      */
-    private static void createPaymentResource(BraintreeFragment fragment, PayPalRequest request,
+    private static HttpRequest createPaymentResource(BraintreeFragment fragment, PayPalRequest request,
             boolean isBillingAgreement, HttpResponseCallback callback)
             throws JSONException, ErrorWithResponse, BraintreeException {
         String currencyCode = request.getCurrencyCode();
@@ -355,15 +380,24 @@ public class PayPal {
 
         String apiUrl = isBillingAgreement ? SETUP_BILLING_AGREEMENT_ENDPOINT : CREATE_SINGLE_PAYMENT_ENDPOINT;
         String versionedPath = "/v1/" + apiUrl;
-        fragment.getHttpClient().post(versionedPath, parameters.toString(), callback);
+        return fragment.getHttpClient().startPost(versionedPath, parameters.toString(), callback);
     }
 
     private static void startPayPal(final BraintreeFragment fragment, Request request, PayPalApprovalHandler handler) {
-        persistRequest(fragment.getApplicationContext(), request);
+        startPayPal(fragment, request, handler, null);
+    }
+
+    /**
+     * @param appSwitchRecipe the result of {@link PayPalOneTouchCore#getAppSwitchRecipe(Context, Request)} for
+     *        {@code request}, used by the default {@link PayPalApprovalHandler}.
+     */
+    private static void startPayPal(final BraintreeFragment fragment, Request request, PayPalApprovalHandler handler,
+            @Nullable Recipe appSwitchRecipe) {
+        PayPalRequestJournal.putRequest(fragment.getApplicationContext(), request);
         PayPalApprovalCallback callback = null;
 
         if (handler == null) {
-            handler = getDefaultApprovalHandler(fragment);
+            handler = getDefaultApprovalHandler(fragment, appSwitchRecipe);
         } else {
             callback = new PayPalApprovalCallback() {
                 @Override
@@ -380,12 +414,18 @@ public class PayPal {
         handler.handleApproval(request, callback);
     }
 
-    private static PayPalApprovalHandler getDefaultApprovalHandler(final BraintreeFragment fragment) {
+    private static PayPalApprovalHandler getDefaultApprovalHandler(final BraintreeFragment fragment,
+            @Nullable final Recipe appSwitchRecipe) {
         return new PayPalApprovalHandler() {
             @Override
             public void handleApproval(Request request, PayPalApprovalCallback paypalApprovalCallback) {
-                PendingRequest pendingRequest =
-                        PayPalOneTouchCore.getStartIntent(fragment.getApplicationContext(), request);
+                PendingRequest pendingRequest;
+                if (appSwitchRecipe != null) {
+                    pendingRequest = PayPalOneTouchCore.getStartIntent(fragment.getApplicationContext(), request,
+                            appSwitchRecipe);
+                } else {
+                    pendingRequest = PayPalOneTouchCore.getStartIntent(fragment.getApplicationContext(), request);
+                }
                 if (pendingRequest.isSuccess() && pendingRequest.getRequestTarget() == RequestTarget.wallet) {
                     sendAnalyticsForPayPal(fragment, request, true, RequestTarget.wallet);
 
@@ -432,7 +472,7 @@ public class PayPal {
      * @param data Data associated with the result.
      */
     protected static void onActivityResult(final BraintreeFragment fragment, int resultCode, Intent data) {
-        Request request = getPersistedRequest(fragment.getApplicationContext());
+        Request request = PayPalRequestJournal.takeRequest(fragment.getApplicationContext());
         if (resultCode == Activity.RESULT_OK && data != null && request != null) {
             boolean isAppSwitch = isAppSwitch(data);
             Result result = PayPalOneTouchCore.parseResponse(fragment.getApplicationContext(), request, data);
@@ -466,7 +506,7 @@ public class PayPal {
     }
 
     private static void onSuccess(final BraintreeFragment fragment, Intent data, Request request, Result result) {
-        PayPalRequest paypalRequest = getPersistedPayPalRequest(fragment.getApplicationContext());
+        PayPalRequest paypalRequest = PayPalRequestJournal.takePayPalRequest(fragment.getApplicationContext());
         TokenizationClient.tokenize(fragment, parseResponse(paypalRequest, request, result, data), new PaymentMethodNonceCallback() {
             @Override
             public void success(PaymentMethodNonce paymentMethodNonce) {
@@ -564,6 +604,16 @@ public class PayPal {
         return request;
     }
 
+    /**
+     * Sets the approval url of a request created by {@link #getCheckoutRequest(BraintreeFragment, String)} or
+     * {@link #getBillingAgreementRequest(BraintreeFragment, String)} before the url was known.
+     */
+    private static void setApprovalUrl(BraintreeFragment fragment, CheckoutRequest request, String redirectUrl) {
+        String tokenKey = request instanceof BillingAgreementRequest ? "ba_token" : "token";
+        request.approvalURL(redirectUrl)
+                .pairingId(fragment.getApplicationContext(), Uri.parse(redirectUrl).getQueryParameter(tokenKey));
+    }
+
     @VisibleForTesting
     static AuthorizationRequest getAuthorizationRequest(BraintreeFragment fragment) {
         return populateRequestData(fragment, new AuthorizationRequest(fragment.getApplicationContext()))
@@ -606,72 +656,6 @@ public class PayPal {
         return data.getData() == null;
     }
 
-    private static void persistPayPalRequest(Context context, PayPalRequest paypalRequest) {
-        Parcel parcel = Parcel.obtain();
-        paypalRequest.writeToParcel(parcel, 0);
-        BraintreeSharedPreferences.getSharedPreferences(context).edit()
-                .putString(PAYPAL_REQUEST_KEY, Base64.encodeToString(parcel.marshall(), 0))
-                .apply();
-    }
-
-    private static void persistRequest(Context context, Request request) {
-        Parcel parcel = Parcel.obtain();
-        request.writeToParcel(parcel, 0);
-        BraintreeSharedPreferences.getSharedPreferences(context).edit()
-                .putString(REQUEST_KEY, Base64.encodeToString(parcel.marshall(), 0))
-                .putString(REQUEST_TYPE_KEY, request.getClass().getSimpleName())
-                .apply();
-    }
-
-    @Nullable
-    private static PayPalRequest getPersistedPayPalRequest(Context context) {
-        SharedPreferences prefs = BraintreeSharedPreferences.getSharedPreferences(context);
-
-        try {
-            byte[] requestBytes = Base64.decode(prefs.getString(PAYPAL_REQUEST_KEY, ""), 0);
-            Parcel parcel = Parcel.obtain();
-            parcel.unmarshall(requestBytes, 0, requestBytes.length);
-            parcel.setDataPosition(0);
-            return PayPalRequest.CREATOR.createFromParcel(parcel);
-        } catch (Exception ignored) {
-        } finally {
-            prefs.edit()
-                    .remove(PAYPAL_REQUEST_KEY)
-                    .apply();
-        }
-
-        return null;
-    }
-
-    @Nullable
-    private static Request getPersistedRequest(Context context) {
-        SharedPreferences prefs = BraintreeSharedPreferences.getSharedPreferences(context);
-
-        try {
-            byte[] requestBytes = Base64.decode(prefs.getString(REQUEST_KEY, ""), 0);
-            Parcel parcel = Parcel.obtain();
-            parcel.unmarshall(requestBytes, 0, requestBytes.length);
-            parcel.setDataPosition(0);
-
-            String type = prefs.getString(REQUEST_TYPE_KEY, "");
-            if (AuthorizationRequest.class.getSimpleName().equals(type)) {
-                return AuthorizationRequest.CREATOR.createFromParcel(parcel);
-            } else if (BillingAgreementRequest.class.getSimpleName().equals(type)) {
-                return BillingAgreementRequest.CREATOR.createFromParcel(parcel);
-            } else if (CheckoutRequest.class.getSimpleName().equals(type)) {
-                return CheckoutRequest.CREATOR.createFromParcel(parcel);
-            }
-        } catch (Exception ignored) {
-        } finally {
-            prefs.edit()
-                    .remove(REQUEST_KEY)
-                    .remove(REQUEST_TYPE_KEY)
-                    .apply();
-        }
-
-        return null;
-    }
-
     private static boolean isManifestValid(BraintreeFragment fragment) {
         Intent intent = new Intent(Intent.ACTION_VIEW)
                 .setData(Uri.parse(fragment.getReturnUrlScheme() + "://"))
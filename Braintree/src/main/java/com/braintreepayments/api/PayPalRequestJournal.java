@@ -0,0 +1,201 @@
+package com.braintreepayments.api;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.util.Base64;
+
+import com.braintreepayments.api.internal.BraintreeSharedPreferences;
+import com.braintreepayments.api.models.PayPalRequest;
+import com.braintreepayments.api.models.PostalAddress;
+import com.paypal.android.sdk.onetouch.core.Request;
+import com.paypal.android.sdk.onetouch.core.RequestCodec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Journal of the {@link PayPalRequest} and {@link Request} of a pending PayPal browser or app switch. Requests are
+ * stored in a dedicated store with a versioned binary encoding, so returning from the switch only decodes the two
+ * small entries it needs. Entries are removed when they are taken, and the Parcel encoded entries earlier versions
+ * kept in the shared BraintreeApi store are removed the first time the journal is read.
+ */
+class PayPalRequestJournal {
+
+    static final String STORE_NAME = "BraintreePayPalJournal";
+    static final String PAYPAL_REQUEST_KEY = "paypal_request";
+    static final String REQUEST_KEY = "request";
+
+    private static final int VERSION = 1;
+
+    private static final String[] LEGACY_KEYS = {
+            "com.braintreepayments.api.PayPal.REQUEST_KEY",
+            "com.braintreepayments.api.PayPal.REQUEST_TYPE_KEY",
+            "com.braintreepayments.api.PayPal.PAYPAL_REQUEST_KEY"
+    };
+
+    @VisibleForTesting
+    static boolean sLegacyKeysRemoved;
+
+    static void putPayPalRequest(Context context, PayPalRequest paypalRequest) {
+        getStore(context).edit()
+                .putString(PAYPAL_REQUEST_KEY, Base64.encodeToString(encode(paypalRequest), Base64.NO_WRAP))
+                .apply();
+    }
+
+    static void putRequest(Context context, Request request) {
+        getStore(context).edit()
+                .putString(REQUEST_KEY, Base64.encodeToString(RequestCodec.encode(request), Base64.NO_WRAP))
+                .apply();
+    }
+
+    @Nullable
+    static PayPalRequest takePayPalRequest(Context context) {
+        byte[] data = take(context, PAYPAL_REQUEST_KEY);
+        return data == null ? null : decode(data);
+    }
+
+    @Nullable
+    static Request takeRequest(Context context) {
+        return RequestCodec.decode(take(context, REQUEST_KEY));
+    }
+
+    @Nullable
+    private static byte[] take(Context context, String key) {
+        removeLegacyKeys(context);
+
+        SharedPreferences store = getStore(context);
+        String value = store.getString(key, null);
+        if (value == null) {
+            return null;
+        }
+
+        store.edit()
+                .remove(key)
+                .apply();
+
+        try {
+            return Base64.decode(value, Base64.NO_WRAP);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void removeLegacyKeys(Context context) {
+        if (sLegacyKeysRemoved) {
+            return;
+        }
+        sLegacyKeysRemoved = true;
+
+        SharedPreferences legacyStore = BraintreeSharedPreferences.getSharedPreferences(context);
+        SharedPreferences.Editor editor = null;
+        for (String legacyKey : LEGACY_KEYS) {
+            if (legacyStore.contains(legacyKey)) {
+                if (editor == null) {
+                    editor = legacyStore.edit();
+                }
+                editor.remove(legacyKey);
+            }
+        }
+
+        if (editor != null) {
+            editor.apply();
+        }
+    }
+
+    private static SharedPreferences getStore(Context context) {
+        return BraintreeSharedPreferences.getSharedPreferences(context, STORE_NAME);
+    }
+
+    static byte[] encode(PayPalRequest request) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeByte(VERSION);
+            writeString(out, request.getAmount());
+            writeString(out, request.getCurrencyCode());
+            writeString(out, request.getLocaleCode());
+            writeString(out, request.getBillingAgreementDescription());
+            out.writeBoolean(request.isShippingAddressRequired());
+            writeString(out, request.getIntent());
+            writeString(out, request.getLandingPageType());
+            writeString(out, request.getUserAction());
+            writeString(out, request.getDisplayName());
+            out.writeBoolean(request.shouldOfferCredit());
+
+            PostalAddress address = request.getShippingAddressOverride();
+            out.writeBoolean(address != null);
+            if (address != null) {
+                writeString(out, address.getRecipientName());
+                writeString(out, address.getStreetAddress());
+                writeString(out, address.getExtendedAddress());
+                writeString(out, address.getLocality());
+                writeString(out, address.getRegion());
+                writeString(out, address.getPostalCode());
+                writeString(out, address.getCountryCodeAlpha2());
+            }
+            out.flush();
+        } catch (IOException e) {
+            // writing to a ByteArrayOutputStream does not fail
+            throw new IllegalStateException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return the decoded {@link PayPalRequest}, or {@code null} if {@code data} is truncated, malformed or was
+     * written by a different version.
+     */
+    @Nullable
+    static PayPalRequest decode(byte[] data) {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        try {
+            if (in.readUnsignedByte() != VERSION) {
+                return null;
+            }
+
+            PayPalRequest request = new PayPalRequest(readString(in))
+                    .currencyCode(readString(in))
+                    .localeCode(readString(in))
+                    .billingAgreementDescription(readString(in))
+                    .shippingAddressRequired(in.readBoolean())
+                    .intent(readString(in))
+                    .landingPageType(readString(in))
+                    .userAction(readString(in))
+                    .displayName(readString(in))
+                    .offerCredit(in.readBoolean());
+
+            if (in.readBoolean()) {
+                request.shippingAddressOverride(new PostalAddress()
+                        .recipientName(readString(in))
+                        .streetAddress(readString(in))
+                        .extendedAddress(readString(in))
+                        .locality(readString(in))
+                        .region(readString(in))
+                        .postalCode(readString(in))
+                        .countryCodeAlpha2(readString(in)));
+            }
+
+            return request;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, @Nullable String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    @Nullable
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
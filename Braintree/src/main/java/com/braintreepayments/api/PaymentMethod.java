@@ -1,11 +1,15 @@
 package com.braintreepayments.api;
 
+import android.content.Context;
 import android.net.Uri;
 
 import com.braintreepayments.api.interfaces.ConfigurationListener;
-import com.braintreepayments.api.interfaces.HttpResponseCallback;
+import com.braintreepayments.api.interfaces.PaymentMethodNoncesDiffListener;
 import com.braintreepayments.api.interfaces.PaymentMethodNoncesUpdatedListener;
+import com.braintreepayments.api.internal.DecodingHttpResponseCallback;
+import com.braintreepayments.api.models.BatchTokenizationResult;
 import com.braintreepayments.api.models.Configuration;
+import com.braintreepayments.api.models.PaymentMethodBuilder;
 import com.braintreepayments.api.models.PaymentMethodNonce;
 
 import org.json.JSONException;
@@ -21,32 +25,52 @@ public class PaymentMethod {
      * Retrieves the current list of {@link PaymentMethodNonce}s for the current customer.
      * <p/>
      * When finished, the {@link java.util.List} of {@link PaymentMethodNonce}s will be sent to {@link
-     * PaymentMethodNoncesUpdatedListener#onPaymentMethodNoncesUpdated(List)}.
+     * PaymentMethodNoncesUpdatedListener#onPaymentMethodNoncesUpdated(List)}. If the listener is a
+     * {@link PaymentMethodNoncesDiffListener} and the customer's payment methods have not been fetched by this
+     * {@link BraintreeFragment} yet, the last payment methods fetched with the same client token are sent first, and
+     * the refreshed list is sent once it has been fetched if it differs, as a
+     * {@link com.braintreepayments.api.models.PaymentMethodNoncesDiff}.
      *
      * @param fragment {@link BraintreeFragment}
      * @param defaultFirst when {@code true} the customer's default payment method will be first in the list, otherwise
      *        payment methods will be ordered my most recently used.
      */
-    public static void getPaymentMethodNonces(final BraintreeFragment fragment, boolean defaultFirst) {
+    public static void getPaymentMethodNonces(final BraintreeFragment fragment, final boolean defaultFirst) {
         final Uri uri = Uri.parse(TokenizationClient.versionedPath(TokenizationClient.PAYMENT_METHOD_ENDPOINT))
                 .buildUpon()
                 .appendQueryParameter("default_first", String.valueOf(defaultFirst))
                 .appendQueryParameter("session_id", fragment.getSessionId())
                 .build();
 
+        final boolean useVaultCache = fragment.acceptsVaultCachedPaymentMethodNonces();
+        if (useVaultCache && !fragment.hasFetchedPaymentMethodNonces()) {
+            List<PaymentMethodNonce> cachedPaymentMethodNonces = VaultCache.get(fragment.getApplicationContext(),
+                    fragment.getAuthorization(), defaultFirst);
+            if (cachedPaymentMethodNonces != null) {
+                fragment.postVaultCacheCallback(cachedPaymentMethodNonces);
+            }
+        }
+
         fragment.waitForConfiguration(new ConfigurationListener() {
             @Override
             public void onConfigurationFetched(Configuration configuration) {
-                fragment.getHttpClient().get(uri.toString(), new HttpResponseCallback() {
+                fragment.getHttpClient().get(uri.toString(),
+                        new DecodingHttpResponseCallback<List<PaymentMethodNonce>>() {
                     @Override
-                    public void success(String responseBody) {
-                        try {
-                            fragment.postCallback(PaymentMethodNonce.parsePaymentMethodNonces(responseBody));
-                            fragment.sendAnalyticsEvent("get-payment-methods.succeeded");
-                        } catch (JSONException e) {
-                            fragment.postCallback(e);
-                            fragment.sendAnalyticsEvent("get-payment-methods.failed");
+                    protected List<PaymentMethodNonce> decode(String responseBody) throws JSONException {
+                        List<PaymentMethodNonce> paymentMethodNonces =
+                                PaymentMethodNonce.parsePaymentMethodNonces(responseBody);
+                        if (useVaultCache) {
+                            VaultCache.put(fragment.getApplicationContext(), fragment.getAuthorization(),
+                                    defaultFirst, responseBody);
                         }
+                        return paymentMethodNonces;
+                    }
+
+                    @Override
+                    public void onDecoded(List<PaymentMethodNonce> paymentMethodNonces) {
+                        fragment.postCallback(paymentMethodNonces);
+                        fragment.sendAnalyticsEvent("get-payment-methods.succeeded");
                     }
 
                     @Override
@@ -70,4 +94,80 @@ public class PaymentMethod {
     public static void getPaymentMethodNonces(BraintreeFragment fragment) {
         getPaymentMethodNonces(fragment, false);
     }
+
+    /**
+     * Removes the payment methods stored for {@link PaymentMethodNoncesDiffListener}s by
+     * {@link #getPaymentMethodNonces(BraintreeFragment, boolean)}. Call this when the customer logs out.
+     *
+     * @param context {@link Context}
+     */
+    public static void clearCachedPaymentMethodNonces(Context context) {
+        VaultCache.clear(context.getApplicationContext());
+    }
+
+    /**
+     * Tokenizes a payment method and returns a {@link BraintreeFuture} instead of notifying the
+     * {@link BraintreeFragment}'s listeners. Futures can be composed, for example to run a 3D Secure lookup on
+     * the tokenized card with a single timeout:
+     * <pre>
+     * PaymentMethod.tokenize(fragment, cardBuilder)
+     *         .thenAsync(new BraintreeFuture.AsyncFunction&lt;PaymentMethodNonce, ThreeDSecureLookup&gt;() {
+     *             &#64;Override
+     *             public BraintreeFuture&lt;ThreeDSecureLookup&gt; apply(PaymentMethodNonce nonce) {
+     *                 return ThreeDSecure.lookup(fragment, nonce.getNonce(), "10.00");
+     *             }
+     *         })
+     *         .timeout(30, TimeUnit.SECONDS)
+     *         .addCallback(mainThreadExecutor, callback);
+     * </pre>
+     *
+     * @param fragment {@link BraintreeFragment}
+     * @param paymentMethodBuilder {@link PaymentMethodBuilder} for the {@link PaymentMethodNonce} to be created.
+     * @return a {@link BraintreeFuture} for the {@link PaymentMethodNonce}.
+     */
+    public static BraintreeFuture<PaymentMethodNonce> tokenize(BraintreeFragment fragment,
+            PaymentMethodBuilder paymentMethodBuilder) {
+        return TokenizationClient.tokenize(fragment.getBraintreeClient(), paymentMethodBuilder);
+    }
+
+    /**
+     * Tokenizes several payment methods with at most {@code maxConcurrency} requests in flight at once. Unlike
+     * {@link #tokenize(BraintreeFragment, PaymentMethodBuilder)}, a failure of one builder does not fail the
+     * batch; each builder's nonce or error is available from the {@link BatchTokenizationResult}.
+     *
+     * @param fragment {@link BraintreeFragment}
+     * @param paymentMethodBuilders the {@link PaymentMethodBuilder}s to tokenize.
+     * @param maxConcurrency the maximum number of requests in flight at once.
+     * @return a {@link BraintreeFuture} for the {@link BatchTokenizationResult}.
+     */
+    public static BraintreeFuture<BatchTokenizationResult> tokenizeAll(BraintreeFragment fragment,
+            List<? extends PaymentMethodBuilder> paymentMethodBuilders, int maxConcurrency) {
+        return fragment.getBraintreeClient().tokenizeAll(paymentMethodBuilders, maxConcurrency);
+    }
+
+    static BraintreeFuture<List<PaymentMethodNonce>> getPaymentMethodNonces(final BraintreeClient client,
+            boolean defaultFirst) {
+        final Uri uri = Uri.parse(TokenizationClient.versionedPath(TokenizationClient.PAYMENT_METHOD_ENDPOINT))
+                .buildUpon()
+                .appendQueryParameter("default_first", String.valueOf(defaultFirst))
+                .appendQueryParameter("session_id", client.getSessionId())
+                .build();
+
+        return client.sendAnalyticsEvents(client.fetchConfiguration().thenAsync(
+                new BraintreeFuture.AsyncFunction<Configuration, List<PaymentMethodNonce>>() {
+                    @Override
+                    public BraintreeFuture<List<PaymentMethodNonce>> apply(Configuration configuration) {
+                        BraintreeFuture<List<PaymentMethodNonce>> future = new BraintreeFuture<>();
+                        future.setHttpRequest(client.getHttpClient().startGet(uri.toString(),
+                                new FutureHttpResponseCallback<List<PaymentMethodNonce>>(future) {
+                                    @Override
+                                    protected List<PaymentMethodNonce> decode(String responseBody)
+                                            throws JSONException {
+                                        return PaymentMethodNonce.parsePaymentMethodNonces(responseBody);
+                                    }
+                                }));
+                        return future;
+                    }
+                }), "get-payment-methods.succeeded", "get-payment-methods.failed");
+    }
 }
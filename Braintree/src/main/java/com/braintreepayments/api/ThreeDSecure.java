@@ -6,8 +6,8 @@ import android.content.Intent;
 import com.braintreepayments.api.exceptions.BraintreeException;
 import com.braintreepayments.api.exceptions.ErrorWithResponse;
 import com.braintreepayments.api.interfaces.ConfigurationListener;
-import com.braintreepayments.api.interfaces.HttpResponseCallback;
 import com.braintreepayments.api.interfaces.PaymentMethodNonceCallback;
+import com.braintreepayments.api.internal.DecodingHttpResponseCallback;
 import com.braintreepayments.api.internal.ManifestValidator;
 import com.braintreepayments.api.models.BraintreeRequestCodes;
 import com.braintreepayments.api.models.CardBuilder;
@@ -16,6 +16,7 @@ import com.braintreepayments.api.models.PaymentMethodNonce;
 import com.braintreepayments.api.models.ThreeDSecureAuthenticationResponse;
 import com.braintreepayments.api.models.ThreeDSecureLookup;
 import com.braintreepayments.api.threedsecure.ThreeDSecureWebViewActivity;
+import com.braintreepayments.api.threedsecure.ThreeDSecureWebViewPool;
 
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -50,6 +51,26 @@ public class ThreeDSecure {
      */
     public static void performVerification(final BraintreeFragment fragment, final CardBuilder cardBuilder,
             final String amount) {
+        performVerification(fragment, cardBuilder, amount, false);
+    }
+
+    /**
+     * Tokenizes a card and performs a 3D Secure verification as in
+     * {@link #performVerification(BraintreeFragment, CardBuilder, String)}.
+     *
+     * @param fragment the {@link BraintreeFragment} backing the http request.
+     * @param cardBuilder The cardBuilder created from raw details.
+     * @param amount The amount of the transaction in the current merchant account's currency
+     * @param prewarmWebView {@code true} to create the WebView for the authentication challenge with
+     *        {@link ThreeDSecureWebViewPool} while tokenization and lookup are in flight, so the challenge page
+     *        starts loading as soon as the lookup returns. The WebView is destroyed if it is not used.
+     */
+    public static void performVerification(final BraintreeFragment fragment, final CardBuilder cardBuilder,
+            final String amount, boolean prewarmWebView) {
+        if (prewarmWebView) {
+            ThreeDSecureWebViewPool.prewarm(fragment.getApplicationContext());
+        }
+
         TokenizationClient.tokenize(fragment, cardBuilder, new PaymentMethodNonceCallback() {
             @Override
             public void success(PaymentMethodNonce paymentMethodNonce) {
@@ -80,6 +101,24 @@ public class ThreeDSecure {
      * @param amount The amount of the transaction in the current merchant account's currency.
      */
     public static void performVerification(final BraintreeFragment fragment, final String nonce, final String amount) {
+        performVerification(fragment, nonce, amount, false);
+    }
+
+    /**
+     * Performs a 3D Secure verification as in {@link #performVerification(BraintreeFragment, String, String)}.
+     *
+     * @param fragment the {@link BraintreeFragment} backing the http request.
+     * @param nonce The nonce that represents a card to perform a 3D Secure verification against.
+     * @param amount The amount of the transaction in the current merchant account's currency.
+     * @param prewarmWebView {@code true} to create the WebView for the authentication challenge with
+     *        {@link ThreeDSecureWebViewPool} while the lookup is in flight.
+     */
+    public static void performVerification(final BraintreeFragment fragment, final String nonce, final String amount,
+            boolean prewarmWebView) {
+        if (prewarmWebView) {
+            ThreeDSecureWebViewPool.prewarm(fragment.getApplicationContext());
+        }
+
         fragment.waitForConfiguration(new ConfigurationListener() {
             @Override
             public void onConfigurationFetched(Configuration configuration) {
@@ -102,23 +141,23 @@ public class ThreeDSecure {
 
                     fragment.getHttpClient().post(TokenizationClient.versionedPath(
                             TokenizationClient.PAYMENT_METHOD_ENDPOINT + "/" + nonce +
-                                    "/three_d_secure/lookup"), params.toString(), new HttpResponseCallback() {
+                                    "/three_d_secure/lookup"), params.toString(),
+                            new DecodingHttpResponseCallback<ThreeDSecureLookup>() {
+                        @Override
+                        protected ThreeDSecureLookup decode(String responseBody) throws JSONException {
+                            return ThreeDSecureLookup.fromJson(responseBody);
+                        }
+
                         @Override
-                        public void success(String responseBody) {
-                            try {
-                                ThreeDSecureLookup threeDSecureLookup =
-                                        ThreeDSecureLookup.fromJson(responseBody);
-                                if (threeDSecureLookup.getAcsUrl() != null) {
-                                    Intent intent = new Intent(fragment.getApplicationContext(),
-                                            ThreeDSecureWebViewActivity.class)
-                                            .putExtra(ThreeDSecureWebViewActivity.EXTRA_THREE_D_SECURE_LOOKUP,
-                                                    threeDSecureLookup);
-                                    fragment.startActivityForResult(intent, BraintreeRequestCodes.THREE_D_SECURE);
-                                } else {
-                                    fragment.postCallback(threeDSecureLookup.getCardNonce());
-                                }
-                            } catch (JSONException e) {
-                                fragment.postCallback(e);
+                        public void onDecoded(ThreeDSecureLookup threeDSecureLookup) {
+                            if (threeDSecureLookup.getAcsUrl() != null) {
+                                Intent intent = new Intent(fragment.getApplicationContext(),
+                                        ThreeDSecureWebViewActivity.class)
+                                        .putExtra(ThreeDSecureWebViewActivity.EXTRA_THREE_D_SECURE_LOOKUP,
+                                                threeDSecureLookup);
+                                fragment.startActivityForResult(intent, BraintreeRequestCodes.THREE_D_SECURE);
+                            } else {
+                                fragment.postCallback(threeDSecureLookup.getCardNonce());
                             }
                         }
 
@@ -134,6 +173,52 @@ public class ThreeDSecure {
         });
     }
 
+    /**
+     * Performs a 3D Secure lookup for a nonce and returns a {@link BraintreeFuture} instead of notifying the
+     * {@link BraintreeFragment}'s listeners.
+     * <p/>
+     * If {@link ThreeDSecureLookup#getAcsUrl()} is not {@code null} the customer must still complete an
+     * authentication challenge, which requires an {@link Activity} and is started by
+     * {@link #performVerification(BraintreeFragment, String, String)}. Otherwise
+     * {@link ThreeDSecureLookup#getCardNonce()} can be used directly.
+     *
+     * @param fragment the {@link BraintreeFragment} backing the http request.
+     * @param nonce The nonce that represents a card to perform a 3D Secure lookup for.
+     * @param amount The amount of the transaction in the current merchant account's currency.
+     * @return a {@link BraintreeFuture} for the {@link ThreeDSecureLookup}.
+     */
+    public static BraintreeFuture<ThreeDSecureLookup> lookup(final BraintreeFragment fragment, final String nonce,
+            final String amount) {
+        final BraintreeClient client = fragment.getBraintreeClient();
+        return client.fetchConfiguration().thenAsync(
+                new BraintreeFuture.AsyncFunction<Configuration, ThreeDSecureLookup>() {
+                    @Override
+                    public BraintreeFuture<ThreeDSecureLookup> apply(Configuration configuration)
+                            throws JSONException {
+                        if (!configuration.isThreeDSecureEnabled()) {
+                            return BraintreeFuture.failed(
+                                    new BraintreeException("Three D Secure is not enabled in the control panel"));
+                        }
+
+                        JSONObject params = new JSONObject()
+                                .put("merchantAccountId", configuration.getMerchantAccountId())
+                                .put("amount", amount);
+
+                        BraintreeFuture<ThreeDSecureLookup> future = new BraintreeFuture<>();
+                        future.setHttpRequest(client.getHttpClient().startPost(TokenizationClient.versionedPath(
+                                TokenizationClient.PAYMENT_METHOD_ENDPOINT + "/" + nonce +
+                                        "/three_d_secure/lookup"), params.toString(),
+                                new FutureHttpResponseCallback<ThreeDSecureLookup>(future) {
+                                    @Override
+                                    protected ThreeDSecureLookup decode(String responseBody) throws JSONException {
+                                        return ThreeDSecureLookup.fromJson(responseBody);
+                                    }
+                                }));
+                        return future;
+                    }
+                });
+    }
+
     protected static void onActivityResult(BraintreeFragment fragment, int resultCode, Intent data) {
         if (resultCode == Activity.RESULT_OK) {
             ThreeDSecureAuthenticationResponse authenticationResponse =
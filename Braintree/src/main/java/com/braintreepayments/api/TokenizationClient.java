@@ -1,28 +1,67 @@
 package com.braintreepayments.api;
 
+import android.os.Handler;
+import android.os.Looper;
+import android.util.JsonWriter;
+
 import com.braintreepayments.api.exceptions.ErrorWithResponse;
 import com.braintreepayments.api.interfaces.ConfigurationListener;
-import com.braintreepayments.api.interfaces.HttpResponseCallback;
 import com.braintreepayments.api.interfaces.PaymentMethodNonceCallback;
+import com.braintreepayments.api.internal.BraintreeHttpClient;
+import com.braintreepayments.api.internal.JsonRequestBody;
+import com.braintreepayments.api.models.BaseCardBuilder;
+import com.braintreepayments.api.models.BatchTokenizationResult;
+import com.braintreepayments.api.models.CardBuilder;
 import com.braintreepayments.api.models.Configuration;
 import com.braintreepayments.api.models.PaymentMethodBuilder;
 import com.braintreepayments.api.models.PaymentMethodNonce;
+import com.braintreepayments.api.models.UnionPayCardBuilder;
 
 import org.json.JSONException;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static com.braintreepayments.api.models.PaymentMethodNonce.parsePaymentMethodNonces;
 
 class TokenizationClient {
 
     static final String PAYMENT_METHOD_ENDPOINT = "payment_methods";
 
+    /**
+     * Default number of tokenization requests in flight at once for a batch. Stays below the default
+     * {@link java.net.HttpURLConnection} keep-alive pool size of 5 so every request reuses a pooled connection.
+     */
+    static final int DEFAULT_BATCH_CONCURRENCY = 4;
+
+    /**
+     * Runs future callbacks for {@link BraintreeFragment} flows on the main thread, where listeners expect them.
+     */
+    static final Executor MAIN_THREAD_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            if (Looper.myLooper() == Looper.getMainLooper()) {
+                command.run();
+            } else {
+                new Handler(Looper.getMainLooper()).post(command);
+            }
+        }
+    };
+
     /**
      * Create a {@link PaymentMethodNonce} in the Braintree Gateway.
      * <p/>
      * On completion, returns the {@link PaymentMethodNonce} to {@link PaymentMethodNonceCallback}.
      * <p/>
      * If creation fails validation, {@link com.braintreepayments.api.interfaces.BraintreeErrorListener#onError(Exception)}
-     * will be called with the resulting {@link ErrorWithResponse}.
+     * will be called with the resulting {@link ErrorWithResponse}. Cards with a malformed number or security code
+     * are rejected by {@link CardValidator} with an {@link ErrorWithResponse} without making a request. Whether the
+     * card brand is accepted is left to the gateway.
      * <p/>
      * If an error not due to validation (server error, network issue, etc.) occurs, {@link
      * com.braintreepayments.api.interfaces.BraintreeErrorListener#onError(Exception)} (Throwable)}
@@ -38,22 +77,15 @@ class TokenizationClient {
         fragment.waitForConfiguration(new ConfigurationListener() {
             @Override
             public void onConfigurationFetched(Configuration configuration) {
-                fragment.getHttpClient().post(TokenizationClient.versionedPath(
-                        TokenizationClient.PAYMENT_METHOD_ENDPOINT + "/" + paymentMethodBuilder.getApiPath()),
-                        paymentMethodBuilder.build(), new HttpResponseCallback() {
+                post(fragment.getBraintreeClient(), fragment.getHttpClient(), paymentMethodBuilder)
+                        .addCallback(MAIN_THREAD_EXECUTOR, new BraintreeFuture.Callback<PaymentMethodNonce>() {
                             @Override
-                            public void success(String responseBody) {
-                                try {
-                                   PaymentMethodNonce paymentMethodNonce = parsePaymentMethodNonces(responseBody,
-                                            paymentMethodBuilder.getResponsePaymentMethodType());
-                                    callback.success(paymentMethodNonce);
-                                } catch (JSONException e) {
-                                    callback.failure(e);
-                                }
+                            public void onSuccess(PaymentMethodNonce paymentMethodNonce) {
+                                callback.success(paymentMethodNonce);
                             }
 
                             @Override
-                            public void failure(Exception exception) {
+                            public void onFailure(Exception exception) {
                                 callback.failure(exception);
                             }
                         });
@@ -61,7 +93,237 @@ class TokenizationClient {
         });
     }
 
+    /**
+     * Create a {@link PaymentMethodNonce} in the Braintree Gateway.
+     *
+     * @return a {@link BraintreeFuture} that completes with the {@link PaymentMethodNonce} on the request
+     * thread.
+     */
+    static BraintreeFuture<PaymentMethodNonce> tokenize(final BraintreeClient client,
+            final PaymentMethodBuilder paymentMethodBuilder) {
+        paymentMethodBuilder.setSessionId(client.getSessionId());
+
+        BraintreeFuture<PaymentMethodNonce> future = client.fetchConfiguration().thenAsync(
+                new BraintreeFuture.AsyncFunction<Configuration, PaymentMethodNonce>() {
+                    @Override
+                    public BraintreeFuture<PaymentMethodNonce> apply(Configuration configuration) {
+                        return post(client, client.getHttpClient(), paymentMethodBuilder);
+                    }
+                });
+
+        if (paymentMethodBuilder instanceof UnionPayCardBuilder) {
+            client.sendAnalyticsEvents(future, "union-pay.nonce-received", "union-pay.nonce-failed");
+        } else if (paymentMethodBuilder instanceof CardBuilder) {
+            client.sendAnalyticsEvents(future, "card.nonce-received", "card.nonce-failed");
+        }
+
+        return future;
+    }
+
+    /**
+     * Create a {@link PaymentMethodNonce} for each {@link PaymentMethodBuilder} in the Braintree Gateway. At
+     * most {@code maxConcurrency} requests are in flight at once; each completed request starts the next one on
+     * the request thread, so requests are pipelined over the HTTP client's pooled connections.
+     *
+     * @return a {@link BraintreeFuture} that always succeeds with a {@link BatchTokenizationResult} containing a
+     * nonce or an error for each builder, in the order of {@code paymentMethodBuilders}.
+     */
+    static BraintreeFuture<BatchTokenizationResult> tokenize(final BraintreeClient client,
+            List<? extends PaymentMethodBuilder> paymentMethodBuilders, int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be at least 1");
+        }
+
+        final List<PaymentMethodBuilder> builders = new ArrayList<PaymentMethodBuilder>(paymentMethodBuilders);
+        final int concurrency = Math.min(maxConcurrency, Math.max(builders.size(), 1));
+        final long startNanos = System.nanoTime();
+        final BraintreeFuture<BatchTokenizationResult> future = new BraintreeFuture<>();
+
+        if (builders.isEmpty()) {
+            future.complete(new BatchTokenizationResult(new ArrayList<BatchTokenizationResult.Item>(), 0, 0));
+            return future;
+        }
+
+        client.fetchConfiguration().addCallback(new BraintreeFuture.Callback<Configuration>() {
+            @Override
+            public void onSuccess(Configuration configuration) {
+                new BatchTokenization(client, builders, concurrency, startNanos, future).start();
+            }
+
+            @Override
+            public void onFailure(Exception exception) {
+                BatchTokenizationResult.Item[] items = new BatchTokenizationResult.Item[builders.size()];
+                Arrays.fill(items, new BatchTokenizationResult.Item(null, exception, 0));
+                future.complete(new BatchTokenizationResult(Arrays.asList(items), System.nanoTime() - startNanos,
+                        0));
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * Posts the builder, sharing the request with identical tokenizations that are in flight.
+     */
+    private static BraintreeFuture<PaymentMethodNonce> post(BraintreeClient client,
+            final BraintreeHttpClient httpClient, final PaymentMethodBuilder paymentMethodBuilder) {
+        int errors = validate(paymentMethodBuilder);
+        if (errors != CardValidator.VALID) {
+            return BraintreeFuture.failed(CardValidator.toErrorWithResponse(errors));
+        }
+
+        final String path = getPath(paymentMethodBuilder);
+
+        return client.getTokenizationDeduplicator().deduplicate(path, toRequestBody(paymentMethodBuilder),
+                new TokenizationDeduplicator.Request() {
+                    @Override
+                    public BraintreeFuture<PaymentMethodNonce> send() {
+                        return TokenizationClient.send(httpClient, path, paymentMethodBuilder);
+                    }
+                });
+    }
+
+    /**
+     * Streams the builder to the connection without serializing it to a {@link String}.
+     */
+    private static BraintreeFuture<PaymentMethodNonce> send(BraintreeHttpClient httpClient, String path,
+            final PaymentMethodBuilder paymentMethodBuilder) {
+        BraintreeFuture<PaymentMethodNonce> future = new BraintreeFuture<>();
+        future.setHttpRequest(httpClient.startPost(path, toRequestBody(paymentMethodBuilder),
+                new FutureHttpResponseCallback<PaymentMethodNonce>(future) {
+                    @Override
+                    protected PaymentMethodNonce decode(String responseBody) throws JSONException {
+                        return parsePaymentMethodNonces(responseBody,
+                                paymentMethodBuilder.getResponsePaymentMethodType());
+                    }
+                }));
+        return future;
+    }
+
+    /**
+     * Adapts the builder to the request body {@link BraintreeHttpClient} streams, which is internal and not part of
+     * the {@link PaymentMethodBuilder} API.
+     */
+    private static JsonRequestBody toRequestBody(final PaymentMethodBuilder paymentMethodBuilder) {
+        return new JsonRequestBody() {
+            @Override
+            public void writeFields(JsonWriter writer) throws IOException {
+                paymentMethodBuilder.writeFields(writer);
+            }
+        };
+    }
+
+    /**
+     * @return {@link CardValidator#VALID} unless the builder is a card with a malformed number or security code.
+     * Brands are not checked against the {@link com.braintreepayments.api.models.CardConfiguration}, since the
+     * gateway may accept co-branded cards whose detected brand is not listed.
+     */
+    private static int validate(PaymentMethodBuilder paymentMethodBuilder) {
+        if (paymentMethodBuilder instanceof BaseCardBuilder) {
+            return ((BaseCardBuilder) paymentMethodBuilder).getValidationErrors();
+        }
+        return CardValidator.VALID;
+    }
+
+    private static String getPath(PaymentMethodBuilder paymentMethodBuilder) {
+        return versionedPath(PAYMENT_METHOD_ENDPOINT + "/" + paymentMethodBuilder.getApiPath());
+    }
+
     static String versionedPath(String path) {
         return "/v1/" + path;
     }
+
+    private static class BatchTokenization {
+
+        private final BraintreeClient mClient;
+        private final List<PaymentMethodBuilder> mBuilders;
+        private final int mConcurrency;
+        private final long mStartNanos;
+        private final BraintreeFuture<BatchTokenizationResult> mFuture;
+        private final BatchTokenizationResult.Item[] mItems;
+        private final AtomicInteger mNextIndex = new AtomicInteger();
+        private final AtomicInteger mRemaining;
+
+        BatchTokenization(BraintreeClient client, List<PaymentMethodBuilder> builders, int concurrency,
+                long startNanos, BraintreeFuture<BatchTokenizationResult> future) {
+            mClient = client;
+            mBuilders = builders;
+            mConcurrency = concurrency;
+            mStartNanos = startNanos;
+            mFuture = future;
+            mItems = new BatchTokenizationResult.Item[builders.size()];
+            mRemaining = new AtomicInteger(builders.size());
+        }
+
+        void start() {
+            for (int i = 0; i < mConcurrency; i++) {
+                next();
+            }
+        }
+
+        private void next() {
+            // Cards rejected on the device complete immediately, so keep taking builders until one is sent
+            while (true) {
+                final int index = mNextIndex.getAndIncrement();
+                if (index >= mBuilders.size()) {
+                    return;
+                }
+
+                PaymentMethodBuilder builder = mBuilders.get(index);
+                int errors = validate(builder);
+                if (errors != CardValidator.VALID) {
+                    if (complete(index, new BatchTokenizationResult.Item(null,
+                            CardValidator.toErrorWithResponse(errors), 0))) {
+                        return;
+                    }
+                    continue;
+                }
+
+                // Batches ask for a nonce per builder, so identical builders are not deduplicated
+                builder.setSessionId(mClient.getSessionId());
+                final long requestStartNanos = System.nanoTime();
+                send(mClient.getHttpClient(), getPath(builder), builder)
+                        .addCallback(new BraintreeFuture.Callback<PaymentMethodNonce>() {
+                            @Override
+                            public void onSuccess(PaymentMethodNonce paymentMethodNonce) {
+                                finish(index, new BatchTokenizationResult.Item(paymentMethodNonce, null,
+                                        elapsedMillis(requestStartNanos)));
+                            }
+
+                            @Override
+                            public void onFailure(Exception exception) {
+                                finish(index, new BatchTokenizationResult.Item(null, exception,
+                                        elapsedMillis(requestStartNanos)));
+                            }
+                        });
+                return;
+            }
+        }
+
+        private void finish(int index, BatchTokenizationResult.Item item) {
+            if (!complete(index, item)) {
+                next();
+            }
+        }
+
+        /**
+         * @return {@code true} if this was the last item of the batch.
+         */
+        private boolean complete(int index, BatchTokenizationResult.Item item) {
+            mItems[index] = item;
+            if (mRemaining.decrementAndGet() != 0) {
+                return false;
+            }
+
+            BatchTokenizationResult result = new BatchTokenizationResult(Arrays.asList(mItems),
+                    System.nanoTime() - mStartNanos, mConcurrency);
+            mClient.sendAnalyticsEvent("batch-tokenization.completed");
+            mFuture.complete(result);
+            return true;
+        }
+
+        private static long elapsedMillis(long startNanos) {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        }
+    }
 }
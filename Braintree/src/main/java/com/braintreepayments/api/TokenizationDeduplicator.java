@@ -0,0 +1,175 @@
+package com.braintreepayments.api;
+
+import android.util.JsonWriter;
+
+import com.braintreepayments.api.internal.JsonRequestBody;
+import com.braintreepayments.api.models.PaymentMethodNonce;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces identical tokenization requests, such as those caused by a double tap on a pay button, into a single
+ * HTTP request whose result is delivered to every caller.
+ * <p/>
+ * Requests are identified by a SHA-256 fingerprint of the API path and request body so card data is not
+ * retained as a map key. A request is shared while it is in flight and, for successful requests, for the dedup
+ * window after it completes. Failed requests are never shared once completed so a retry reaches the gateway.
+ */
+class TokenizationDeduplicator {
+
+    interface Request {
+        BraintreeFuture<PaymentMethodNonce> send();
+    }
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final Map<String, Entry> mEntries = new HashMap<>();
+    private volatile long mWindowNanos;
+
+    /**
+     * @param windowMillis how long a successful result is shared with identical requests after it completes.
+     *        {@code 0} only shares requests that are still in flight.
+     */
+    void setWindowMillis(long windowMillis) {
+        if (windowMillis < 0) {
+            throw new IllegalArgumentException("windowMillis must not be negative");
+        }
+        mWindowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+    }
+
+    long getWindowMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(mWindowNanos);
+    }
+
+    /**
+     * @return a {@link BraintreeFuture} for the result of {@code request}, or of an identical request that is
+     * in flight or completed within the dedup window. Cancelling the returned future does not affect other
+     * callers.
+     */
+    BraintreeFuture<PaymentMethodNonce> deduplicate(String path, JsonRequestBody body, Request request) {
+        final String fingerprint;
+        try {
+            fingerprint = fingerprint(path, body);
+        } catch (IOException | NoSuchAlgorithmException e) {
+            return request.send();
+        }
+
+        final Entry entry;
+        boolean send = false;
+        synchronized (mEntries) {
+            evictExpired(System.nanoTime());
+
+            Entry existing = mEntries.get(fingerprint);
+            if (existing != null) {
+                entry = existing;
+            } else {
+                entry = new Entry();
+                mEntries.put(fingerprint, entry);
+                send = true;
+            }
+        }
+
+        if (send) {
+            request.send().addCallback(new BraintreeFuture.Callback<PaymentMethodNonce>() {
+                @Override
+                public void onSuccess(PaymentMethodNonce paymentMethodNonce) {
+                    finish(fingerprint, entry, true);
+                    entry.future.complete(paymentMethodNonce);
+                }
+
+                @Override
+                public void onFailure(Exception exception) {
+                    finish(fingerprint, entry, false);
+                    entry.future.fail(exception);
+                }
+            });
+        }
+
+        final BraintreeFuture<PaymentMethodNonce> future = new BraintreeFuture<>();
+        entry.future.addCallback(new BraintreeFuture.Callback<PaymentMethodNonce>() {
+            @Override
+            public void onSuccess(PaymentMethodNonce paymentMethodNonce) {
+                future.complete(paymentMethodNonce);
+            }
+
+            @Override
+            public void onFailure(Exception exception) {
+                future.fail(exception);
+            }
+        });
+        return future;
+    }
+
+    int size() {
+        synchronized (mEntries) {
+            evictExpired(System.nanoTime());
+            return mEntries.size();
+        }
+    }
+
+    private void finish(String fingerprint, Entry entry, boolean success) {
+        synchronized (mEntries) {
+            if (success && mWindowNanos > 0) {
+                entry.expiresAtNanos = System.nanoTime() + mWindowNanos;
+            } else if (mEntries.get(fingerprint) == entry) {
+                mEntries.remove(fingerprint);
+            }
+        }
+    }
+
+    private void evictExpired(long nowNanos) {
+        Iterator<Entry> iterator = mEntries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.expiresAtNanos != 0 && entry.expiresAtNanos - nowNanos <= 0) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Streams the request body into a digest so the fingerprint does not require serializing the body to a
+     * {@link String}.
+     */
+    static String fingerprint(String path, JsonRequestBody body) throws IOException, NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        digest.update(path.getBytes(UTF_8));
+        digest.update((byte) 0);
+
+        JsonWriter writer = new JsonWriter(new OutputStreamWriter(new DigestOutputStream(new OutputStream() {
+            @Override
+            public void write(int b) {}
+
+            @Override
+            public void write(byte[] buffer, int offset, int length) {}
+        }, digest), UTF_8));
+        writer.beginObject();
+        body.writeFields(writer);
+        writer.endObject();
+        writer.close();
+
+        byte[] hash = digest.digest();
+        StringBuilder builder = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            builder.append(Character.forDigit((b >> 4) & 0xf, 16))
+                    .append(Character.forDigit(b & 0xf, 16));
+        }
+        return builder.toString();
+    }
+
+    private static class Entry {
+
+        final BraintreeFuture<PaymentMethodNonce> future = new BraintreeFuture<>();
+        long expiresAtNanos;
+    }
+}
@@ -4,8 +4,9 @@ import android.net.Uri;
 
 import com.braintreepayments.api.exceptions.ConfigurationException;
 import com.braintreepayments.api.interfaces.ConfigurationListener;
-import com.braintreepayments.api.interfaces.HttpResponseCallback;
 import com.braintreepayments.api.interfaces.PaymentMethodNonceCallback;
+import com.braintreepayments.api.internal.BraintreeHttpClient;
+import com.braintreepayments.api.internal.DecodingHttpResponseCallback;
 import com.braintreepayments.api.models.Configuration;
 import com.braintreepayments.api.models.PaymentMethodNonce;
 import com.braintreepayments.api.models.UnionPayCapabilities;
@@ -15,6 +16,8 @@ import com.braintreepayments.api.models.UnionPayConfiguration;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.util.concurrent.CancellationException;
+
 /**
  * Used to check, enroll, and tokenize UnionPay cards. For more information see the
  * <a href="https://developers.braintreepayments.com/guides/unionpay/overview">documentation</a>
@@ -49,25 +52,63 @@ public class UnionPay {
                     return;
                 }
 
-                String fetchCapabilitiesUrl = Uri.parse(UNIONPAY_CAPABILITIES_PATH)
-                        .buildUpon()
-                        .appendQueryParameter("creditCard[number]", cardNumber)
-                        .build()
-                        .toString();
+                fetchCapabilities(fragment.getBraintreeClient(), fragment.getHttpClient(), cardNumber)
+                        .addCallback(TokenizationClient.MAIN_THREAD_EXECUTOR,
+                                new BraintreeFuture.Callback<UnionPayCapabilities>() {
+                                    @Override
+                                    public void onSuccess(UnionPayCapabilities capabilities) {
+                                        fragment.postCallback(capabilities);
+                                        fragment.sendAnalyticsEvent("union-pay.capabilities-received");
+                                    }
 
-                fragment.getHttpClient().get(fetchCapabilitiesUrl, new HttpResponseCallback() {
-                    @Override
-                    public void success(String responseBody) {
-                        fragment.postCallback(UnionPayCapabilities.fromJson(responseBody));
-                        fragment.sendAnalyticsEvent("union-pay.capabilities-received");
-                    }
+                                    @Override
+                                    public void onFailure(Exception exception) {
+                                        // A lookup for a newer card number replaced this one
+                                        if (exception instanceof CancellationException) {
+                                            return;
+                                        }
+
+                                        fragment.postCallback(exception);
+                                        fragment.sendAnalyticsEvent("union-pay.capabilities-failed");
+                                    }
+                                });
+            }
+        });
+    }
 
+    static BraintreeFuture<UnionPayCapabilities> fetchCapabilities(final BraintreeClient client,
+            final String cardNumber) {
+        return client.sendAnalyticsEvents(client.fetchConfiguration().thenAsync(
+                new BraintreeFuture.AsyncFunction<Configuration, UnionPayCapabilities>() {
                     @Override
-                    public void failure(Exception exception) {
-                        fragment.postCallback(exception);
-                        fragment.sendAnalyticsEvent("union-pay.capabilities-failed");
+                    public BraintreeFuture<UnionPayCapabilities> apply(Configuration configuration) {
+                        if (!configuration.getUnionPay().isEnabled()) {
+                            return BraintreeFuture.failed(new ConfigurationException("UnionPay is not enabled"));
+                        }
+
+                        return fetchCapabilities(client, client.getHttpClient(), cardNumber);
                     }
-                });
+                }), "union-pay.capabilities-received", "union-pay.capabilities-failed");
+    }
+
+    /**
+     * Looks up capabilities through the client's {@link UnionPayCapabilitiesCache}, so cards with the same BIN
+     * share a request.
+     */
+    private static BraintreeFuture<UnionPayCapabilities> fetchCapabilities(BraintreeClient client,
+            final BraintreeHttpClient httpClient, String cardNumber) {
+        return client.getUnionPayCapabilitiesCache().get(cardNumber, new UnionPayCapabilitiesCache.Request() {
+            @Override
+            public BraintreeFuture<UnionPayCapabilities> send(String cardNumber) {
+                BraintreeFuture<UnionPayCapabilities> future = new BraintreeFuture<>();
+                future.setHttpRequest(httpClient.startGet(getCapabilitiesUrl(cardNumber),
+                        new FutureHttpResponseCallback<UnionPayCapabilities>(future) {
+                            @Override
+                            protected UnionPayCapabilities decode(String responseBody) {
+                                return UnionPayCapabilities.fromJson(responseBody);
+                            }
+                        }));
+                return future;
             }
         });
     }
@@ -101,18 +142,20 @@ public class UnionPay {
                         JSONObject enrollmentPayloadJson =
                                 unionPayCardBuilder.buildEnrollment();
                         fragment.getHttpClient().post(UNIONPAY_ENROLLMENT_PATH, enrollmentPayloadJson.toString(),
-                                new HttpResponseCallback() {
+                                new DecodingHttpResponseCallback<JSONObject>() {
                                     @Override
-                                    public void success(String responseBody) {
-                                        try {
-                                            JSONObject response = new JSONObject(responseBody);
-                                            String enrollmentId = response.getString(UNIONPAY_ENROLLMENT_ID_KEY);
-                                            boolean smsCodeRequired = response.getBoolean(UNIONPAY_SMS_REQUIRED_KEY);
-                                            fragment.postUnionPayCallback(enrollmentId, smsCodeRequired);
-                                            fragment.sendAnalyticsEvent("union-pay.enrollment-succeeded");
-                                        } catch (JSONException e) {
-                                            failure(e);
-                                        }
+                                    protected JSONObject decode(String responseBody) throws JSONException {
+                                        JSONObject response = new JSONObject(responseBody);
+                                        response.getString(UNIONPAY_ENROLLMENT_ID_KEY);
+                                        response.getBoolean(UNIONPAY_SMS_REQUIRED_KEY);
+                                        return response;
+                                    }
+
+                                    @Override
+                                    public void onDecoded(JSONObject response) {
+                                        fragment.postUnionPayCallback(response.optString(UNIONPAY_ENROLLMENT_ID_KEY),
+                                                response.optBoolean(UNIONPAY_SMS_REQUIRED_KEY));
+                                        fragment.sendAnalyticsEvent("union-pay.enrollment-succeeded");
                                     }
 
                                     @Override
@@ -163,4 +206,12 @@ public class UnionPay {
             }
         });
     }
+
+    private static String getCapabilitiesUrl(String cardNumber) {
+        return Uri.parse(UNIONPAY_CAPABILITIES_PATH)
+                .buildUpon()
+                .appendQueryParameter("creditCard[number]", cardNumber)
+                .build()
+                .toString();
+    }
 }
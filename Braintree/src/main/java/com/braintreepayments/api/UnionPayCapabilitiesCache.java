@@ -0,0 +1,221 @@
+package com.braintreepayments.api;
+
+import android.support.annotation.Nullable;
+
+import com.braintreepayments.api.models.UnionPayCapabilities;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches {@link UnionPayCapabilities} by the BIN of the card, the first 6 digits, which identify the issuer range
+ * the capabilities belong to. Card forms check capabilities as the user types, so lookups for the same BIN are
+ * answered from the cache until the entry expires, and lookups made while a request is in flight share it.
+ * <p/>
+ * With a debounce delay, a request waits before it is sent and is cancelled if a lookup for a different BIN
+ * arrives in the meantime, so only the BIN the user settles on reaches the gateway. Numbers shorter than a BIN
+ * are never cached. Failures are not cached.
+ */
+class UnionPayCapabilitiesCache {
+
+    interface Request {
+        BraintreeFuture<UnionPayCapabilities> send(String cardNumber);
+    }
+
+    static final int BIN_LENGTH = 6;
+    static final int DEFAULT_MAX_ENTRIES = 32;
+    static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private final Map<String, Entry> mEntries;
+    private volatile long mTtlNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_TTL_MILLIS);
+    private volatile long mDebounceMillis;
+    private Entry mPendingEntry;
+
+    UnionPayCapabilitiesCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    UnionPayCapabilitiesCache(final int maxEntries) {
+        mEntries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @param ttlMillis how long capabilities are cached after they are received. {@code 0} only shares requests
+     *        that are in flight.
+     */
+    void setTtlMillis(long ttlMillis) {
+        if (ttlMillis < 0) {
+            throw new IllegalArgumentException("ttlMillis must not be negative");
+        }
+        mTtlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    }
+
+    /**
+     * @param debounceMillis how long a request waits for the card number to stop changing before it is sent.
+     *        {@code 0} sends requests immediately.
+     */
+    void setDebounceMillis(long debounceMillis) {
+        if (debounceMillis < 0) {
+            throw new IllegalArgumentException("debounceMillis must not be negative");
+        }
+        mDebounceMillis = debounceMillis;
+    }
+
+    /**
+     * @return a {@link BraintreeFuture} for the capabilities of {@code cardNumber}'s BIN, from the cache, a request
+     * in flight, or a new request. The future fails with a {@link java.util.concurrent.CancellationException} if
+     * a lookup for a different BIN replaces it during the debounce delay. Cancelling the returned future does
+     * not affect other callers.
+     */
+    BraintreeFuture<UnionPayCapabilities> get(final String cardNumber, final Request request) {
+        final String bin = getBin(cardNumber);
+        if (bin == null) {
+            return request.send(cardNumber);
+        }
+
+        final long debounceMillis = mDebounceMillis;
+        final Entry entry;
+        Entry superseded = null;
+        boolean send = false;
+        synchronized (mEntries) {
+            Entry existing = mEntries.get(bin);
+            if (existing != null && !existing.isExpired(System.nanoTime())) {
+                entry = existing;
+            } else {
+                entry = new Entry(bin);
+                mEntries.put(bin, entry);
+                send = true;
+
+                if (debounceMillis > 0) {
+                    superseded = mPendingEntry;
+                    mPendingEntry = entry;
+                    if (superseded != null && mEntries.get(superseded.bin) == superseded) {
+                        mEntries.remove(superseded.bin);
+                    }
+                }
+            }
+        }
+
+        if (superseded != null) {
+            superseded.future.cancel();
+        }
+
+        if (send && debounceMillis > 0) {
+            BraintreeFuture.delay(debounceMillis, TimeUnit.MILLISECONDS).addCallback(
+                    new BraintreeFuture.Callback<Void>() {
+                        @Override
+                        public void onSuccess(Void result) {
+                            send(entry, cardNumber, request);
+                        }
+
+                        @Override
+                        public void onFailure(Exception exception) {}
+                    });
+        } else if (send) {
+            send(entry, cardNumber, request);
+        }
+
+        final BraintreeFuture<UnionPayCapabilities> future = new BraintreeFuture<>();
+        entry.future.addCallback(new BraintreeFuture.Callback<UnionPayCapabilities>() {
+            @Override
+            public void onSuccess(UnionPayCapabilities capabilities) {
+                future.complete(capabilities);
+            }
+
+            @Override
+            public void onFailure(Exception exception) {
+                future.fail(exception);
+            }
+        });
+        return future;
+    }
+
+    int size() {
+        synchronized (mEntries) {
+            return mEntries.size();
+        }
+    }
+
+    private void send(final Entry entry, String cardNumber, Request request) {
+        synchronized (mEntries) {
+            if (mPendingEntry == entry) {
+                mPendingEntry = null;
+            }
+        }
+
+        if (entry.future.isDone()) {
+            return;
+        }
+
+        request.send(cardNumber).addCallback(new BraintreeFuture.Callback<UnionPayCapabilities>() {
+            @Override
+            public void onSuccess(UnionPayCapabilities capabilities) {
+                finish(entry, true);
+                entry.future.complete(capabilities);
+            }
+
+            @Override
+            public void onFailure(Exception exception) {
+                finish(entry, false);
+                entry.future.fail(exception);
+            }
+        });
+    }
+
+    private void finish(Entry entry, boolean success) {
+        synchronized (mEntries) {
+            if (success && mTtlNanos > 0) {
+                entry.expiresAtNanos = System.nanoTime() + mTtlNanos;
+            } else if (mEntries.get(entry.bin) == entry) {
+                mEntries.remove(entry.bin);
+            }
+        }
+    }
+
+    /**
+     * @return the first {@link #BIN_LENGTH} digits of {@code cardNumber} ignoring spaces and dashes, or
+     * {@code null} if it does not have that many digits.
+     */
+    @Nullable
+    static String getBin(@Nullable String cardNumber) {
+        if (cardNumber == null) {
+            return null;
+        }
+
+        StringBuilder bin = new StringBuilder(BIN_LENGTH);
+        for (int i = 0; i < cardNumber.length() && bin.length() < BIN_LENGTH; i++) {
+            char c = cardNumber.charAt(i);
+            if (c >= '0' && c <= '9') {
+                bin.append(c);
+            } else if (c != ' ' && c != '-') {
+                return null;
+            }
+        }
+
+        return bin.length() == BIN_LENGTH ? bin.toString() : null;
+    }
+
+    private static class Entry {
+
+        final String bin;
+        final BraintreeFuture<UnionPayCapabilities> future = new BraintreeFuture<>();
+        long expiresAtNanos;
+
+        Entry(String bin) {
+            this.bin = bin;
+        }
+
+        /**
+         * Entries in flight have no expiry.
+         */
+        boolean isExpired(long nowNanos) {
+            return expiresAtNanos != 0 && expiresAtNanos - nowNanos <= 0;
+        }
+    }
+}
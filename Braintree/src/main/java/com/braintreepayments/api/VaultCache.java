@@ -0,0 +1,135 @@
+package com.braintreepayments.api;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.Uri;
+import android.support.annotation.Nullable;
+
+import com.braintreepayments.api.interfaces.PaymentMethodNoncesDiffListener;
+import com.braintreepayments.api.internal.BraintreeSharedPreferences;
+import com.braintreepayments.api.models.Authorization;
+import com.braintreepayments.api.models.ClientToken;
+import com.braintreepayments.api.models.PaymentMethodNonce;
+
+import org.json.JSONException;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * Persistent cache of the last payment methods response, so saved payment methods can be shown to a
+ * {@link PaymentMethodNoncesDiffListener} while
+ * {@link PaymentMethod#getPaymentMethodNonces(BraintreeFragment, boolean)} refreshes them. The cache belongs to one
+ * customer, identified by a hash of the merchant and customer ids in the client token's authorization fingerprint,
+ * so it is reused by every client token generated for that customer. Reading or writing it with any other
+ * authorization, including a tokenization key or a client token without a customer, clears it, and
+ * {@link PaymentMethod#clearCachedPaymentMethodNonces(Context)} clears it when the customer logs out.
+ * <p/>
+ * Cached nonces may have expired; they are only meant to be displayed until the refreshed nonces arrive.
+ */
+class VaultCache {
+
+    static final String STORE_NAME = "BraintreeVaultCache";
+
+    private static final String AUTHORIZATION_KEY = "authorization";
+    private static final String DEFAULT_FIRST_KEY = "defaultFirst";
+    private static final String RECENTLY_USED_KEY = "recentlyUsed";
+
+    @Nullable
+    static List<PaymentMethodNonce> get(Context context, Authorization authorization, boolean defaultFirst) {
+        SharedPreferences store = getStore(context);
+        String owner = getOwner(authorization);
+        String cachedOwner = store.getString(AUTHORIZATION_KEY, null);
+        if (cachedOwner == null) {
+            return null;
+        } else if (!cachedOwner.equals(owner)) {
+            clear(context);
+            return null;
+        }
+
+        String responseBody = store.getString(getKey(defaultFirst), null);
+        if (responseBody == null) {
+            return null;
+        }
+
+        try {
+            return PaymentMethodNonce.parsePaymentMethodNonces(responseBody);
+        } catch (JSONException e) {
+            return null;
+        }
+    }
+
+    static void put(Context context, Authorization authorization, boolean defaultFirst, String responseBody) {
+        SharedPreferences store = getStore(context);
+        String owner = getOwner(authorization);
+        if (owner == null) {
+            if (store.contains(AUTHORIZATION_KEY)) {
+                clear(context);
+            }
+            return;
+        }
+
+        SharedPreferences.Editor editor = store.edit();
+        if (!owner.equals(store.getString(AUTHORIZATION_KEY, null))) {
+            editor.clear()
+                    .putString(AUTHORIZATION_KEY, owner);
+        }
+
+        editor.putString(getKey(defaultFirst), responseBody)
+                .apply();
+    }
+
+    static void clear(Context context) {
+        getStore(context).edit()
+                .clear()
+                .apply();
+    }
+
+    /**
+     * @return a hash of the merchant and customer ids in the authorization fingerprint of {@code authorization}, or
+     *         {@code null} if it is not a {@link ClientToken} generated for a customer. Tokenization keys cannot fetch
+     *         payment methods.
+     */
+    @Nullable
+    static String getOwner(Authorization authorization) {
+        if (!(authorization instanceof ClientToken)) {
+            return null;
+        }
+
+        String fingerprint = ((ClientToken) authorization).getAuthorizationFingerprint();
+        int separator = fingerprint.indexOf('|');
+        if (separator < 0) {
+            return null;
+        }
+
+        Uri claims = Uri.parse("?" + fingerprint.substring(separator + 1));
+        String merchantId = claims.getQueryParameter("merchant_id");
+        String customerId = claims.getQueryParameter("customer_id");
+        if (merchantId == null || customerId == null) {
+            return null;
+        }
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((merchantId + "/" + customerId).getBytes("UTF-8"));
+            StringBuilder builder = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                builder.append(Character.forDigit((b >> 4) & 0xf, 16))
+                        .append(Character.forDigit(b & 0xf, 16));
+            }
+            return builder.toString();
+        } catch (NoSuchAlgorithmException | UnsupportedEncodingException e) {
+            return null;
+        }
+    }
+
+    private static String getKey(boolean defaultFirst) {
+        return defaultFirst ? DEFAULT_FIRST_KEY : RECENTLY_USED_KEY;
+    }
+
+    private static SharedPreferences getStore(Context context) {
+        return BraintreeSharedPreferences.getSharedPreferences(context, STORE_NAME);
+    }
+}
@@ -0,0 +1,23 @@
+package com.braintreepayments.api.interfaces;
+
+import com.braintreepayments.api.models.PaymentMethodNonce;
+import com.braintreepayments.api.models.PaymentMethodNoncesDiff;
+
+import java.util.List;
+
+/**
+ * {@link PaymentMethodNoncesUpdatedListener} that opts in to saved {@link PaymentMethodNonce}s from the vault cache
+ * while they are fetched, and is told what changed when they are refreshed instead of receiving the whole list
+ * again. Other {@link PaymentMethodNoncesUpdatedListener}s only receive fetched {@link PaymentMethodNonce}s.
+ */
+public interface PaymentMethodNoncesDiffListener extends PaymentMethodNoncesUpdatedListener {
+
+    /**
+     * Called instead of {@link #onPaymentMethodNoncesUpdated(List)} when the {@link PaymentMethodNonce}s last
+     * passed to {@link #onPaymentMethodNoncesUpdated(List)} came from the vault cache and have been refreshed.
+     * Not called if nothing changed.
+     *
+     * @param diff the changes from the cached {@link PaymentMethodNonce}s.
+     */
+    void onPaymentMethodNoncesChanged(PaymentMethodNoncesDiff diff);
+}
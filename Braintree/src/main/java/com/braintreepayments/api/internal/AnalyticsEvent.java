@@ -53,7 +53,7 @@ public class AnalyticsEvent {
         }
     }
 
-    private String getNetworkType(Context context) {
+    static String getNetworkType(Context context) {
         String networkType = null;
         ConnectivityManager connectivityManager =
                 (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
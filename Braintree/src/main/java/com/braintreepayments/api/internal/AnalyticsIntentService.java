@@ -2,19 +2,25 @@ package com.braintreepayments.api.internal;
 
 import android.app.IntentService;
 import android.content.Intent;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.util.Log;
 
+import com.braintreepayments.api.ConfigurationManager;
 import com.braintreepayments.api.exceptions.InvalidArgumentException;
 import com.braintreepayments.api.models.Authorization;
 import com.braintreepayments.api.models.Configuration;
 
-import org.json.JSONException;
+import java.util.concurrent.ExecutionException;
 
 public class AnalyticsIntentService extends IntentService {
 
     public static final String EXTRA_AUTHORIZATION =
             "com.braintreepayments.api.internal.AnalyticsIntentService.EXTRA_AUTHORIZATION";
-    public static final String EXTRA_CONFIGURATION =
-            "com.braintreepayments.api.internal.AnalyticsIntentService.EXTRA_CONFIGURATION";
+    public static final String EXTRA_CONFIGURATION_KEY =
+            "com.braintreepayments.api.internal.AnalyticsIntentService.EXTRA_CONFIGURATION_KEY";
+
+    private static final String TAG = AnalyticsIntentService.class.getSimpleName();
 
     public AnalyticsIntentService() {
         super(AnalyticsIntentService.class.getSimpleName());
@@ -29,10 +35,46 @@ public class AnalyticsIntentService extends IntentService {
 
         try {
             Authorization authorization = Authorization.fromString(intent.getStringExtra(EXTRA_AUTHORIZATION));
-            Configuration configuration = Configuration.fromJson(intent.getStringExtra(EXTRA_CONFIGURATION));
+            BraintreeHttpClient httpClient = BraintreeHttpClientRegistry.acquire(authorization);
+            try {
+                Configuration configuration = getConfiguration(httpClient, authorization,
+                        intent.getStringExtra(EXTRA_CONFIGURATION_KEY));
+                if (configuration == null) {
+                    Log.w(TAG, "Configuration could not be fetched, analytics events will be sent with the next " +
+                            "flush");
+                    return;
+                }
+
+                AnalyticsSender.send(this, authorization, httpClient, configuration.getAnalytics().getUrl(), true);
+            } finally {
+                httpClient.shutdown();
+            }
+        } catch (InvalidArgumentException ignored) {}
+    }
+
+    /**
+     * @return the {@link Configuration} for {@code configurationKey} from the {@link ConfigurationCache}, or, if it is
+     *         not cached, the {@link Configuration} fetched by {@link ConfigurationManager}. {@code null} if the fetch
+     *         fails.
+     */
+    @VisibleForTesting
+    @Nullable
+    Configuration getConfiguration(BraintreeHttpClient httpClient, Authorization authorization,
+            @Nullable String configurationKey) {
+        Configuration configuration = ConfigurationCache.get(this, configurationKey);
+        if (configuration != null) {
+            return configuration;
+        }
+
+        Log.w(TAG, "Configuration is not cached, fetching it to send analytics events");
 
-            AnalyticsSender.send(this, authorization, new BraintreeHttpClient(authorization),
-                    configuration.getAnalytics().getUrl(), true);
-        } catch (InvalidArgumentException | JSONException ignored) {}
+        try {
+            return ConfigurationManager.getConfiguration(this, authorization, httpClient).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            return null;
+        }
     }
 }
@@ -7,6 +7,7 @@ import android.content.pm.PackageManager.NameNotFoundException;
 import android.os.Build;
 import android.os.Build.VERSION;
 import android.provider.Settings.Secure;
+import android.support.annotation.VisibleForTesting;
 
 import com.braintreepayments.api.BuildConfig;
 import com.braintreepayments.api.interfaces.HttpResponseCallback;
@@ -28,6 +29,7 @@ public class AnalyticsSender {
     private static final String KIND_KEY = "kind";
     private static final String TIMESTAMP_KEY = "timestamp";
     private static final String META_KEY = "_meta";
+    private static final String LATENCY_KEY = "latency";
     private static final String TOKENIZATION_KEY = "tokenization_key";
     private static final String AUTHORIZATION_FINGERPRINT_KEY = "authorization_fingerprint";
     private static final String PLATFORM_KEY = "platform";
@@ -49,10 +51,24 @@ public class AnalyticsSender {
 
         List<List<AnalyticsEvent>> events = db.getPendingRequests();
 
+        if (events.isEmpty()) {
+            return;
+        }
+
+        final LatencyHistograms latencyHistograms = LatencyHistograms.getInstance(context);
+        LatencyHistograms.Snapshot latency = latencyHistograms.drain();
+
         try {
             JSONObject analyticsRequest;
             for (final List<AnalyticsEvent> innerEvents : events) {
                 analyticsRequest = serializeEvents(context, authorization, innerEvents);
+
+                final LatencyHistograms.Snapshot reportedLatency = latency;
+                if (latency != null && !latency.isEmpty()) {
+                    analyticsRequest.put(LATENCY_KEY, latency.toJson());
+                }
+                latency = null;
+
                 try {
                     if (synchronous) {
                         httpClient.post(analyticsUrl, analyticsRequest.toString());
@@ -65,25 +81,30 @@ public class AnalyticsSender {
                             }
 
                             @Override
-                            public void failure(Exception exception) {}
+                            public void failure(Exception exception) {
+                                if (reportedLatency != null) {
+                                    latencyHistograms.restore(reportedLatency);
+                                }
+                            }
                         });
                     }
-                } catch (Exception ignored) {}
+                } catch (Exception e) {
+                    if (reportedLatency != null) {
+                        latencyHistograms.restore(reportedLatency);
+                    }
+                }
             }
-        } catch (JSONException ignored) {}
+        } catch (JSONException ignored) {
+            if (latency != null) {
+                latencyHistograms.restore(latency);
+            }
+        }
     }
 
     private static JSONObject serializeEvents(Context context, Authorization authorization,
             List<AnalyticsEvent> events) throws JSONException {
         AnalyticsEvent primeEvent = events.get(0);
 
-        JSONObject requestObject = new JSONObject();
-        if (authorization instanceof ClientToken) {
-            requestObject.put(AUTHORIZATION_FINGERPRINT_KEY, ((ClientToken) authorization).getAuthorizationFingerprint());
-        } else {
-            requestObject.put(TOKENIZATION_KEY, authorization.toString());
-        }
-
         JSONObject meta = primeEvent.metadata
                 .put(PLATFORM_KEY, "Android")
                 .put(INTEGRATION_TYPE_KEY, primeEvent.getIntegrationType())
@@ -98,6 +119,20 @@ public class AnalyticsSender {
                 .put(DEVICE_APP_GENERATED_PERSISTENT_UUID_KEY,
                         UUIDHelper.getPersistentUUID(context))
                 .put(IS_SIMULATOR_KEY, detectEmulator());
+
+        return serializeEvents(authorization, meta, events);
+    }
+
+    @VisibleForTesting
+    static JSONObject serializeEvents(Authorization authorization, JSONObject meta, List<AnalyticsEvent> events)
+            throws JSONException {
+        JSONObject requestObject = new JSONObject();
+        if (authorization instanceof ClientToken) {
+            requestObject.put(AUTHORIZATION_FINGERPRINT_KEY, ((ClientToken) authorization).getAuthorizationFingerprint());
+        } else {
+            requestObject.put(TOKENIZATION_KEY, authorization.toString());
+        }
+
         requestObject.put(META_KEY, meta);
 
         JSONArray eventObjects = new JSONArray();
@@ -1,6 +1,10 @@
 package com.braintreepayments.api.internal;
 
 import android.net.Uri;
+import android.support.annotation.Nullable;
+import android.util.JsonReader;
+import android.util.JsonToken;
+import android.util.JsonWriter;
 
 import com.braintreepayments.api.core.BuildConfig;
 import com.braintreepayments.api.exceptions.AuthorizationException;
@@ -15,9 +19,15 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
 import java.net.HttpURLConnection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLSocketFactory;
 
 /**
  * Network request class that handles Braintree request specifics and threading.
@@ -30,16 +40,27 @@ public class BraintreeHttpClient extends HttpClient {
     private final Authorization mAuthorization;
 
     public BraintreeHttpClient(Authorization authorization) {
+        this(authorization, Executors.newCachedThreadPool(), createSSLSocketFactory());
+    }
+
+    BraintreeHttpClient(Authorization authorization, ExecutorService threadPool,
+            @Nullable SSLSocketFactory sslSocketFactory) {
+        super(threadPool, sslSocketFactory);
         setUserAgent(getUserAgent());
+        mAuthorization = authorization;
+    }
 
+    /**
+     * @return a {@link SSLSocketFactory} that trusts the Braintree gateway certificates, or {@code null} if it
+     *         could not be created.
+     */
+    @Nullable
+    static SSLSocketFactory createSSLSocketFactory() {
         try {
-            setSSLSocketFactory(
-                    new TLSSocketFactory(BraintreeGatewayCertificate.getCertInputStream()));
+            return new TLSSocketFactory(BraintreeGatewayCertificate.getCertInputStream());
         } catch (SSLException e) {
-            setSSLSocketFactory(null);
+            return null;
         }
-
-        mAuthorization = authorization;
     }
 
     /**
@@ -55,12 +76,12 @@ public class BraintreeHttpClient extends HttpClient {
      *
      * @param path The path or url to request from the server via GET
      * @param callback The {@link HttpResponseCallback} to receive the response or error.
+     * @return the {@link HttpRequest}, which can be used to cancel the request.
      */
     @Override
-    public void get(String path, HttpResponseCallback callback) {
+    public HttpRequest startGet(String path, HttpResponseCallback callback) {
         if (path == null) {
-            postCallbackOnMainThread(callback, new IllegalArgumentException("Path cannot be null"));
-            return;
+            return super.startGet(null, callback);
         }
 
         Uri uri;
@@ -77,48 +98,149 @@ public class BraintreeHttpClient extends HttpClient {
                     .build();
         }
 
-        super.get(uri.toString(), callback);
+        return super.startGet(uri.toString(), callback);
     }
 
     /**
-     * Make a HTTP POST request to Braintree using the base url, path and authorization provided.
-     * If the path is a full url, it will be used instead of the previously provided url.
+     * Make a HTTP POST request to Braintree with a JSON body that is streamed to the connection.
      *
      * @param path The path or url to request from the server via HTTP POST
-     * @param data The body of the POST request
+     * @param body The {@link JsonRequestBody} of the POST request
      * @param callback The {@link HttpResponseCallback} to receive the response or error.
+     * @return the {@link HttpRequest}, which can be used to cancel the request.
+     * @see #startPost(String, String, HttpResponseCallback)
      */
-    @Override
-    public void post(String path, String data, HttpResponseCallback callback) {
-        try {
-            if (mAuthorization instanceof ClientToken) {
-                data = new JSONObject(data)
-                        .put(AUTHORIZATION_FINGERPRINT_KEY,
-                                ((ClientToken) mAuthorization).getAuthorizationFingerprint())
-                        .toString();
-            }
-
-            super.post(path, data, callback);
-        } catch (JSONException e) {
-            postCallbackOnMainThread(callback, e);
-        }
+    public HttpRequest startPost(String path, JsonRequestBody body, HttpResponseCallback callback) {
+        return super.startPost(path, toRequestBody(body), callback);
     }
 
     /**
      * Makes a synchronous HTTP POST request to Braintree using the base url, path, and authorization provided.
-     * @see BraintreeHttpClient#post(String, String, HttpResponseCallback)
+     * Asynchronous requests made with {@link #startPost(String, String, HttpResponseCallback)} are sent through this
+     * method.
      *
      * @param path the path or url to request from the server via HTTP POST
      * @param data the body of the post request
      * @return the HTTP response body
      */
+    @Override
     public String post(String path, String data) throws Exception {
-        if (mAuthorization instanceof ClientToken) {
-            data = new JSONObject(data)
-                    .put(AUTHORIZATION_FINGERPRINT_KEY, ((ClientToken) mAuthorization).getAuthorizationFingerprint())
+        return super.post(path, addAuthorizationFingerprint(data));
+    }
+
+    /**
+     * Makes a synchronous HTTP POST request to Braintree with a JSON body that is streamed to the connection.
+     * @see BraintreeHttpClient#startPost(String, JsonRequestBody, HttpResponseCallback)
+     *
+     * @param path the path or url to request from the server via HTTP POST
+     * @param body the {@link JsonRequestBody} of the post request
+     * @return the HTTP response body
+     */
+    public String post(String path, JsonRequestBody body) throws Exception {
+        return super.post(path, toRequestBody(body));
+    }
+
+    /**
+     * Adds the authorization fingerprint as the first member of a serialized JSON object without building and
+     * reserializing a {@link JSONObject}. The object is still validated with a streaming reader, and objects that
+     * already contain an authorization fingerprint have it replaced through {@link JSONObject} instead.
+     */
+    String addAuthorizationFingerprint(String data) throws JSONException {
+        if (!(mAuthorization instanceof ClientToken)) {
+            return data;
+        }
+
+        String authorizationFingerprint = ((ClientToken) mAuthorization).getAuthorizationFingerprint();
+        if (data == null) {
+            throw new JSONException("Value null cannot be converted to JSONObject");
+        }
+
+        boolean empty;
+        try {
+            empty = !validateObject(data);
+        } catch (DuplicateKeyException e) {
+            return new JSONObject(data)
+                    .put(AUTHORIZATION_FINGERPRINT_KEY, authorizationFingerprint)
                     .toString();
         }
-        return super.post(path, data);
+
+        int start = data.indexOf('{');
+        return new StringBuilder(data.length() + 128)
+                .append(data, 0, start + 1)
+                .append(JSONObject.quote(AUTHORIZATION_FINGERPRINT_KEY))
+                .append(':')
+                .append(JSONObject.quote(authorizationFingerprint))
+                .append(empty ? "" : ",")
+                .append(data, start + 1, data.length())
+                .toString();
+    }
+
+    RequestBody toRequestBody(final JsonRequestBody body) {
+        return new RequestBody() {
+            @Override
+            public void writeTo(OutputStream outputStream) throws IOException {
+                JsonWriter writer = new JsonWriter(new OutputStreamWriter(outputStream, "UTF-8"));
+                writer.beginObject();
+                if (mAuthorization instanceof ClientToken) {
+                    writer.name(AUTHORIZATION_FINGERPRINT_KEY)
+                            .value(((ClientToken) mAuthorization).getAuthorizationFingerprint());
+                }
+                body.writeFields(writer);
+                writer.endObject();
+                writer.flush();
+            }
+        };
+    }
+
+    /**
+     * Checks that {@code data} is a single well formed JSON object.
+     *
+     * @return {@code true} if the object has members.
+     * @throws DuplicateKeyException if the object already has an authorization fingerprint.
+     */
+    private static boolean validateObject(String data) throws JSONException, DuplicateKeyException {
+        JsonReader reader = new JsonReader(new StringReader(data));
+        try {
+            boolean hasMembers = false;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                hasMembers = true;
+                if (AUTHORIZATION_FINGERPRINT_KEY.equals(reader.nextName())) {
+                    throw new DuplicateKeyException();
+                }
+                reader.skipValue();
+            }
+            reader.endObject();
+
+            if (reader.peek() != JsonToken.END_DOCUMENT) {
+                throw new JSONException("Value " + data + " cannot be converted to JSONObject");
+            }
+
+            return hasMembers;
+        } catch (IOException | IllegalStateException e) {
+            throw new JSONException("Value " + data + " cannot be converted to JSONObject");
+        }
+    }
+
+    private static class DuplicateKeyException extends Exception {}
+
+    @Override
+    protected String getOperation(String method, String url) {
+        if (mAuthorization != null && url.startsWith(mAuthorization.getConfigUrl())) {
+            return HttpEvent.OPERATION_CONFIGURATION;
+        } else if (url.contains("three_d_secure")) {
+            return HttpEvent.OPERATION_THREE_D_SECURE;
+        } else if (url.contains("paypal_hermes")) {
+            return HttpEvent.OPERATION_PAYPAL;
+        } else if (url.contains("union_pay") || url.contains("credit_cards/capabilities")) {
+            return HttpEvent.OPERATION_UNIONPAY;
+        } else if (url.contains("payment_methods")) {
+            return HttpEvent.OPERATION_TOKENIZE;
+        } else if (url.contains("analytics")) {
+            return HttpEvent.OPERATION_ANALYTICS;
+        }
+
+        return super.getOperation(method, url);
     }
 
     @Override
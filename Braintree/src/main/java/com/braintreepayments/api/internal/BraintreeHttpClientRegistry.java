@@ -0,0 +1,137 @@
+package com.braintreepayments.api.internal;
+
+import android.support.annotation.VisibleForTesting;
+
+import com.braintreepayments.api.models.Authorization;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * Hands out {@link BraintreeHttpClient}s that share a thread pool and {@link SSLSocketFactory} with every other
+ * client acquired for the same authorization, so fragments and services using the same tokenization key or client
+ * token reuse warm threads and TLS setup instead of creating their own.
+ * <p/>
+ * Each acquired client keeps its own base url, listeners and outstanding requests, so
+ * {@link HttpClient#cancelAll()} only cancels that client's requests. {@link HttpClient#shutdown()} releases the
+ * client's reference; the shared thread pool is shut down when the last client for an authorization is released.
+ * Configuration is shared through {@link ConfigurationCache} and analytics through
+ * {@link AnalyticsDatabase#getInstance(android.content.Context)}.
+ */
+public class BraintreeHttpClientRegistry {
+
+    private static final Map<String, Transport> sTransports = new HashMap<>();
+
+    private BraintreeHttpClientRegistry() {}
+
+    /**
+     * @param authorization the tokenization key or client token the client will use.
+     * @return a new {@link BraintreeHttpClient} on the shared transport for {@code authorization}. Call
+     *         {@link HttpClient#shutdown()} when it is no longer needed.
+     */
+    public static BraintreeHttpClient acquire(Authorization authorization) {
+        Transport transport;
+        synchronized (sTransports) {
+            String key = authorization.toString();
+            transport = sTransports.get(key);
+            if (transport == null) {
+                transport = new Transport(key);
+                sTransports.put(key, transport);
+            }
+            transport.references++;
+        }
+
+        return new BraintreeHttpClient(authorization, new ClientExecutor(transport), transport.sslSocketFactory);
+    }
+
+    @VisibleForTesting
+    static int getReferenceCount(Authorization authorization) {
+        synchronized (sTransports) {
+            Transport transport = sTransports.get(authorization.toString());
+            return transport == null ? 0 : transport.references;
+        }
+    }
+
+    private static void release(Transport transport) {
+        synchronized (sTransports) {
+            transport.references--;
+            if (transport.references == 0) {
+                sTransports.remove(transport.key);
+                transport.threadPool.shutdown();
+            }
+        }
+    }
+
+    private static class Transport {
+
+        final String key;
+        final ExecutorService threadPool = Executors.newCachedThreadPool();
+        final SSLSocketFactory sslSocketFactory = BraintreeHttpClient.createSSLSocketFactory();
+        int references;
+
+        Transport(String key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * A single client's view of a shared thread pool. Shutting it down rejects further work from that client and
+     * releases its reference without affecting other clients.
+     */
+    private static class ClientExecutor extends AbstractExecutorService {
+
+        private final Transport mTransport;
+        private final AtomicBoolean mShutdown = new AtomicBoolean(false);
+
+        ClientExecutor(Transport transport) {
+            mTransport = transport;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            if (mShutdown.get()) {
+                throw new RejectedExecutionException("HttpClient has been shut down");
+            }
+
+            mTransport.threadPool.execute(command);
+        }
+
+        @Override
+        public void shutdown() {
+            if (mShutdown.compareAndSet(false, true)) {
+                release(mTransport);
+            }
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown();
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return mShutdown.get();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return mShutdown.get() && mTransport.threadPool.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return mShutdown.get() && mTransport.threadPool.awaitTermination(timeout, unit);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.braintreepayments.api.internal;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.Uri;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.util.Base64;
+
+import com.braintreepayments.api.models.Authorization;
+import com.braintreepayments.api.models.ClientToken;
+import com.braintreepayments.api.models.Configuration;
+import com.braintreepayments.api.models.TokenizationKey;
+
+import org.json.JSONException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Parsed {@link Configuration}s by cache key, backed by the on-disk configuration cache. Saved instance state and
+ * {@link AnalyticsIntentService} intents carry a key from {@link #getKey(Authorization)} instead of the configuration
+ * JSON, and resolve it with {@link #get(Context, String)} without reparsing while the process is alive. Clients for
+ * the same authorization share the parsed {@link Configuration} through {@link #getFresh(Context, String, long)}.
+ */
+public class ConfigurationCache {
+
+    private static final int MAX_ENTRIES = 4;
+    private static final String TIMESTAMP_SUFFIX = "_timestamp";
+    private static final long UNKNOWN_TIMESTAMP = -1;
+
+    private static final Map<String, Entry> sConfigurations =
+            new LinkedHashMap<String, Entry>(MAX_ENTRIES, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                    return size() > MAX_ENTRIES;
+                }
+            };
+
+    private ConfigurationCache() {}
+
+    /**
+     * @return the cache key for the {@link Configuration} of {@code authorization}.
+     */
+    public static String getKey(Authorization authorization) {
+        String appendedAuthorization;
+        if (authorization instanceof ClientToken) {
+            appendedAuthorization = ((ClientToken) authorization).getAuthorizationFingerprint();
+        } else if (authorization instanceof TokenizationKey) {
+            appendedAuthorization = authorization.toString();
+        } else {
+            appendedAuthorization = "";
+        }
+
+        String configUrl = Uri.parse(authorization.getConfigUrl())
+                .buildUpon()
+                .appendQueryParameter("configVersion", "3")
+                .build()
+                .toString();
+
+        return Base64.encodeToString((configUrl + appendedAuthorization).getBytes(), 0);
+    }
+
+    /**
+     * Keeps {@code configuration} in memory only, for a {@link Configuration} that is already on disk or does not
+     * need to outlive the process.
+     */
+    public static void remember(String key, Configuration configuration) {
+        remember(key, configuration, UNKNOWN_TIMESTAMP);
+    }
+
+    private static void remember(String key, Configuration configuration, long timestamp) {
+        synchronized (sConfigurations) {
+            Entry entry = sConfigurations.get(key);
+            if (entry == null || entry.configuration != configuration || timestamp != UNKNOWN_TIMESTAMP) {
+                sConfigurations.put(key, new Entry(configuration, timestamp));
+            }
+        }
+    }
+
+    /**
+     * Keeps {@code configuration} in memory and writes it to disk with the current time.
+     */
+    public static void put(Context context, String key, Configuration configuration) {
+        long timestamp = System.currentTimeMillis();
+        remember(key, configuration, timestamp);
+        BraintreeSharedPreferences.getSharedPreferences(context).edit()
+                .putString(key, configuration.toJson())
+                .putLong(key + TIMESTAMP_SUFFIX, timestamp)
+                .apply();
+    }
+
+    /**
+     * @return the {@link Configuration} for {@code key} from memory, or from disk regardless of its age, or
+     *         {@code null} if there is none.
+     */
+    @Nullable
+    public static Configuration get(Context context, @Nullable String key) {
+        if (key == null) {
+            return null;
+        }
+
+        synchronized (sConfigurations) {
+            Entry entry = sConfigurations.get(key);
+            if (entry != null) {
+                return entry.configuration;
+            }
+        }
+
+        String configurationString = BraintreeSharedPreferences.getSharedPreferences(context).getString(key, null);
+        if (configurationString == null) {
+            return null;
+        }
+
+        try {
+            Configuration configuration = Configuration.fromJson(configurationString);
+            remember(key, configuration);
+            return configuration;
+        } catch (JSONException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the {@link Configuration} for {@code key} if it was written to disk less than {@code ttl} milliseconds
+     *         ago, otherwise {@code null}. The disk copy is only parsed if it is not the one already in memory.
+     */
+    @Nullable
+    public static Configuration getFresh(Context context, String key, long ttl) {
+        SharedPreferences prefs = BraintreeSharedPreferences.getSharedPreferences(context);
+        long timestamp = prefs.getLong(key + TIMESTAMP_SUFFIX, 0);
+        if ((System.currentTimeMillis() - timestamp) > ttl) {
+            return null;
+        }
+
+        synchronized (sConfigurations) {
+            Entry entry = sConfigurations.get(key);
+            if (entry != null && entry.timestamp == timestamp) {
+                return entry.configuration;
+            }
+        }
+
+        try {
+            Configuration configuration = Configuration.fromJson(prefs.getString(key, ""));
+            remember(key, configuration, timestamp);
+            return configuration;
+        } catch (JSONException e) {
+            return null;
+        }
+    }
+
+    @VisibleForTesting
+    static void clear() {
+        synchronized (sConfigurations) {
+            sConfigurations.clear();
+        }
+    }
+
+    private static class Entry {
+
+        final Configuration configuration;
+        final long timestamp;
+
+        Entry(Configuration configuration, long timestamp) {
+            this.configuration = configuration;
+            this.timestamp = timestamp;
+        }
+    }
+}
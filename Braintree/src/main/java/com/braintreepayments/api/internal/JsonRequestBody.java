@@ -0,0 +1,21 @@
+package com.braintreepayments.api.internal;
+
+import android.util.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * JSON object body of a request to Braintree that is streamed to the connection by
+ * {@link BraintreeHttpClient#startPost(String, JsonRequestBody, com.braintreepayments.api.interfaces.HttpResponseCallback)}.
+ * The client begins and ends the object and adds the authorization fingerprint, so implementations only write
+ * their own members.
+ */
+public interface JsonRequestBody {
+
+    /**
+     * Writes the members of the request object. Called on the thread making the request.
+     *
+     * @param writer the {@link JsonWriter} positioned inside the request object.
+     */
+    void writeFields(JsonWriter writer) throws IOException;
+}
@@ -0,0 +1,281 @@
+package com.braintreepayments.api.internal;
+
+import android.content.Context;
+import android.net.Uri;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+
+import com.braintreepayments.api.interfaces.HttpEventListener;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Process wide fixed-bucket latency histograms, keyed by operation and network type. Fed by
+ * {@link HttpEvent}s from {@link BraintreeHttpClient} and attached to analytics uploads by
+ * {@link AnalyticsSender}, so latency distributions are reported without one analytics event per request.
+ */
+public class LatencyHistograms implements HttpEventListener {
+
+    /**
+     * Upper bounds of each bucket in milliseconds. Requests slower than the last bound fall into a final
+     * overflow bucket.
+     */
+    static final long[] BUCKET_BOUNDS_MILLIS = {
+            50, 100, 150, 200, 300, 400, 500, 750, 1000, 1500, 2000, 3000, 5000, 10000, 30000
+    };
+
+    private static final String BUCKET_BOUNDS_KEY = "bucketBoundsMs";
+    private static final String HISTOGRAMS_KEY = "histograms";
+    private static final String OPERATION_KEY = "operation";
+    private static final String NETWORK_TYPE_KEY = "networkType";
+    private static final String COUNT_KEY = "count";
+    private static final String BUCKETS_KEY = "buckets";
+    private static final String MAX_KEY = "max";
+    private static final String P50_KEY = "p50";
+    private static final String P95_KEY = "p95";
+    private static final String P99_KEY = "p99";
+
+    private static volatile LatencyHistograms sInstance;
+
+    private final Context mContext;
+    private final ConcurrentHashMap<String, Histogram> mHistograms = new ConcurrentHashMap<>();
+
+    public static LatencyHistograms getInstance(Context context) {
+        if (sInstance == null) {
+            synchronized (LatencyHistograms.class) {
+                if (sInstance == null) {
+                    sInstance = new LatencyHistograms(context.getApplicationContext());
+                }
+            }
+        }
+
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    static void reset() {
+        sInstance = null;
+    }
+
+    private LatencyHistograms(Context context) {
+        mContext = context;
+    }
+
+    @Override
+    public void onHttpEvent(HttpEvent event) {
+        String operation = getHistogramOperation(event);
+        if (operation == null || event.getResponseCode() == -1) {
+            return;
+        }
+
+        record(operation, AnalyticsEvent.getNetworkType(mContext), event.getDurationMillis(HttpEvent.Phase.TOTAL));
+    }
+
+    /**
+     * Records a single request.
+     *
+     * @param operation the operation the request was made for.
+     * @param networkType the network type the request was made on.
+     * @param millis the duration of the request in milliseconds.
+     */
+    public void record(String operation, String networkType, long millis) {
+        String key = operation + "|" + networkType;
+        Histogram histogram = mHistograms.get(key);
+        if (histogram == null) {
+            Histogram existing = mHistograms.putIfAbsent(key, histogram = new Histogram(operation, networkType));
+            if (existing != null) {
+                histogram = existing;
+            }
+        }
+
+        histogram.record(millis);
+    }
+
+    /**
+     * Removes and returns the current counts, to be serialized into an analytics upload. Each count is taken
+     * by exactly one caller, so concurrent uploads never report the same request twice. Counts from an upload
+     * that fails must be returned with {@link #restore(Snapshot)}.
+     */
+    public Snapshot drain() {
+        Map<Histogram, Counts> counts = new HashMap<>();
+        for (Histogram histogram : mHistograms.values()) {
+            Counts drained = histogram.drain();
+            if (sum(drained.mBuckets) > 0) {
+                counts.put(histogram, drained);
+            }
+        }
+
+        return new Snapshot(counts);
+    }
+
+    /**
+     * Adds counts taken by {@link #drain()} back, so they are reported by a later upload.
+     */
+    public void restore(Snapshot snapshot) {
+        for (Map.Entry<Histogram, Counts> entry : snapshot.mCounts.entrySet()) {
+            entry.getKey().add(entry.getValue());
+        }
+    }
+
+    /**
+     * @return the operation name a request is recorded under, or {@code null} if it is not tracked.
+     * Tokenization is recorded per API path, for example {@code tokenize.credit_cards}.
+     */
+    @Nullable
+    static String getHistogramOperation(HttpEvent event) {
+        String operation = event.getOperation();
+        if (HttpEvent.OPERATION_CONFIGURATION.equals(operation)) {
+            return operation;
+        } else if (HttpEvent.OPERATION_TOKENIZE.equals(operation)) {
+            List<String> segments = Uri.parse(event.getUrl()).getPathSegments();
+            int index = segments.indexOf("payment_methods");
+            if (index != -1 && index + 1 < segments.size()) {
+                return operation + "." + segments.get(index + 1);
+            }
+            return operation;
+        } else if (HttpEvent.OPERATION_PAYPAL.equals(operation)) {
+            String lastSegment = Uri.parse(event.getUrl()).getLastPathSegment();
+            return lastSegment == null ? operation : operation + "." + lastSegment;
+        } else if (HttpEvent.OPERATION_THREE_D_SECURE.equals(operation)) {
+            return operation + ".lookup";
+        }
+
+        return null;
+    }
+
+    static long percentile(long[] buckets, long max, double percentile) {
+        long total = sum(buckets);
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(percentile * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_BOUNDS_MILLIS.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                return Math.min(BUCKET_BOUNDS_MILLIS[i], max);
+            }
+        }
+
+        return max;
+    }
+
+    private static long sum(long[] buckets) {
+        long total = 0;
+        for (long count : buckets) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Counts taken by {@link #drain()}.
+     */
+    public static class Snapshot {
+
+        private final Map<Histogram, Counts> mCounts;
+
+        private Snapshot(Map<Histogram, Counts> counts) {
+            mCounts = counts;
+        }
+
+        public boolean isEmpty() {
+            return mCounts.isEmpty();
+        }
+
+        public JSONObject toJson() throws JSONException {
+            JSONArray bounds = new JSONArray();
+            for (long bound : BUCKET_BOUNDS_MILLIS) {
+                bounds.put(bound);
+            }
+
+            JSONArray histograms = new JSONArray();
+            for (Map.Entry<Histogram, Counts> entry : mCounts.entrySet()) {
+                Histogram histogram = entry.getKey();
+                long[] buckets = entry.getValue().mBuckets;
+                long max = entry.getValue().mMax;
+
+                JSONArray bucketCounts = new JSONArray();
+                for (long count : buckets) {
+                    bucketCounts.put(count);
+                }
+
+                histograms.put(new JSONObject()
+                        .put(OPERATION_KEY, histogram.mOperation)
+                        .put(NETWORK_TYPE_KEY, histogram.mNetworkType)
+                        .put(COUNT_KEY, sum(buckets))
+                        .put(P50_KEY, percentile(buckets, max, 0.50))
+                        .put(P95_KEY, percentile(buckets, max, 0.95))
+                        .put(P99_KEY, percentile(buckets, max, 0.99))
+                        .put(MAX_KEY, max)
+                        .put(BUCKETS_KEY, bucketCounts));
+            }
+
+            return new JSONObject()
+                    .put(BUCKET_BOUNDS_KEY, bounds)
+                    .put(HISTOGRAMS_KEY, histograms);
+        }
+    }
+
+    private static class Histogram {
+
+        private final String mOperation;
+        private final String mNetworkType;
+        private final AtomicLongArray mBuckets = new AtomicLongArray(BUCKET_BOUNDS_MILLIS.length + 1);
+        private final AtomicLong mMax = new AtomicLong();
+
+        Histogram(String operation, String networkType) {
+            mOperation = operation;
+            mNetworkType = networkType;
+        }
+
+        void record(long millis) {
+            int bucket = 0;
+            while (bucket < BUCKET_BOUNDS_MILLIS.length && millis > BUCKET_BOUNDS_MILLIS[bucket]) {
+                bucket++;
+            }
+            mBuckets.incrementAndGet(bucket);
+
+            long max;
+            while (millis > (max = mMax.get()) && !mMax.compareAndSet(max, millis)) {}
+        }
+
+        Counts drain() {
+            long[] buckets = new long[mBuckets.length()];
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = mBuckets.getAndSet(i, 0);
+            }
+            return new Counts(buckets, mMax.getAndSet(0));
+        }
+
+        void add(Counts counts) {
+            for (int i = 0; i < counts.mBuckets.length; i++) {
+                mBuckets.addAndGet(i, counts.mBuckets[i]);
+            }
+
+            long max;
+            while (counts.mMax > (max = mMax.get()) && !mMax.compareAndSet(max, counts.mMax)) {}
+        }
+    }
+
+    private static class Counts {
+
+        private final long[] mBuckets;
+        private final long mMax;
+
+        Counts(long[] buckets, long max) {
+            mBuckets = buckets;
+            mMax = max;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.braintreepayments.api.internal;
+
+import android.annotation.TargetApi;
+import android.os.Build.VERSION;
+import android.os.Build.VERSION_CODES;
+import android.os.Trace;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records named sections relative to the time the timeline was created. Synchronous sections are also emitted
+ * as system trace markers so they show up in systrace and Android Studio CPU profiles.
+ */
+public class TraceTimeline {
+
+    private static final String TRACE_PREFIX = "Braintree:";
+    private static final int MAX_SECTIONS = 64;
+
+    private final long mOriginNanos;
+    private final List<Section> mSections = new ArrayList<>();
+
+    public TraceTimeline() {
+        mOriginNanos = System.nanoTime();
+    }
+
+    /**
+     * Starts a synchronous section. Must be matched by a call to {@link #end(String, long)} on the same
+     * thread, with sections strictly nested.
+     *
+     * @param name the name of the section.
+     * @return the start time to pass to {@link #end(String, long)}.
+     */
+    public long begin(String name) {
+        if (VERSION.SDK_INT >= VERSION_CODES.JELLY_BEAN_MR2) {
+            beginTraceSection(name);
+        }
+
+        return System.nanoTime();
+    }
+
+    /**
+     * Ends the synchronous section started by {@link #begin(String)}.
+     */
+    public void end(String name, long startNanos) {
+        if (VERSION.SDK_INT >= VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.endSection();
+        }
+
+        record(name, startNanos);
+    }
+
+    /**
+     * Records a section that started at {@code startNanos} and ends now, without a system trace marker. Used
+     * for asynchronous work such as waiting for a network response.
+     */
+    public void record(String name, long startNanos) {
+        long endNanos = System.nanoTime();
+        synchronized (mSections) {
+            if (mSections.size() < MAX_SECTIONS) {
+                mSections.add(new Section(name, startNanos - mOriginNanos, endNanos - startNanos));
+            }
+        }
+    }
+
+    /**
+     * @return the recorded sections in the order they ended.
+     */
+    public List<Section> getSections() {
+        synchronized (mSections) {
+            return Collections.unmodifiableList(new ArrayList<>(mSections));
+        }
+    }
+
+    /**
+     * @return the recorded section with the given name, or {@code null} if it has not been recorded.
+     */
+    public Section getSection(String name) {
+        synchronized (mSections) {
+            for (Section section : mSections) {
+                if (section.getName().equals(name)) {
+                    return section;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (Section section : getSections()) {
+            builder.append(section).append('\n');
+        }
+        return builder.toString();
+    }
+
+    @TargetApi(VERSION_CODES.JELLY_BEAN_MR2)
+    private static void beginTraceSection(String name) {
+        Trace.beginSection(TRACE_PREFIX + name);
+    }
+
+    public static class Section {
+
+        private final String mName;
+        private final long mOffsetNanos;
+        private final long mDurationNanos;
+
+        Section(String name, long offsetNanos, long durationNanos) {
+            mName = name;
+            mOffsetNanos = offsetNanos;
+            mDurationNanos = durationNanos;
+        }
+
+        public String getName() {
+            return mName;
+        }
+
+        /**
+         * @return the time the section started, in milliseconds since the timeline was created.
+         */
+        public double getStartMillis() {
+            return mOffsetNanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        /**
+         * @return the duration of the section in milliseconds.
+         */
+        public double getDurationMillis() {
+            return mDurationNanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%s +%.3fms %.3fms", mName, getStartMillis(), getDurationMillis());
+        }
+    }
+}
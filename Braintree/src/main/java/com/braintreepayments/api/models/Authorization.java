@@ -7,11 +7,23 @@ import android.text.TextUtils;
 
 import com.braintreepayments.api.exceptions.InvalidArgumentException;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * Generic base class for Braintree authorization
  */
 public abstract class Authorization implements Parcelable {
 
+    private static final int MAX_CACHED_AUTHORIZATIONS = 8;
+    private static final Map<String, Authorization> sAuthorizations =
+            new LinkedHashMap<String, Authorization>(MAX_CACHED_AUTHORIZATIONS, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Authorization> eldest) {
+                    return size() > MAX_CACHED_AUTHORIZATIONS;
+                }
+            };
+
     private final String mRawValue;
 
     public Authorization(String rawValue) {
@@ -19,7 +31,8 @@ public abstract class Authorization implements Parcelable {
     }
 
     /**
-     * Returns an {@link Authorization} of the correct type for a given {@link String}.
+     * Returns an {@link Authorization} of the correct type for a given {@link String}. Recently parsed
+     * {@link Authorization}s are cached, so repeated calls with the same {@link String} do not decode it again.
      *
      * @param authorizationString Given string to transform into an {@link Authorization}.
      * @return {@link Authorization}
@@ -27,11 +40,29 @@ public abstract class Authorization implements Parcelable {
      * passed does not meet any of the criteria supplied for {@link ClientToken} or {@link TokenizationKey}.
      */
     public static Authorization fromString(@Nullable String authorizationString) throws InvalidArgumentException {
+        if (authorizationString == null) {
+            throw new InvalidArgumentException("Client token was invalid");
+        }
+
+        synchronized (sAuthorizations) {
+            Authorization authorization = sAuthorizations.get(authorizationString);
+            if (authorization != null) {
+                return authorization;
+            }
+        }
+
+        Authorization authorization;
         if (isTokenizationKey(authorizationString)) {
-            return new TokenizationKey(authorizationString);
+            authorization = new TokenizationKey(authorizationString);
         } else {
-            return new ClientToken(authorizationString);
+            authorization = new ClientToken(authorizationString);
+        }
+
+        synchronized (sAuthorizations) {
+            sAuthorizations.put(authorizationString, authorization);
         }
+
+        return authorization;
     }
 
     /**
@@ -52,7 +83,33 @@ public abstract class Authorization implements Parcelable {
      * @return {@code true} if the {@link String} is a tokenization key, {@code false} otherwise.
      */
     public static boolean isTokenizationKey(String tokenizationKey) {
-        return !TextUtils.isEmpty(tokenizationKey) && tokenizationKey.matches(TokenizationKey.MATCHER);
+        if (TextUtils.isEmpty(tokenizationKey)) {
+            return false;
+        }
+
+        // <environment>_<date>_<merchant id>: two alphanumeric parts, then alphanumerics and underscores
+        int separators = 0;
+        int partLength = 0;
+        for (int i = 0; i < tokenizationKey.length(); i++) {
+            char c = tokenizationKey.charAt(i);
+            if (c == '_' && separators < 2) {
+                if (partLength == 0) {
+                    return false;
+                }
+                separators++;
+                partLength = 0;
+            } else if (isAlphanumeric(c) || c == '_') {
+                partLength++;
+            } else {
+                return false;
+            }
+        }
+
+        return separators == 2 && partLength > 0;
+    }
+
+    private static boolean isAlphanumeric(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
     }
 
     @Override
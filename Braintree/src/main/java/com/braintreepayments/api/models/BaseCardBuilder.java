@@ -2,8 +2,11 @@ package com.braintreepayments.api.models;
 
 import android.os.Parcel;
 import android.os.Parcelable;
+import android.support.annotation.Nullable;
 import android.text.TextUtils;
 
+import com.braintreepayments.api.CardValidator;
+
 import org.json.JSONException;
 import org.json.JSONObject;
 
@@ -227,6 +230,31 @@ public abstract class BaseCardBuilder<T> extends PaymentMethodBuilder<T> impleme
         return (T) this;
     }
 
+    /**
+     * Validates the format and check digit of the card number and the security code on the device with
+     * {@link CardValidator}. Cards without a card number are left to the Braintree gateway to validate.
+     *
+     * @return {@link CardValidator#VALID} or a combination of {@link CardValidator} error flags.
+     */
+    public int getValidationErrors() {
+        return getValidationErrors(null);
+    }
+
+    /**
+     * Validates the card number and security code on the device with {@link CardValidator}. Cards without a card
+     * number are left to the Braintree gateway to validate.
+     *
+     * @param cardConfiguration the merchant's {@link CardConfiguration} to also check that the brand is accepted,
+     *        or {@code null} to accept every brand.
+     * @return {@link CardValidator#VALID} or a combination of {@link CardValidator} error flags.
+     */
+    public int getValidationErrors(@Nullable CardConfiguration cardConfiguration) {
+        if (mCardnumber == null) {
+            return CardValidator.VALID;
+        }
+        return CardValidator.validate(mCardnumber, mCvv, cardConfiguration);
+    }
+
     @Override
     protected void build(JSONObject json, JSONObject paymentMethodNonceJson) throws JSONException {
         paymentMethodNonceJson.put(NUMBER_KEY, mCardnumber);
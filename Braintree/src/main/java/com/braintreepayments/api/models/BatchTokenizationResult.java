@@ -0,0 +1,137 @@
+package com.braintreepayments.api.models;
+
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Results of tokenizing a list of {@link PaymentMethodBuilder}s, in the same order as the builders, along with
+ * throughput metrics for the batch.
+ */
+public class BatchTokenizationResult {
+
+    private final List<Item> mItems;
+    private final long mDurationNanos;
+    private final int mMaxConcurrency;
+
+    public BatchTokenizationResult(List<Item> items, long durationNanos, int maxConcurrency) {
+        mItems = Collections.unmodifiableList(new ArrayList<>(items));
+        mDurationNanos = durationNanos;
+        mMaxConcurrency = maxConcurrency;
+    }
+
+    /**
+     * @return the result of each {@link PaymentMethodBuilder}, in the order they were submitted.
+     */
+    public List<Item> getItems() {
+        return mItems;
+    }
+
+    /**
+     * @return the {@link PaymentMethodNonce}s of the builders that were tokenized successfully.
+     */
+    public List<PaymentMethodNonce> getPaymentMethodNonces() {
+        List<PaymentMethodNonce> nonces = new ArrayList<>();
+        for (Item item : mItems) {
+            if (item.isSuccess()) {
+                nonces.add(item.getPaymentMethodNonce());
+            }
+        }
+        return nonces;
+    }
+
+    public int getSuccessCount() {
+        int count = 0;
+        for (Item item : mItems) {
+            if (item.isSuccess()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int getFailureCount() {
+        return mItems.size() - getSuccessCount();
+    }
+
+    /**
+     * @return the maximum number of requests that were in flight at the same time.
+     */
+    public int getMaxConcurrency() {
+        return mMaxConcurrency;
+    }
+
+    /**
+     * @return the wall clock time taken by the batch in milliseconds.
+     */
+    public long getDurationMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(mDurationNanos);
+    }
+
+    /**
+     * @return the number of builders processed per second, including failures.
+     */
+    public double getThroughputPerSecond() {
+        if (mDurationNanos <= 0) {
+            return 0;
+        }
+        return mItems.size() / (mDurationNanos / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /**
+     * @return the mean time of a single tokenization request in milliseconds.
+     */
+    public long getAverageLatencyMillis() {
+        if (mItems.isEmpty()) {
+            return 0;
+        }
+
+        long total = 0;
+        for (Item item : mItems) {
+            total += item.getDurationMillis();
+        }
+        return total / mItems.size();
+    }
+
+    /**
+     * The outcome of tokenizing a single {@link PaymentMethodBuilder}. Exactly one of
+     * {@link #getPaymentMethodNonce()} and {@link #getException()} is non-null.
+     */
+    public static class Item {
+
+        private final PaymentMethodNonce mPaymentMethodNonce;
+        private final Exception mException;
+        private final long mDurationMillis;
+
+        public Item(@Nullable PaymentMethodNonce paymentMethodNonce, @Nullable Exception exception,
+                long durationMillis) {
+            mPaymentMethodNonce = paymentMethodNonce;
+            mException = exception;
+            mDurationMillis = durationMillis;
+        }
+
+        public boolean isSuccess() {
+            return mException == null;
+        }
+
+        @Nullable
+        public PaymentMethodNonce getPaymentMethodNonce() {
+            return mPaymentMethodNonce;
+        }
+
+        @Nullable
+        public Exception getException() {
+            return mException;
+        }
+
+        /**
+         * @return the time from sending the request to receiving the response in milliseconds.
+         */
+        public long getDurationMillis() {
+            return mDurationMillis;
+        }
+    }
+}
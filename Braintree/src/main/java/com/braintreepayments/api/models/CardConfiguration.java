@@ -45,4 +45,13 @@ public class CardConfiguration {
     public Set<String> getSupportedCardTypes() {
         return Collections.unmodifiableSet(mSupportedCardTypes);
     }
+
+    /**
+     * @param cardType the name of a card type, e.g. "Visa".
+     * @return {@code true} if the merchant accepts {@code cardType}, or if the merchant has not restricted the
+     * accepted card types.
+     */
+    public boolean isCardTypeSupported(String cardType) {
+        return mSupportedCardTypes.isEmpty() || mSupportedCardTypes.contains(cardType);
+    }
 }
@@ -13,8 +13,6 @@ import org.json.JSONObject;
  */
 public class ClientToken extends Authorization {
 
-    protected static final String BASE_64_MATCHER =
-            "([A-Za-z0-9+/]{4})*([A-Za-z0-9+/]{4}|[A-Za-z0-9+/]{3}=|[A-Za-z0-9+/]{2}==)";
     private static final String CONFIG_URL_KEY = "configUrl";
     private static final String AUTHORIZATION_FINGERPRINT_KEY = "authorizationFingerprint";
 
@@ -30,7 +28,7 @@ public class ClientToken extends Authorization {
     ClientToken(String clientTokenString) throws InvalidArgumentException {
         super(clientTokenString);
         try {
-            if (clientTokenString.matches(BASE_64_MATCHER)) {
+            if (isBase64(clientTokenString)) {
                 clientTokenString = new String(Base64.decode(clientTokenString, Base64.DEFAULT));
             }
 
@@ -42,6 +40,31 @@ public class ClientToken extends Authorization {
         }
     }
 
+    /**
+     * Checks in a single pass that {@code value} is non-empty, padded Base64 without line breaks.
+     */
+    static boolean isBase64(String value) {
+        int length = value.length();
+        if (length == 0 || length % 4 != 0) {
+            return false;
+        }
+
+        int padding = 0;
+        if (value.charAt(length - 1) == '=') {
+            padding = value.charAt(length - 2) == '=' ? 2 : 1;
+        }
+
+        for (int i = 0; i < length - padding; i++) {
+            char c = value.charAt(i);
+            if (!((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '+' ||
+                    c == '/')) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     @Override
     public String getConfigUrl() {
         return mConfigUrl;
@@ -1,10 +1,15 @@
 package com.braintreepayments.api.models;
 
+import android.util.JsonWriter;
+
 import com.braintreepayments.api.BuildConfig;
+import com.braintreepayments.api.Json;
 
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.IOException;
+
 
 public class MetadataBuilder {
 
@@ -61,6 +66,15 @@ public class MetadataBuilder {
         return mJson;
     }
 
+    /**
+     * Writes the metadata as a JSON object to a {@link JsonWriter}.
+     *
+     * @param writer the {@link JsonWriter} to write to.
+     */
+    public void writeTo(JsonWriter writer) throws IOException {
+        Json.writeValue(writer, mJson);
+    }
+
     @Override
     public String toString() {
         return mJson.toString();
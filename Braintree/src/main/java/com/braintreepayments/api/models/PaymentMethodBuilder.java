@@ -1,13 +1,18 @@
 package com.braintreepayments.api.models;
 
 import android.os.Parcel;
+import android.util.JsonWriter;
 
 import com.braintreepayments.api.BraintreeFragment;
+import com.braintreepayments.api.Json;
 import com.braintreepayments.api.interfaces.PaymentMethodNonceCallback;
 
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.IOException;
+import java.io.StringWriter;
+
 /**
  * An abstract class to extend when creating a builder for a payment method. Contains logic and
  * implementations shared by all payment methods.
@@ -79,18 +84,36 @@ public abstract class PaymentMethodBuilder<T> {
      * @return String representation of {@link PaymentMethodNonce} for API use.
      */
     public String build() {
-        JSONObject json = new JSONObject();
-        JSONObject optionsJson = new JSONObject();
-        JSONObject paymentMethodNonceJson = new JSONObject();
-        JSONObject metaJson = new MetadataBuilder()
+        StringWriter out = new StringWriter();
+        try {
+            JsonWriter writer = new JsonWriter(out);
+            writer.beginObject();
+            writeFields(writer);
+            writer.endObject();
+            writer.close();
+        } catch (IOException ignored) {}
+
+        return out.toString();
+    }
+
+    /**
+     * Writes the {@link PaymentMethodNonce} request directly to a {@link JsonWriter}. Used to stream the request
+     * to the connection without serializing it to a {@link String} first.
+     *
+     * @param writer the {@link JsonWriter} positioned inside the request object.
+     */
+    public void writeFields(JsonWriter writer) throws IOException {
+        writer.name(MetadataBuilder.META_KEY);
+        new MetadataBuilder()
                 .sessionId(mSessionId)
                 .source(mSource)
                 .integration(mIntegration)
-                .build();
+                .writeTo(writer);
 
+        JSONObject json = new JSONObject();
+        JSONObject optionsJson = new JSONObject();
+        JSONObject paymentMethodNonceJson = new JSONObject();
         try {
-            json.put(MetadataBuilder.META_KEY, metaJson);
-
             if (mValidateSet) {
                 optionsJson.put(VALIDATE_KEY, mValidate);
                 paymentMethodNonceJson.put(OPTIONS_KEY, optionsJson);
@@ -99,7 +122,7 @@ public abstract class PaymentMethodBuilder<T> {
             build(json, paymentMethodNonceJson);
         } catch (JSONException ignored) {}
 
-        return json.toString();
+        Json.writeFields(writer, json);
     }
 
     protected PaymentMethodBuilder(Parcel in) {
@@ -0,0 +1,136 @@
+package com.braintreepayments.api.models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The changes between two lists of a customer's {@link PaymentMethodNonce}s. Payment methods are matched by their
+ * type and description, since a payment method gets a new nonce every time it is fetched. Payment methods that
+ * share a type and description, such as two cards with the same last digits, are matched by nonce and then in order.
+ */
+public class PaymentMethodNoncesDiff {
+
+    private final List<PaymentMethodNonce> mPaymentMethodNonces;
+    private final List<PaymentMethodNonce> mAdded;
+    private final List<PaymentMethodNonce> mRemoved;
+    private final List<PaymentMethodNonce> mUpdated;
+
+    private PaymentMethodNoncesDiff(List<PaymentMethodNonce> paymentMethodNonces, List<PaymentMethodNonce> added,
+            List<PaymentMethodNonce> removed, List<PaymentMethodNonce> updated) {
+        mPaymentMethodNonces = Collections.unmodifiableList(paymentMethodNonces);
+        mAdded = Collections.unmodifiableList(added);
+        mRemoved = Collections.unmodifiableList(removed);
+        mUpdated = Collections.unmodifiableList(updated);
+    }
+
+    /**
+     * @param previous the {@link PaymentMethodNonce}s that were displayed.
+     * @param current the {@link PaymentMethodNonce}s that replace them.
+     * @return the {@link PaymentMethodNoncesDiff} from {@code previous} to {@code current}.
+     */
+    public static PaymentMethodNoncesDiff between(List<PaymentMethodNonce> previous,
+            List<PaymentMethodNonce> current) {
+        Map<String, List<PaymentMethodNonce>> unmatched = new HashMap<>();
+        for (PaymentMethodNonce paymentMethodNonce : previous) {
+            String key = getKey(paymentMethodNonce);
+            List<PaymentMethodNonce> candidates = unmatched.get(key);
+            if (candidates == null) {
+                candidates = new ArrayList<>();
+                unmatched.put(key, candidates);
+            }
+            candidates.add(paymentMethodNonce);
+        }
+
+        List<PaymentMethodNonce> added = new ArrayList<>();
+        List<PaymentMethodNonce> updated = new ArrayList<>();
+        for (PaymentMethodNonce paymentMethodNonce : current) {
+            PaymentMethodNonce previousPaymentMethodNonce =
+                    removeMatch(unmatched.get(getKey(paymentMethodNonce)), paymentMethodNonce);
+            if (previousPaymentMethodNonce == null) {
+                added.add(paymentMethodNonce);
+            } else if (!equals(previousPaymentMethodNonce.getNonce(), paymentMethodNonce.getNonce()) ||
+                    previousPaymentMethodNonce.isDefault() != paymentMethodNonce.isDefault()) {
+                updated.add(paymentMethodNonce);
+            }
+        }
+
+        List<PaymentMethodNonce> removed = new ArrayList<>();
+        for (PaymentMethodNonce paymentMethodNonce : previous) {
+            for (PaymentMethodNonce candidate : unmatched.get(getKey(paymentMethodNonce))) {
+                if (candidate == paymentMethodNonce) {
+                    removed.add(paymentMethodNonce);
+                    break;
+                }
+            }
+        }
+
+        return new PaymentMethodNoncesDiff(new ArrayList<>(current), added, removed, updated);
+    }
+
+    /**
+     * @return the full, current list of {@link PaymentMethodNonce}s.
+     */
+    public List<PaymentMethodNonce> getPaymentMethodNonces() {
+        return mPaymentMethodNonces;
+    }
+
+    /**
+     * @return {@link PaymentMethodNonce}s that were not in the previous list.
+     */
+    public List<PaymentMethodNonce> getAdded() {
+        return mAdded;
+    }
+
+    /**
+     * @return {@link PaymentMethodNonce}s from the previous list that are no longer present.
+     */
+    public List<PaymentMethodNonce> getRemoved() {
+        return mRemoved;
+    }
+
+    /**
+     * @return {@link PaymentMethodNonce}s that were in the previous list with a different nonce or default flag.
+     *         The previous nonces should no longer be used.
+     */
+    public List<PaymentMethodNonce> getUpdated() {
+        return mUpdated;
+    }
+
+    /**
+     * @return {@code true} if the lists contain the same payment methods with the same nonces.
+     */
+    public boolean isEmpty() {
+        return mAdded.isEmpty() && mRemoved.isEmpty() && mUpdated.isEmpty();
+    }
+
+    /**
+     * Removes the candidate with the same nonce as {@code paymentMethodNonce} from {@code candidates}, or the first
+     * candidate if none has the same nonce.
+     *
+     * @return the removed candidate, or {@code null} if there are no candidates left.
+     */
+    private static PaymentMethodNonce removeMatch(List<PaymentMethodNonce> candidates,
+            PaymentMethodNonce paymentMethodNonce) {
+        if (candidates == null || candidates.isEmpty()) {
+            return null;
+        }
+
+        for (int i = 0; i < candidates.size(); i++) {
+            if (equals(candidates.get(i).getNonce(), paymentMethodNonce.getNonce())) {
+                return candidates.remove(i);
+            }
+        }
+        return candidates.remove(0);
+    }
+
+    private static String getKey(PaymentMethodNonce paymentMethodNonce) {
+        return paymentMethodNonce.getTypeLabel() + "\n" + paymentMethodNonce.getDescription();
+    }
+
+    private static boolean equals(String lhs, String rhs) {
+        return lhs == null ? rhs == null : lhs.equals(rhs);
+    }
+}
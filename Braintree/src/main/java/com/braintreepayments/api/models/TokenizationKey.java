@@ -8,8 +8,6 @@ import com.braintreepayments.api.exceptions.InvalidArgumentException;
 
 public class TokenizationKey extends Authorization implements Parcelable {
 
-    protected static final String MATCHER = "^[a-zA-Z0-9]+_[a-zA-Z0-9]+_[a-zA-Z0-9_]+$";
-
     private final String mEnvironment;
     private final String mMerchantId;
     private final String mUrl;
@@ -14,6 +14,10 @@ public class ThreeDSecureWebChromeClient extends WebChromeClient {
 
     @Override
     public boolean onCreateWindow(WebView view, boolean isDialog, boolean isUserGesture, Message resultMsg) {
+        if (mActivity.isWebViewLimitReached()) {
+            return false;
+        }
+
         ThreeDSecureWebView newWebView = new ThreeDSecureWebView(mActivity.getApplicationContext());
         newWebView.init(mActivity);
         mActivity.pushNewWebView(newWebView);
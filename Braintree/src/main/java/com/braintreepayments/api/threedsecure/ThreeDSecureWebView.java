@@ -37,6 +37,16 @@ public class ThreeDSecureWebView extends WebView {
     }
 
     protected void init(ThreeDSecureWebViewActivity activity) {
+        configure();
+        setWebChromeClient(new ThreeDSecureWebChromeClient(activity));
+        setWebViewClient(new ThreeDSecureWebViewClient(activity));
+    }
+
+    /**
+     * Applies the settings that do not depend on a {@link ThreeDSecureWebViewActivity}, so a WebView can be
+     * prepared by {@link ThreeDSecureWebViewPool} before the activity exists.
+     */
+    void configure() {
         setId(android.R.id.widget_frame);
 
         WebSettings settings = getSettings();
@@ -50,8 +60,5 @@ public class ThreeDSecureWebView extends WebView {
         final CookieManager cookieManager = CookieManager.getInstance();
         cookieManager.setAcceptThirdPartyCookies(ThreeDSecureWebView.this, true);
         settings.setMixedContentMode(0);
-
-        setWebChromeClient(new ThreeDSecureWebChromeClient(activity));
-        setWebViewClient(new ThreeDSecureWebViewClient(activity));
     }
 }
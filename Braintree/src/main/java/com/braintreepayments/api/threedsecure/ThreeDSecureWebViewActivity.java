@@ -20,6 +20,12 @@ public class ThreeDSecureWebViewActivity extends Activity {
     public static final String EXTRA_THREE_D_SECURE_LOOKUP = "com.braintreepayments.api.EXTRA_THREE_D_SECURE_LOOKUP";
     public static final String EXTRA_THREE_D_SECURE_RESULT = "com.braintreepayments.api.EXTRA_THREE_D_SECURE_RESULT";
 
+    /**
+     * The most windows, including popups opened by the ACS page, that are kept at once. Further popups are
+     * refused.
+     */
+    static final int MAX_WEB_VIEWS = 4;
+
     private ActionBar mActionBar;
     private FrameLayout mRootView;
     private Stack<ThreeDSecureWebView> mThreeDSecureWebViews;
@@ -53,12 +59,25 @@ public class ThreeDSecureWebViewActivity extends Activity {
             finish();
         }
 
-        ThreeDSecureWebView webView = new ThreeDSecureWebView(this);
+        ThreeDSecureWebView webView = ThreeDSecureWebViewPool.acquire(this);
         webView.init(this);
         webView.postUrl(threeDSecureLookup.getAcsUrl(), params.toString().getBytes());
         pushNewWebView(webView);
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (mThreeDSecureWebViews == null) {
+            return;
+        }
+
+        mRootView.removeAllViews();
+        while (!mThreeDSecureWebViews.isEmpty()) {
+            destroyWebView(mThreeDSecureWebViews.pop());
+        }
+    }
+
     protected void pushNewWebView(ThreeDSecureWebView webView) {
         mThreeDSecureWebViews.push(webView);
         mRootView.removeAllViews();
@@ -66,8 +85,28 @@ public class ThreeDSecureWebViewActivity extends Activity {
     }
 
     protected void popCurrentWebView() {
-        mThreeDSecureWebViews.pop();
-        pushNewWebView(mThreeDSecureWebViews.pop());
+        if (mThreeDSecureWebViews.size() <= 1) {
+            return;
+        }
+
+        ThreeDSecureWebView webView = mThreeDSecureWebViews.pop();
+        mRootView.removeView(webView);
+        destroyWebView(webView);
+        mRootView.addView(mThreeDSecureWebViews.peek());
+    }
+
+    /**
+     * @return {@code true} if {@link #MAX_WEB_VIEWS} windows are open and no more popups should be created.
+     */
+    protected boolean isWebViewLimitReached() {
+        return mThreeDSecureWebViews.size() >= MAX_WEB_VIEWS;
+    }
+
+    private void destroyWebView(ThreeDSecureWebView webView) {
+        webView.stopLoading();
+        webView.setWebChromeClient(null);
+        webView.setWebViewClient(null);
+        webView.destroy();
     }
 
     protected void finishWithResult(ThreeDSecureAuthenticationResponse threeDSecureAuthenticationResponse) {
@@ -0,0 +1,126 @@
+package com.braintreepayments.api.threedsecure;
+
+import android.content.Context;
+import android.content.MutableContextWrapper;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool of {@link ThreeDSecureWebView}s created ahead of a 3D Secure challenge. Creating the first
+ * {@link android.webkit.WebView} in a process loads the WebView implementation, which can take hundreds of
+ * milliseconds, so prewarming while tokenization and lookup are in flight lets the ACS page start loading as soon
+ * as {@link ThreeDSecureWebViewActivity} is created.
+ * <p/>
+ * Pooled WebViews are wrapped in a {@link MutableContextWrapper} around the application context and only take
+ * the {@link android.app.Activity} as their context once acquired, so the pool never leaks an Activity. A
+ * WebView is never returned to the pool after use, and idle WebViews are destroyed after
+ * {@link #IDLE_TIMEOUT_MILLIS}.
+ */
+public class ThreeDSecureWebViewPool {
+
+    static final int MAX_IDLE_WEB_VIEWS = 1;
+    static final long IDLE_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(60);
+
+    private static final Handler sMainHandler = new Handler(Looper.getMainLooper());
+    private static final Deque<IdleWebView> sIdleWebViews = new ArrayDeque<>();
+
+    private static final Runnable sEvictIdleWebViews = new Runnable() {
+        @Override
+        public void run() {
+            long now = SystemClock.uptimeMillis();
+            while (!sIdleWebViews.isEmpty() && sIdleWebViews.peekFirst().expiresAt <= now) {
+                sIdleWebViews.pollFirst().webView.destroy();
+            }
+            scheduleEviction();
+        }
+    };
+
+    /**
+     * Creates a {@link ThreeDSecureWebView} on the main thread if the pool is not full. May be called from any
+     * thread.
+     *
+     * @param context any {@link Context}, only its application context is retained.
+     */
+    public static void prewarm(Context context) {
+        final Context applicationContext = context.getApplicationContext();
+        runOnMainThread(new Runnable() {
+            @Override
+            public void run() {
+                if (sIdleWebViews.size() >= MAX_IDLE_WEB_VIEWS) {
+                    return;
+                }
+
+                ThreeDSecureWebView webView = new ThreeDSecureWebView(new MutableContextWrapper(applicationContext));
+                webView.configure();
+                sIdleWebViews.addLast(new IdleWebView(webView, SystemClock.uptimeMillis() + IDLE_TIMEOUT_MILLIS));
+                scheduleEviction();
+            }
+        });
+    }
+
+    /**
+     * Destroys every idle {@link ThreeDSecureWebView}. May be called from any thread.
+     */
+    public static void clear() {
+        runOnMainThread(new Runnable() {
+            @Override
+            public void run() {
+                while (!sIdleWebViews.isEmpty()) {
+                    sIdleWebViews.pollFirst().webView.destroy();
+                }
+                sMainHandler.removeCallbacks(sEvictIdleWebViews);
+            }
+        });
+    }
+
+    /**
+     * Takes a prewarmed {@link ThreeDSecureWebView} from the pool, or creates one if the pool is empty. Must be
+     * called on the main thread.
+     *
+     * @param context the {@link Context} the {@link ThreeDSecureWebView} will be displayed in.
+     */
+    static ThreeDSecureWebView acquire(Context context) {
+        IdleWebView idleWebView = sIdleWebViews.pollFirst();
+        if (idleWebView == null) {
+            return new ThreeDSecureWebView(context);
+        }
+
+        ((MutableContextWrapper) idleWebView.webView.getContext()).setBaseContext(context);
+        return idleWebView.webView;
+    }
+
+    static int getIdleCount() {
+        return sIdleWebViews.size();
+    }
+
+    private static void scheduleEviction() {
+        sMainHandler.removeCallbacks(sEvictIdleWebViews);
+        if (!sIdleWebViews.isEmpty()) {
+            sMainHandler.postAtTime(sEvictIdleWebViews, sIdleWebViews.peekFirst().expiresAt);
+        }
+    }
+
+    private static void runOnMainThread(Runnable runnable) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            runnable.run();
+        } else {
+            sMainHandler.post(runnable);
+        }
+    }
+
+    private static class IdleWebView {
+
+        final ThreeDSecureWebView webView;
+        final long expiresAt;
+
+        IdleWebView(ThreeDSecureWebView webView, long expiresAt) {
+            this.webView = webView;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,424 @@
+package com.braintreepayments.api;
+
+import com.braintreepayments.api.exceptions.ConfigurationException;
+import com.braintreepayments.api.exceptions.ErrorWithResponse;
+import com.braintreepayments.api.exceptions.InvalidArgumentException;
+import com.braintreepayments.api.internal.AnalyticsDatabase;
+import com.braintreepayments.api.internal.AnalyticsEvent;
+import com.braintreepayments.api.internal.BraintreeHttpClient;
+import com.braintreepayments.api.models.Authorization;
+import com.braintreepayments.api.models.BatchTokenizationResult;
+import com.braintreepayments.api.models.CardBuilder;
+import com.braintreepayments.api.models.CardNonce;
+import com.braintreepayments.api.models.Configuration;
+import com.braintreepayments.api.models.PaymentMethodNonce;
+import com.braintreepayments.api.models.UnionPayCapabilities;
+import com.braintreepayments.api.test.StandInGateway;
+import com.braintreepayments.api.test.StandInGateway.Endpoint;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.braintreepayments.testutils.FixturesHelper.stringFromFixture;
+import static com.braintreepayments.testutils.SharedPreferencesHelper.clearSharedPreferences;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(RobolectricGradleTestRunner.class)
+public class BraintreeClientUnitTest {
+
+    private StandInGateway mGateway;
+    private ExecutorService mCallbackExecutor;
+    private BraintreeClient mBraintreeClient;
+
+    @Before
+    public void setup() throws IOException, InvalidArgumentException {
+        clearSharedPreferences(RuntimeEnvironment.application);
+        mGateway = new StandInGateway().start();
+        mCallbackExecutor = Executors.newSingleThreadExecutor();
+
+        Authorization authorization = Authorization.fromString(mGateway.getClientToken());
+        BraintreeHttpClient httpClient = new BraintreeHttpClient(authorization);
+        httpClient.setCallbackExecutor(mCallbackExecutor);
+        mBraintreeClient = new BraintreeClient(RuntimeEnvironment.application, authorization, "session-id",
+                "custom", httpClient, AnalyticsDatabase.getInstance(RuntimeEnvironment.application));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        mBraintreeClient.shutdown();
+        mCallbackExecutor.shutdown();
+        mGateway.shutdown();
+    }
+
+    @Test(timeout = 10000)
+    public void fetchConfiguration_sharesASingleRequest() throws Exception {
+        BraintreeFuture<Configuration> first = mBraintreeClient.fetchConfiguration();
+        BraintreeFuture<Configuration> second = mBraintreeClient.fetchConfiguration();
+
+        assertSame(first.get(), second.get());
+        assertSame(first.get(), mBraintreeClient.fetchConfiguration().get());
+        assertEquals(1, mGateway.getRequestCount(Endpoint.CONFIGURATION));
+    }
+
+    @Test(timeout = 10000)
+    public void fetchConfiguration_failsAfterRetryLimit() throws Exception {
+        mGateway.enqueueError(Endpoint.CONFIGURATION, 500, 3);
+
+        for (int i = 0; i < 3; i++) {
+            assertConfigurationException("Request for configuration has failed",
+                    mBraintreeClient.fetchConfiguration());
+        }
+        assertConfigurationException("Configuration retry limit has been exceeded",
+                mBraintreeClient.fetchConfiguration());
+
+        assertEquals(3, mGateway.getRequestCount(Endpoint.CONFIGURATION));
+    }
+
+    @Test(timeout = 10000)
+    public void isFetchingConfiguration_isTrueOnlyWhileConfigurationIsRequested() throws Exception {
+        mGateway.setLatency(Endpoint.CONFIGURATION, 200);
+        assertFalse(mBraintreeClient.isFetchingConfiguration());
+
+        BraintreeFuture<Configuration> future = mBraintreeClient.fetchConfiguration();
+        assertTrue(mBraintreeClient.isFetchingConfiguration());
+
+        future.get();
+        assertFalse(mBraintreeClient.isFetchingConfiguration());
+    }
+
+    @Test(timeout = 10000)
+    public void sendAnalyticsEvent_waitsForConfigurationWithoutRequestingIt() throws Exception {
+        BraintreeClient client = spy(mBraintreeClient);
+
+        client.sendAnalyticsEvent("event");
+        client.sendAnalyticsEvent("event");
+        assertEquals(0, mGateway.getRequestCount(Endpoint.CONFIGURATION));
+        verify(client, never()).addAnalyticsEvent(any(Configuration.class), any(AnalyticsEvent.class));
+
+        client.fetchConfiguration().get();
+
+        verify(client, times(2)).addAnalyticsEvent(any(Configuration.class), any(AnalyticsEvent.class));
+        assertEquals(1, mGateway.getRequestCount(Endpoint.CONFIGURATION));
+    }
+
+    @Test(timeout = 10000)
+    public void sendAnalyticsEvent_keepsEventsWhenConfigurationRetryLimitIsExceeded() throws Exception {
+        mGateway.enqueueError(Endpoint.CONFIGURATION, 500, 3);
+        BraintreeClient client = spy(mBraintreeClient);
+        client.sendAnalyticsEvent("event");
+        for (int i = 0; i < 4; i++) {
+            try {
+                client.fetchConfiguration().get();
+                fail("Expected ExecutionException");
+            } catch (ExecutionException ignored) {}
+        }
+
+        client.setConfiguration(Configuration.fromJson(stringFromFixture("configuration.json")));
+
+        verify(client).addAnalyticsEvent(any(Configuration.class), any(AnalyticsEvent.class));
+    }
+
+    @Test(timeout = 10000)
+    public void sendAnalyticsEvent_dropsOldestEventsBeyondTheLimit() throws Exception {
+        BraintreeClient client = spy(mBraintreeClient);
+        for (int i = 0; i < 150; i++) {
+            client.sendAnalyticsEvent("event");
+        }
+
+        client.setConfiguration(Configuration.fromJson(stringFromFixture("configuration.json")));
+
+        verify(client, times(100)).addAnalyticsEvent(any(Configuration.class), any(AnalyticsEvent.class));
+    }
+
+    @Test(timeout = 10000)
+    public void tokenize_tokenizesFromABackgroundThread() throws Exception {
+        ExecutorService worker = Executors.newSingleThreadExecutor();
+
+        PaymentMethodNonce nonce = worker.submit(new Callable<PaymentMethodNonce>() {
+            @Override
+            public PaymentMethodNonce call() throws Exception {
+                return mBraintreeClient.tokenize(new CardBuilder()
+                        .cardNumber("4111111111111111")
+                        .expirationDate("12/2030"))
+                        .get();
+            }
+        }).get();
+        worker.shutdown();
+
+        assertTrue(nonce instanceof CardNonce);
+        assertEquals(1, mGateway.getRequestCount(Endpoint.TOKENIZE));
+    }
+
+    @Test(timeout = 10000)
+    public void tokenize_sharesIdenticalInFlightRequests() throws Exception {
+        mGateway.setLatency(Endpoint.TOKENIZE, 200);
+
+        BraintreeFuture<PaymentMethodNonce> first = mBraintreeClient.tokenize(new CardBuilder()
+                .cardNumber("4111111111111111")
+                .expirationDate("12/2030"));
+        BraintreeFuture<PaymentMethodNonce> second = mBraintreeClient.tokenize(new CardBuilder()
+                .cardNumber("4111111111111111")
+                .expirationDate("12/2030"));
+
+        assertEquals(first.get().getNonce(), second.get().getNonce());
+        assertEquals(1, mGateway.getRequestCount(Endpoint.TOKENIZE));
+    }
+
+    @Test(timeout = 10000)
+    public void tokenize_doesNotShareDifferentRequests() throws Exception {
+        mGateway.setLatency(Endpoint.TOKENIZE, 200);
+
+        BraintreeFuture<PaymentMethodNonce> first = mBraintreeClient.tokenize(new CardBuilder()
+                .cardNumber("4111111111111111")
+                .expirationDate("12/2030"));
+        BraintreeFuture<PaymentMethodNonce> second = mBraintreeClient.tokenize(new CardBuilder()
+                .cardNumber("5555555555554444")
+                .expirationDate("12/2030"));
+
+        assertFalse(first.get().getNonce().equals(second.get().getNonce()));
+        assertEquals(2, mGateway.getRequestCount(Endpoint.TOKENIZE));
+    }
+
+    @Test(timeout = 10000)
+    public void tokenize_sharesCompletedRequestsWithinDedupWindow() throws Exception {
+        mBraintreeClient.setTokenizationDedupWindow(60000);
+
+        PaymentMethodNonce first = mBraintreeClient.tokenize(new CardBuilder()
+                .cardNumber("4111111111111111")
+                .expirationDate("12/2030")).get();
+        PaymentMethodNonce second = mBraintreeClient.tokenize(new CardBuilder()
+                .cardNumber("4111111111111111")
+                .expirationDate("12/2030")).get();
+
+        assertEquals(first.getNonce(), second.getNonce());
+        assertEquals(1, mGateway.getRequestCount(Endpoint.TOKENIZE));
+    }
+
+    @Test(timeout = 10000)
+    public void tokenize_doesNotShareFailedRequests() throws Exception {
+        mBraintreeClient.setTokenizationDedupWindow(60000);
+        mGateway.enqueueError(Endpoint.TOKENIZE, 422, 1);
+        CardBuilder cardBuilder = new CardBuilder()
+                .cardNumber("4111111111111111")
+                .expirationDate("12/2030");
+
+        try {
+            mBraintreeClient.tokenize(cardBuilder).get();
+            fail("Expected an ExecutionException");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ErrorWithResponse);
+        }
+
+        assertTrue(mBraintreeClient.tokenize(cardBuilder).get() instanceof CardNonce);
+        assertEquals(2, mGateway.getRequestCount(Endpoint.TOKENIZE));
+    }
+
+    @Test(timeout = 10000)
+    public void tokenize_rejectsInvalidCardsWithoutARequest() throws Exception {
+        CardBuilder cardBuilder = new CardBuilder()
+                .cardNumber("4111111111111112")
+                .expirationDate("12/2030");
+
+        try {
+            mBraintreeClient.tokenize(cardBuilder).get();
+            fail("Expected an ExecutionException");
+        } catch (ExecutionException e) {
+            ErrorWithResponse error = (ErrorWithResponse) e.getCause();
+            assertEquals(422, error.getStatusCode());
+            assertEquals("Credit card number is invalid",
+                    error.errorFor("creditCard").errorFor("number").getMessage());
+        }
+
+        assertEquals(0, mGateway.getRequestCount(Endpoint.TOKENIZE));
+    }
+
+    @Test(timeout = 10000)
+    public void tokenizeAll_returnsResultsInOrder() throws Exception {
+        List<CardBuilder> builders = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            builders.add(new CardBuilder()
+                    .cardNumber("4111111111111111")
+                    .expirationDate("12/2030"));
+        }
+
+        BatchTokenizationResult result = mBraintreeClient.tokenizeAll(builders, 2).get();
+
+        assertEquals(6, result.getItems().size());
+        assertEquals(6, result.getSuccessCount());
+        assertEquals(0, result.getFailureCount());
+        assertEquals(2, result.getMaxConcurrency());
+        for (BatchTokenizationResult.Item item : result.getItems()) {
+            assertTrue(item.getPaymentMethodNonce() instanceof CardNonce);
+        }
+        assertEquals(6, mGateway.getRequestCount(Endpoint.TOKENIZE));
+    }
+
+    @Test(timeout = 10000)
+    public void tokenizeAll_reportsIndividualFailures() throws Exception {
+        mGateway.enqueueError(Endpoint.TOKENIZE, 422, 1);
+        List<CardBuilder> builders = Arrays.asList(
+                new CardBuilder().cardNumber("4111111111111111").expirationDate("12/2030"),
+                new CardBuilder().cardNumber("4111111111111111").expirationDate("12/2030"));
+
+        BatchTokenizationResult result = mBraintreeClient.tokenizeAll(builders, 1).get();
+
+        assertFalse(result.getItems().get(0).isSuccess());
+        assertNull(result.getItems().get(0).getPaymentMethodNonce());
+        assertTrue(result.getItems().get(0).getException() instanceof ErrorWithResponse);
+        assertTrue(result.getItems().get(1).isSuccess());
+        assertEquals(1, result.getPaymentMethodNonces().size());
+    }
+
+    @Test(timeout = 10000)
+    public void tokenizeAll_rejectsInvalidCardsWithoutARequest() throws Exception {
+        List<CardBuilder> builders = Arrays.asList(
+                new CardBuilder().cardNumber("4111111111111112").expirationDate("12/2030"),
+                new CardBuilder().cardNumber("4111111111111112").expirationDate("12/2030"),
+                new CardBuilder().cardNumber("4111111111111111").expirationDate("12/2030"));
+
+        BatchTokenizationResult result = mBraintreeClient.tokenizeAll(builders, 1).get();
+
+        assertTrue(result.getItems().get(0).getException() instanceof ErrorWithResponse);
+        assertTrue(result.getItems().get(1).getException() instanceof ErrorWithResponse);
+        assertTrue(result.getItems().get(2).isSuccess());
+        assertEquals(1, mGateway.getRequestCount(Endpoint.TOKENIZE));
+    }
+
+    @Test(timeout = 10000)
+    public void tokenizeAll_failsEveryItemWhenConfigurationFails() throws Exception {
+        mGateway.enqueueError(Endpoint.CONFIGURATION, 500, 1);
+        List<CardBuilder> builders = Arrays.asList(new CardBuilder(), new CardBuilder());
+
+        BatchTokenizationResult result = mBraintreeClient.tokenizeAll(builders).get();
+
+        assertEquals(2, result.getFailureCount());
+        assertTrue(result.getItems().get(1).getException() instanceof ConfigurationException);
+        assertEquals(0, mGateway.getRequestCount(Endpoint.TOKENIZE));
+    }
+
+    @Test(timeout = 10000)
+    public void tokenize_sendsTheSameAnalyticsEventsAsTheListenerApi() throws Exception {
+        BraintreeClient client = spy(mBraintreeClient);
+
+        client.tokenize(new CardBuilder().cardNumber("4111111111111111").expirationDate("12/2030")).get();
+
+        verify(client, timeout(1000)).sendAnalyticsEvent("card.nonce-received");
+    }
+
+    @Test(timeout = 10000)
+    public void fetchUnionPayCapabilities_sendsTheSameAnalyticsEventsAsTheListenerApi() throws Exception {
+        BraintreeClient client = spy(mBraintreeClient);
+
+        client.fetchUnionPayCapabilities("6212345678901232").get();
+
+        verify(client, timeout(1000)).sendAnalyticsEvent("union-pay.capabilities-received");
+    }
+
+    @Test(timeout = 10000)
+    public void fetchUnionPayCapabilities_returnsCapabilities() throws Exception {
+        UnionPayCapabilities capabilities = mBraintreeClient.fetchUnionPayCapabilities("6212345678901232").get();
+
+        assertTrue(capabilities.isUnionPay());
+        assertEquals(1, mGateway.getRequestCount(Endpoint.UNIONPAY_CAPABILITIES));
+    }
+
+    @Test(timeout = 10000)
+    public void fetchUnionPayCapabilities_cachesCapabilitiesByBin() throws Exception {
+        UnionPayCapabilities first = mBraintreeClient.fetchUnionPayCapabilities("6212345678901232").get();
+        UnionPayCapabilities second = mBraintreeClient.fetchUnionPayCapabilities("6212 3499 9999 9999").get();
+        mBraintreeClient.fetchUnionPayCapabilities("4111111111111111").get();
+
+        assertSame(first, second);
+        assertEquals(2, mGateway.getRequestCount(Endpoint.UNIONPAY_CAPABILITIES));
+    }
+
+    @Test(timeout = 10000)
+    public void fetchUnionPayCapabilities_sharesInFlightRequests() throws Exception {
+        mBraintreeClient.setUnionPayCapabilitiesCacheTtl(0);
+        mGateway.setLatency(Endpoint.UNIONPAY_CAPABILITIES, 200);
+        mBraintreeClient.fetchConfiguration().get();
+
+        BraintreeFuture<UnionPayCapabilities> first = mBraintreeClient.fetchUnionPayCapabilities("621234");
+        BraintreeFuture<UnionPayCapabilities> second = mBraintreeClient.fetchUnionPayCapabilities("6212345");
+
+        assertSame(first.get(), second.get());
+        assertEquals(1, mGateway.getRequestCount(Endpoint.UNIONPAY_CAPABILITIES));
+
+        mBraintreeClient.fetchUnionPayCapabilities("6212345").get();
+        assertEquals(2, mGateway.getRequestCount(Endpoint.UNIONPAY_CAPABILITIES));
+    }
+
+    @Test(timeout = 10000)
+    public void fetchUnionPayCapabilities_doesNotCacheNumbersShorterThanABin() throws Exception {
+        mBraintreeClient.fetchUnionPayCapabilities("62123").get();
+        mBraintreeClient.fetchUnionPayCapabilities("62123").get();
+
+        assertEquals(2, mGateway.getRequestCount(Endpoint.UNIONPAY_CAPABILITIES));
+    }
+
+    @Test(timeout = 10000)
+    public void fetchUnionPayCapabilities_debouncesLookupsForChangingBins() throws Exception {
+        mBraintreeClient.setUnionPayCapabilitiesDebounce(100);
+        mBraintreeClient.fetchConfiguration().get();
+
+        BraintreeFuture<UnionPayCapabilities> first = mBraintreeClient.fetchUnionPayCapabilities("621234");
+        BraintreeFuture<UnionPayCapabilities> second = mBraintreeClient.fetchUnionPayCapabilities("621235");
+
+        assertTrue(second.get().isUnionPay());
+        assertTrue(first.isCancelled());
+        assertEquals(1, mGateway.getRequestCount(Endpoint.UNIONPAY_CAPABILITIES));
+    }
+
+    @Test(timeout = 10000)
+    public void cancelAllRequests_cancelsFuturesWaitingForResponses() throws Exception {
+        mGateway.setLatency(Endpoint.TOKENIZE, 1000);
+        mBraintreeClient.fetchConfiguration().get();
+
+        BraintreeFuture<PaymentMethodNonce> future = mBraintreeClient.tokenize(new CardBuilder()
+                .cardNumber("4111111111111111")
+                .expirationDate("12/2030"));
+        mBraintreeClient.cancelAllRequests();
+
+        assertTrue(future.isCancelled());
+        try {
+            future.get();
+            fail("Expected a CancellationException");
+        } catch (CancellationException ignored) {}
+    }
+
+    private static void assertConfigurationException(String message, BraintreeFuture<Configuration> future)
+            throws InterruptedException {
+        try {
+            future.get();
+            fail("Expected an ExecutionException");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ConfigurationException);
+            assertTrue(e.getCause().getMessage().startsWith(message));
+        }
+    }
+}
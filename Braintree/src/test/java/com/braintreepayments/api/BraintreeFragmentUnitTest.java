@@ -6,6 +6,7 @@ import android.content.Intent;
 import android.net.Uri;
 import android.os.Bundle;
 
+import com.braintreepayments.api.exceptions.ConfigurationException;
 import com.braintreepayments.api.exceptions.ErrorWithResponse;
 import com.braintreepayments.api.exceptions.InvalidArgumentException;
 import com.braintreepayments.api.interfaces.BraintreeCancelListener;
@@ -13,6 +14,7 @@ import com.braintreepayments.api.interfaces.BraintreeErrorListener;
 import com.braintreepayments.api.interfaces.BraintreeResponseListener;
 import com.braintreepayments.api.interfaces.ConfigurationListener;
 import com.braintreepayments.api.interfaces.PaymentMethodNonceCreatedListener;
+import com.braintreepayments.api.interfaces.PaymentMethodNoncesDiffListener;
 import com.braintreepayments.api.interfaces.PaymentMethodNoncesUpdatedListener;
 import com.braintreepayments.api.interfaces.QueuedCallback;
 import com.braintreepayments.api.interfaces.UnionPayListener;
@@ -21,7 +23,9 @@ import com.braintreepayments.api.internal.AnalyticsDatabaseTestUtils;
 import com.braintreepayments.api.internal.AnalyticsIntentService;
 import com.braintreepayments.api.internal.AnalyticsSender;
 import com.braintreepayments.api.internal.BraintreeHttpClient;
+import com.braintreepayments.api.internal.ConfigurationCache;
 import com.braintreepayments.api.internal.HttpClient;
+import com.braintreepayments.api.internal.TraceTimeline;
 import com.braintreepayments.api.models.AndroidPayCardNonce;
 import com.braintreepayments.api.models.Authorization;
 import com.braintreepayments.api.models.BraintreeRequestCodes;
@@ -29,6 +33,7 @@ import com.braintreepayments.api.models.CardNonce;
 import com.braintreepayments.api.models.Configuration;
 import com.braintreepayments.api.models.PayPalAccountNonce;
 import com.braintreepayments.api.models.PaymentMethodNonce;
+import com.braintreepayments.api.models.PaymentMethodNoncesDiff;
 import com.braintreepayments.api.models.UnionPayCapabilities;
 import com.braintreepayments.api.test.FragmentTestActivity;
 import com.braintreepayments.api.test.UnitTestListenerActivity;
@@ -52,8 +57,10 @@ import org.robolectric.RuntimeEnvironment;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static com.braintreepayments.api.internal.AnalyticsDatabaseTestUtils.verifyAnalyticsEvent;
 import static com.braintreepayments.testutils.FixturesHelper.stringFromFixture;
@@ -64,6 +71,8 @@ import static com.braintreepayments.testutils.TestTokenizationKey.TOKENIZATION_K
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertFalse;
 import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
 import static junit.framework.Assert.assertTrue;
 import static junit.framework.Assert.fail;
 import static org.mockito.Matchers.any;
@@ -156,8 +165,8 @@ public class BraintreeFragmentUnitTest {
 
         BraintreeFragment fragment = BraintreeFragment.newInstance(mActivity, TOKENIZATION_KEY);
 
-        verifyStatic(times(2));
-        ConfigurationManager.getConfiguration(eq(fragment), any(ConfigurationListener.class),
+        verifyStatic(times(1));
+        ConfigurationManager.getConfiguration(eq(fragment.getBraintreeClient()), any(ConfigurationListener.class),
                 any(BraintreeResponseListener.class));
     }
 
@@ -169,14 +178,67 @@ public class BraintreeFragmentUnitTest {
         BraintreeFragment fragment = BraintreeFragment.newInstance(mActivity, TOKENIZATION_KEY);
         Bundle bundle = new Bundle();
         fragment.onSaveInstanceState(bundle);
-        setField(BraintreeFragment.class, "mConfiguration", fragment, null);
-        fragment.mHttpClient = null;
+        setField(BraintreeFragment.class, "mBraintreeClient", fragment, null);
 
         fragment.onCreate(bundle);
 
         assertNotNull(fragment.getConfiguration());
-        assertNotNull(fragment.mHttpClient);
-        assertEquals("client_api_url", getField(HttpClient.class, "mBaseUrl", fragment.mHttpClient));
+        assertNotNull(fragment.getHttpClient());
+        assertEquals("client_api_url", getField(HttpClient.class, "mBaseUrl", fragment.getHttpClient()));
+    }
+
+    @Test
+    public void onCreate_recordsStartupTrace() throws InvalidArgumentException {
+        mockConfigurationManager(new TestConfigurationBuilder().buildConfiguration());
+
+        BraintreeFragment fragment = BraintreeFragment.newInstance(mActivity, TOKENIZATION_KEY);
+
+        TraceTimeline trace = fragment.getStartupTrace();
+        for (String section : new String[] { "onCreate", "CrashReporter.setup", "Authorization.unparcel",
+                "AnalyticsDatabase.getInstance", "BraintreeHttpClient.init", "sendAnalyticsEvent",
+                "fetchConfiguration", "firstConfigurationCallback" }) {
+            assertNotNull(section, trace.getSection(section));
+        }
+        assertEquals("onCreate", trace.getSections().get(trace.getSections().size() - 1).getName());
+        assertTrue(trace.getSection("onCreate").getDurationMillis() >=
+                trace.getSection("BraintreeHttpClient.init").getDurationMillis());
+        assertNull(trace.getSection("firstConfigurationError"));
+    }
+
+    @Test
+    public void onCreate_recordsFirstConfigurationErrorInStartupTrace() throws InvalidArgumentException {
+        mockConfigurationManager(new Exception("Configuration error"));
+
+        BraintreeFragment fragment = BraintreeFragment.newInstance(mActivity, TOKENIZATION_KEY);
+
+        assertNotNull(fragment.getStartupTrace().getSection("firstConfigurationError"));
+        assertNull(fragment.getStartupTrace().getSection("firstConfigurationCallback"));
+    }
+
+    @Test
+    public void getConfigurationFuture_completesWithConfiguration() throws Exception {
+        mockConfigurationManager(new TestConfigurationBuilder().buildConfiguration());
+        BraintreeFragment fragment = BraintreeFragment.newInstance(mActivity, TOKENIZATION_KEY);
+
+        BraintreeFuture<Configuration> future = fragment.getConfigurationFuture();
+
+        assertTrue(future.isDone());
+        assertEquals(fragment.getConfiguration(), future.get());
+    }
+
+    @Test
+    public void getConfigurationFuture_failsWhenFetchingConfigurationFails() throws Exception {
+        mockConfigurationManager(new Exception("Configuration error"));
+        BraintreeFragment fragment = BraintreeFragment.newInstance(mActivity, TOKENIZATION_KEY);
+
+        BraintreeFuture<Configuration> future = fragment.getConfigurationFuture();
+
+        try {
+            future.get();
+            fail("Expected an ExecutionException");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ConfigurationException);
+        }
     }
 
     @Test
@@ -190,12 +252,26 @@ public class BraintreeFragmentUnitTest {
         assertEquals(true, getField(BraintreeFragment.class, "mNewActivityNeedsConfiguration", fragment));
     }
 
+    @Test
+    public void warmUpBrowserSwitch_bindsOnceAndIsReleasedOnDestroy()
+            throws InvalidArgumentException, NoSuchFieldException, IllegalAccessException {
+        BraintreeFragment fragment = BraintreeFragment.newInstance(mActivity, TOKENIZATION_KEY);
+        assertEquals(false, getField(BraintreeFragment.class, "mBrowserSwitchWarmedUp", fragment));
+
+        fragment.warmUpBrowserSwitch();
+        fragment.warmUpBrowserSwitch();
+        assertEquals(true, getField(BraintreeFragment.class, "mBrowserSwitchWarmedUp", fragment));
+
+        fragment.onDestroy();
+        assertEquals(false, getField(BraintreeFragment.class, "mBrowserSwitchWarmedUp", fragment));
+    }
+
     @Test
     public void newInstance_setsIntegrationTypeToCustomForAllActivities()
             throws InvalidArgumentException, NoSuchFieldException, IllegalAccessException {
         BraintreeFragment fragment = BraintreeFragment.newInstance(mActivity, TOKENIZATION_KEY);
 
-        assertEquals("custom", getField(BraintreeFragment.class, "mIntegrationType", fragment));
+        assertEquals("custom", fragment.getIntegrationType());
     }
 
     @Test
@@ -245,6 +321,26 @@ public class BraintreeFragmentUnitTest {
         assertEquals(2, calls.get());
     }
 
+    @Test
+    public void setConfigurationErrorListener_receivesAnErrorThatOccurredBeforeItWasSet()
+            throws InvalidArgumentException {
+        final Exception exception = new Exception("Configuration error");
+        mockConfigurationManager(exception);
+        BraintreeFragment fragment = BraintreeFragment.newInstance(mActivity, TOKENIZATION_KEY);
+        final AtomicReference<Exception> error = new AtomicReference<>();
+
+        fragment.setConfigurationErrorListener(new BraintreeResponseListener<Exception>() {
+            @Override
+            public void onResponse(Exception e) {
+                error.set(e);
+            }
+        });
+
+        assertNotNull(error.get());
+        assertEquals("Request for configuration has failed: Configuration error. Future requests will retry up to 3 times",
+                error.get().getMessage());
+    }
+
     @Test
     public void onSaveInstanceState_savesState() throws InvalidArgumentException, JSONException {
         Configuration configuration = new TestConfigurationBuilder().buildConfiguration();
@@ -256,7 +352,25 @@ public class BraintreeFragmentUnitTest {
 
         assertTrue(bundle.getParcelableArrayList(BraintreeFragment.EXTRA_CACHED_PAYMENT_METHOD_NONCES).isEmpty());
         assertFalse(bundle.getBoolean(BraintreeFragment.EXTRA_FETCHED_PAYMENT_METHOD_NONCES));
-        assertEquals(configuration.toJson(), bundle.getString(BraintreeFragment.EXTRA_CONFIGURATION));
+        String configurationKey = bundle.getString(BraintreeFragment.EXTRA_CONFIGURATION_KEY);
+        assertEquals(ConfigurationCache.getKey(fragment.getAuthorization()), configurationKey);
+        assertSame(configuration, ConfigurationCache.get(RuntimeEnvironment.application, configurationKey));
+    }
+
+    @Test
+    public void onSaveInstanceState_savesPaymentMethodNonces() throws InvalidArgumentException, JSONException {
+        BraintreeFragment fragment = BraintreeFragment.newInstance(mActivity, TOKENIZATION_KEY);
+        CardNonce cardNonce = CardNonce.fromJson(stringFromFixture("payment_methods/visa_credit_card_response.json"));
+        fragment.postCallback(cardNonce);
+        Bundle bundle = new Bundle();
+
+        fragment.onSaveInstanceState(bundle);
+        setField(BraintreeFragment.class, "mBraintreeClient", fragment, null);
+        fragment.onCreate(bundle);
+
+        assertEquals(1, bundle.getParcelableArrayList(BraintreeFragment.EXTRA_CACHED_PAYMENT_METHOD_NONCES).size());
+        assertEquals(1, fragment.getCachedPaymentMethodNonces().size());
+        assertEquals(cardNonce.getNonce(), fragment.getCachedPaymentMethodNonces().get(0).getNonce());
     }
 
     @Test
@@ -269,7 +383,7 @@ public class BraintreeFragmentUnitTest {
 
         assertTrue(bundle.getParcelableArrayList(BraintreeFragment.EXTRA_CACHED_PAYMENT_METHOD_NONCES).isEmpty());
         assertFalse(bundle.getBoolean(BraintreeFragment.EXTRA_FETCHED_PAYMENT_METHOD_NONCES));
-        assertFalse(bundle.containsKey(BraintreeFragment.EXTRA_CONFIGURATION));
+        assertFalse(bundle.containsKey(BraintreeFragment.EXTRA_CONFIGURATION_KEY));
     }
 
     @Test
@@ -419,6 +533,57 @@ public class BraintreeFragmentUnitTest {
         assertTrue(mCalled.get());
     }
 
+    @Test
+    public void postCallback_sendsADiffFromVaultCachedPaymentMethodNonces()
+            throws InvalidArgumentException, JSONException {
+        BraintreeFragment fragment = BraintreeFragment.newInstance(mActivity, TOKENIZATION_KEY);
+        final List<PaymentMethodNonce> cachedPaymentMethodNonces = PaymentMethodNonce.parsePaymentMethodNonces(
+                stringFromFixture("payment_methods/get_payment_methods_response.json"));
+        final AtomicReference<PaymentMethodNoncesDiff> diff = new AtomicReference<>();
+        fragment.addListener(new PaymentMethodNoncesDiffListener() {
+            @Override
+            public void onPaymentMethodNoncesUpdated(List<PaymentMethodNonce> paymentMethodNonces) {
+                assertEquals(cachedPaymentMethodNonces, paymentMethodNonces);
+                mCalled.set(true);
+            }
+
+            @Override
+            public void onPaymentMethodNoncesChanged(PaymentMethodNoncesDiff paymentMethodNoncesDiff) {
+                diff.set(paymentMethodNoncesDiff);
+            }
+        });
+
+        fragment.postVaultCacheCallback(cachedPaymentMethodNonces);
+        fragment.postCallback(cachedPaymentMethodNonces.subList(1, 4));
+
+        assertTrue(mCalled.get());
+        assertEquals(1, diff.get().getRemoved().size());
+        assertEquals(3, fragment.getCachedPaymentMethodNonces().size());
+        assertTrue(fragment.hasFetchedPaymentMethodNonces());
+    }
+
+    @Test
+    public void postVaultCacheCallback_isNotSentToListenersThatDoNotAcceptCachedPaymentMethodNonces()
+            throws InvalidArgumentException, JSONException {
+        BraintreeFragment fragment = BraintreeFragment.newInstance(mActivity, TOKENIZATION_KEY);
+        List<PaymentMethodNonce> cachedPaymentMethodNonces = PaymentMethodNonce.parsePaymentMethodNonces(
+                stringFromFixture("payment_methods/get_payment_methods_response.json"));
+        final List<PaymentMethodNonce> fetchedPaymentMethodNonces = cachedPaymentMethodNonces.subList(1, 4);
+        final AtomicInteger calls = new AtomicInteger(0);
+        fragment.addListener(new PaymentMethodNoncesUpdatedListener() {
+            @Override
+            public void onPaymentMethodNoncesUpdated(List<PaymentMethodNonce> paymentMethodNonces) {
+                assertEquals(fetchedPaymentMethodNonces, paymentMethodNonces);
+                calls.getAndIncrement();
+            }
+        });
+
+        fragment.postVaultCacheCallback(cachedPaymentMethodNonces);
+        fragment.postCallback(fetchedPaymentMethodNonces);
+
+        assertEquals(1, calls.get());
+    }
+
     @Test
     public void addListener_flushesCancelCallback() throws InvalidArgumentException {
         BraintreeFragment fragment = BraintreeFragment.newInstance(mActivity, TOKENIZATION_KEY);
@@ -579,7 +744,7 @@ public class BraintreeFragmentUnitTest {
         // Request 2: BraintreeFragment calls #fetchConfiguration in BraintreeFragment#onCreate
         // Request 3: fragment.waitForConfiguration called in this test
         verifyStatic(times(3));
-        ConfigurationManager.getConfiguration(eq(fragment), any(ConfigurationListener.class),
+        ConfigurationManager.getConfiguration(eq(fragment.getBraintreeClient()), any(ConfigurationListener.class),
                 any(BraintreeResponseListener.class));
     }
 
@@ -784,7 +949,8 @@ public class BraintreeFragmentUnitTest {
 
         Intent serviceIntent = intentCaptor.getValue();
         assertEquals(TOKENIZATION_KEY, serviceIntent.getStringExtra(AnalyticsIntentService.EXTRA_AUTHORIZATION));
-        assertEquals(configuration, serviceIntent.getStringExtra(AnalyticsIntentService.EXTRA_CONFIGURATION));
+        String configurationKey = serviceIntent.getStringExtra(AnalyticsIntentService.EXTRA_CONFIGURATION_KEY);
+        assertEquals(configuration, ConfigurationCache.get(RuntimeEnvironment.application, configurationKey).toJson());
     }
 
     @Test
@@ -1002,7 +1168,7 @@ public class BraintreeFragmentUnitTest {
                 return null;
             }
         }).when(ConfigurationManager.class);
-        ConfigurationManager.getConfiguration(any(BraintreeFragment.class), any(ConfigurationListener.class),
+        ConfigurationManager.getConfiguration(any(BraintreeClient.class), any(ConfigurationListener.class),
                 any(BraintreeResponseListener.class));
     }
 
@@ -1017,7 +1183,7 @@ public class BraintreeFragmentUnitTest {
                 return null;
             }
         }).when(ConfigurationManager.class);
-        ConfigurationManager.getConfiguration(any(BraintreeFragment.class), any(ConfigurationListener.class),
+        ConfigurationManager.getConfiguration(any(BraintreeClient.class), any(ConfigurationListener.class),
                 any(BraintreeResponseListener.class));
     }
 }
@@ -0,0 +1,232 @@
+package com.braintreepayments.api;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+@RunWith(RobolectricGradleTestRunner.class)
+public class BraintreeFutureUnitTest {
+
+    @Test
+    public void then_transformsResult() throws Exception {
+        BraintreeFuture<Integer> future = BraintreeFuture.completed(2)
+                .then(new BraintreeFuture.Function<Integer, Integer>() {
+                    @Override
+                    public Integer apply(Integer input) {
+                        return input * 21;
+                    }
+                });
+
+        assertEquals(42, (int) future.get());
+    }
+
+    @Test
+    public void then_failsWhenFunctionThrows() throws InterruptedException {
+        final Exception exception = new Exception("Bad input");
+        BraintreeFuture<Integer> future = BraintreeFuture.completed(2)
+                .then(new BraintreeFuture.Function<Integer, Integer>() {
+                    @Override
+                    public Integer apply(Integer input) throws Exception {
+                        throw exception;
+                    }
+                });
+
+        try {
+            future.get();
+            fail("Expected an ExecutionException");
+        } catch (ExecutionException e) {
+            assertSame(exception, e.getCause());
+        }
+    }
+
+    @Test
+    public void thenAsync_completesWithInnerFuture() throws Exception {
+        final BraintreeFuture<String> inner = new BraintreeFuture<>();
+        BraintreeFuture<String> future = BraintreeFuture.completed("nonce")
+                .thenAsync(new BraintreeFuture.AsyncFunction<String, String>() {
+                    @Override
+                    public BraintreeFuture<String> apply(String input) {
+                        return inner;
+                    }
+                });
+
+        assertFalse(future.isDone());
+
+        inner.complete("lookup");
+
+        assertEquals("lookup", future.get());
+    }
+
+    @Test
+    public void thenAsync_skipsFunctionWhenUpstreamFails() {
+        final AtomicReference<Boolean> called = new AtomicReference<>(false);
+        BraintreeFuture<String> future = BraintreeFuture.<String>failed(new Exception("Error"))
+                .thenAsync(new BraintreeFuture.AsyncFunction<String, String>() {
+                    @Override
+                    public BraintreeFuture<String> apply(String input) {
+                        called.set(true);
+                        return BraintreeFuture.completed(input);
+                    }
+                });
+
+        assertTrue(future.isDone());
+        assertFalse(called.get());
+    }
+
+    @Test
+    public void cancel_propagatesToInnerFuture() {
+        final BraintreeFuture<String> inner = new BraintreeFuture<>();
+        BraintreeFuture<String> future = BraintreeFuture.completed("nonce")
+                .thenAsync(new BraintreeFuture.AsyncFunction<String, String>() {
+                    @Override
+                    public BraintreeFuture<String> apply(String input) {
+                        return inner;
+                    }
+                });
+
+        assertTrue(future.cancel());
+
+        assertTrue(future.isCancelled());
+        assertTrue(inner.isCancelled());
+    }
+
+    @Test
+    public void cancel_doesNotCancelUpstreamSharedWithAnotherDerivedFuture() throws Exception {
+        BraintreeFuture<String> upstream = new BraintreeFuture<>();
+        BraintreeFuture<String> first = upstream.then(new BraintreeFuture.Function<String, String>() {
+            @Override
+            public String apply(String input) {
+                return input;
+            }
+        });
+        BraintreeFuture<String> second = upstream.timeout(1, TimeUnit.SECONDS);
+
+        assertTrue(first.cancel());
+
+        assertFalse(upstream.isCancelled());
+        upstream.complete("nonce");
+        assertEquals("nonce", second.get());
+    }
+
+    @Test
+    public void cancel_cancelsUpstreamWhenEveryDerivedFutureIsCancelled() {
+        BraintreeFuture<String> upstream = new BraintreeFuture<>();
+        BraintreeFuture<String> first = upstream.timeout(1, TimeUnit.SECONDS);
+        BraintreeFuture<String> second = upstream.timeout(1, TimeUnit.SECONDS);
+
+        first.cancel();
+        assertFalse(upstream.isCancelled());
+        second.cancel();
+
+        assertTrue(upstream.isCancelled());
+    }
+
+    @Test
+    public void cancel_returnsFalseWhenAlreadyCompleted() {
+        BraintreeFuture<String> future = BraintreeFuture.completed("nonce");
+
+        assertFalse(future.cancel());
+        assertFalse(future.isCancelled());
+    }
+
+    @Test(expected = CancellationException.class)
+    public void get_throwsCancellationExceptionWhenCancelled() throws Exception {
+        BraintreeFuture<String> future = new BraintreeFuture<>();
+        future.cancel();
+
+        future.get();
+    }
+
+    @Test
+    public void timeout_failsAndCancelsUpstream() throws InterruptedException {
+        BraintreeFuture<String> upstream = new BraintreeFuture<>();
+        BraintreeFuture<String> future = upstream.timeout(10, TimeUnit.MILLISECONDS);
+
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("Expected an ExecutionException");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        } catch (TimeoutException e) {
+            fail("Timeout was not applied");
+        }
+
+        assertTrue(upstream.isCancelled());
+    }
+
+    @Test
+    public void timeout_passesThroughResultWhenInTime() throws Exception {
+        BraintreeFuture<String> future = BraintreeFuture.completed("nonce").timeout(1, TimeUnit.SECONDS);
+
+        assertEquals("nonce", future.get());
+    }
+
+    @Test
+    public void all_combinesResultsInOrder() throws Exception {
+        BraintreeFuture<String> first = new BraintreeFuture<>();
+        BraintreeFuture<String> second = new BraintreeFuture<>();
+        BraintreeFuture<List<String>> all = BraintreeFuture.all(Arrays.asList(first, second));
+
+        second.complete("second");
+        assertFalse(all.isDone());
+        first.complete("first");
+
+        assertEquals(Arrays.asList("first", "second"), all.get());
+    }
+
+    @Test
+    public void all_failsAndCancelsRemainingFuturesOnFailure() {
+        BraintreeFuture<String> first = new BraintreeFuture<>();
+        BraintreeFuture<String> second = new BraintreeFuture<>();
+        BraintreeFuture<List<String>> all = BraintreeFuture.all(Arrays.asList(first, second));
+
+        first.fail(new Exception("Error"));
+
+        assertTrue(all.isDone());
+        assertTrue(second.isCancelled());
+    }
+
+    @Test
+    public void addCallback_runsOnExecutor() {
+        final List<Runnable> posted = new ArrayList<>();
+        final AtomicReference<String> result = new AtomicReference<>();
+        BraintreeFuture<String> future = new BraintreeFuture<>();
+        future.addCallback(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                posted.add(command);
+            }
+        }, new BraintreeFuture.Callback<String>() {
+            @Override
+            public void onSuccess(String value) {
+                result.set(value);
+            }
+
+            @Override
+            public void onFailure(Exception exception) {}
+        });
+
+        future.complete("nonce");
+        assertEquals(1, posted.size());
+        assertEquals(null, result.get());
+
+        posted.get(0).run();
+        assertEquals("nonce", result.get());
+    }
+}
@@ -0,0 +1,105 @@
+package com.braintreepayments.api;
+
+import com.braintreepayments.api.interfaces.BraintreeErrorListener;
+import com.braintreepayments.api.interfaces.ConfigurationListener;
+import com.braintreepayments.api.interfaces.QueuedCallback;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static junit.framework.Assert.assertEquals;
+
+@RunWith(RobolectricGradleTestRunner.class)
+public class CallbackQueueUnitTest {
+
+    @Test
+    public void drain_onlyRunsCallbacksWaitingForTheGivenTypes() {
+        CallbackQueue queue = new CallbackQueue();
+        List<String> runs = new ArrayList<>();
+        queue.add(ConfigurationListener.class, new RecordingCallback(runs, "configuration", true));
+        queue.add(BraintreeErrorListener.class, new RecordingCallback(runs, "error", true));
+
+        queue.drain(Collections.<Class<?>>singletonList(BraintreeErrorListener.class));
+
+        assertEquals(Collections.singletonList("error"), runs);
+        assertEquals(1, queue.size());
+    }
+
+    @Test
+    public void drain_alwaysRunsUntypedCallbacks() {
+        CallbackQueue queue = new CallbackQueue();
+        List<String> runs = new ArrayList<>();
+        queue.add(new RecordingCallback(runs, "untyped", true));
+
+        queue.drain(Collections.<Class<?>>singletonList(BraintreeErrorListener.class));
+
+        assertEquals(Collections.singletonList("untyped"), runs);
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void drain_keepsCallbacksThatCannotRun() {
+        CallbackQueue queue = new CallbackQueue();
+        List<String> runs = new ArrayList<>();
+        AtomicBoolean shouldRun = new AtomicBoolean(false);
+        queue.add(ConfigurationListener.class, new RecordingCallback(runs, "first", shouldRun));
+        queue.add(ConfigurationListener.class, new RecordingCallback(runs, "second", shouldRun));
+
+        queue.drain(Collections.<Class<?>>singletonList(ConfigurationListener.class));
+        assertEquals(0, runs.size());
+        assertEquals(2, queue.size());
+
+        shouldRun.set(true);
+        queue.drain(Collections.<Class<?>>singletonList(ConfigurationListener.class));
+        assertEquals(Arrays.asList("first", "second"), runs);
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void drainAll_runsCallbacksInTheOrderTheyWereQueued() {
+        CallbackQueue queue = new CallbackQueue();
+        List<String> runs = new ArrayList<>();
+        queue.add(ConfigurationListener.class, new RecordingCallback(runs, "first", true));
+        queue.add(BraintreeErrorListener.class, new RecordingCallback(runs, "second", true));
+        queue.add(new RecordingCallback(runs, "third", true));
+        queue.add(ConfigurationListener.class, new RecordingCallback(runs, "fourth", true));
+
+        queue.drainAll();
+
+        assertEquals(Arrays.asList("first", "second", "third", "fourth"), runs);
+    }
+
+    private static class RecordingCallback implements QueuedCallback {
+
+        private final List<String> mRuns;
+        private final String mName;
+        private final AtomicBoolean mShouldRun;
+
+        RecordingCallback(List<String> runs, String name, boolean shouldRun) {
+            this(runs, name, new AtomicBoolean(shouldRun));
+        }
+
+        RecordingCallback(List<String> runs, String name, AtomicBoolean shouldRun) {
+            mRuns = runs;
+            mName = name;
+            mShouldRun = shouldRun;
+        }
+
+        @Override
+        public boolean shouldRun() {
+            return mShouldRun.get();
+        }
+
+        @Override
+        public void run() {
+            mRuns.add(mName);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.braintreepayments.api;
+
+import com.braintreepayments.api.CardValidator.CardBrand;
+import com.braintreepayments.api.exceptions.ErrorWithResponse;
+import com.braintreepayments.api.models.CardConfiguration;
+import com.braintreepayments.api.models.Configuration;
+
+import org.json.JSONException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+
+import static com.braintreepayments.testutils.CardNumber.AMEX;
+import static com.braintreepayments.testutils.CardNumber.UNIONPAY_CREDIT;
+import static com.braintreepayments.testutils.CardNumber.VISA;
+import static com.braintreepayments.testutils.FixturesHelper.stringFromFixture;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+@RunWith(RobolectricGradleTestRunner.class)
+public class CardValidatorUnitTest {
+
+    @Test
+    public void getBrand_detectsBrandsFromPrefixes() {
+        assertEquals(CardBrand.VISA, CardValidator.getBrand("4111111111111111"));
+        assertEquals(CardBrand.MASTERCARD, CardValidator.getBrand("5555555555554444"));
+        assertEquals(CardBrand.MASTERCARD, CardValidator.getBrand("2221000000000009"));
+        assertEquals(CardBrand.MASTERCARD, CardValidator.getBrand("2720990000000000"));
+        assertEquals(CardBrand.AMEX, CardValidator.getBrand("378282246310005"));
+        assertEquals(CardBrand.AMEX, CardValidator.getBrand("34"));
+        assertEquals(CardBrand.DISCOVER, CardValidator.getBrand("6011111111111117"));
+        assertEquals(CardBrand.JCB, CardValidator.getBrand("3530111333300000"));
+        assertEquals(CardBrand.DINERS_CLUB, CardValidator.getBrand("30569309025904"));
+        assertEquals(CardBrand.MAESTRO, CardValidator.getBrand("6304000000000000"));
+        assertEquals(CardBrand.UNIONPAY, CardValidator.getBrand(UNIONPAY_CREDIT));
+    }
+
+    @Test
+    public void getBrand_usesTheLongestMatchingPrefix() {
+        assertNull(CardValidator.getBrand("6"));
+        assertEquals(CardBrand.DISCOVER, CardValidator.getBrand("6011"));
+        assertEquals(CardBrand.MAESTRO, CardValidator.getBrand("6759"));
+    }
+
+    @Test
+    public void getBrand_excludesNumbersOutsideRanges() {
+        assertNull(CardValidator.getBrand("2220000000000000"));
+        assertNull(CardValidator.getBrand("2721000000000000"));
+        assertNull(CardValidator.getBrand("3527000000000000"));
+        assertNull(CardValidator.getBrand("not-a-number"));
+        assertNull(CardValidator.getBrand(null));
+    }
+
+    @Test
+    public void getBrand_ignoresSeparators() {
+        assertEquals(CardBrand.MASTERCARD, CardValidator.getBrand("2 2 2 1-0000"));
+    }
+
+    @Test
+    public void isLuhnValid() {
+        assertTrue(CardValidator.isLuhnValid(VISA));
+        assertTrue(CardValidator.isLuhnValid("4111 1111 1111 1111"));
+        assertTrue(CardValidator.isLuhnValid("4111-1111-1111-1111"));
+        assertFalse(CardValidator.isLuhnValid("4111111111111112"));
+        assertFalse(CardValidator.isLuhnValid("4111a11111111111"));
+        assertFalse(CardValidator.isLuhnValid(""));
+        assertFalse(CardValidator.isLuhnValid(null));
+    }
+
+    @Test
+    public void validate_returnsValidForValidCards() {
+        assertEquals(CardValidator.VALID, CardValidator.validate(VISA, "123", null));
+        assertEquals(CardValidator.VALID, CardValidator.validate(AMEX, "1234", null));
+        assertEquals(CardValidator.VALID, CardValidator.validate("4111 1111 1111 1111", null, null));
+    }
+
+    @Test
+    public void validate_returnsInvalidNumberForLuhnFailures() {
+        assertEquals(CardValidator.INVALID_NUMBER, CardValidator.validate("4111111111111112", null, null));
+    }
+
+    @Test
+    public void validate_returnsInvalidNumberForNonDigits() {
+        assertEquals(CardValidator.INVALID_NUMBER, CardValidator.validate("4111x11111111111", null, null));
+    }
+
+    @Test
+    public void validate_returnsInvalidLengthForBrand() {
+        assertEquals(CardValidator.INVALID_LENGTH, CardValidator.validate("41111111111111", null, null));
+        assertEquals(CardValidator.INVALID_LENGTH, CardValidator.validate("3782822463100050", null, null));
+    }
+
+    @Test
+    public void validate_returnsInvalidCvvForBrand() {
+        assertEquals(CardValidator.INVALID_CVV, CardValidator.validate(VISA, "1234", null));
+        assertEquals(CardValidator.INVALID_CVV, CardValidator.validate(AMEX, "123", null));
+        assertEquals(CardValidator.INVALID_CVV, CardValidator.validate(VISA, "12a", null));
+    }
+
+    @Test
+    public void validate_combinesErrors() {
+        assertEquals(CardValidator.INVALID_NUMBER | CardValidator.INVALID_CVV,
+                CardValidator.validate("4111111111111112", "12", null));
+    }
+
+    @Test
+    public void validate_doesNotLuhnCheckUnionPay() {
+        assertEquals(CardValidator.VALID, CardValidator.validate("6212345678901234", "123", null));
+    }
+
+    @Test
+    public void validate_validatesUnknownBrandsLeniently() {
+        assertEquals(CardValidator.VALID, CardValidator.validate("9000000000000001", "1234", null));
+        assertEquals(CardValidator.INVALID_NUMBER, CardValidator.validate("9000000000000009", null, null));
+        assertEquals(CardValidator.INVALID_LENGTH, CardValidator.validate("90000000", null, null));
+        assertEquals(CardValidator.INVALID_CVV, CardValidator.validate("9000000000000001", "12", null));
+    }
+
+    @Test
+    public void validate_returnsUnsupportedCardTypeForUnsupportedBrands() throws JSONException {
+        CardConfiguration cardConfiguration = Configuration.fromJson(
+                stringFromFixture("configuration_with_supported_card_types.json")).getCardConfiguration();
+
+        assertEquals(CardValidator.VALID, CardValidator.validate(VISA, null, cardConfiguration));
+        assertEquals(CardValidator.UNSUPPORTED_CARD_TYPE,
+                CardValidator.validate(UNIONPAY_CREDIT, null, cardConfiguration));
+    }
+
+    @Test
+    public void validate_acceptsCoBrandedCardsWhenBrandChecksAreNotRequested() {
+        assertEquals(CardBrand.MAESTRO, CardValidator.getBrand("6759649826438453"));
+        assertEquals(CardValidator.VALID, CardValidator.validate("6759649826438453", "123", null));
+        assertEquals(CardBrand.UNIONPAY, CardValidator.getBrand(UNIONPAY_CREDIT));
+        assertEquals(CardValidator.VALID, CardValidator.validate(UNIONPAY_CREDIT, "123", null));
+    }
+
+    @Test
+    public void toErrorWithResponse_returnsGatewayShapedErrors() {
+        ErrorWithResponse error = CardValidator.toErrorWithResponse(CardValidator.INVALID_NUMBER |
+                CardValidator.INVALID_CVV);
+
+        assertEquals(422, error.getStatusCode());
+        assertEquals("Credit card is invalid", error.getMessage());
+        assertEquals(2, error.errorFor("creditCard").getFieldErrors().size());
+        assertEquals("Credit card number is invalid", error.errorFor("creditCard").errorFor("number").getMessage());
+        assertTrue(error.errorFor("creditCard").errorFor("cvv").getMessage().startsWith("CVV must be"));
+    }
+}
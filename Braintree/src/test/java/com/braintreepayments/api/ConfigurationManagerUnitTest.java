@@ -1,7 +1,6 @@
 package com.braintreepayments.api;
 
 import android.net.Uri;
-import android.os.SystemClock;
 import android.util.Base64;
 
 import com.braintreepayments.api.exceptions.InvalidArgumentException;
@@ -28,7 +27,6 @@ import static com.braintreepayments.testutils.SharedPreferencesHelper.clearShare
 import static com.braintreepayments.testutils.SharedPreferencesHelper.getSharedPreferences;
 import static com.braintreepayments.testutils.SharedPreferencesHelper.writeMockConfiguration;
 import static junit.framework.Assert.assertEquals;
-import static junit.framework.Assert.assertFalse;
 import static junit.framework.Assert.assertTrue;
 import static junit.framework.Assert.fail;
 import static org.mockito.Mockito.mock;
@@ -39,97 +37,19 @@ public class ConfigurationManagerUnitTest {
 
     private Authorization mTokenizationKey;
     private CountDownLatch mCountDownLatch;
-    private BraintreeFragment mBraintreeFragment;
+    private BraintreeClient mBraintreeClient;
 
     @Before
     public void setup() throws InvalidArgumentException {
         clearSharedPreferences(RuntimeEnvironment.application);
-        ConfigurationManager.sFetchingConfiguration = false;
         mTokenizationKey = Authorization.fromString(TestTokenizationKey.TOKENIZATION_KEY);
 
         mCountDownLatch = new CountDownLatch(1);
 
-        mBraintreeFragment = mock(BraintreeFragment.class);
-        when(mBraintreeFragment.getAuthorization()).thenReturn(mTokenizationKey);
-        when(mBraintreeFragment.getApplicationContext()).thenReturn(RuntimeEnvironment.application);
-        when(mBraintreeFragment.getHttpClient()).thenReturn(new BraintreeHttpClient(mTokenizationKey));
-    }
-
-    @Test
-    public void isFetchingConfiguration_isFalseWhenNotFetchingConfiguration() {
-        assertFalse(ConfigurationManager.isFetchingConfiguration());
-    }
-
-    @Test
-    public void isFetchingConfiguration_isTrueWhenFetchingConfiguration() throws InterruptedException {
-        when(mBraintreeFragment.getHttpClient()).thenReturn(new BraintreeHttpClient(mTokenizationKey) {
-            @Override
-            public void get(String path, HttpResponseCallback callback) {
-                mThreadPool.submit(new Runnable() {
-                    @Override
-                    public void run() {
-                        SystemClock.sleep(1000);
-                    }
-                });
-            }
-        });
-
-        ConfigurationManager.getConfiguration(mBraintreeFragment, new ConfigurationListener() {
-            @Override
-            public void onConfigurationFetched(Configuration configuration) {}
-        }, new BraintreeResponseListener<Exception>() {
-            @Override
-            public void onResponse(Exception e) {}
-        });
-
-        assertTrue(ConfigurationManager.isFetchingConfiguration());
-    }
-
-    @Test(timeout = 1000)
-    public void isFetchingConfiguration_isFalseInSuccessCallback() throws InterruptedException {
-        stubConfigurationFromGateway(stringFromFixture("configuration_with_analytics.json"));
-
-        ConfigurationManager.getConfiguration(mBraintreeFragment, new ConfigurationListener() {
-            @Override
-            public void onConfigurationFetched(Configuration configuration) {
-                assertFalse(ConfigurationManager.isFetchingConfiguration());
-                mCountDownLatch.countDown();
-            }
-        }, new BraintreeResponseListener<Exception>() {
-            @Override
-            public void onResponse(Exception e) {
-                fail(e.getMessage());
-            }
-        });
-
-        mCountDownLatch.await();
-    }
-
-    @Test(timeout = 1000)
-    public void isFetchingConfiguration_isFalseInErrorCallback() throws InterruptedException {
-        when(mBraintreeFragment.getHttpClient()).thenReturn(new BraintreeHttpClient(mTokenizationKey) {
-            @Override
-            public void get(String path, HttpResponseCallback callback) {
-                if (path.contains(mTokenizationKey.getConfigUrl())) {
-                    callback.failure(new UnexpectedException("Something bad happened"));
-                }
-            }
-        });
-
-        ConfigurationManager.getConfiguration(mBraintreeFragment, new ConfigurationListener() {
-            @Override
-            public void onConfigurationFetched(Configuration configuration) {
-                fail("Success listener should not have been called for bad request");
-            }
-        }, new BraintreeResponseListener<Exception>() {
-            @Override
-            public void onResponse(Exception e) {
-                assertFalse(ConfigurationManager.isFetchingConfiguration());
-                mCountDownLatch.countDown();
-            }
-        });
-
-        mCountDownLatch.await();
+        mBraintreeClient = mock(BraintreeClient.class);
+        when(mBraintreeClient.getAuthorization()).thenReturn(mTokenizationKey);
+        when(mBraintreeClient.getApplicationContext()).thenReturn(RuntimeEnvironment.application);
+        when(mBraintreeClient.getHttpClient()).thenReturn(new BraintreeHttpClient(mTokenizationKey));
     }
 
     @Test(timeout = 1000)
@@ -137,7 +57,7 @@ public class ConfigurationManagerUnitTest {
         writeMockConfiguration(RuntimeEnvironment.application, mTokenizationKey.getConfigUrl(),
                 mTokenizationKey.toString(), stringFromFixture("configuration.json"), System.currentTimeMillis());
 
-        ConfigurationManager.getConfiguration(mBraintreeFragment, new ConfigurationListener() {
+        ConfigurationManager.getConfiguration(mBraintreeClient, new ConfigurationListener() {
             @Override
             public void onConfigurationFetched(Configuration configuration) {
                 assertEquals(stringFromFixture("configuration.json"), configuration.toJson());
@@ -160,7 +80,7 @@ public class ConfigurationManagerUnitTest {
                 System.currentTimeMillis() - (ConfigurationManager.TTL + 1));
         stubConfigurationFromGateway(stringFromFixture("configuration_with_analytics.json"));
 
-        ConfigurationManager.getConfiguration(mBraintreeFragment, new ConfigurationListener() {
+        ConfigurationManager.getConfiguration(mBraintreeClient, new ConfigurationListener() {
             @Override
             public void onConfigurationFetched(Configuration configuration) {
                 assertEquals(stringFromFixture("configuration_with_analytics.json"),
@@ -181,7 +101,7 @@ public class ConfigurationManagerUnitTest {
     public void getConfiguration_fetchesConfigFromGatewayWhenCacheIsEmpty() throws InterruptedException {
         stubConfigurationFromGateway(stringFromFixture("configuration_with_analytics.json"));
 
-        ConfigurationManager.getConfiguration(mBraintreeFragment, new ConfigurationListener() {
+        ConfigurationManager.getConfiguration(mBraintreeClient, new ConfigurationListener() {
             @Override
             public void onConfigurationFetched(Configuration configuration) {
                 assertEquals(stringFromFixture("configuration_with_analytics.json"),
@@ -205,7 +125,7 @@ public class ConfigurationManagerUnitTest {
                 mTokenizationKey.toString(), "not a config");
         stubConfigurationFromGateway(stringFromFixture("configuration.json"));
 
-        ConfigurationManager.getConfiguration(mBraintreeFragment, new ConfigurationListener() {
+        ConfigurationManager.getConfiguration(mBraintreeClient, new ConfigurationListener() {
             @Override
             public void onConfigurationFetched(Configuration configuration) {
                 assertEquals(stringFromFixture("configuration.json"), configuration.toJson());
@@ -226,12 +146,12 @@ public class ConfigurationManagerUnitTest {
             throws InvalidArgumentException, InterruptedException {
         ClientToken clientToken = (ClientToken) Authorization.fromString(
                 stringFromFixture("client_token_with_authorization_fingerprint_options.json"));
-        when(mBraintreeFragment.getAuthorization()).thenReturn(clientToken);
+        when(mBraintreeClient.getAuthorization()).thenReturn(clientToken);
         writeMockConfiguration(RuntimeEnvironment.application, clientToken.getConfigUrl(),
                 clientToken.getAuthorizationFingerprint(), stringFromFixture("configuration.json"),
                 System.currentTimeMillis());
 
-        ConfigurationManager.getConfiguration(mBraintreeFragment, new ConfigurationListener() {
+        ConfigurationManager.getConfiguration(mBraintreeClient, new ConfigurationListener() {
             @Override
             public void onConfigurationFetched(Configuration configuration) {
                 assertEquals(stringFromFixture("configuration.json"), configuration.toJson());
@@ -251,7 +171,7 @@ public class ConfigurationManagerUnitTest {
     public void getConfiguration_writesConfigToDiskWithValidTimestampAfterFetch() throws InterruptedException {
         stubConfigurationFromGateway(stringFromFixture("configuration.json"));
 
-        ConfigurationManager.getConfiguration(mBraintreeFragment, new ConfigurationListener() {
+        ConfigurationManager.getConfiguration(mBraintreeClient, new ConfigurationListener() {
             @Override
             public void onConfigurationFetched(Configuration configuration) {
                 String key = Base64.encodeToString(
@@ -290,9 +210,9 @@ public class ConfigurationManagerUnitTest {
                 }
             }
         };
-        when(mBraintreeFragment.getHttpClient()).thenReturn(fakeClient);
+        when(mBraintreeClient.getHttpClient()).thenReturn(fakeClient);
 
-        ConfigurationManager.getConfiguration(mBraintreeFragment, new ConfigurationListener() {
+        ConfigurationManager.getConfiguration(mBraintreeClient, new ConfigurationListener() {
             @Override
             public void onConfigurationFetched(Configuration configuration) {
                 fail("Success listener should not have been called for bad request");
@@ -309,15 +229,25 @@ public class ConfigurationManagerUnitTest {
         mCountDownLatch.await();
     }
 
+    @Test(timeout = 1000)
+    public void getConfiguration_completesFutureWithConfigFromGateway() throws Exception {
+        stubConfigurationFromGateway(stringFromFixture("configuration_with_analytics.json"));
+
+        BraintreeFuture<Configuration> future = ConfigurationManager.getConfiguration(RuntimeEnvironment.application,
+                mTokenizationKey, mBraintreeClient.getHttpClient());
+
+        assertEquals(stringFromFixture("configuration_with_analytics.json"), future.get().toJson());
+    }
+
     private void stubConfigurationFromGateway(final String responseString) {
-        BraintreeHttpClient fakeClient = new BraintreeHttpClient(mBraintreeFragment.getAuthorization()) {
+        BraintreeHttpClient fakeClient = new BraintreeHttpClient(mBraintreeClient.getAuthorization()) {
             @Override
             public void get(String path, HttpResponseCallback callback) {
-                if (path.contains(mBraintreeFragment.getAuthorization().getConfigUrl())) {
+                if (path.contains(mBraintreeClient.getAuthorization().getConfigUrl())) {
                     callback.success(responseString);
                 }
             }
         };
-        when(mBraintreeFragment.getHttpClient()).thenReturn(fakeClient);
+        when(mBraintreeClient.getHttpClient()).thenReturn(fakeClient);
     }
 }
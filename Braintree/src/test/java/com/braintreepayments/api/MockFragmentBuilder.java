@@ -5,6 +5,7 @@ import android.content.Context;
 import com.braintreepayments.api.interfaces.ConfigurationListener;
 import com.braintreepayments.api.interfaces.HttpResponseCallback;
 import com.braintreepayments.api.internal.BraintreeHttpClient;
+import com.braintreepayments.api.internal.JsonRequestBody;
 import com.braintreepayments.api.models.Authorization;
 import com.braintreepayments.api.models.Configuration;
 import com.braintreepayments.testutils.TestConfigurationBuilder;
@@ -86,6 +87,13 @@ public class MockFragmentBuilder {
             }
         }).when(fragment).waitForConfiguration(any(ConfigurationListener.class));
         when(fragment.getConfiguration()).thenReturn(mConfiguration);
+        Answer<BraintreeFuture<Configuration>> configurationFuture = new Answer<BraintreeFuture<Configuration>>() {
+            @Override
+            public BraintreeFuture<Configuration> answer(InvocationOnMock invocation) throws Throwable {
+                return BraintreeFuture.completed(mConfiguration);
+            }
+        };
+        when(fragment.getConfigurationFuture()).thenAnswer(configurationFuture);
 
         BraintreeHttpClient httpClient = mock(BraintreeHttpClient.class);
         if (mSuccessResponse != null) {
@@ -96,40 +104,58 @@ public class MockFragmentBuilder {
 
         when(fragment.getHttpClient()).thenReturn(httpClient);
 
+        BraintreeClient braintreeClient = mock(BraintreeClient.class);
+        when(braintreeClient.getApplicationContext()).thenReturn(mContext);
+        when(braintreeClient.getAuthorization()).thenReturn(mAuthorization);
+        when(braintreeClient.getSessionId()).thenReturn(mSessionId);
+        when(braintreeClient.getConfiguration()).thenReturn(mConfiguration);
+        when(braintreeClient.fetchConfiguration()).thenAnswer(configurationFuture);
+        when(braintreeClient.getHttpClient()).thenReturn(httpClient);
+        when(braintreeClient.getTokenizationDeduplicator()).thenReturn(new TokenizationDeduplicator());
+        when(braintreeClient.getUnionPayCapabilitiesCache()).thenReturn(new UnionPayCapabilitiesCache());
+        when(fragment.getBraintreeClient()).thenReturn(braintreeClient);
+
         return fragment;
     }
 
     private void setupSuccessResponses(BraintreeHttpClient httpClient) {
-        doAnswer(new Answer() {
+        stubResponses(httpClient, new Answer() {
             @Override
             public Object answer(InvocationOnMock invocation) throws Throwable {
                 ((HttpResponseCallback) invocation.getArguments()[1]).success(mSuccessResponse);
                 return null;
             }
-        }).when(httpClient).get(any(String.class), any(HttpResponseCallback.class));
-        doAnswer(new Answer() {
+        }, new Answer() {
             @Override
             public Object answer(InvocationOnMock invocation) throws Throwable {
                 ((HttpResponseCallback) invocation.getArguments()[2]).success(mSuccessResponse);
                 return null;
             }
-        }).when(httpClient).post(anyString(), anyString(), any(HttpResponseCallback.class));
+        });
     }
 
     private void setupErrorResponses(BraintreeHttpClient httpClient) {
-        doAnswer(new Answer() {
+        stubResponses(httpClient, new Answer() {
             @Override
             public Object answer(InvocationOnMock invocation) throws Throwable {
                 ((HttpResponseCallback) invocation.getArguments()[1]).failure(mErrorResponse);
                 return null;
             }
-        }).when(httpClient).get(any(String.class), any(HttpResponseCallback.class));
-        doAnswer(new Answer() {
+        }, new Answer() {
             @Override
             public Object answer(InvocationOnMock invocation) throws Throwable {
                 ((HttpResponseCallback) invocation.getArguments()[2]).failure(mErrorResponse);
                 return null;
             }
-        }).when(httpClient).post(anyString(), anyString(), any(HttpResponseCallback.class));
+        });
+    }
+
+    private static void stubResponses(BraintreeHttpClient httpClient, Answer getAnswer, Answer postAnswer) {
+        doAnswer(getAnswer).when(httpClient).get(any(String.class), any(HttpResponseCallback.class));
+        doAnswer(getAnswer).when(httpClient).startGet(any(String.class), any(HttpResponseCallback.class));
+        doAnswer(postAnswer).when(httpClient).post(anyString(), anyString(), any(HttpResponseCallback.class));
+        doAnswer(postAnswer).when(httpClient).startPost(anyString(), anyString(), any(HttpResponseCallback.class));
+        doAnswer(postAnswer).when(httpClient)
+                .startPost(anyString(), any(JsonRequestBody.class), any(HttpResponseCallback.class));
     }
 }
@@ -0,0 +1,122 @@
+package com.braintreepayments.api;
+
+import android.content.SharedPreferences;
+
+import com.braintreepayments.api.internal.BraintreeSharedPreferences;
+import com.braintreepayments.api.models.PayPalRequest;
+import com.braintreepayments.api.models.PostalAddress;
+import com.paypal.android.sdk.onetouch.core.BillingAgreementRequest;
+import com.paypal.android.sdk.onetouch.core.Request;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.Arrays;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+@RunWith(RobolectricGradleTestRunner.class)
+public class PayPalRequestJournalUnitTest {
+
+    @Before
+    public void setup() {
+        PayPalRequestJournal.sLegacyKeysRemoved = false;
+    }
+
+    @Test
+    public void takePayPalRequest_returnsThePutRequestOnce() {
+        PayPalRequest request = new PayPalRequest("1.00")
+                .currencyCode("USD")
+                .localeCode("en_US")
+                .billingAgreementDescription("description")
+                .shippingAddressRequired(true)
+                .shippingAddressOverride(new PostalAddress()
+                        .recipientName("recipient")
+                        .streetAddress("123 Fake St")
+                        .locality("Chicago")
+                        .countryCodeAlpha2("US"))
+                .intent(PayPalRequest.INTENT_SALE)
+                .landingPageType(PayPalRequest.LANDING_PAGE_TYPE_LOGIN)
+                .userAction(PayPalRequest.USER_ACTION_COMMIT)
+                .displayName("display name")
+                .offerCredit(true);
+
+        PayPalRequestJournal.putPayPalRequest(RuntimeEnvironment.application, request);
+        PayPalRequest journaledRequest = PayPalRequestJournal.takePayPalRequest(RuntimeEnvironment.application);
+
+        assertEquals("1.00", journaledRequest.getAmount());
+        assertEquals("USD", journaledRequest.getCurrencyCode());
+        assertEquals("en_US", journaledRequest.getLocaleCode());
+        assertEquals("description", journaledRequest.getBillingAgreementDescription());
+        assertTrue(journaledRequest.isShippingAddressRequired());
+        assertEquals("recipient", journaledRequest.getShippingAddressOverride().getRecipientName());
+        assertEquals("123 Fake St", journaledRequest.getShippingAddressOverride().getStreetAddress());
+        assertNull(journaledRequest.getShippingAddressOverride().getExtendedAddress());
+        assertEquals("Chicago", journaledRequest.getShippingAddressOverride().getLocality());
+        assertEquals("US", journaledRequest.getShippingAddressOverride().getCountryCodeAlpha2());
+        assertEquals(PayPalRequest.INTENT_SALE, journaledRequest.getIntent());
+        assertEquals(PayPalRequest.LANDING_PAGE_TYPE_LOGIN, journaledRequest.getLandingPageType());
+        assertEquals(PayPalRequest.USER_ACTION_COMMIT, journaledRequest.getUserAction());
+        assertEquals("display name", journaledRequest.getDisplayName());
+        assertTrue(journaledRequest.shouldOfferCredit());
+
+        assertNull(PayPalRequestJournal.takePayPalRequest(RuntimeEnvironment.application));
+    }
+
+    @Test
+    public void takePayPalRequest_keepsNullFields() {
+        PayPalRequestJournal.putPayPalRequest(RuntimeEnvironment.application, new PayPalRequest());
+        PayPalRequest journaledRequest = PayPalRequestJournal.takePayPalRequest(RuntimeEnvironment.application);
+
+        assertNull(journaledRequest.getAmount());
+        assertNull(journaledRequest.getShippingAddressOverride());
+        assertFalse(journaledRequest.isShippingAddressRequired());
+        assertEquals(PayPalRequest.INTENT_AUTHORIZE, journaledRequest.getIntent());
+    }
+
+    @Test
+    public void takeRequest_returnsThePutRequestOnce() {
+        PayPalRequestJournal.putRequest(RuntimeEnvironment.application, new BillingAgreementRequest()
+                .environment("test")
+                .clientId("client-id"));
+
+        Request request = PayPalRequestJournal.takeRequest(RuntimeEnvironment.application);
+
+        assertTrue(request instanceof BillingAgreementRequest);
+        assertEquals("test", request.getEnvironment());
+        assertEquals("client-id", request.getClientId());
+        assertNull(PayPalRequestJournal.takeRequest(RuntimeEnvironment.application));
+    }
+
+    @Test
+    public void decode_returnsNullForTruncatedRecords() {
+        byte[] data = PayPalRequestJournal.encode(new PayPalRequest("1.00").displayName("display name"));
+
+        assertNull(PayPalRequestJournal.decode(Arrays.copyOf(data, data.length - 4)));
+        assertNull(PayPalRequestJournal.decode(new byte[0]));
+    }
+
+    @Test
+    public void takePayPalRequest_removesParcelEncodedEntriesFromTheSharedStore() {
+        SharedPreferences legacyStore = BraintreeSharedPreferences.getSharedPreferences(RuntimeEnvironment.application);
+        legacyStore.edit()
+                .putString("com.braintreepayments.api.PayPal.PAYPAL_REQUEST_KEY", "parcel")
+                .putString("com.braintreepayments.api.PayPal.REQUEST_KEY", "parcel")
+                .putString("com.braintreepayments.api.PayPal.REQUEST_TYPE_KEY", "CheckoutRequest")
+                .putString("other", "value")
+                .commit();
+
+        assertNull(PayPalRequestJournal.takePayPalRequest(RuntimeEnvironment.application));
+
+        assertFalse(legacyStore.contains("com.braintreepayments.api.PayPal.PAYPAL_REQUEST_KEY"));
+        assertFalse(legacyStore.contains("com.braintreepayments.api.PayPal.REQUEST_KEY"));
+        assertFalse(legacyStore.contains("com.braintreepayments.api.PayPal.REQUEST_TYPE_KEY"));
+        assertEquals("value", legacyStore.getString("other", null));
+    }
+}
@@ -122,6 +122,15 @@ public class PayPalUnitTest {
         assertEquals("PayPal is not enabled", captor.getValue().getMessage());
     }
 
+    @Test
+    public void authorizeAccount_warmsUpBrowserSwitchWhenTheFlowStarts() {
+        BraintreeFragment fragment = mMockFragmentBuilder.build();
+
+        PayPal.authorizeAccount(fragment);
+
+        verify(fragment).warmUpBrowserSwitch();
+    }
+
     @Test
     public void authorizeAccount_startsBrowser() {
         BraintreeFragment fragment = mMockFragmentBuilder.build();
@@ -317,7 +326,7 @@ public class PayPalUnitTest {
         PayPal.requestBillingAgreement(fragment, new PayPalRequest());
 
         ArgumentCaptor<String> dataCaptor = ArgumentCaptor.forClass(String.class);
-        verify(fragment.getHttpClient()).post(contains("/paypal_hermes/setup_billing_agreement"), dataCaptor.capture(),
+        verify(fragment.getHttpClient()).startPost(contains("/paypal_hermes/setup_billing_agreement"), dataCaptor.capture(),
                 any(HttpResponseCallback.class));
 
         JSONObject expected = new JSONObject()
@@ -349,7 +358,7 @@ public class PayPalUnitTest {
         PayPal.requestBillingAgreement(fragment, new PayPalRequest().offerCredit(true));
 
         ArgumentCaptor<String> dataCaptor = ArgumentCaptor.forClass(String.class);
-        verify(fragment.getHttpClient()).post(contains("/paypal_hermes/setup_billing_agreement"), dataCaptor.capture(),
+        verify(fragment.getHttpClient()).startPost(contains("/paypal_hermes/setup_billing_agreement"), dataCaptor.capture(),
                 any(HttpResponseCallback.class));
 
         JSONObject json = new JSONObject(dataCaptor.getValue());
@@ -478,11 +487,12 @@ public class PayPalUnitTest {
     @Test
     public void requestBillingAgreement_persistsPayPalRequest() {
         BraintreeFragment braintreeFragment = mMockFragmentBuilder.build();
-        SharedPreferences prefs = BraintreeSharedPreferences.getSharedPreferences(RuntimeEnvironment.application);
+        SharedPreferences prefs = BraintreeSharedPreferences.getSharedPreferences(RuntimeEnvironment.application,
+                PayPalRequestJournal.STORE_NAME);
 
         PayPal.requestOneTimePayment(braintreeFragment, new PayPalRequest("1").intent(PayPalRequest.INTENT_SALE));
 
-        assertNotNull(prefs.getString("com.braintreepayments.api.PayPal.PAYPAL_REQUEST_KEY", null));
+        assertNotNull(prefs.getString(PayPalRequestJournal.PAYPAL_REQUEST_KEY, null));
     }
 
     @Test
@@ -616,7 +626,7 @@ public class PayPalUnitTest {
 
         ArgumentCaptor<String> pathCaptor = ArgumentCaptor.forClass(String.class);
         ArgumentCaptor<String> dataCaptor = ArgumentCaptor.forClass(String.class);
-        verify(fragment.getHttpClient()).post(pathCaptor.capture(), dataCaptor.capture(),
+        verify(fragment.getHttpClient()).startPost(pathCaptor.capture(), dataCaptor.capture(),
                 any(HttpResponseCallback.class));
         assertTrue(pathCaptor.getValue().contains("/paypal_hermes/create_payment_resource"));
 
@@ -643,7 +653,7 @@ public class PayPalUnitTest {
         PayPal.requestOneTimePayment(fragment, new PayPalRequest("1").offerCredit(true));
 
         ArgumentCaptor<String> dataCaptor = ArgumentCaptor.forClass(String.class);
-        verify(fragment.getHttpClient()).post(contains("/paypal_hermes/create_payment_resource"), dataCaptor.capture(),
+        verify(fragment.getHttpClient()).startPost(contains("/paypal_hermes/create_payment_resource"), dataCaptor.capture(),
                 any(HttpResponseCallback.class));
 
         JSONObject json = new JSONObject(dataCaptor.getValue());
@@ -657,7 +667,7 @@ public class PayPalUnitTest {
         PayPal.requestOneTimePayment(fragment, new PayPalRequest("1").displayName("Test Name"));
 
         ArgumentCaptor<String> dataCaptor = ArgumentCaptor.forClass(String.class);
-        verify(fragment.getHttpClient()).post(contains("/paypal_hermes/create_payment_resource"), dataCaptor.capture(),
+        verify(fragment.getHttpClient()).startPost(contains("/paypal_hermes/create_payment_resource"), dataCaptor.capture(),
                 any(HttpResponseCallback.class));
 
         JSONObject json = new JSONObject(dataCaptor.getValue());
@@ -671,7 +681,7 @@ public class PayPalUnitTest {
         PayPal.requestOneTimePayment(fragment, new PayPalRequest("1").intent(PayPalRequest.INTENT_SALE));
 
         ArgumentCaptor<String> dataCaptor = ArgumentCaptor.forClass(String.class);
-        verify(fragment.getHttpClient()).post(contains("/paypal_hermes/create_payment_resource"), dataCaptor.capture(),
+        verify(fragment.getHttpClient()).startPost(contains("/paypal_hermes/create_payment_resource"), dataCaptor.capture(),
                 any(HttpResponseCallback.class));
 
         JSONObject json = new JSONObject(dataCaptor.getValue());
@@ -688,7 +698,7 @@ public class PayPalUnitTest {
         PayPal.requestOneTimePayment(fragment, new PayPalRequest("1").intent(PayPalRequest.INTENT_ORDER));
 
         ArgumentCaptor<String> dataCaptor = ArgumentCaptor.forClass(String.class);
-        verify(fragment.getHttpClient()).post(contains("/paypal_hermes/create_payment_resource"), dataCaptor.capture(),
+        verify(fragment.getHttpClient()).startPost(contains("/paypal_hermes/create_payment_resource"), dataCaptor.capture(),
                 any(HttpResponseCallback.class));
 
         JSONObject json = new JSONObject(dataCaptor.getValue());
@@ -705,7 +715,7 @@ public class PayPalUnitTest {
         PayPal.requestOneTimePayment(fragment, new PayPalRequest("1").landingPageType(PayPalRequest.LANDING_PAGE_TYPE_BILLING));
 
         ArgumentCaptor<String> dataCaptor = ArgumentCaptor.forClass(String.class);
-        verify(fragment.getHttpClient()).post(contains("/paypal_hermes/create_payment_resource"), dataCaptor.capture(),
+        verify(fragment.getHttpClient()).startPost(contains("/paypal_hermes/create_payment_resource"), dataCaptor.capture(),
                 any(HttpResponseCallback.class));
 
         JSONObject json = new JSONObject(dataCaptor.getValue());
@@ -722,7 +732,7 @@ public class PayPalUnitTest {
         PayPal.requestOneTimePayment(fragment, new PayPalRequest("1").landingPageType(PayPalRequest.LANDING_PAGE_TYPE_LOGIN));
 
         ArgumentCaptor<String> dataCaptor = ArgumentCaptor.forClass(String.class);
-        verify(fragment.getHttpClient()).post(contains("/paypal_hermes/create_payment_resource"), dataCaptor.capture(),
+        verify(fragment.getHttpClient()).startPost(contains("/paypal_hermes/create_payment_resource"), dataCaptor.capture(),
                 any(HttpResponseCallback.class));
 
         JSONObject json = new JSONObject(dataCaptor.getValue());
@@ -770,7 +780,7 @@ public class PayPalUnitTest {
 
         ArgumentCaptor<String> pathCaptor = ArgumentCaptor.forClass(String.class);
         ArgumentCaptor<String> dataCaptor = ArgumentCaptor.forClass(String.class);
-        verify(fragment.getHttpClient()).post(pathCaptor.capture(), dataCaptor.capture(),
+        verify(fragment.getHttpClient()).startPost(pathCaptor.capture(), dataCaptor.capture(),
                 any(HttpResponseCallback.class));
         assertTrue(pathCaptor.getValue().contains("/paypal_hermes/create_payment_resource"));
 
@@ -799,7 +809,7 @@ public class PayPalUnitTest {
 
         ArgumentCaptor<String> pathCaptor = ArgumentCaptor.forClass(String.class);
         ArgumentCaptor<String> dataCaptor = ArgumentCaptor.forClass(String.class);
-        verify(fragment.getHttpClient()).post(pathCaptor.capture(), dataCaptor.capture(),
+        verify(fragment.getHttpClient()).startPost(pathCaptor.capture(), dataCaptor.capture(),
                 any(HttpResponseCallback.class));
         assertTrue(pathCaptor.getValue().contains("/paypal_hermes/create_payment_resource"));
 
@@ -834,7 +844,7 @@ public class PayPalUnitTest {
 
         ArgumentCaptor<String> pathCaptor = ArgumentCaptor.forClass(String.class);
         ArgumentCaptor<String> dataCaptor = ArgumentCaptor.forClass(String.class);
-        verify(fragment.getHttpClient()).post(pathCaptor.capture(), dataCaptor.capture(),
+        verify(fragment.getHttpClient()).startPost(pathCaptor.capture(), dataCaptor.capture(),
                 any(HttpResponseCallback.class));
         assertTrue(pathCaptor.getValue().contains("/paypal_hermes/create_payment_resource"));
 
@@ -850,6 +860,17 @@ public class PayPalUnitTest {
         assertEquals(true, json.getJSONObject("experience_profile").get("address_override"));
     }
 
+    @Test
+    public void requestOneTimePayment_warmsUpBrowserSwitchWhenTheFlowStarts() {
+        BraintreeFragment fragment = mMockFragmentBuilder
+                .successResponse(stringFromFixture("paypal_hermes_response.json"))
+                .build();
+
+        PayPal.requestOneTimePayment(fragment, new PayPalRequest("1.00"));
+
+        verify(fragment).warmUpBrowserSwitch();
+    }
+
     @Test
     public void requestOneTimePayment_startsBrowser() {
         BraintreeFragment fragment = mMockFragmentBuilder
@@ -933,9 +954,9 @@ public class PayPalUnitTest {
 
         verify(fragment).postCallback(any(PayPalAccountNonce.class));
 
-        SharedPreferences prefs = BraintreeSharedPreferences.getSharedPreferences(RuntimeEnvironment.application);
-        assertNull(prefs.getString("com.braintreepayments.api.PayPal.REQUEST_KEY", null));
-        assertNull(prefs.getString("com.braintreepayments.api.PayPal.REQUEST_TYPE_KEY", null));
+        SharedPreferences prefs = BraintreeSharedPreferences.getSharedPreferences(RuntimeEnvironment.application,
+                PayPalRequestJournal.STORE_NAME);
+        assertNull(prefs.getString(PayPalRequestJournal.REQUEST_KEY, null));
     }
 
     @Test
@@ -970,8 +991,9 @@ public class PayPalUnitTest {
                 any(PaymentMethodNonceCallback.class));
         PayPal.requestOneTimePayment(fragment, new PayPalRequest("1").intent(PayPalRequest.INTENT_SALE));
 
-        SharedPreferences prefs = BraintreeSharedPreferences.getSharedPreferences(RuntimeEnvironment.application);
-        assertNull(prefs.getString("com.braintreepayments.api.PayPal.PAYPAL_REQUEST_KEY", null));
+        SharedPreferences prefs = BraintreeSharedPreferences.getSharedPreferences(RuntimeEnvironment.application,
+                PayPalRequestJournal.STORE_NAME);
+        assertNull(prefs.getString(PayPalRequestJournal.PAYPAL_REQUEST_KEY, null));
         latch.await();
     }
 
@@ -1009,11 +1031,28 @@ public class PayPalUnitTest {
     @Test
     public void requestOneTimePayment_persistsPayPalRequest() {
         BraintreeFragment braintreeFragment = mMockFragmentBuilder.build();
-        SharedPreferences prefs = BraintreeSharedPreferences.getSharedPreferences(RuntimeEnvironment.application);
+        SharedPreferences prefs = BraintreeSharedPreferences.getSharedPreferences(RuntimeEnvironment.application,
+                PayPalRequestJournal.STORE_NAME);
 
         PayPal.requestOneTimePayment(braintreeFragment, new PayPalRequest("1").intent(PayPalRequest.INTENT_SALE));
 
-        assertNotNull(prefs.getString("com.braintreepayments.api.PayPal.PAYPAL_REQUEST_KEY", null));
+        assertNotNull(prefs.getString(PayPalRequestJournal.PAYPAL_REQUEST_KEY, null));
+    }
+
+    @Test
+    public void requestOneTimePayment_doesNotCreatePaymentResourceWhenManifestIsInvalid() throws Exception {
+        doReturn(false).when(PayPal.class, "isManifestValid", any(Context.class));
+        BraintreeFragment fragment = mMockFragmentBuilder
+                .successResponse(stringFromFixture("paypal_hermes_response.json"))
+                .build();
+
+        PayPal.requestOneTimePayment(fragment, new PayPalRequest("1.00"));
+
+        verify(fragment.getHttpClient(), never()).startPost(contains("paypal_hermes/create_payment_resource"),
+                anyString(), any(HttpResponseCallback.class));
+        verify(fragment).sendAnalyticsEvent("paypal.invalid-manifest");
+        verify(fragment, never()).browserSwitch(anyInt(), any(Intent.class));
+        verify(fragment, never()).warmUpBrowserSwitch();
     }
 
     @Test
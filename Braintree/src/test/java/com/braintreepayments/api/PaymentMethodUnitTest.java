@@ -4,6 +4,8 @@ import com.braintreepayments.api.exceptions.InvalidArgumentException;
 import com.braintreepayments.api.exceptions.UnexpectedException;
 import com.braintreepayments.api.interfaces.HttpResponseCallback;
 import com.braintreepayments.api.models.AndroidPayCardNonce;
+import com.braintreepayments.api.models.Authorization;
+import com.braintreepayments.api.models.CardBuilder;
 import com.braintreepayments.api.models.CardNonce;
 import com.braintreepayments.api.models.PaymentMethodNonce;
 import com.braintreepayments.api.models.VenmoAccountNonce;
@@ -14,11 +16,16 @@ import org.mockito.ArgumentCaptor;
 import org.robolectric.RobolectricGradleTestRunner;
 
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 import static com.braintreepayments.testutils.FixturesHelper.stringFromFixture;
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertSame;
 import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -91,6 +98,47 @@ public class PaymentMethodUnitTest {
         assertEquals("happy-venmo-joe", ((VenmoAccountNonce) paymentMethodNonces.get(3)).getUsername());
     }
 
+    @Test
+    public void getPaymentMethodNonces_postsCachedPaymentMethodsBeforeFetching() throws InvalidArgumentException {
+        Authorization authorization = Authorization.fromString(stringFromFixture("client_token_with_customer_id.json"));
+        BraintreeFragment previousFragment = new MockFragmentBuilder()
+                .authorization(authorization)
+                .successResponse(stringFromFixture("payment_methods/get_payment_methods_response.json"))
+                .build();
+        when(previousFragment.acceptsVaultCachedPaymentMethodNonces()).thenReturn(true);
+        PaymentMethod.getPaymentMethodNonces(previousFragment);
+        BraintreeFragment fragment = new MockFragmentBuilder()
+                .authorization(authorization)
+                .build();
+        when(fragment.acceptsVaultCachedPaymentMethodNonces()).thenReturn(true);
+
+        PaymentMethod.getPaymentMethodNonces(fragment);
+
+        ArgumentCaptor<List<PaymentMethodNonce>> captor = ArgumentCaptor.forClass((Class) List.class);
+        verify(fragment).postVaultCacheCallback(captor.capture());
+        assertEquals(4, captor.getValue().size());
+        assertEquals("PayPal", captor.getValue().get(1).getTypeLabel());
+    }
+
+    @Test
+    public void getPaymentMethodNonces_doesNotUseTheVaultCacheUnlessTheListenerAcceptsIt()
+            throws InvalidArgumentException {
+        Authorization authorization = Authorization.fromString(stringFromFixture("client_token_with_customer_id.json"));
+        BraintreeFragment previousFragment = new MockFragmentBuilder()
+                .authorization(authorization)
+                .successResponse(stringFromFixture("payment_methods/get_payment_methods_response.json"))
+                .build();
+        when(previousFragment.acceptsVaultCachedPaymentMethodNonces()).thenReturn(true);
+        PaymentMethod.getPaymentMethodNonces(previousFragment);
+        BraintreeFragment fragment = new MockFragmentBuilder()
+                .authorization(authorization)
+                .build();
+
+        PaymentMethod.getPaymentMethodNonces(fragment);
+
+        verify(fragment, never()).postVaultCacheCallback(anyListOf(PaymentMethodNonce.class));
+    }
+
     @Test
     public void getPaymentMethodNonces_sendsAnAnalyticsEventForSuccess() {
         BraintreeFragment fragment = new MockFragmentBuilder()
@@ -111,10 +159,41 @@ public class PaymentMethodUnitTest {
         PaymentMethod.getPaymentMethodNonces(fragment, true);
 
         ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
-        verify(fragment.getHttpClient()).get(captor.capture(), any(HttpResponseCallback.class));
+        verify(fragment.getHttpClient()).startGet(captor.capture(), any(HttpResponseCallback.class));
 
         String requestUri = captor.getValue();
         assertTrue(requestUri.contains("default_first=true"));
         assertTrue(requestUri.contains("session_id=" + fragment.getSessionId()));
     }
+
+    @Test
+    public void tokenize_completesFutureWithoutPostingCallback() throws Exception {
+        BraintreeFragment fragment = new MockFragmentBuilder()
+                .successResponse(stringFromFixture("payment_methods/visa_credit_card_response.json"))
+                .build();
+
+        BraintreeFuture<PaymentMethodNonce> future = PaymentMethod.tokenize(fragment, new CardBuilder());
+
+        assertTrue(future.isDone());
+        assertTrue(future.get() instanceof CardNonce);
+        verify(fragment, never()).postCallback(any(PaymentMethodNonce.class));
+    }
+
+    @Test
+    public void tokenize_failsFutureOnError() throws InterruptedException {
+        UnexpectedException exception = new UnexpectedException("Error");
+        BraintreeFragment fragment = new MockFragmentBuilder()
+                .errorResponse(exception)
+                .build();
+
+        BraintreeFuture<PaymentMethodNonce> future = PaymentMethod.tokenize(fragment, new CardBuilder());
+
+        try {
+            future.get();
+            fail("Expected an ExecutionException");
+        } catch (ExecutionException e) {
+            assertSame(exception, e.getCause());
+        }
+        verify(fragment, never()).postCallback(any(Exception.class));
+    }
 }
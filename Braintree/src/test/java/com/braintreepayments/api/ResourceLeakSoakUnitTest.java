@@ -0,0 +1,176 @@
+package com.braintreepayments.api;
+
+import com.braintreepayments.api.interfaces.HttpResponseCallback;
+import com.braintreepayments.api.internal.AnalyticsDatabase;
+import com.braintreepayments.api.internal.AnalyticsEvent;
+import com.braintreepayments.api.internal.BraintreeHttpClient;
+import com.braintreepayments.api.models.Authorization;
+import com.braintreepayments.api.models.CardBuilder;
+import com.braintreepayments.api.test.FragmentTestActivity;
+import com.braintreepayments.api.test.StandInGateway;
+import com.braintreepayments.api.test.StandInGateway.Endpoint;
+import com.braintreepayments.testutils.ResourceSnapshot;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.util.ActivityController;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import static com.braintreepayments.testutils.FixturesHelper.stringFromFixture;
+import static com.braintreepayments.testutils.SharedPreferencesHelper.writeMockConfiguration;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Repeats SDK flows many times against a {@link StandInGateway} and asserts that threads, file descriptors,
+ * database handles and heap return to a bounded level afterwards.
+ *
+ * The soak tests take minutes and only run when the {@code braintree.soak} system property is {@code true},
+ * e.g. {@code ./gradlew :Braintree:testDebugUnitTest -Dbraintree.soak=true}.
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+public class ResourceLeakSoakUnitTest {
+
+    private static final boolean SOAK = Boolean.getBoolean("braintree.soak");
+    private static final int ITERATIONS = Integer.getInteger("braintree.soakIterations", 1000);
+    private static final int THREAD_SLACK = 8;
+    private static final int FILE_DESCRIPTOR_SLACK = 32;
+    private static final long HEAP_GROWTH_LIMIT_BYTES = 16 * 1024 * 1024;
+    private static final long THREAD_EXIT_TIMEOUT = 90000;
+    private static final String TOKENIZE_PATH = "/v1/payment_methods/credit_cards";
+
+    private StandInGateway mGateway;
+    private ResourceSnapshot mBaseline;
+
+    @Before
+    public void setup() throws IOException {
+        mGateway = new StandInGateway().start();
+        writeMockConfiguration(RuntimeEnvironment.application, mGateway.getConfigUrl(),
+                StandInGateway.AUTHORIZATION_FINGERPRINT, stringFromFixture("configuration.json"));
+        mBaseline = ResourceSnapshot.take();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        mGateway.shutdown();
+    }
+
+    @Test(timeout = 300000)
+    public void fragmentLifecycle_doesNotLeakResources() throws Exception {
+        assumeTrue(SOAK);
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            ActivityController<FragmentTestActivity> controller =
+                    Robolectric.buildActivity(FragmentTestActivity.class).setup();
+            BraintreeFragment fragment = BraintreeFragment.newInstance(controller.get(), mGateway.getClientToken());
+            assertNotNull(fragment);
+
+            controller.get().finish();
+            controller.pause().stop().destroy();
+        }
+
+        assertResourcesBounded();
+    }
+
+    @Test(timeout = 300000)
+    public void httpClients_releaseThreadsWhenShutdown() throws Exception {
+        assumeTrue(SOAK);
+
+        Authorization authorization = Authorization.fromString(mGateway.getClientToken());
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            BraintreeHttpClient httpClient = new BraintreeHttpClient(authorization);
+            httpClient.get(mGateway.getConfigUrl(), null);
+            httpClient.shutdown();
+        }
+
+        assertResourcesBounded();
+        assertTrue(mGateway.getRequestCount(Endpoint.CONFIGURATION) > 0);
+    }
+
+    @Test(timeout = 300000)
+    public void repeatedTokenization_doesNotLeakResources() throws Exception {
+        assumeTrue(SOAK);
+
+        BraintreeHttpClient httpClient = new BraintreeHttpClient(Authorization.fromString(mGateway.getClientToken()));
+        httpClient.setBaseUrl(mGateway.getClientApiUrl());
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            assertNotNull(httpClient.post(TOKENIZE_PATH, new CardBuilder()
+                    .cardNumber("4111111111111111")
+                    .expirationDate("12/2030")
+                    .build()));
+        }
+        httpClient.shutdown();
+
+        assertEquals(ITERATIONS, mGateway.getRequestCount(Endpoint.TOKENIZE));
+        assertResourcesBounded();
+    }
+
+    @Test(timeout = 300000)
+    public void analyticsDatabase_doesNotLeakDatabaseHandles() throws Exception {
+        assumeTrue(SOAK);
+
+        AnalyticsDatabase database = AnalyticsDatabase.getInstance(RuntimeEnvironment.application);
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            database.addEvent(new AnalyticsEvent(RuntimeEnvironment.application, "sessionId", "custom",
+                    "soak.event"));
+            for (List<AnalyticsEvent> events : database.getPendingRequests()) {
+                database.removeEvents(events);
+            }
+        }
+
+        assertResourcesBounded();
+    }
+
+    @Test(timeout = 1000)
+    public void httpClient_failsRequestsAfterShutdown() throws Exception {
+        BraintreeHttpClient httpClient = new BraintreeHttpClient(Authorization.fromString(mGateway.getClientToken()));
+        httpClient.shutdown();
+        final CountDownLatch countDownLatch = new CountDownLatch(1);
+
+        assertTrue(httpClient.isShutdown());
+        httpClient.post(mGateway.getClientApiUrl() + TOKENIZE_PATH, "{}", new HttpResponseCallback() {
+            @Override
+            public void success(String responseBody) {
+                fail("Expected failure to be called");
+            }
+
+            @Override
+            public void failure(Exception exception) {
+                assertTrue(exception instanceof RejectedExecutionException);
+                countDownLatch.countDown();
+            }
+        });
+
+        countDownLatch.await();
+    }
+
+    private void assertResourcesBounded() throws InterruptedException {
+        ResourceSnapshot snapshot = ResourceSnapshot.awaitThreadsAtMost(mBaseline.threads + THREAD_SLACK,
+                THREAD_EXIT_TIMEOUT);
+        String message = "baseline: " + mBaseline + ", after " + ITERATIONS + " iterations: " + snapshot;
+
+        assertTrue(message, snapshot.threads <= mBaseline.threads + THREAD_SLACK);
+        if (mBaseline.fileDescriptors != -1) {
+            assertTrue(message, snapshot.fileDescriptors <= mBaseline.fileDescriptors + FILE_DESCRIPTOR_SLACK);
+        }
+        if (mBaseline.databaseFiles != -1) {
+            assertTrue(message, snapshot.databaseFiles <= mBaseline.databaseFiles + 2);
+        }
+        assertTrue(message, snapshot.usedHeapBytes - mBaseline.usedHeapBytes <= HEAP_GROWTH_LIMIT_BYTES);
+    }
+}
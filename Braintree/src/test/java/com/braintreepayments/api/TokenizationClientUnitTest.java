@@ -1,6 +1,10 @@
 package com.braintreepayments.api;
 
+import android.util.JsonWriter;
+
 import com.braintreepayments.api.interfaces.HttpResponseCallback;
+import com.braintreepayments.api.interfaces.PaymentMethodNonceCallback;
+import com.braintreepayments.api.internal.JsonRequestBody;
 import com.braintreepayments.api.models.CardBuilder;
 
 import org.json.JSONException;
@@ -10,9 +14,16 @@ import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 import org.robolectric.RobolectricGradleTestRunner;
 
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static com.braintreepayments.testutils.CardNumber.UNIONPAY_CREDIT;
+import static com.braintreepayments.testutils.FixturesHelper.stringFromFixture;
 import static junit.framework.Assert.assertEquals;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -20,15 +31,65 @@ import static org.mockito.Mockito.when;
 public class TokenizationClientUnitTest {
 
     @Test
-    public void tokenize_includesSessionIdInRequest() throws JSONException {
+    public void tokenize_includesSessionIdInRequest() throws JSONException, IOException {
         BraintreeFragment fragment = new MockFragmentBuilder().build();
         when(fragment.getSessionId()).thenReturn("session-id");
 
         TokenizationClient.tokenize(fragment, new CardBuilder(), null);
 
-        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
-        verify(fragment.getHttpClient()).post(anyString(), captor.capture(), any(HttpResponseCallback.class));
-        JSONObject data = new JSONObject(captor.getValue()).getJSONObject("_meta");
+        ArgumentCaptor<JsonRequestBody> captor = ArgumentCaptor.forClass(JsonRequestBody.class);
+        verify(fragment.getHttpClient()).startPost(anyString(), captor.capture(), any(HttpResponseCallback.class));
+        JSONObject data = new JSONObject(write(captor.getValue())).getJSONObject("_meta");
         assertEquals("session-id", data.getString("sessionId"));
     }
+
+    @Test
+    public void tokenize_leavesCoBrandedMaestroCardsToTheGateway() {
+        BraintreeFragment fragment = new MockFragmentBuilder()
+                .configuration(stringFromFixture("configuration_with_supported_card_types.json"))
+                .build();
+
+        TokenizationClient.tokenize(fragment, new CardBuilder()
+                .cardNumber("6759649826438453")
+                .expirationDate("12/2030"), null);
+
+        verify(fragment.getHttpClient()).startPost(anyString(), any(JsonRequestBody.class),
+                any(HttpResponseCallback.class));
+    }
+
+    @Test
+    public void tokenize_leavesCoBrandedUnionPayCardsToTheGateway() {
+        BraintreeFragment fragment = new MockFragmentBuilder()
+                .configuration(stringFromFixture("configuration_with_supported_card_types.json"))
+                .build();
+
+        TokenizationClient.tokenize(fragment, new CardBuilder()
+                .cardNumber(UNIONPAY_CREDIT)
+                .expirationDate("12/2030"), null);
+
+        verify(fragment.getHttpClient()).startPost(anyString(), any(JsonRequestBody.class),
+                any(HttpResponseCallback.class));
+    }
+
+    @Test
+    public void tokenize_rejectsCardsThatFailTheLuhnCheckWithoutARequest() {
+        BraintreeFragment fragment = new MockFragmentBuilder().build();
+
+        TokenizationClient.tokenize(fragment, new CardBuilder()
+                .cardNumber("4111111111111112")
+                .expirationDate("12/2030"), mock(PaymentMethodNonceCallback.class));
+
+        verify(fragment.getHttpClient(), never()).startPost(anyString(), any(JsonRequestBody.class),
+                any(HttpResponseCallback.class));
+    }
+
+    private static String write(JsonRequestBody body) throws IOException {
+        StringWriter out = new StringWriter();
+        JsonWriter writer = new JsonWriter(out);
+        writer.beginObject();
+        body.writeFields(writer);
+        writer.endObject();
+        writer.close();
+        return out.toString();
+    }
 }
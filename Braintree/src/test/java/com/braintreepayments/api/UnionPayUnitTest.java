@@ -1,6 +1,8 @@
 package com.braintreepayments.api;
 
 import android.net.Uri;
+import android.os.Looper;
+import android.util.JsonWriter;
 
 import com.braintreepayments.api.exceptions.BraintreeException;
 import com.braintreepayments.api.exceptions.ConfigurationException;
@@ -8,6 +10,7 @@ import com.braintreepayments.api.exceptions.ErrorWithResponse;
 import com.braintreepayments.api.interfaces.HttpResponseCallback;
 import com.braintreepayments.api.interfaces.PaymentMethodNonceCallback;
 import com.braintreepayments.api.internal.BraintreeHttpClient;
+import com.braintreepayments.api.internal.JsonRequestBody;
 import com.braintreepayments.api.models.CardNonce;
 import com.braintreepayments.api.models.Configuration;
 import com.braintreepayments.api.models.UnionPayCapabilities;
@@ -26,17 +29,24 @@ import org.powermock.core.classloader.annotations.PowerMockIgnore;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.rule.PowerMockRule;
 import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static com.braintreepayments.testutils.CardNumber.UNIONPAY_CREDIT;
 import static com.braintreepayments.testutils.FixturesHelper.stringFromFixture;
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertFalse;
 import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertSame;
 import static junit.framework.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
-import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.powermock.api.mockito.PowerMockito.doAnswer;
@@ -89,35 +99,35 @@ public class UnionPayUnitTest {
     }
 
     @Test
-    public void tokenize_sendsPayloadToEndpoint() throws JSONException {
+    public void tokenize_sendsPayloadToEndpoint() throws JSONException, IOException {
         UnionPayCardBuilder unionPayCardBuilder = new UnionPayCardBuilder()
-                .cardNumber("someCardNumber")
+                .cardNumber(UNIONPAY_CREDIT)
                 .expirationMonth("expirationMonth")
                 .expirationYear("expirationYear")
-                .cvv("cvv")
+                .cvv("123")
                 .enrollmentId("enrollmentId")
                 .smsCode("smsCode")
                 .validate(true);
 
         BraintreeHttpClient httpClient = mock(BraintreeHttpClient.class);
-        doNothing().when(httpClient).get(anyString(), any(HttpResponseCallback.class));
+        doReturn(null).when(httpClient).startGet(anyString(), any(HttpResponseCallback.class));
         when(mBraintreeFragment.getHttpClient()).thenReturn(httpClient);
-        ArgumentCaptor<String> argumentCaptor = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<JsonRequestBody> argumentCaptor = ArgumentCaptor.forClass(JsonRequestBody.class);
 
         UnionPay.tokenize(mBraintreeFragment, unionPayCardBuilder);
 
-        verify(httpClient).post(eq("/v1/payment_methods/credit_cards"), argumentCaptor.capture(),
+        verify(httpClient).startPost(eq("/v1/payment_methods/credit_cards"), argumentCaptor.capture(),
                 any(HttpResponseCallback.class));
 
-        JSONObject tokenizePayload = new JSONObject(argumentCaptor.getValue());
+        JSONObject tokenizePayload = new JSONObject(write(argumentCaptor.getValue()));
         JSONObject creditCardPayload = tokenizePayload.getJSONObject("creditCard");
         JSONObject optionsPayload = creditCardPayload.getJSONObject("options");
         JSONObject unionPayEnrollmentPayload = optionsPayload.getJSONObject("unionPayEnrollment");
 
-        assertEquals("someCardNumber", creditCardPayload.getString("number"));
+        assertEquals(UNIONPAY_CREDIT, creditCardPayload.getString("number"));
         assertEquals("expirationMonth", creditCardPayload.getString("expirationMonth"));
         assertEquals("expirationYear", creditCardPayload.getString("expirationYear"));
-        assertEquals("cvv", creditCardPayload.getString("cvv"));
+        assertEquals("123", creditCardPayload.getString("cvv"));
 
         assertFalse(optionsPayload.has("validate"));
         assertEquals("enrollmentId", unionPayEnrollmentPayload.getString("id"));
@@ -125,34 +135,34 @@ public class UnionPayUnitTest {
     }
 
     @Test
-    public void tokenize_optionalSmsCode_sendsPayloadToEndpoint() throws JSONException {
+    public void tokenize_optionalSmsCode_sendsPayloadToEndpoint() throws JSONException, IOException {
         UnionPayCardBuilder unionPayCardBuilder = new UnionPayCardBuilder()
-                .cardNumber("someCardNumber")
+                .cardNumber(UNIONPAY_CREDIT)
                 .expirationMonth("expirationMonth")
                 .expirationYear("expirationYear")
-                .cvv("cvv")
+                .cvv("123")
                 .enrollmentId("enrollmentId")
                 .validate(true);
 
         BraintreeHttpClient httpClient = mock(BraintreeHttpClient.class);
-        doNothing().when(httpClient).get(anyString(), any(HttpResponseCallback.class));
+        doReturn(null).when(httpClient).startGet(anyString(), any(HttpResponseCallback.class));
         when(mBraintreeFragment.getHttpClient()).thenReturn(httpClient);
-        ArgumentCaptor<String> argumentCaptor = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<JsonRequestBody> argumentCaptor = ArgumentCaptor.forClass(JsonRequestBody.class);
 
         UnionPay.tokenize(mBraintreeFragment, unionPayCardBuilder);
 
-        verify(httpClient).post(eq("/v1/payment_methods/credit_cards"), argumentCaptor.capture(),
+        verify(httpClient).startPost(eq("/v1/payment_methods/credit_cards"), argumentCaptor.capture(),
                 any(HttpResponseCallback.class));
 
-        JSONObject tokenizePayload = new JSONObject(argumentCaptor.getValue());
+        JSONObject tokenizePayload = new JSONObject(write(argumentCaptor.getValue()));
         JSONObject creditCardPayload = tokenizePayload.getJSONObject("creditCard");
         JSONObject optionsPayload = creditCardPayload.getJSONObject("options");
         JSONObject unionPayEnrollmentPayload = optionsPayload.getJSONObject("unionPayEnrollment");
 
-        assertEquals("someCardNumber", creditCardPayload.getString("number"));
+        assertEquals(UNIONPAY_CREDIT, creditCardPayload.getString("number"));
         assertEquals("expirationMonth", creditCardPayload.getString("expirationMonth"));
         assertEquals("expirationYear", creditCardPayload.getString("expirationYear"));
-        assertEquals("cvv", creditCardPayload.getString("cvv"));
+        assertEquals("123", creditCardPayload.getString("cvv"));
 
         assertFalse(optionsPayload.has("validate"));
         assertEquals("enrollmentId", unionPayEnrollmentPayload.getString("id"));
@@ -234,7 +244,7 @@ public class UnionPayUnitTest {
                 .cvv("123");
 
         BraintreeHttpClient httpClient = mock(BraintreeHttpClient.class);
-        doNothing().when(httpClient).get(anyString(), any(HttpResponseCallback.class));
+        doReturn(null).when(httpClient).startGet(anyString(), any(HttpResponseCallback.class));
         when(mBraintreeFragment.getHttpClient()).thenReturn(httpClient);
         ArgumentCaptor<String> argumentCaptor = ArgumentCaptor.forClass(String.class);
 
@@ -259,7 +269,7 @@ public class UnionPayUnitTest {
                 .mobilePhoneNumber("mobilePhoneNumber");
 
         BraintreeHttpClient httpClient = mock(BraintreeHttpClient.class);
-        doNothing().when(httpClient).get(anyString(), any(HttpResponseCallback.class));
+        doReturn(null).when(httpClient).startGet(anyString(), any(HttpResponseCallback.class));
         when(mBraintreeFragment.getHttpClient()).thenReturn(httpClient);
         ArgumentCaptor<String> argumentCaptor = ArgumentCaptor.forClass(String.class);
 
@@ -284,7 +294,7 @@ public class UnionPayUnitTest {
                 .build();
 
         BraintreeHttpClient httpClient = mock(BraintreeHttpClient.class);
-        doNothing().when(httpClient).get(anyString(), any(HttpResponseCallback.class));
+        doReturn(null).when(httpClient).startGet(anyString(), any(HttpResponseCallback.class));
 
         when(fragment.getHttpClient()).thenReturn(httpClient);
 
@@ -296,7 +306,7 @@ public class UnionPayUnitTest {
                 .build()
                 .toString();
 
-        verify(httpClient).get(eq(expectedUrl), any(HttpResponseCallback.class));
+        verify(httpClient).startGet(eq(expectedUrl), any(HttpResponseCallback.class));
     }
 
     @Test
@@ -344,6 +354,46 @@ public class UnionPayUnitTest {
         assertTrue(capabilities.isSupported());
     }
 
+    @Test(timeout = 1000)
+    public void fetchCapabilities_callsListenerOnMainThreadWhenResponseArrivesOnAnotherThread()
+            throws InterruptedException {
+        BraintreeFragment fragment = new MockFragmentBuilder()
+                .configuration(mConfigurationWithUnionPay)
+                .build();
+        final CountDownLatch responseLatch = new CountDownLatch(1);
+        BraintreeHttpClient httpClient = mock(BraintreeHttpClient.class);
+        doAnswer(new Answer() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                final HttpResponseCallback callback = (HttpResponseCallback) invocation.getArguments()[1];
+                new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.success(stringFromFixture("unionpay_capabilities_success_response.json"));
+                        responseLatch.countDown();
+                    }
+                }).start();
+                return null;
+            }
+        }).when(httpClient).startGet(anyString(), any(HttpResponseCallback.class));
+        when(fragment.getHttpClient()).thenReturn(httpClient);
+        final AtomicReference<Looper> callbackLooper = new AtomicReference<>();
+        doAnswer(new Answer() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                callbackLooper.set(Looper.myLooper());
+                return null;
+            }
+        }).when(fragment).postCallback(any(UnionPayCapabilities.class));
+
+        UnionPay.fetchCapabilities(fragment, UNIONPAY_CREDIT);
+        responseLatch.await();
+        ShadowLooper.idleMainLooper();
+
+        verify(fragment).postCallback(any(UnionPayCapabilities.class));
+        assertSame(Looper.getMainLooper(), callbackLooper.get());
+    }
+
     @Test
     public void fetchCapabilities_sendsAnalyticsEventOnSuccess() throws JSONException {
         BraintreeFragment fragment = new MockFragmentBuilder()
@@ -405,4 +455,14 @@ public class UnionPayUnitTest {
         TokenizationClient.tokenize(any(BraintreeFragment.class), any(UnionPayCardBuilder.class),
                 any(PaymentMethodNonceCallback.class));
     }
+
+    private static String write(JsonRequestBody body) throws IOException {
+        StringWriter out = new StringWriter();
+        JsonWriter writer = new JsonWriter(out);
+        writer.beginObject();
+        body.writeFields(writer);
+        writer.endObject();
+        writer.close();
+        return out.toString();
+    }
 }
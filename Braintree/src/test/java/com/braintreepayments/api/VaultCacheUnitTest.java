@@ -0,0 +1,94 @@
+package com.braintreepayments.api;
+
+import com.braintreepayments.api.exceptions.InvalidArgumentException;
+import com.braintreepayments.api.models.Authorization;
+import com.braintreepayments.api.models.PaymentMethodNonce;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.List;
+
+import static com.braintreepayments.testutils.FixturesHelper.stringFromFixture;
+import static com.braintreepayments.testutils.TestTokenizationKey.TOKENIZATION_KEY;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNull;
+
+@RunWith(RobolectricGradleTestRunner.class)
+public class VaultCacheUnitTest {
+
+    @Test
+    public void get_returnsTheLastPaymentMethodsForTheCustomer() throws InvalidArgumentException {
+        VaultCache.put(RuntimeEnvironment.application, clientToken("first", "customer"), false,
+                stringFromFixture("payment_methods/get_payment_methods_response.json"));
+
+        List<PaymentMethodNonce> paymentMethodNonces = VaultCache.get(RuntimeEnvironment.application,
+                clientToken("second", "customer"), false);
+
+        assertEquals(4, paymentMethodNonces.size());
+        assertEquals("123456-12345-12345-a-adfa", paymentMethodNonces.get(0).getNonce());
+        assertNull(VaultCache.get(RuntimeEnvironment.application, clientToken("second", "customer"), true));
+    }
+
+    @Test
+    public void get_clearsTheCacheForAnotherCustomer() throws InvalidArgumentException {
+        VaultCache.put(RuntimeEnvironment.application, clientToken("first", "customer"), false,
+                stringFromFixture("payment_methods/get_payment_methods_response.json"));
+
+        assertNull(VaultCache.get(RuntimeEnvironment.application, clientToken("second", "other-customer"), false));
+        assertNull(VaultCache.get(RuntimeEnvironment.application, clientToken("first", "customer"), false));
+    }
+
+    @Test
+    public void get_clearsTheCacheForATokenizationKey() throws InvalidArgumentException {
+        VaultCache.put(RuntimeEnvironment.application, clientToken("first", "customer"), false,
+                stringFromFixture("payment_methods/get_payment_methods_response.json"));
+
+        assertNull(VaultCache.get(RuntimeEnvironment.application, Authorization.fromString(TOKENIZATION_KEY),
+                false));
+        assertNull(VaultCache.get(RuntimeEnvironment.application, clientToken("first", "customer"), false));
+    }
+
+    @Test
+    public void put_replacesEntriesForAnotherCustomer() throws InvalidArgumentException {
+        VaultCache.put(RuntimeEnvironment.application, clientToken("first", "customer"), true,
+                stringFromFixture("payment_methods/get_payment_methods_response.json"));
+
+        VaultCache.put(RuntimeEnvironment.application, clientToken("second", "other-customer"), false,
+                stringFromFixture("payment_methods/get_payment_methods_response.json"));
+
+        assertNotNull(VaultCache.get(RuntimeEnvironment.application, clientToken("second", "other-customer"), false));
+        assertNull(VaultCache.get(RuntimeEnvironment.application, clientToken("second", "other-customer"), true));
+    }
+
+    @Test
+    public void clearCachedPaymentMethodNonces_clearsTheCache() throws InvalidArgumentException {
+        VaultCache.put(RuntimeEnvironment.application, clientToken("first", "customer"), false,
+                stringFromFixture("payment_methods/get_payment_methods_response.json"));
+
+        PaymentMethod.clearCachedPaymentMethodNonces(RuntimeEnvironment.application);
+
+        assertNull(VaultCache.get(RuntimeEnvironment.application, clientToken("first", "customer"), false));
+    }
+
+    @Test
+    public void getOwner_isNullForTokenizationKeys() throws InvalidArgumentException {
+        assertNull(VaultCache.getOwner(Authorization.fromString(TOKENIZATION_KEY)));
+    }
+
+    @Test
+    public void getOwner_isNullForClientTokensWithoutACustomer() throws InvalidArgumentException {
+        assertNull(VaultCache.getOwner(Authorization.fromString(stringFromFixture("client_token.json"))));
+        assertNull(VaultCache.getOwner(Authorization.fromString("{\"configUrl\": \"client_api_configuration_url\", " +
+                "\"authorizationFingerprint\": \"signature|merchant_id=integration_merchant_id\"}")));
+    }
+
+    private static Authorization clientToken(String signature, String customerId) throws InvalidArgumentException {
+        return Authorization.fromString("{\"configUrl\": \"client_api_configuration_url\", " +
+                "\"authorizationFingerprint\": \"" + signature +
+                "|merchant_id=integration_merchant_id&customer_id=" + customerId + "\"}");
+    }
+}
@@ -1,12 +1,48 @@
 package com.braintreepayments.api.internal;
 
+import com.braintreepayments.api.exceptions.InvalidArgumentException;
+import com.braintreepayments.api.interfaces.HttpResponseCallback;
+import com.braintreepayments.api.models.Authorization;
+import com.braintreepayments.api.models.Configuration;
+
+import org.json.JSONException;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.robolectric.Robolectric;
 import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import static com.braintreepayments.testutils.FixturesHelper.stringFromFixture;
+import static com.braintreepayments.testutils.SharedPreferencesHelper.clearSharedPreferences;
+import static com.braintreepayments.testutils.TestTokenizationKey.TOKENIZATION_KEY;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.contains;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
 @RunWith(RobolectricGradleTestRunner.class)
 public class AnalyticsIntentServiceUnitTest {
 
+    private Authorization mAuthorization;
+    private BraintreeHttpClient mHttpClient;
+
+    @Before
+    public void setup() throws InvalidArgumentException {
+        clearSharedPreferences(RuntimeEnvironment.application);
+        ConfigurationCache.clear();
+        mAuthorization = Authorization.fromString(TOKENIZATION_KEY);
+        mHttpClient = mock(BraintreeHttpClient.class);
+    }
+
     @Test
     public void handlesNullIntent() {
         AnalyticsIntentService service = new AnalyticsIntentService();
@@ -14,4 +50,52 @@ public class AnalyticsIntentServiceUnitTest {
 
         service.onHandleIntent(null);
     }
+
+    @Test
+    public void getConfiguration_returnsCachedConfigurationWithoutFetching() throws JSONException {
+        Configuration configuration = Configuration.fromJson(stringFromFixture("configuration_with_analytics.json"));
+        String key = ConfigurationCache.getKey(mAuthorization);
+        ConfigurationCache.remember(key, configuration);
+        AnalyticsIntentService service = Robolectric.setupService(AnalyticsIntentService.class);
+
+        assertSame(configuration, service.getConfiguration(mHttpClient, mAuthorization, key));
+        verify(mHttpClient, never()).get(anyString(), any(HttpResponseCallback.class));
+    }
+
+    @Test
+    public void getConfiguration_fetchesAndCachesConfigurationWhenItIsNotCached() {
+        respondToConfigurationRequest(true);
+        String key = ConfigurationCache.getKey(mAuthorization);
+        AnalyticsIntentService service = Robolectric.setupService(AnalyticsIntentService.class);
+
+        Configuration configuration = service.getConfiguration(mHttpClient, mAuthorization, key);
+
+        assertEquals(stringFromFixture("configuration_with_analytics.json"), configuration.toJson());
+        assertSame(configuration, ConfigurationCache.get(RuntimeEnvironment.application, key));
+    }
+
+    @Test
+    public void getConfiguration_returnsNullWhenFetchingConfigurationFails() {
+        respondToConfigurationRequest(false);
+        String key = ConfigurationCache.getKey(mAuthorization);
+        AnalyticsIntentService service = Robolectric.setupService(AnalyticsIntentService.class);
+
+        assertNull(service.getConfiguration(mHttpClient, mAuthorization, key));
+        assertNull(ConfigurationCache.get(RuntimeEnvironment.application, key));
+    }
+
+    private void respondToConfigurationRequest(final boolean success) {
+        doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                HttpResponseCallback callback = (HttpResponseCallback) invocation.getArguments()[1];
+                if (success) {
+                    callback.success(stringFromFixture("configuration_with_analytics.json"));
+                } else {
+                    callback.failure(new Exception("Configuration error"));
+                }
+                return null;
+            }
+        }).when(mHttpClient).get(contains("configVersion=3"), any(HttpResponseCallback.class));
+    }
 }
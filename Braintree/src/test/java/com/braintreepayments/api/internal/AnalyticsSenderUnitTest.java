@@ -30,6 +30,7 @@ import static com.braintreepayments.api.internal.AnalyticsDatabaseTestUtils.clea
 import static com.braintreepayments.testutils.TestTokenizationKey.TOKENIZATION_KEY;
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.doAnswer;
@@ -54,6 +55,7 @@ public class AnalyticsSenderUnitTest {
     @After
     public void tearDown() throws IOException {
         clearAllEvents(RuntimeEnvironment.application);
+        LatencyHistograms.reset();
     }
 
     @Test
@@ -152,6 +154,53 @@ public class AnalyticsSenderUnitTest {
         assertEquals("sessionIdTwo", meta.getString("sessionId"));
     }
 
+    @Test
+    public void attachesLatencyHistogramsToFirstRequestOnly() throws Exception {
+        LatencyHistograms.getInstance(RuntimeEnvironment.application).record("configuration", "WIFI", 120);
+        AnalyticsEvent one = new AnalyticsEvent(RuntimeEnvironment.application, "sessionId", "custom", "started");
+        AnalyticsEvent two = new AnalyticsEvent(RuntimeEnvironment.application, "sessionIdTwo", "custom", "finished");
+        AnalyticsDatabase database = AnalyticsDatabase.getInstance(RuntimeEnvironment.application);
+        database.addEvent(one);
+        database.addEvent(two);
+
+        AnalyticsSender.send(RuntimeEnvironment.application, mAuthorization, mHttpClient, "", true);
+
+        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+        verify(mHttpClient, times(2)).post(anyString(), captor.capture());
+
+        JSONObject latency = new JSONObject(captor.getAllValues().get(0)).getJSONObject("latency");
+        JSONObject histogram = latency.getJSONArray("histograms").getJSONObject(0);
+        assertEquals("configuration", histogram.getString("operation"));
+        assertEquals("WIFI", histogram.getString("networkType"));
+        assertEquals(1, histogram.getLong("count"));
+        assertEquals(120, histogram.getLong("p50"));
+        assertFalse(new JSONObject(captor.getAllValues().get(1)).has("latency"));
+    }
+
+    @Test
+    public void removesReportedLatencyOnSuccessResponse() throws Exception {
+        LatencyHistograms.getInstance(RuntimeEnvironment.application).record("configuration", "WIFI", 120);
+        AnalyticsDatabase.getInstance(RuntimeEnvironment.application).addEvent(
+                new AnalyticsEvent(RuntimeEnvironment.application, "sessionId", "custom", "started"));
+        when(mHttpClient.post(anyString(), anyString())).thenReturn("");
+
+        AnalyticsSender.send(RuntimeEnvironment.application, mAuthorization, mHttpClient, "", true);
+
+        assertTrue(LatencyHistograms.getInstance(RuntimeEnvironment.application).drain().isEmpty());
+    }
+
+    @Test
+    public void keepsLatencyOnErrorResponse() throws Exception {
+        LatencyHistograms.getInstance(RuntimeEnvironment.application).record("configuration", "WIFI", 120);
+        AnalyticsDatabase.getInstance(RuntimeEnvironment.application).addEvent(
+                new AnalyticsEvent(RuntimeEnvironment.application, "sessionId", "custom", "started"));
+        when(mHttpClient.post(anyString(), anyString())).thenThrow(new ServerException(""));
+
+        AnalyticsSender.send(RuntimeEnvironment.application, mAuthorization, mHttpClient, "", true);
+
+        assertFalse(LatencyHistograms.getInstance(RuntimeEnvironment.application).drain().isEmpty());
+    }
+
     @Test
     public void deletesDatabaseEventsOnSuccessResponse() throws Exception {
         AnalyticsEvent one = new AnalyticsEvent(RuntimeEnvironment.application, "sessionId", "custom", "started");
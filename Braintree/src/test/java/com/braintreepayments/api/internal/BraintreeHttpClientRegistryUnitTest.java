@@ -0,0 +1,69 @@
+package com.braintreepayments.api.internal;
+
+import com.braintreepayments.api.exceptions.InvalidArgumentException;
+import com.braintreepayments.api.interfaces.HttpResponseCallback;
+import com.braintreepayments.api.models.Authorization;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import static com.braintreepayments.testutils.TestTokenizationKey.TOKENIZATION_KEY;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotSame;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+@RunWith(RobolectricGradleTestRunner.class)
+public class BraintreeHttpClientRegistryUnitTest {
+
+    @Test
+    public void acquire_countsReferencesPerAuthorization() throws InvalidArgumentException {
+        Authorization authorization = Authorization.fromString(TOKENIZATION_KEY);
+        BraintreeHttpClient first = BraintreeHttpClientRegistry.acquire(authorization);
+        BraintreeHttpClient second = BraintreeHttpClientRegistry.acquire(Authorization.fromString(TOKENIZATION_KEY));
+
+        assertNotSame(first, second);
+        assertEquals(2, BraintreeHttpClientRegistry.getReferenceCount(authorization));
+
+        first.shutdown();
+        first.shutdown();
+        assertEquals(1, BraintreeHttpClientRegistry.getReferenceCount(authorization));
+        assertTrue(first.isShutdown());
+        assertFalse(second.isShutdown());
+
+        second.shutdown();
+        assertEquals(0, BraintreeHttpClientRegistry.getReferenceCount(authorization));
+    }
+
+    @Test(timeout = 1000)
+    public void shutdown_onlyRejectsRequestsFromTheReleasedClient() throws InterruptedException,
+            InvalidArgumentException {
+        Authorization authorization = Authorization.fromString(TOKENIZATION_KEY);
+        BraintreeHttpClient first = BraintreeHttpClientRegistry.acquire(authorization);
+        BraintreeHttpClient second = BraintreeHttpClientRegistry.acquire(authorization);
+        first.shutdown();
+        final CountDownLatch countDownLatch = new CountDownLatch(1);
+
+        first.get("https://example.com", new HttpResponseCallback() {
+            @Override
+            public void success(String responseBody) {
+                fail("Expected failure to be called");
+            }
+
+            @Override
+            public void failure(Exception exception) {
+                assertTrue(exception instanceof RejectedExecutionException);
+                countDownLatch.countDown();
+            }
+        });
+
+        countDownLatch.await();
+        assertFalse(second.isShutdown());
+        second.shutdown();
+    }
+}
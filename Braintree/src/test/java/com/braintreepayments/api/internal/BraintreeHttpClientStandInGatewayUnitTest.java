@@ -0,0 +1,151 @@
+package com.braintreepayments.api.internal;
+
+import android.util.JsonWriter;
+
+import com.braintreepayments.api.exceptions.DownForMaintenanceException;
+import com.braintreepayments.api.exceptions.ErrorWithResponse;
+import com.braintreepayments.api.exceptions.InvalidArgumentException;
+import com.braintreepayments.api.exceptions.RateLimitException;
+import com.braintreepayments.api.models.Authorization;
+import com.braintreepayments.api.models.CardBuilder;
+import com.braintreepayments.api.models.CardNonce;
+import com.braintreepayments.api.models.PaymentMethodNonce;
+import com.braintreepayments.api.test.StandInGateway;
+import com.braintreepayments.api.test.StandInGateway.Endpoint;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+@RunWith(RobolectricGradleTestRunner.class)
+public class BraintreeHttpClientStandInGatewayUnitTest {
+
+    private static final String TOKENIZE_PATH = "/v1/payment_methods/credit_cards";
+
+    private StandInGateway mGateway;
+    private BraintreeHttpClient mHttpClient;
+
+    @Before
+    public void setup() throws IOException, InvalidArgumentException {
+        mGateway = new StandInGateway().start();
+        mHttpClient = new BraintreeHttpClient(Authorization.fromString(mGateway.getClientToken()));
+        mHttpClient.setBaseUrl(mGateway.getClientApiUrl());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        mGateway.shutdown();
+    }
+
+    @Test(timeout = 10000)
+    public void post_tokenizesACard() throws Exception {
+        String response = mHttpClient.post(TOKENIZE_PATH, cardBuilder().build());
+
+        PaymentMethodNonce nonce = PaymentMethodNonce.parsePaymentMethodNonces(response, "CreditCard");
+        assertTrue(nonce instanceof CardNonce);
+        assertNotNull(nonce.getNonce());
+        assertEquals(1, mGateway.getRequestCount(Endpoint.TOKENIZE));
+    }
+
+    @Test(timeout = 10000)
+    public void post_decodesGzippedResponses() throws Exception {
+        mGateway.setGzipEnabled(true);
+
+        String response = mHttpClient.post(TOKENIZE_PATH, cardBuilder().build());
+
+        assertNotNull(PaymentMethodNonce.parsePaymentMethodNonces(response, "CreditCard"));
+    }
+
+    @Test(timeout = 10000)
+    public void post_throwsRateLimitExceptionWhenRateLimited() throws Exception {
+        mGateway.enqueueError(Endpoint.TOKENIZE, 429, 1);
+
+        try {
+            mHttpClient.post(TOKENIZE_PATH, cardBuilder().build());
+            fail("Expected RateLimitException");
+        } catch (RateLimitException ignored) {}
+
+        assertNotNull(mHttpClient.post(TOKENIZE_PATH, cardBuilder().build()));
+    }
+
+    @Test(timeout = 10000)
+    public void post_throwsDownForMaintenanceExceptionWhenUnavailable() throws Exception {
+        mGateway.enqueueError(Endpoint.TOKENIZE, 503, 1);
+
+        try {
+            mHttpClient.post(TOKENIZE_PATH, cardBuilder().build());
+            fail("Expected DownForMaintenanceException");
+        } catch (DownForMaintenanceException ignored) {}
+    }
+
+    @Test(timeout = 10000)
+    public void post_throwsErrorWithResponseForValidationErrors() throws Exception {
+        mGateway.enqueueError(Endpoint.TOKENIZE, 422, 1);
+
+        try {
+            mHttpClient.post(TOKENIZE_PATH, cardBuilder().build());
+            fail("Expected ErrorWithResponse");
+        } catch (ErrorWithResponse e) {
+            assertEquals("Credit card is invalid", e.getMessage());
+            assertNotNull(e.errorFor("creditCard").errorFor("number"));
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void post_completesConcurrentRequests() throws Exception {
+        int requestCount = 500;
+        mGateway.setLatency(Endpoint.TOKENIZE, 1, 5);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+
+        List<Future<String>> responses = new ArrayList<>();
+        for (int i = 0; i < requestCount; i++) {
+            responses.add(executor.submit(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    return mHttpClient.post(TOKENIZE_PATH, cardBuilder().build());
+                }
+            }));
+        }
+
+        for (Future<String> response : responses) {
+            assertTrue(PaymentMethodNonce.parsePaymentMethodNonces(response.get(), "CreditCard") instanceof CardNonce);
+        }
+        executor.shutdown();
+
+        assertEquals(requestCount, mGateway.getRequestCount(Endpoint.TOKENIZE));
+    }
+
+    @Test(timeout = 10000)
+    public void post_streamsJsonRequestBody() throws Exception {
+        String response = mHttpClient.post(TOKENIZE_PATH, new JsonRequestBody() {
+            @Override
+            public void writeFields(JsonWriter writer) throws IOException {
+                cardBuilder().writeFields(writer);
+            }
+        });
+
+        assertTrue(PaymentMethodNonce.parsePaymentMethodNonces(response, "CreditCard") instanceof CardNonce);
+        assertEquals(1, mGateway.getRequestCount(Endpoint.TOKENIZE));
+    }
+
+    private static CardBuilder cardBuilder() {
+        return new CardBuilder()
+                .cardNumber("4111111111111111")
+                .expirationDate("12/2030");
+    }
+}
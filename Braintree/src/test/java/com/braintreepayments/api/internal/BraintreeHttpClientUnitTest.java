@@ -0,0 +1,137 @@
+package com.braintreepayments.api.internal;
+
+import android.util.JsonWriter;
+
+import com.braintreepayments.api.exceptions.InvalidArgumentException;
+import com.braintreepayments.api.models.Authorization;
+import com.braintreepayments.api.models.CardBuilder;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static com.braintreepayments.testutils.FixturesHelper.stringFromFixture;
+import static com.braintreepayments.testutils.TestTokenizationKey.TOKENIZATION_KEY;
+import static junit.framework.Assert.assertEquals;
+
+@RunWith(RobolectricGradleTestRunner.class)
+public class BraintreeHttpClientUnitTest {
+
+    private static final String AUTHORIZATION_FINGERPRINT = "authorization_fingerprint";
+    private static final String CLIENT_API_URL = "https://api.braintreegateway.com/merchants/integration_merchant_id/client_api";
+
+    private BraintreeHttpClient mHttpClient;
+
+    @Before
+    public void setup() throws InvalidArgumentException {
+        mHttpClient = new BraintreeHttpClient(Authorization.fromString(stringFromFixture("client_token.json")));
+    }
+
+    @Test
+    public void toRequestBody_writesAuthorizationFingerprintAndFields() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        final CardBuilder cardBuilder = new CardBuilder()
+                .cardNumber("4111111111111111")
+                .expirationDate("12/2030")
+                .setSessionId("session-id");
+
+        mHttpClient.toRequestBody(new JsonRequestBody() {
+            @Override
+            public void writeFields(JsonWriter writer) throws IOException {
+                cardBuilder.writeFields(writer);
+            }
+        }).writeTo(outputStream);
+
+        JSONObject json = new JSONObject(outputStream.toString("UTF-8"));
+        assertEquals(AUTHORIZATION_FINGERPRINT, json.getString("authorizationFingerprint"));
+        assertEquals("session-id", json.getJSONObject("_meta").getString("sessionId"));
+        assertEquals("4111111111111111", json.getJSONObject("creditCard").getString("number"));
+    }
+
+    @Test
+    public void addAuthorizationFingerprint_addsFingerprintToExistingMembers() throws Exception {
+        JSONObject json = new JSONObject(mHttpClient.addAuthorizationFingerprint(" {\"amount\": \"1.00\"}"));
+
+        assertEquals(AUTHORIZATION_FINGERPRINT, json.getString("authorizationFingerprint"));
+        assertEquals("1.00", json.getString("amount"));
+    }
+
+    @Test
+    public void addAuthorizationFingerprint_addsFingerprintToEmptyObject() throws Exception {
+        JSONObject json = new JSONObject(mHttpClient.addAuthorizationFingerprint("{ }"));
+
+        assertEquals(1, json.length());
+        assertEquals(AUTHORIZATION_FINGERPRINT, json.getString("authorizationFingerprint"));
+    }
+
+    @Test(expected = JSONException.class)
+    public void addAuthorizationFingerprint_throwsForNonObjects() throws Exception {
+        mHttpClient.addAuthorizationFingerprint("[]");
+    }
+
+    @Test
+    public void addAuthorizationFingerprint_replacesAnExistingFingerprintInsteadOfDuplicatingIt() throws Exception {
+        String data = mHttpClient.addAuthorizationFingerprint(
+                "{\"amount\": \"1.00\", \"authorizationFingerprint\": \"stale\"}");
+
+        assertEquals(data.indexOf("authorizationFingerprint"), data.lastIndexOf("authorizationFingerprint"));
+        JSONObject json = new JSONObject(data);
+        assertEquals(AUTHORIZATION_FINGERPRINT, json.getString("authorizationFingerprint"));
+        assertEquals("1.00", json.getString("amount"));
+    }
+
+    @Test
+    public void addAuthorizationFingerprint_keepsNestedFingerprintsAndAddsTopLevelFingerprint() throws Exception {
+        JSONObject json = new JSONObject(mHttpClient.addAuthorizationFingerprint(
+                "{\"meta\": {\"authorizationFingerprint\": \"nested\"}}"));
+
+        assertEquals(AUTHORIZATION_FINGERPRINT, json.getString("authorizationFingerprint"));
+        assertEquals("nested", json.getJSONObject("meta").getString("authorizationFingerprint"));
+    }
+
+    @Test(expected = JSONException.class)
+    public void addAuthorizationFingerprint_throwsForUnterminatedObjects() throws Exception {
+        mHttpClient.addAuthorizationFingerprint("{\"amount\": \"1.00\"");
+    }
+
+    @Test(expected = JSONException.class)
+    public void addAuthorizationFingerprint_throwsForMalformedMembers() throws Exception {
+        mHttpClient.addAuthorizationFingerprint("{\"amount\" \"1.00\"}");
+    }
+
+    @Test(expected = JSONException.class)
+    public void addAuthorizationFingerprint_throwsForTrailingData() throws Exception {
+        mHttpClient.addAuthorizationFingerprint("{} {}");
+    }
+
+    @Test
+    public void addAuthorizationFingerprint_doesNotModifyDataForTokenizationKeys() throws Exception {
+        BraintreeHttpClient httpClient = new BraintreeHttpClient(Authorization.fromString(TOKENIZATION_KEY));
+
+        assertEquals("{}", httpClient.addAuthorizationFingerprint("{}"));
+    }
+
+    @Test
+    public void getOperation_tagsRequestsByEndpoint() {
+        assertEquals(HttpEvent.OPERATION_CONFIGURATION,
+                mHttpClient.getOperation("GET", "client_api_configuration_url?configVersion=3"));
+        assertEquals(HttpEvent.OPERATION_TOKENIZE,
+                mHttpClient.getOperation("POST", CLIENT_API_URL + "/v1/payment_methods/credit_cards"));
+        assertEquals(HttpEvent.OPERATION_THREE_D_SECURE, mHttpClient.getOperation("POST",
+                CLIENT_API_URL + "/v1/payment_methods/nonce/three_d_secure/lookup"));
+        assertEquals(HttpEvent.OPERATION_PAYPAL,
+                mHttpClient.getOperation("POST", CLIENT_API_URL + "/v1/paypal_hermes/create_payment_resource"));
+        assertEquals(HttpEvent.OPERATION_UNIONPAY, mHttpClient.getOperation("GET",
+                CLIENT_API_URL + "/v1/payment_methods/credit_cards/capabilities"));
+        assertEquals(HttpEvent.OPERATION_ANALYTICS,
+                mHttpClient.getOperation("POST", "https://origin-analytics-sand.sandbox.braintree-api.com/analytics"));
+        assertEquals(HttpEvent.OPERATION_UNKNOWN, mHttpClient.getOperation("GET", "http://example.com"));
+    }
+}
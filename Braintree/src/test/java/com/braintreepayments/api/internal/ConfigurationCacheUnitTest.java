@@ -0,0 +1,86 @@
+package com.braintreepayments.api.internal;
+
+import com.braintreepayments.api.exceptions.InvalidArgumentException;
+import com.braintreepayments.api.models.Authorization;
+import com.braintreepayments.api.models.Configuration;
+
+import org.json.JSONException;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import static com.braintreepayments.testutils.FixturesHelper.stringFromFixture;
+import static com.braintreepayments.testutils.SharedPreferencesHelper.clearSharedPreferences;
+import static com.braintreepayments.testutils.SharedPreferencesHelper.writeMockConfiguration;
+import static com.braintreepayments.testutils.TestTokenizationKey.TOKENIZATION_KEY;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+
+@RunWith(RobolectricGradleTestRunner.class)
+public class ConfigurationCacheUnitTest {
+
+    private Authorization mAuthorization;
+
+    @Before
+    public void setup() throws InvalidArgumentException {
+        clearSharedPreferences(RuntimeEnvironment.application);
+        ConfigurationCache.clear();
+        mAuthorization = Authorization.fromString(TOKENIZATION_KEY);
+    }
+
+    @Test
+    public void get_returnsRememberedConfigurationWithoutReadingDisk() throws JSONException {
+        Configuration configuration = Configuration.fromJson(stringFromFixture("configuration.json"));
+        String key = ConfigurationCache.getKey(mAuthorization);
+
+        ConfigurationCache.remember(key, configuration);
+
+        assertSame(configuration, ConfigurationCache.get(RuntimeEnvironment.application, key));
+    }
+
+    @Test
+    public void get_readsExpiredConfigurationFromDisk() {
+        writeMockConfiguration(RuntimeEnvironment.application, mAuthorization.getConfigUrl(),
+                mAuthorization.toString(), stringFromFixture("configuration.json"), 0);
+        String key = ConfigurationCache.getKey(mAuthorization);
+
+        Configuration configuration = ConfigurationCache.get(RuntimeEnvironment.application, key);
+
+        assertEquals(stringFromFixture("configuration.json"), configuration.toJson());
+        assertSame(configuration, ConfigurationCache.get(RuntimeEnvironment.application, key));
+    }
+
+    @Test
+    public void get_returnsNullForUnknownKeys() {
+        assertNull(ConfigurationCache.get(RuntimeEnvironment.application, null));
+        assertNull(ConfigurationCache.get(RuntimeEnvironment.application, "unknown"));
+    }
+
+    @Test
+    public void getFresh_sharesParsedConfigurationUntilTheDiskCopyChanges() {
+        writeMockConfiguration(RuntimeEnvironment.application, mAuthorization.getConfigUrl(),
+                mAuthorization.toString(), stringFromFixture("configuration.json"), System.currentTimeMillis());
+        String key = ConfigurationCache.getKey(mAuthorization);
+
+        Configuration configuration = ConfigurationCache.getFresh(RuntimeEnvironment.application, key, 60000);
+        assertSame(configuration, ConfigurationCache.getFresh(RuntimeEnvironment.application, key, 60000));
+
+        writeMockConfiguration(RuntimeEnvironment.application, mAuthorization.getConfigUrl(),
+                mAuthorization.toString(), stringFromFixture("configuration_with_analytics.json"),
+                System.currentTimeMillis() + 1);
+        assertEquals(stringFromFixture("configuration_with_analytics.json"),
+                ConfigurationCache.getFresh(RuntimeEnvironment.application, key, 60000).toJson());
+    }
+
+    @Test
+    public void getFresh_returnsNullForExpiredConfiguration() {
+        writeMockConfiguration(RuntimeEnvironment.application, mAuthorization.getConfigUrl(),
+                mAuthorization.toString(), stringFromFixture("configuration.json"), 0);
+
+        assertNull(ConfigurationCache.getFresh(RuntimeEnvironment.application,
+                ConfigurationCache.getKey(mAuthorization), 1000));
+    }
+}
@@ -0,0 +1,179 @@
+package com.braintreepayments.api.internal;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+@RunWith(RobolectricGradleTestRunner.class)
+public class LatencyHistogramsUnitTest {
+
+    private LatencyHistograms mHistograms;
+
+    @Before
+    public void setup() {
+        mHistograms = LatencyHistograms.getInstance(RuntimeEnvironment.application);
+    }
+
+    @After
+    public void tearDown() {
+        LatencyHistograms.reset();
+    }
+
+    @Test
+    public void snapshot_isEmptyWhenNothingIsRecorded() {
+        assertTrue(mHistograms.drain().isEmpty());
+    }
+
+    @Test
+    public void snapshot_reportsPercentilesPerOperationAndNetworkType() throws Exception {
+        for (int i = 1; i <= 100; i++) {
+            mHistograms.record("tokenize.credit_cards", "WIFI", i * 10);
+        }
+        mHistograms.record("tokenize.credit_cards", "MOBILE", 2500);
+
+        JSONObject json = mHistograms.drain().toJson();
+
+        assertEquals(LatencyHistograms.BUCKET_BOUNDS_MILLIS.length, json.getJSONArray("bucketBoundsMs").length());
+        JSONArray histograms = json.getJSONArray("histograms");
+        assertEquals(2, histograms.length());
+
+        JSONObject wifi = findHistogram(histograms, "WIFI");
+        assertEquals("tokenize.credit_cards", wifi.getString("operation"));
+        assertEquals(100, wifi.getLong("count"));
+        assertEquals(500, wifi.getLong("p50"));
+        assertEquals(1000, wifi.getLong("p95"));
+        assertEquals(1000, wifi.getLong("p99"));
+        assertEquals(1000, wifi.getLong("max"));
+        assertEquals(LatencyHistograms.BUCKET_BOUNDS_MILLIS.length + 1, wifi.getJSONArray("buckets").length());
+
+        JSONObject mobile = findHistogram(histograms, "MOBILE");
+        assertEquals(1, mobile.getLong("count"));
+        assertEquals(2500, mobile.getLong("p99"));
+    }
+
+    @Test
+    public void percentile_returnsMaxForOverflowBucket() {
+        mHistograms.record("configuration", "WIFI", 45000);
+
+        long[] buckets = new long[LatencyHistograms.BUCKET_BOUNDS_MILLIS.length + 1];
+        buckets[buckets.length - 1] = 1;
+
+        assertEquals(45000, LatencyHistograms.percentile(buckets, 45000, 0.5));
+    }
+
+    @Test
+    public void drain_keepsRequestsRecordedAfterDrain() throws Exception {
+        mHistograms.record("configuration", "WIFI", 100);
+        mHistograms.drain();
+        mHistograms.record("configuration", "WIFI", 200);
+
+        JSONObject histogram = mHistograms.drain().toJson().getJSONArray("histograms").getJSONObject(0);
+        assertEquals(1, histogram.getLong("count"));
+        assertEquals(200, histogram.getLong("max"));
+    }
+
+    @Test
+    public void drain_clearsDrainedHistograms() {
+        mHistograms.record("configuration", "WIFI", 100);
+
+        assertFalse(mHistograms.drain().isEmpty());
+
+        assertTrue(mHistograms.drain().isEmpty());
+    }
+
+    @Test
+    public void restore_addsDrainedCountsBack() throws Exception {
+        mHistograms.record("configuration", "WIFI", 100);
+        LatencyHistograms.Snapshot snapshot = mHistograms.drain();
+        mHistograms.record("configuration", "WIFI", 200);
+
+        mHistograms.restore(snapshot);
+
+        JSONObject histogram = mHistograms.drain().toJson().getJSONArray("histograms").getJSONObject(0);
+        assertEquals(2, histogram.getLong("count"));
+        assertEquals(200, histogram.getLong("max"));
+    }
+
+    @Test(timeout = 10000)
+    public void drain_reportsEachRequestOnceWhenDrainedConcurrently() throws Exception {
+        for (int i = 0; i < 1000; i++) {
+            mHistograms.record("configuration", "WIFI", 100);
+        }
+        final List<LatencyHistograms.Snapshot> snapshots =
+                Collections.synchronizedList(new ArrayList<LatencyHistograms.Snapshot>());
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    snapshots.add(mHistograms.drain());
+                }
+            });
+        }
+
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        long count = 0;
+        for (LatencyHistograms.Snapshot snapshot : snapshots) {
+            if (!snapshot.isEmpty()) {
+                count += snapshot.toJson().getJSONArray("histograms").getJSONObject(0).getLong("count");
+            }
+        }
+        assertEquals(1000, count);
+    }
+
+    @Test
+    public void getHistogramOperation_tagsTokenizationByApiPath() {
+        assertEquals("tokenize.credit_cards", LatencyHistograms.getHistogramOperation(new HttpEvent(
+                HttpEvent.OPERATION_TOKENIZE, "POST", "https://api.braintreegateway.com/v1/payment_methods/credit_cards")));
+        assertEquals("tokenize.paypal_accounts", LatencyHistograms.getHistogramOperation(new HttpEvent(
+                HttpEvent.OPERATION_TOKENIZE, "POST",
+                "https://api.braintreegateway.com/v1/payment_methods/paypal_accounts")));
+    }
+
+    @Test
+    public void getHistogramOperation_tagsPayPalAndThreeDSecure() {
+        assertEquals("paypal.create_payment_resource", LatencyHistograms.getHistogramOperation(new HttpEvent(
+                HttpEvent.OPERATION_PAYPAL, "POST",
+                "https://api.braintreegateway.com/v1/paypal_hermes/create_payment_resource")));
+        assertEquals("three_d_secure.lookup", LatencyHistograms.getHistogramOperation(new HttpEvent(
+                HttpEvent.OPERATION_THREE_D_SECURE, "POST",
+                "https://api.braintreegateway.com/v1/payment_methods/nonce/three_d_secure/lookup")));
+        assertEquals("configuration", LatencyHistograms.getHistogramOperation(new HttpEvent(
+                HttpEvent.OPERATION_CONFIGURATION, "GET", "https://api.braintreegateway.com/v1/configuration")));
+    }
+
+    @Test
+    public void getHistogramOperation_ignoresUntrackedOperations() {
+        assertNull(LatencyHistograms.getHistogramOperation(new HttpEvent(HttpEvent.OPERATION_ANALYTICS, "POST",
+                "https://analytics.braintreegateway.com")));
+    }
+
+    private static JSONObject findHistogram(JSONArray histograms, String networkType) throws Exception {
+        for (int i = 0; i < histograms.length(); i++) {
+            if (networkType.equals(histograms.getJSONObject(i).getString("networkType"))) {
+                return histograms.getJSONObject(i);
+            }
+        }
+        return null;
+    }
+}
@@ -11,6 +11,8 @@ import org.robolectric.RobolectricGradleTestRunner;
 import static com.braintreepayments.testutils.FixturesHelper.stringFromFixture;
 import static com.braintreepayments.testutils.TestTokenizationKey.TOKENIZATION_KEY;
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertSame;
 import static junit.framework.Assert.assertTrue;
 
 @RunWith(RobolectricGradleTestRunner.class)
@@ -52,6 +54,25 @@ public class AuthorizationUnitTest {
         Authorization.fromString("not authorization");
     }
 
+    @Test
+    public void fromString_returnsTheCachedAuthorizationForTheSameString() throws InvalidArgumentException {
+        Authorization authorization = Authorization.fromString(stringFromFixture("base_64_client_token.txt"));
+
+        assertSame(authorization, Authorization.fromString(stringFromFixture("base_64_client_token.txt")));
+    }
+
+    @Test
+    public void isTokenizationKey_matchesEnvironmentDateAndMerchantId() {
+        assertTrue(Authorization.isTokenizationKey(TOKENIZATION_KEY));
+        assertTrue(Authorization.isTokenizationKey("sandbox_fjajdkd_merchant_id_with_underscores"));
+        assertFalse(Authorization.isTokenizationKey(null));
+        assertFalse(Authorization.isTokenizationKey("sandbox_merchant"));
+        assertFalse(Authorization.isTokenizationKey("sandbox__merchant"));
+        assertFalse(Authorization.isTokenizationKey("_fjajdkd_merchant"));
+        assertFalse(Authorization.isTokenizationKey("sandbox_fjajdkd_"));
+        assertFalse(Authorization.isTokenizationKey("sandbox_fjajdkd_merchant-id"));
+    }
+
     @Test
     public void getType_returnsTokenizationKey() throws InvalidArgumentException {
         Authorization authorization = Authorization.fromString(TOKENIZATION_KEY);
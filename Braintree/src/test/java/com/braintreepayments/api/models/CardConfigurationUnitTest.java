@@ -7,6 +7,7 @@ import org.robolectric.RobolectricGradleTestRunner;
 
 import static com.braintreepayments.testutils.FixturesHelper.stringFromFixture;
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
 import static junit.framework.Assert.assertTrue;
 
 @RunWith(RobolectricGradleTestRunner.class)
@@ -31,4 +32,20 @@ public class CardConfigurationUnitTest {
 
         assertEquals(0, cardConfiguration.getSupportedCardTypes().size());
     }
+
+    @Test
+    public void isCardTypeSupported_returnsTrueForSupportedCardTypes() throws JSONException {
+        Configuration configuration = Configuration.fromJson(stringFromFixture("configuration_with_supported_card_types.json"));
+        CardConfiguration cardConfiguration = configuration.getCardConfiguration();
+
+        assertTrue(cardConfiguration.isCardTypeSupported("Visa"));
+        assertFalse(cardConfiguration.isCardTypeSupported("UnionPay"));
+    }
+
+    @Test
+    public void isCardTypeSupported_returnsTrueWhenCardTypesAreNotRestricted() {
+        CardConfiguration cardConfiguration = CardConfiguration.fromJson(null);
+
+        assertTrue(cardConfiguration.isCardTypeSupported("UnionPay"));
+    }
 }
@@ -9,6 +9,8 @@ import org.robolectric.RobolectricGradleTestRunner;
 
 import static com.braintreepayments.testutils.FixturesHelper.stringFromFixture;
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
 
 @RunWith(RobolectricGradleTestRunner.class)
 public class ClientTokenUnitTest {
@@ -29,6 +31,20 @@ public class ClientTokenUnitTest {
         assertEquals("encoded_auth_fingerprint", clientToken.getAuthorizationFingerprint());
     }
 
+    @Test
+    public void isBase64_acceptsOnlyPaddedBase64() {
+        assertTrue(ClientToken.isBase64(stringFromFixture("base_64_client_token.txt")));
+        assertTrue(ClientToken.isBase64("YWJj"));
+        assertTrue(ClientToken.isBase64("YWI="));
+        assertTrue(ClientToken.isBase64("YQ=="));
+        assertFalse(ClientToken.isBase64(""));
+        assertFalse(ClientToken.isBase64("YWJ"));
+        assertFalse(ClientToken.isBase64("Y==="));
+        assertFalse(ClientToken.isBase64("YW=j"));
+        assertFalse(ClientToken.isBase64("YWJj\nYWJj"));
+        assertFalse(ClientToken.isBase64(stringFromFixture("client_token.json")));
+    }
+
     @Test(expected = InvalidArgumentException.class)
     public void fromString_throwsInvalidArgumentExceptionWhenGivenRandomJson() throws InvalidArgumentException {
         ClientToken.fromString(stringFromFixture("random_json.json"));
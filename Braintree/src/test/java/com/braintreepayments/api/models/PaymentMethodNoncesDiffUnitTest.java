@@ -0,0 +1,83 @@
+package com.braintreepayments.api.models;
+
+import org.json.JSONException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.braintreepayments.testutils.FixturesHelper.stringFromFixture;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+@RunWith(RobolectricGradleTestRunner.class)
+public class PaymentMethodNoncesDiffUnitTest {
+
+    @Test
+    public void between_isEmptyForTheSamePaymentMethods() throws JSONException {
+        List<PaymentMethodNonce> previous = PaymentMethodNonce.parsePaymentMethodNonces(
+                stringFromFixture("payment_methods/get_payment_methods_response.json"));
+        List<PaymentMethodNonce> current = PaymentMethodNonce.parsePaymentMethodNonces(
+                stringFromFixture("payment_methods/get_payment_methods_response.json"));
+
+        PaymentMethodNoncesDiff diff = PaymentMethodNoncesDiff.between(previous, current);
+
+        assertTrue(diff.isEmpty());
+        assertEquals(4, diff.getPaymentMethodNonces().size());
+    }
+
+    @Test
+    public void between_findsAddedAndRemovedPaymentMethods() throws JSONException {
+        List<PaymentMethodNonce> paymentMethodNonces = PaymentMethodNonce.parsePaymentMethodNonces(
+                stringFromFixture("payment_methods/get_payment_methods_response.json"));
+
+        PaymentMethodNoncesDiff diff = PaymentMethodNoncesDiff.between(paymentMethodNonces.subList(0, 3),
+                paymentMethodNonces.subList(1, 4));
+
+        assertFalse(diff.isEmpty());
+        assertEquals(1, diff.getAdded().size());
+        assertSame(paymentMethodNonces.get(3), diff.getAdded().get(0));
+        assertEquals(1, diff.getRemoved().size());
+        assertSame(paymentMethodNonces.get(0), diff.getRemoved().get(0));
+        assertEquals(0, diff.getUpdated().size());
+        assertEquals(3, diff.getPaymentMethodNonces().size());
+    }
+
+    @Test
+    public void between_findsPaymentMethodsWithNewNonces() throws JSONException {
+        List<PaymentMethodNonce> previous = PaymentMethodNonce.parsePaymentMethodNonces(
+                stringFromFixture("payment_methods/get_payment_methods_response.json"));
+        List<PaymentMethodNonce> current = PaymentMethodNonce.parsePaymentMethodNonces(
+                stringFromFixture("payment_methods/get_payment_methods_response.json")
+                        .replace("fake-venmo-nonce", "new-fake-venmo-nonce"));
+
+        PaymentMethodNoncesDiff diff = PaymentMethodNoncesDiff.between(previous, current);
+
+        assertEquals(0, diff.getAdded().size());
+        assertEquals(0, diff.getRemoved().size());
+        assertEquals(1, diff.getUpdated().size());
+        assertEquals("new-fake-venmo-nonce", diff.getUpdated().get(0).getNonce());
+    }
+
+    @Test
+    public void between_matchesPaymentMethodsWithTheSameDescriptionSeparately() throws JSONException {
+        String response = stringFromFixture("payment_methods/get_payment_methods_response.json");
+        PaymentMethodNonce card = PaymentMethodNonce.parsePaymentMethodNonces(response).get(0);
+        PaymentMethodNonce duplicateCard = PaymentMethodNonce.parsePaymentMethodNonces(
+                response.replace("123456-12345-12345-a-adfa", "duplicate-card-nonce")).get(0);
+        PaymentMethodNonce currentCard = PaymentMethodNonce.parsePaymentMethodNonces(
+                response.replace("123456-12345-12345-a-adfa", "duplicate-card-nonce")).get(0);
+
+        PaymentMethodNoncesDiff diff = PaymentMethodNoncesDiff.between(Arrays.asList(card, duplicateCard),
+                Arrays.asList(currentCard));
+
+        assertEquals(0, diff.getAdded().size());
+        assertEquals(1, diff.getRemoved().size());
+        assertSame(card, diff.getRemoved().get(0));
+        assertEquals(0, diff.getUpdated().size());
+    }
+}
@@ -9,9 +9,11 @@ import org.junit.runner.RunWith;
 import org.robolectric.RobolectricGradleTestRunner;
 import org.robolectric.RuntimeEnvironment;
 
+import static junit.framework.Assert.assertFalse;
 import static junit.framework.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -42,6 +44,20 @@ public class ThreeDSecureWebChromeClientUnitTest {
         verify(message).sendToTarget();
     }
 
+    @Test
+    public void onCreateWindow_refusesWindowsOverTheLimit() {
+        when(mActivity.isWebViewLimitReached()).thenReturn(true);
+        WebView.WebViewTransport webViewTransport = mock(WebView.WebViewTransport.class);
+        Message message = mock(Message.class);
+        message.obj = webViewTransport;
+
+        boolean result = mThreeDSecureWebChromeClient.onCreateWindow(null, false, false, message);
+
+        assertFalse(result);
+        verify(mActivity, never()).pushNewWebView(any(ThreeDSecureWebView.class));
+        verify(message, never()).sendToTarget();
+    }
+
     @Test
     public void onCloseWindow_popsCurrentWebView() {
         mThreeDSecureWebChromeClient.onCloseWindow(null);
@@ -0,0 +1,82 @@
+package com.braintreepayments.api.threedsecure;
+
+import android.app.Activity;
+import android.content.MutableContextWrapper;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowLooper;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+@RunWith(RobolectricGradleTestRunner.class)
+public class ThreeDSecureWebViewPoolUnitTest {
+
+    @After
+    public void tearDown() {
+        ThreeDSecureWebViewPool.clear();
+    }
+
+    @Test
+    public void prewarm_createsAWebView() {
+        ThreeDSecureWebViewPool.prewarm(RuntimeEnvironment.application);
+
+        assertEquals(1, ThreeDSecureWebViewPool.getIdleCount());
+    }
+
+    @Test
+    public void prewarm_doesNotExceedThePoolSize() {
+        for (int i = 0; i <= ThreeDSecureWebViewPool.MAX_IDLE_WEB_VIEWS; i++) {
+            ThreeDSecureWebViewPool.prewarm(RuntimeEnvironment.application);
+        }
+
+        assertEquals(ThreeDSecureWebViewPool.MAX_IDLE_WEB_VIEWS, ThreeDSecureWebViewPool.getIdleCount());
+    }
+
+    @Test
+    public void acquire_returnsThePrewarmedWebViewInTheGivenContext() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        ThreeDSecureWebViewPool.prewarm(RuntimeEnvironment.application);
+
+        ThreeDSecureWebView webView = ThreeDSecureWebViewPool.acquire(activity);
+
+        assertTrue(webView.getContext() instanceof MutableContextWrapper);
+        assertSame(activity, ((MutableContextWrapper) webView.getContext()).getBaseContext());
+        assertEquals(0, ThreeDSecureWebViewPool.getIdleCount());
+    }
+
+    @Test
+    public void acquire_createsAWebViewWhenThePoolIsEmpty() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+
+        ThreeDSecureWebView webView = ThreeDSecureWebViewPool.acquire(activity);
+
+        assertFalse(webView.getContext() instanceof MutableContextWrapper);
+        assertEquals(0, ThreeDSecureWebViewPool.getIdleCount());
+    }
+
+    @Test
+    public void idleWebViewsAreDestroyedAfterTheIdleTimeout() {
+        ThreeDSecureWebViewPool.prewarm(RuntimeEnvironment.application);
+
+        ShadowLooper.idleMainLooper(ThreeDSecureWebViewPool.IDLE_TIMEOUT_MILLIS);
+
+        assertEquals(0, ThreeDSecureWebViewPool.getIdleCount());
+    }
+
+    @Test
+    public void clear_destroysIdleWebViews() {
+        ThreeDSecureWebViewPool.prewarm(RuntimeEnvironment.application);
+
+        ThreeDSecureWebViewPool.clear();
+
+        assertEquals(0, ThreeDSecureWebViewPool.getIdleCount());
+    }
+}
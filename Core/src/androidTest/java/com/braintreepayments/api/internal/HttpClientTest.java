@@ -12,8 +12,12 @@ import com.braintreepayments.api.exceptions.ServerException;
 import com.braintreepayments.api.exceptions.UnexpectedException;
 import com.braintreepayments.api.exceptions.UnprocessableEntityException;
 import com.braintreepayments.api.exceptions.UpgradeRequiredException;
+import com.braintreepayments.api.interfaces.HttpEventListener;
 import com.braintreepayments.api.interfaces.HttpResponseCallback;
+import com.braintreepayments.api.internal.HttpEvent.Phase;
 
+import org.junit.After;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
@@ -26,15 +30,32 @@ import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Field;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
 
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLException;
 import javax.net.ssl.SSLSocketFactory;
 
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okio.Buffer;
+
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotSame;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
 import static junit.framework.Assert.assertTrue;
 import static junit.framework.Assert.fail;
 import static org.mockito.Matchers.any;
@@ -48,6 +69,19 @@ import static org.mockito.Mockito.when;
 @RunWith(AndroidJUnit4.class)
 public class HttpClientTest {
 
+    private MockWebServer mServer;
+
+    @Before
+    public void setup() throws IOException {
+        mServer = new MockWebServer();
+        mServer.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        mServer.shutdown();
+    }
+
     @Test(timeout = 1000)
     public void sendsDefaultUserAgentWhenNoUserAgentIsSet() throws IOException {
         HttpClient httpClient = new HttpClient();
@@ -387,6 +421,270 @@ public class HttpClientTest {
         assertEquals(data, output.toString());
     }
 
+    @Test(timeout = 1000)
+    public void writeStream_leavesClosingTheStreamToTheCaller() throws IOException {
+        HttpClient httpClient = new HttpClient();
+        final AtomicInteger closeCount = new AtomicInteger();
+        ByteArrayOutputStream output = new ByteArrayOutputStream() {
+            @Override
+            public void close() throws IOException {
+                closeCount.incrementAndGet();
+                super.close();
+            }
+        };
+
+        httpClient.writeOutputStream(output, "data");
+
+        assertEquals(0, closeCount.get());
+    }
+
+    @Test(timeout = 5000)
+    public void post_decodesOnRequestThreadAndDeliversOnCallbackExecutor() throws Exception {
+        mServer.enqueue(new MockResponse().setBody("{\"value\": \"decoded\"}"));
+        ExecutorService callbackExecutor = Executors.newSingleThreadExecutor();
+        final Thread callbackThread = callbackExecutor.submit(new Callable<Thread>() {
+            @Override
+            public Thread call() {
+                return Thread.currentThread();
+            }
+        }).get();
+        final AtomicReference<Thread> decodeThread = new AtomicReference<>();
+        final AtomicReference<Thread> deliveryThread = new AtomicReference<>();
+        final AtomicReference<String> decoded = new AtomicReference<>();
+        final CountDownLatch countDownLatch = new CountDownLatch(1);
+        HttpClient httpClient = new HttpClient()
+                .setBaseUrl(mServer.url("/").toString())
+                .setCallbackExecutor(callbackExecutor);
+
+        httpClient.post("decode", "{}", new DecodingHttpResponseCallback<String>() {
+            @Override
+            protected String decode(String responseBody) throws Exception {
+                decodeThread.set(Thread.currentThread());
+                return responseBody;
+            }
+
+            @Override
+            public void onDecoded(String response) {
+                deliveryThread.set(Thread.currentThread());
+                decoded.set(response);
+                countDownLatch.countDown();
+            }
+
+            @Override
+            public void failure(Exception exception) {
+                countDownLatch.countDown();
+            }
+        });
+
+        countDownLatch.await();
+        callbackExecutor.shutdown();
+
+        assertEquals("{\"value\": \"decoded\"}", decoded.get());
+        assertSame(callbackThread, deliveryThread.get());
+        assertNotSame(callbackThread, decodeThread.get());
+        assertNotSame(Thread.currentThread(), decodeThread.get());
+    }
+
+    @Test(timeout = 5000)
+    public void post_deliversDecodeFailuresToFailure() throws Exception {
+        mServer.enqueue(new MockResponse().setBody("{}"));
+        ExecutorService callbackExecutor = Executors.newSingleThreadExecutor();
+        final AtomicReference<Exception> error = new AtomicReference<>();
+        final CountDownLatch countDownLatch = new CountDownLatch(1);
+        HttpClient httpClient = new HttpClient()
+                .setBaseUrl(mServer.url("/").toString())
+                .setCallbackExecutor(callbackExecutor);
+
+        httpClient.post("decode", "{}", new DecodingHttpResponseCallback<String>() {
+            @Override
+            protected String decode(String responseBody) throws Exception {
+                throw new UnexpectedException("Decoding failed");
+            }
+
+            @Override
+            public void onDecoded(String response) {
+                countDownLatch.countDown();
+            }
+
+            @Override
+            public void failure(Exception exception) {
+                error.set(exception);
+                countDownLatch.countDown();
+            }
+        });
+
+        countDownLatch.await();
+        callbackExecutor.shutdown();
+
+        assertEquals("Decoding failed", error.get().getMessage());
+    }
+
+    @Test(timeout = 5000)
+    public void cancel_abortsInFlightRequestAndSuppressesCallback() throws Exception {
+        mServer.enqueue(new MockResponse().setBody("{}").setBodyDelay(1, TimeUnit.SECONDS));
+        ExecutorService callbackExecutor = Executors.newSingleThreadExecutor();
+        final CountDownLatch countDownLatch = new CountDownLatch(1);
+        HttpClient httpClient = new HttpClient()
+                .setBaseUrl(mServer.url("/").toString())
+                .setCallbackExecutor(callbackExecutor);
+
+        HttpRequest request = httpClient.startPost("slow", "{}", new HttpResponseCallback() {
+            @Override
+            public void success(String responseBody) {
+                countDownLatch.countDown();
+            }
+
+            @Override
+            public void failure(Exception exception) {
+                countDownLatch.countDown();
+            }
+        });
+        mServer.takeRequest();
+
+        assertTrue(request.cancel());
+        assertTrue(request.isCancelled());
+        assertFalse(request.cancel());
+        assertFalse(countDownLatch.await(1500, TimeUnit.MILLISECONDS));
+        callbackExecutor.shutdown();
+    }
+
+    @Test(timeout = 5000)
+    public void cancel_returnsFalseOnceCallbackHasBeenCalled() throws Exception {
+        mServer.enqueue(new MockResponse().setBody("{}"));
+        ExecutorService callbackExecutor = Executors.newSingleThreadExecutor();
+        final CountDownLatch countDownLatch = new CountDownLatch(1);
+        HttpClient httpClient = new HttpClient()
+                .setBaseUrl(mServer.url("/").toString())
+                .setCallbackExecutor(callbackExecutor);
+
+        HttpRequest request = httpClient.startPost("fast", "{}", new HttpResponseCallback() {
+            @Override
+            public void success(String responseBody) {
+                countDownLatch.countDown();
+            }
+
+            @Override
+            public void failure(Exception exception) {}
+        });
+        countDownLatch.await();
+
+        assertFalse(request.cancel());
+        assertFalse(request.isCancelled());
+        callbackExecutor.shutdown();
+    }
+
+    @Test(timeout = 5000)
+    public void cancelAll_cancelsOutstandingRequests() throws Exception {
+        mServer.enqueue(new MockResponse().setBody("{}").setBodyDelay(1, TimeUnit.SECONDS));
+        mServer.enqueue(new MockResponse().setBody("{}").setBodyDelay(1, TimeUnit.SECONDS));
+        ExecutorService callbackExecutor = Executors.newSingleThreadExecutor();
+        final CountDownLatch countDownLatch = new CountDownLatch(2);
+        HttpResponseCallback callback = new HttpResponseCallback() {
+            @Override
+            public void success(String responseBody) {
+                countDownLatch.countDown();
+            }
+
+            @Override
+            public void failure(Exception exception) {
+                countDownLatch.countDown();
+            }
+        };
+        HttpClient httpClient = new HttpClient()
+                .setBaseUrl(mServer.url("/").toString())
+                .setCallbackExecutor(callbackExecutor);
+
+        HttpRequest first = httpClient.startPost("slow", "{}", callback);
+        HttpRequest second = httpClient.startPost("slow", "{}", callback);
+        httpClient.cancelAll();
+
+        assertTrue(first.isCancelled());
+        assertTrue(second.isCancelled());
+        assertFalse(countDownLatch.await(1500, TimeUnit.MILLISECONDS));
+        callbackExecutor.shutdown();
+    }
+
+    @Test(timeout = 5000)
+    public void post_reportsHttpEvent() throws Exception {
+        mServer.enqueue(new MockResponse()
+                .setResponseCode(201)
+                .addHeader("Content-Encoding", "gzip")
+                .setBody(gzip(repeat("{\"value\": \"compressible\"}", 100))));
+        final List<HttpEvent> events = Collections.synchronizedList(new ArrayList<HttpEvent>());
+        HttpClient httpClient = new HttpClient()
+                .setBaseUrl(mServer.url("/").toString())
+                .setHttpEventListener(new HttpEventListener() {
+                    @Override
+                    public void onHttpEvent(HttpEvent event) {
+                        events.add(event);
+                    }
+                });
+
+        httpClient.post("events", "{\"amount\": \"1.00\"}");
+
+        assertEquals(1, events.size());
+        HttpEvent event = events.get(0);
+        assertEquals(HttpEvent.OPERATION_UNKNOWN, event.getOperation());
+        assertEquals("POST", event.getMethod());
+        assertEquals(201, event.getResponseCode());
+        assertNull(event.getException());
+        for (Phase phase : new Phase[] { Phase.DNS, Phase.CONNECT, Phase.REQUEST_WRITE, Phase.TIME_TO_FIRST_BYTE,
+                Phase.RESPONSE_READ, Phase.TOTAL }) {
+            assertTrue(phase.name(), event.getDurationMillis(phase) >= 0);
+        }
+        assertEquals(-1, event.getDurationMillis(Phase.SECURE_CONNECT));
+        assertTrue(event.getBytesSent() > 0);
+        assertTrue(event.isGzip());
+        assertTrue(event.getBytesReceived() > 0);
+        assertTrue(event.getGzipRatio() > 1);
+    }
+
+    @Test(timeout = 5000)
+    public void post_skipsConnectionPhasesWhenNotRequested() throws Exception {
+        mServer.enqueue(new MockResponse().setBody("{}"));
+        final List<HttpEvent> events = Collections.synchronizedList(new ArrayList<HttpEvent>());
+        HttpClient httpClient = new HttpClient()
+                .setBaseUrl(mServer.url("/").toString())
+                .setHttpEventListener(new HttpEventListener() {
+                    @Override
+                    public void onHttpEvent(HttpEvent event) {
+                        events.add(event);
+                    }
+                }, false);
+
+        httpClient.post("events", "{}");
+
+        assertEquals(1, events.size());
+        assertEquals(-1, events.get(0).getDurationMillis(Phase.DNS));
+        assertEquals(-1, events.get(0).getDurationMillis(Phase.CONNECT));
+        assertTrue(events.get(0).getDurationMillis(Phase.TOTAL) >= 0);
+    }
+
+    @Test(timeout = 5000)
+    public void post_reportsHttpEventWithExceptionForFailedRequests() throws Exception {
+        mServer.enqueue(new MockResponse().setResponseCode(422).setBody("{\"error\": {\"message\": \"Invalid\"}}"));
+        final List<HttpEvent> events = Collections.synchronizedList(new ArrayList<HttpEvent>());
+        HttpClient httpClient = new HttpClient()
+                .setBaseUrl(mServer.url("/").toString())
+                .setHttpEventListener(new HttpEventListener() {
+                    @Override
+                    public void onHttpEvent(HttpEvent event) {
+                        events.add(event);
+                    }
+                });
+
+        try {
+            httpClient.post("events", "{}");
+            fail("Expected UnprocessableEntityException");
+        } catch (UnprocessableEntityException ignored) {}
+
+        assertEquals(1, events.size());
+        assertEquals(422, events.get(0).getResponseCode());
+        assertTrue(events.get(0).getException() instanceof UnprocessableEntityException);
+        assertFalse(events.get(0).isGzip());
+        assertEquals(1.0, events.get(0).getGzipRatio());
+    }
+
     /* helpers */
     private void assertExceptionIsPosted(HttpClient httpClient, final Class<? extends Exception> exceptionType,
             final String exceptionMessage) throws IOException, InterruptedException {
@@ -446,4 +744,20 @@ public class HttpClientTest {
     private InputStream streamFromString(String string) throws UnsupportedEncodingException {
         return new ByteArrayInputStream(string.getBytes("UTF-8"));
     }
+
+    private static String repeat(String string, int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.append(string);
+        }
+        return builder.toString();
+    }
+
+    private static Buffer gzip(String string) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        GZIPOutputStream gzipOutputStream = new GZIPOutputStream(bytes);
+        gzipOutputStream.write(string.getBytes("UTF-8"));
+        gzipOutputStream.close();
+        return new Buffer().write(bytes.toByteArray());
+    }
 }
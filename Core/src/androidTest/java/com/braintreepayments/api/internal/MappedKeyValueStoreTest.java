@@ -0,0 +1,235 @@
+package com.braintreepayments.api.internal;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.SharedPreferences.OnSharedPreferenceChangeListener;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static android.support.test.InstrumentationRegistry.getTargetContext;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+@RunWith(AndroidJUnit4.class)
+public class MappedKeyValueStoreTest {
+
+    private File mFile;
+    private SharedPreferences mLegacyPreferences;
+
+    @Before
+    public void setup() {
+        mFile = new File(getTargetContext().getFilesDir(), "store");
+        mFile.delete();
+        mLegacyPreferences = getTargetContext().getSharedPreferences("legacy", Context.MODE_PRIVATE);
+        mLegacyPreferences.edit().clear().commit();
+    }
+
+    @Test
+    public void storesEveryValueType() {
+        MappedKeyValueStore store = new MappedKeyValueStore(mFile, null);
+
+        store.edit()
+                .putString("string", "value")
+                .putInt("int", 1)
+                .putLong("long", 2L)
+                .putFloat("float", 3.5f)
+                .putBoolean("boolean", true)
+                .putStringSet("set", new HashSet<>(Arrays.asList("a", "b")))
+                .apply();
+
+        assertEquals("value", store.getString("string", null));
+        assertEquals(1, store.getInt("int", 0));
+        assertEquals(2L, store.getLong("long", 0));
+        assertEquals(3.5f, store.getFloat("float", 0));
+        assertTrue(store.getBoolean("boolean", false));
+        assertEquals(new HashSet<>(Arrays.asList("a", "b")), store.getStringSet("set", null));
+        assertEquals(6, store.getAll().size());
+    }
+
+    @Test
+    public void replaysTheLogWhenReopened() {
+        MappedKeyValueStore store = new MappedKeyValueStore(mFile, null);
+        store.edit()
+                .putString("string", "value")
+                .putLong("long", 2L)
+                .putStringSet("set", new HashSet<>(Arrays.asList("a", "b")))
+                .commit();
+        store.edit()
+                .remove("long")
+                .commit();
+
+        MappedKeyValueStore reopened = new MappedKeyValueStore(mFile, null);
+
+        assertEquals("value", reopened.getString("string", null));
+        assertFalse(reopened.contains("long"));
+        assertEquals(new HashSet<>(Arrays.asList("a", "b")), reopened.getStringSet("set", null));
+    }
+
+    @Test
+    public void clearIsAppliedBeforeOtherChanges() {
+        MappedKeyValueStore store = new MappedKeyValueStore(mFile, null);
+        store.edit()
+                .putString("old", "value")
+                .commit();
+
+        store.edit()
+                .putString("new", "value")
+                .clear()
+                .commit();
+
+        MappedKeyValueStore reopened = new MappedKeyValueStore(mFile, null);
+        assertFalse(reopened.contains("old"));
+        assertEquals("value", reopened.getString("new", null));
+    }
+
+    @Test
+    public void ignoresRecordsThatFailTheirChecksum() throws IOException {
+        MappedKeyValueStore store = new MappedKeyValueStore(mFile, null);
+        store.edit().putString("first", "value").commit();
+        int end = store.getLogSize();
+        store.edit().putString("second", "value").commit();
+
+        RandomAccessFile file = new RandomAccessFile(mFile, "rw");
+        file.seek(end + 12);
+        file.write(0xff);
+        file.close();
+
+        MappedKeyValueStore reopened = new MappedKeyValueStore(mFile, null);
+        assertEquals("value", reopened.getString("first", null));
+        assertNull(reopened.getString("second", null));
+        assertEquals(end, reopened.getLogSize());
+    }
+
+    @Test
+    public void compactsTheLogWhenMostOfItIsOverwritten() {
+        char[] chars = new char[1024];
+        Arrays.fill(chars, 'a');
+        String value = new String(chars);
+        MappedKeyValueStore store = new MappedKeyValueStore(mFile, null);
+
+        for (int i = 0; i < 100; i++) {
+            store.edit().putString("key", value + i).apply();
+        }
+
+        assertTrue(store.getLogSize() < 16 * 1024);
+        assertTrue(mFile.length() < 32 * 1024);
+        assertEquals(value + 99, new MappedKeyValueStore(mFile, null).getString("key", null));
+    }
+
+    @Test
+    public void growsTheLogForLargeValues() {
+        char[] chars = new char[64 * 1024];
+        Arrays.fill(chars, 'a');
+        String value = new String(chars);
+        MappedKeyValueStore store = new MappedKeyValueStore(mFile, null);
+
+        store.edit().putString("key", value).commit();
+
+        assertEquals(value, new MappedKeyValueStore(mFile, null).getString("key", null));
+    }
+
+    @Test
+    public void movesLegacyPreferencesIntoANewStore() {
+        mLegacyPreferences.edit()
+                .putString("string", "value")
+                .putLong("long", 2L)
+                .commit();
+
+        MappedKeyValueStore store = new MappedKeyValueStore(mFile, mLegacyPreferences);
+
+        assertEquals("value", store.getString("string", null));
+        assertEquals(2L, store.getLong("long", 0));
+        assertTrue(mLegacyPreferences.getAll().isEmpty());
+        assertEquals("value", new MappedKeyValueStore(mFile, null).getString("string", null));
+    }
+
+    @Test
+    public void movesLegacyPreferencesAgainWhenAMigrationWasInterrupted() throws IOException {
+        mLegacyPreferences.edit()
+                .putString("string", "value")
+                .commit();
+        RandomAccessFile file = new RandomAccessFile(mFile, "rw");
+        file.setLength(4096);
+        file.close();
+
+        MappedKeyValueStore store = new MappedKeyValueStore(mFile, mLegacyPreferences);
+
+        assertEquals("value", store.getString("string", null));
+        assertTrue(mLegacyPreferences.getAll().isEmpty());
+        assertEquals("value", new MappedKeyValueStore(mFile, null).getString("string", null));
+    }
+
+    @Test
+    public void keepsLegacyPreferencesWhenTheStoreIsAlreadyOpen() {
+        new MappedKeyValueStore(mFile, null).edit().putString("string", "store").commit();
+        mLegacyPreferences.edit()
+                .putString("string", "legacy")
+                .commit();
+
+        MappedKeyValueStore store = new MappedKeyValueStore(mFile, mLegacyPreferences);
+
+        assertEquals("store", store.getString("string", null));
+        assertEquals("legacy", mLegacyPreferences.getString("string", null));
+    }
+
+    @Test
+    public void readsTheLastGoodLogWhenItCannotBeOpenedForWriting() {
+        mLegacyPreferences.edit()
+                .putString("string", "value")
+                .commit();
+        new MappedKeyValueStore(mFile, mLegacyPreferences).getAll();
+        assertTrue(mLegacyPreferences.getAll().isEmpty());
+
+        assertTrue(mFile.setWritable(false));
+        try {
+            MappedKeyValueStore store = new MappedKeyValueStore(mFile, mLegacyPreferences);
+
+            assertEquals("value", store.getString("string", null));
+            assertFalse(store.edit().putString("other", "value").commit());
+            assertEquals("value", store.getString("other", null));
+        } finally {
+            mFile.setWritable(true);
+        }
+
+        MappedKeyValueStore reopened = new MappedKeyValueStore(mFile, mLegacyPreferences);
+        assertEquals("value", reopened.getString("string", null));
+        assertFalse(reopened.contains("other"));
+    }
+
+    @Test
+    public void notifiesListenersOfChangedKeys() {
+        MappedKeyValueStore store = new MappedKeyValueStore(mFile, null);
+        OnSharedPreferenceChangeListener listener = mock(OnSharedPreferenceChangeListener.class);
+        store.registerOnSharedPreferenceChangeListener(listener);
+
+        store.edit().putString("key", "value").commit();
+
+        verify(listener, timeout(1000)).onSharedPreferenceChanged(store, "key");
+    }
+
+    @Test
+    public void braintreeSharedPreferences_returnsOneStorePerName() {
+        SharedPreferences preferences = BraintreeSharedPreferences.getSharedPreferences(
+                getTargetContext());
+
+        assertTrue(preferences instanceof MappedKeyValueStore);
+        assertSame(preferences, BraintreeSharedPreferences.getSharedPreferences(getTargetContext()));
+        assertFalse(preferences == BraintreeSharedPreferences.getSharedPreferences(getTargetContext(),
+                "PayPalOTC"));
+    }
+}
@@ -1,7 +1,13 @@
 package com.braintreepayments.api;
 
+import android.util.JsonWriter;
+
+import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.io.IOException;
+import java.util.Iterator;
+
 public class Json {
 
     /**
@@ -22,4 +28,50 @@ public class Json {
             return json.optString(name, fallback);
         }
     }
+
+    /**
+     * Writes the members of a {@link JSONObject} to an object already begun on a {@link JsonWriter} without
+     * serializing the {@link JSONObject} to a {@link String} first.
+     *
+     * @param writer the {@link JsonWriter} to write to.
+     * @param json the {@link JSONObject} whose members are written.
+     */
+    public static void writeFields(JsonWriter writer, JSONObject json) throws IOException {
+        Iterator<String> keys = json.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            writer.name(key);
+            writeValue(writer, json.opt(key));
+        }
+    }
+
+    /**
+     * Writes a value from a {@link JSONObject} or {@link JSONArray} to a {@link JsonWriter}.
+     *
+     * @param writer the {@link JsonWriter} to write to.
+     * @param value a {@link JSONObject}, {@link JSONArray}, {@link String}, {@link Boolean}, {@link Number} or
+     *        {@link JSONObject#NULL}.
+     */
+    public static void writeValue(JsonWriter writer, Object value) throws IOException {
+        if (value == null || value == JSONObject.NULL) {
+            writer.nullValue();
+        } else if (value instanceof JSONObject) {
+            writer.beginObject();
+            writeFields(writer, (JSONObject) value);
+            writer.endObject();
+        } else if (value instanceof JSONArray) {
+            JSONArray array = (JSONArray) value;
+            writer.beginArray();
+            for (int i = 0; i < array.length(); i++) {
+                writeValue(writer, array.opt(i));
+            }
+            writer.endArray();
+        } else if (value instanceof Boolean) {
+            writer.value((Boolean) value);
+        } else if (value instanceof Number) {
+            writer.value((Number) value);
+        } else {
+            writer.value(value.toString());
+        }
+    }
 }
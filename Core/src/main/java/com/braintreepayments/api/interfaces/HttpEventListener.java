@@ -0,0 +1,18 @@
+package com.braintreepayments.api.interfaces;
+
+import android.support.annotation.WorkerThread;
+
+import com.braintreepayments.api.internal.HttpEvent;
+
+/**
+ * Receives an {@link HttpEvent} with per-phase timing and size information once an HTTP request completes.
+ * Called on the thread that made the request, so implementations should be fast and thread safe.
+ */
+public interface HttpEventListener {
+
+    /**
+     * @param event timing and size information for the completed or failed request.
+     */
+    @WorkerThread
+    void onHttpEvent(HttpEvent event);
+}
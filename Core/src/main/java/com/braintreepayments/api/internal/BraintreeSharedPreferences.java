@@ -3,9 +3,43 @@ package com.braintreepayments.api.internal;
 import android.content.Context;
 import android.content.SharedPreferences;
 
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Storage for SDK state. Stores are {@link MappedKeyValueStore}s in the app's files directory, which take over
+ * the values of the SharedPreferences file of the same name until they have been opened successfully once. If a
+ * store cannot be opened the SharedPreferences file is used instead.
+ */
 public class BraintreeSharedPreferences {
 
+    private static final String DEFAULT_NAME = "BraintreeApi";
+    private static final String DIRECTORY = "com.braintreepayments.api.storage";
+
+    private static final Map<String, SharedPreferences> sStores = new HashMap<>();
+
     public static SharedPreferences getSharedPreferences(Context context) {
-        return context.getApplicationContext().getSharedPreferences("BraintreeApi", Context.MODE_PRIVATE);
+        return getSharedPreferences(context, DEFAULT_NAME);
+    }
+
+    /**
+     * @param context
+     * @param name the name of the store, and of the SharedPreferences file it replaces.
+     * @return the {@link SharedPreferences} for {@code name}, shared by every caller in the process.
+     */
+    public static SharedPreferences getSharedPreferences(Context context, String name) {
+        Context applicationContext = context.getApplicationContext();
+        File file = new File(new File(applicationContext.getFilesDir(), DIRECTORY), name);
+
+        synchronized (sStores) {
+            SharedPreferences store = sStores.get(file.getAbsolutePath());
+            if (store == null) {
+                store = new MappedKeyValueStore(file,
+                        applicationContext.getSharedPreferences(name, Context.MODE_PRIVATE));
+                sStores.put(file.getAbsolutePath(), store);
+            }
+            return store;
+        }
     }
 }
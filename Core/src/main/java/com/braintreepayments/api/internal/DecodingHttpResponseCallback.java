@@ -0,0 +1,58 @@
+package com.braintreepayments.api.internal;
+
+import android.support.annotation.Nullable;
+import android.support.annotation.WorkerThread;
+
+import com.braintreepayments.api.interfaces.HttpResponseCallback;
+
+import java.util.concurrent.Executor;
+
+/**
+ * {@link HttpResponseCallback} that decodes the response body into a model before it is delivered. When used
+ * with {@link HttpClient}, {@link #decode(String)} runs on the thread that made the request and only the decoded
+ * model is handed to the callback executor, keeping JSON parsing off the main thread.
+ *
+ * @param <T> the type of the decoded response.
+ */
+public abstract class DecodingHttpResponseCallback<T> implements HttpResponseCallback {
+
+    /**
+     * Decodes a successful response body. Exceptions thrown here are delivered to {@link #failure(Exception)}.
+     *
+     * @param responseBody the body of the successful response.
+     * @return the decoded response.
+     */
+    @WorkerThread
+    protected abstract T decode(String responseBody) throws Exception;
+
+    /**
+     * @param response the decoded response, delivered on the {@link HttpClient}'s callback executor.
+     */
+    public abstract void onDecoded(T response);
+
+    /**
+     * @return the {@link Executor} to deliver this callback on instead of the {@link HttpClient}'s callback
+     * executor, or {@code null} to use the client's executor.
+     */
+    @Nullable
+    protected Executor getCallbackExecutor() {
+        return null;
+    }
+
+    /**
+     * Decodes and delivers the response on the calling thread. {@link HttpClient} decodes before switching
+     * threads instead of calling this method.
+     */
+    @Override
+    public final void success(String responseBody) {
+        T response;
+        try {
+            response = decode(responseBody);
+        } catch (Exception e) {
+            failure(e);
+            return;
+        }
+
+        onDecoded(response);
+    }
+}
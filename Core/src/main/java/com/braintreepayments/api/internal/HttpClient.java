@@ -14,19 +14,30 @@ import com.braintreepayments.api.exceptions.ServerException;
 import com.braintreepayments.api.exceptions.UnexpectedException;
 import com.braintreepayments.api.exceptions.UnprocessableEntityException;
 import com.braintreepayments.api.exceptions.UpgradeRequiredException;
+import com.braintreepayments.api.interfaces.HttpEventListener;
 import com.braintreepayments.api.interfaces.HttpResponseCallback;
+import com.braintreepayments.api.internal.HttpEvent.Phase;
 
 import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
 import java.net.HttpURLConnection;
+import java.net.InetAddress;
 import java.net.URL;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.zip.GZIPInputStream;
 
@@ -49,28 +60,54 @@ public class HttpClient<T extends HttpClient> {
     private static final String UTF_8 = "UTF-8";
 
     private final Handler mMainThreadHandler;
+    private volatile Executor mCallbackExecutor;
 
     @VisibleForTesting
     protected final ExecutorService mThreadPool;
 
+    private final Set<HttpRequest> mOutstandingRequests = Collections.synchronizedSet(new HashSet<HttpRequest>());
+
     private String mUserAgent;
     private SSLSocketFactory mSSLSocketFactory;
     private int mConnectTimeout;
     private int mReadTimeout;
+    private volatile HttpEventListener mHttpEventListener;
+    private volatile boolean mTimeConnectionPhases;
 
     protected String mBaseUrl;
 
     public HttpClient() {
-        mThreadPool =  Executors.newCachedThreadPool();
+        this(Executors.newCachedThreadPool(), createDefaultSSLSocketFactory());
+    }
+
+    /**
+     * Creates an {@link HttpClient} that runs requests on {@code threadPool}, which may be shared with other
+     * {@link HttpClient}s. {@link #shutdown()} shuts down {@code threadPool}.
+     *
+     * @param threadPool the {@link ExecutorService} to run requests on.
+     * @param sslSocketFactory the {@link SSLSocketFactory} to use for https requests, or {@code null}.
+     */
+    protected HttpClient(ExecutorService threadPool, @Nullable SSLSocketFactory sslSocketFactory) {
+        mThreadPool = threadPool;
         mMainThreadHandler = new Handler(Looper.getMainLooper());
+        mCallbackExecutor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                mMainThreadHandler.post(command);
+            }
+        };
         mUserAgent = "braintree/core/" + BuildConfig.VERSION_NAME;
         mConnectTimeout = (int) TimeUnit.SECONDS.toMillis(30);
         mReadTimeout = (int) TimeUnit.SECONDS.toMillis(30);
+        mSSLSocketFactory = sslSocketFactory;
+    }
 
+    @Nullable
+    private static SSLSocketFactory createDefaultSSLSocketFactory() {
         try {
-            mSSLSocketFactory = new TLSSocketFactory();
+            return new TLSSocketFactory();
         } catch (SSLException e) {
-            mSSLSocketFactory = null;
+            return null;
         }
     }
 
@@ -125,17 +162,66 @@ public class HttpClient<T extends HttpClient> {
         return (T) this;
     }
 
+    /**
+     * @param executor the {@link Executor} {@link HttpResponseCallback}s are invoked on. Defaults to the main
+     * thread. Responses for {@link DecodingHttpResponseCallback}s are decoded before being handed to the executor.
+     * @return {@link HttpClient} for method chaining.
+     */
+    @SuppressWarnings("unchecked")
+    public T setCallbackExecutor(Executor executor) {
+        mCallbackExecutor = executor;
+        return (T) this;
+    }
+
+    /**
+     * @param listener the {@link HttpEventListener} to receive timing and size information for each request,
+     * or {@code null} to stop receiving events.
+     * @return {@link HttpClient} for method chaining.
+     */
+    public T setHttpEventListener(@Nullable HttpEventListener listener) {
+        return setHttpEventListener(listener, true);
+    }
+
+    /**
+     * @param listener the {@link HttpEventListener} to receive timing and size information for each request,
+     * or {@code null} to stop receiving events.
+     * @param timeConnectionPhases {@code true} to time DNS, connection establishment and the TLS handshake
+     * separately, which costs an extra host lookup per request. When {@code false} those phases are reported as
+     * {@code -1}.
+     * @return {@link HttpClient} for method chaining.
+     */
+    @SuppressWarnings("unchecked")
+    public T setHttpEventListener(@Nullable HttpEventListener listener, boolean timeConnectionPhases) {
+        mTimeConnectionPhases = timeConnectionPhases;
+        mHttpEventListener = listener;
+        return (T) this;
+    }
+
+    /**
+     * Make a HTTP GET request to using the base url and path provided. If the path is a full url,
+     * it will be used instead of the previously provided base url.
+     *
+     * @param path The path or url to request from the server via GET
+     * @param callback The {@link HttpResponseCallback} to receive the response or error.
+     * @see #startGet(String, HttpResponseCallback)
+     */
+    public void get(String path, HttpResponseCallback callback) {
+        startGet(path, callback);
+    }
+
     /**
      * Make a HTTP GET request to using the base url and path provided. If the path is a full url,
      * it will be used instead of the previously provided base url.
      *
      * @param path The path or url to request from the server via GET
      * @param callback The {@link HttpResponseCallback} to receive the response or error.
+     * @return the {@link HttpRequest}, which can be used to cancel the request.
      */
-    public void get(final String path, final HttpResponseCallback callback) {
+    public HttpRequest startGet(final String path, final HttpResponseCallback callback) {
+        final HttpRequest request = newRequest();
         if (path == null) {
-            postCallbackOnMainThread(callback, new IllegalArgumentException("Path cannot be null"));
-            return;
+            deliverCallback(request, callback, new IllegalArgumentException("Path cannot be null"));
+            return request;
         }
 
         final String url;
@@ -145,23 +231,44 @@ public class HttpClient<T extends HttpClient> {
             url = mBaseUrl + path;
         }
 
-        mThreadPool.submit(new Runnable() {
+        submit(request, callback, new Runnable() {
             @Override
             public void run() {
+                HttpEvent event = startEvent(METHOD_GET, url);
                 HttpURLConnection connection = null;
                 try {
-                    connection = init(url);
+                    connection = open(url);
                     connection.setRequestMethod(METHOD_GET);
-                    postCallbackOnMainThread(callback, parseResponse(connection));
+                    connect(connection, event);
+                    deliverCallback(request, callback, parseResponse(connection));
                 } catch (Exception e) {
-                    postCallbackOnMainThread(callback, e);
+                    if (event != null) {
+                        event.setException(e);
+                    }
+                    deliverCallback(request, callback, e);
                 } finally {
                     if (connection != null) {
                         connection.disconnect();
                     }
+                    finishEvent(event);
                 }
             }
         });
+
+        return request;
+    }
+
+    /**
+     * Make a HTTP POST request using the base url and path provided. If the path is a full url,
+     * it will be used instead of the previously provided url.
+     *
+     * @param path The path or url to request from the server via HTTP POST
+     * @param data The body of the POST request
+     * @param callback The {@link HttpResponseCallback} to receive the response or error.
+     * @see #startPost(String, String, HttpResponseCallback)
+     */
+    public void post(String path, String data, HttpResponseCallback callback) {
+        startPost(path, data, callback);
     }
 
     /**
@@ -171,23 +278,57 @@ public class HttpClient<T extends HttpClient> {
      * @param path The path or url to request from the server via HTTP POST
      * @param data The body of the POST request
      * @param callback The {@link HttpResponseCallback} to receive the response or error.
+     * @return the {@link HttpRequest}, which can be used to cancel the request.
      */
-    public void post(final String path, final String data, final HttpResponseCallback callback) {
+    public HttpRequest startPost(final String path, final String data, final HttpResponseCallback callback) {
+        final HttpRequest request = newRequest();
         if (path == null) {
-            postCallbackOnMainThread(callback, new IllegalArgumentException("Path cannot be null"));
-            return;
+            deliverCallback(request, callback, new IllegalArgumentException("Path cannot be null"));
+            return request;
+        }
+
+        submit(request, callback, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    deliverCallback(request, callback, post(path, data));
+                } catch (Exception e) {
+                    deliverCallback(request, callback, e);
+                }
+            }
+        });
+
+        return request;
+    }
+
+    /**
+     * Make a HTTP POST request with a body that is written directly to the connection.
+     *
+     * @param path The path or url to request from the server via HTTP POST
+     * @param body The {@link RequestBody} of the POST request
+     * @param callback The {@link HttpResponseCallback} to receive the response or error.
+     * @return the {@link HttpRequest}, which can be used to cancel the request.
+     * @see #startPost(String, String, HttpResponseCallback)
+     */
+    public HttpRequest startPost(final String path, final RequestBody body, final HttpResponseCallback callback) {
+        final HttpRequest request = newRequest();
+        if (path == null) {
+            deliverCallback(request, callback, new IllegalArgumentException("Path cannot be null"));
+            return request;
         }
 
-        mThreadPool.submit(new Runnable() {
+        submit(request, callback, new Runnable() {
             @Override
             public void run() {
                 try {
-                    postCallbackOnMainThread(callback, post(path, data));
+                    deliverCallback(request, callback, post(path, body));
                 } catch (Exception e) {
-                    postCallbackOnMainThread(callback, e);
+                    deliverCallback(request, callback, e);
                 }
             }
         });
+
+        return request;
     }
 
     /**
@@ -200,28 +341,189 @@ public class HttpClient<T extends HttpClient> {
      * @see HttpClient#post(String, String, HttpResponseCallback)
      * @throws Exception
      */
-    public String post(String path, String data) throws Exception {
-        HttpURLConnection connection = null;
-        try {
-            if (path.startsWith("http")) {
-                connection = init(path);
-            } else {
-                connection = init(mBaseUrl + path);
+    public String post(String path, final String data) throws Exception {
+        return post(path, new RequestBody() {
+            @Override
+            public void writeTo(OutputStream outputStream) throws IOException {
+                writeOutputStream(outputStream, data);
             }
+        });
+    }
 
+    /**
+     * Performs a synchronous post request with a body that is written directly to the connection.
+     *
+     * @param path the path or url to request from the server via HTTP POST
+     * @param body the {@link RequestBody} of the post request
+     * @return The HTTP body the of the response
+     *
+     * @see HttpClient#startPost(String, RequestBody, HttpResponseCallback)
+     * @throws Exception
+     */
+    public String post(String path, RequestBody body) throws Exception {
+        String url = path.startsWith("http") ? path : mBaseUrl + path;
+        HttpEvent event = startEvent(METHOD_POST, url);
+        HttpURLConnection connection = null;
+        try {
+            connection = open(url);
             connection.setRequestMethod(METHOD_POST);
             connection.setDoOutput(true);
+            connect(connection, event);
 
-            writeOutputStream(connection.getOutputStream(), data);
+            if (event == null) {
+                writeBody(connection.getOutputStream(), body);
+            } else {
+                event.start(Phase.REQUEST_WRITE);
+                CountingOutputStream outputStream = new CountingOutputStream(connection.getOutputStream());
+                writeBody(outputStream, body);
+                event.setBytesSent(outputStream.mCount);
+                event.end(Phase.REQUEST_WRITE);
+            }
 
             return parseResponse(connection);
+        } catch (Exception e) {
+            if (event != null) {
+                event.setException(e);
+            }
+            throw e;
         } finally {
             if (connection != null) {
                 connection.disconnect();
             }
+            finishEvent(event);
+        }
+    }
+
+    /**
+     * Cancels every asynchronous request that has not called its callback yet.
+     *
+     * @see HttpRequest#cancel()
+     */
+    public void cancelAll() {
+        List<HttpRequest> requests;
+        synchronized (mOutstandingRequests) {
+            requests = new ArrayList<>(mOutstandingRequests);
+        }
+
+        for (HttpRequest request : requests) {
+            request.cancel();
         }
     }
 
+    /**
+     * Stops accepting new requests and releases the threads used by this {@link HttpClient} once requests
+     * already in progress have completed. Requests made after shutdown fail with a
+     * {@link RejectedExecutionException}.
+     */
+    public void shutdown() {
+        mThreadPool.shutdown();
+    }
+
+    /**
+     * @return {@code true} if {@link #shutdown()} has been called, {@code false} otherwise.
+     */
+    public boolean isShutdown() {
+        return mThreadPool.isShutdown();
+    }
+
+    private HttpRequest newRequest() {
+        HttpRequest request = new HttpRequest(mOutstandingRequests);
+        mOutstandingRequests.add(request);
+        return request;
+    }
+
+    private void submit(final HttpRequest request, HttpResponseCallback callback, final Runnable runnable) {
+        try {
+            request.setFuture(mThreadPool.submit(new Runnable() {
+                @Override
+                public void run() {
+                    if (request.isCancelled()) {
+                        return;
+                    }
+
+                    HttpRequest.setCurrent(request);
+                    try {
+                        runnable.run();
+                    } finally {
+                        HttpRequest.setCurrent(null);
+                    }
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            deliverCallback(request, callback, e);
+        }
+    }
+
+    /**
+     * Opens a connection and registers it with the {@link HttpRequest} being made on the current thread so
+     * cancelling the request disconnects it.
+     */
+    private HttpURLConnection open(String url) throws IOException {
+        HttpURLConnection connection = init(url);
+        HttpRequest request = HttpRequest.current();
+        if (request != null && !request.setConnection(connection)) {
+            connection.disconnect();
+            throw new IOException("Request was cancelled");
+        }
+        return connection;
+    }
+
+    /**
+     * @param method the HTTP method of the request.
+     * @param url the full url of the request.
+     * @return the logical operation the request is made for, used to tag {@link HttpEvent}s. One of the
+     * {@code HttpEvent.OPERATION_} constants.
+     */
+    protected String getOperation(String method, String url) {
+        return HttpEvent.OPERATION_UNKNOWN;
+    }
+
+    @Nullable
+    private HttpEvent startEvent(String method, String url) {
+        if (mHttpEventListener == null) {
+            return null;
+        }
+
+        HttpEvent event = new HttpEvent(getOperation(method, url), method, url);
+        event.start(Phase.TOTAL);
+        HttpEvent.setCurrent(event);
+        return event;
+    }
+
+    private void finishEvent(@Nullable HttpEvent event) {
+        if (event == null) {
+            return;
+        }
+
+        HttpEvent.setCurrent(null);
+        event.end(Phase.TOTAL);
+
+        HttpEventListener listener = mHttpEventListener;
+        if (listener != null) {
+            listener.onHttpEvent(event);
+        }
+    }
+
+    /**
+     * Resolves the host and opens the connection ahead of writing the request so DNS and connection
+     * establishment can be timed separately. A DNS failure is left for the connection attempt to report.
+     */
+    private void connect(HttpURLConnection connection, @Nullable HttpEvent event) throws IOException {
+        if (event == null || !mTimeConnectionPhases) {
+            return;
+        }
+
+        event.start(Phase.DNS);
+        try {
+            InetAddress.getAllByName(connection.getURL().getHost());
+            event.end(Phase.DNS);
+        } catch (UnknownHostException ignored) {}
+
+        event.start(Phase.CONNECT);
+        connection.connect();
+        event.end(Phase.CONNECT);
+    }
+
     protected HttpURLConnection init(String url) throws IOException {
         HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
 
@@ -243,15 +545,37 @@ public class HttpClient<T extends HttpClient> {
         return connection;
     }
 
+    /**
+     * Writes {@code data} to the request body. The stream is flushed and closed by the caller.
+     */
     protected void writeOutputStream(OutputStream outputStream, String data) throws IOException {
-        Writer out = new OutputStreamWriter(outputStream, UTF_8);
-        out.write(data, 0, data.length());
-        out.flush();
-        out.close();
+        outputStream.write(data.getBytes(UTF_8));
+    }
+
+    /**
+     * Writes {@code body} and closes the stream. This is the only place request streams are closed.
+     */
+    private static void writeBody(OutputStream outputStream, RequestBody body) throws IOException {
+        try {
+            body.writeTo(outputStream);
+            outputStream.flush();
+        } finally {
+            outputStream.close();
+        }
     }
 
     protected String parseResponse(HttpURLConnection connection) throws Exception {
+        HttpEvent event = HttpEvent.current();
+        if (event != null) {
+            event.start(Phase.TIME_TO_FIRST_BYTE);
+        }
+
         int responseCode = connection.getResponseCode();
+        if (event != null) {
+            event.end(Phase.TIME_TO_FIRST_BYTE);
+            event.setResponseCode(responseCode);
+        }
+
         boolean gzip = "gzip".equals(connection.getContentEncoding());
         switch(responseCode) {
             case HTTP_OK: case HTTP_CREATED: case HTTP_ACCEPTED:
@@ -275,12 +599,35 @@ public class HttpClient<T extends HttpClient> {
         }
     }
 
-    void postCallbackOnMainThread(final HttpResponseCallback callback, final String response) {
+    /**
+     * Delivers a response to {@code callback} on the callback executor, the main thread unless changed with
+     * {@link #setCallbackExecutor(Executor)}.
+     */
+    void deliverCallback(HttpResponseCallback callback, String response) {
+        deliverCallback(null, callback, response);
+    }
+
+    void deliverCallback(HttpResponseCallback callback, Exception exception) {
+        deliverCallback(null, callback, exception);
+    }
+
+    private void deliverCallback(@Nullable HttpRequest request, final HttpResponseCallback callback,
+            final String response) {
         if (callback == null) {
+            if (request != null) {
+                request.finish();
+            }
+            return;
+        } else if (request != null && request.isCancelled()) {
             return;
         }
 
-        mMainThreadHandler.post(new Runnable() {
+        if (callback instanceof DecodingHttpResponseCallback) {
+            deliverDecodedCallback(request, (DecodingHttpResponseCallback<?>) callback, response);
+            return;
+        }
+
+        execute(request, mCallbackExecutor, new Runnable() {
             @Override
             public void run() {
                 callback.success(response);
@@ -288,12 +635,47 @@ public class HttpClient<T extends HttpClient> {
         });
     }
 
-    void postCallbackOnMainThread(final HttpResponseCallback callback, final Exception exception) {
+    private Executor getCallbackExecutor(HttpResponseCallback callback) {
+        if (callback instanceof DecodingHttpResponseCallback) {
+            Executor executor = ((DecodingHttpResponseCallback) callback).getCallbackExecutor();
+            if (executor != null) {
+                return executor;
+            }
+        }
+
+        return mCallbackExecutor;
+    }
+
+    private <D> void deliverDecodedCallback(@Nullable HttpRequest request,
+            final DecodingHttpResponseCallback<D> callback, String response) {
+        final D decoded;
+        try {
+            decoded = callback.decode(response);
+        } catch (Exception e) {
+            deliverCallback(request, callback, e);
+            return;
+        }
+
+        execute(request, getCallbackExecutor(callback), new Runnable() {
+            @Override
+            public void run() {
+                callback.onDecoded(decoded);
+            }
+        });
+    }
+
+    private void deliverCallback(@Nullable HttpRequest request, final HttpResponseCallback callback,
+            final Exception exception) {
         if (callback == null) {
+            if (request != null) {
+                request.finish();
+            }
+            return;
+        } else if (request != null && request.isCancelled()) {
             return;
         }
 
-        mMainThreadHandler.post(new Runnable() {
+        execute(request, getCallbackExecutor(callback), new Runnable() {
             @Override
             public void run() {
                 callback.failure(exception);
@@ -301,12 +683,33 @@ public class HttpClient<T extends HttpClient> {
         });
     }
 
+    /**
+     * Runs a callback on {@code executor} unless the request is cancelled before the callback starts.
+     */
+    private static void execute(@Nullable final HttpRequest request, Executor executor, final Runnable callback) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (request == null || request.finish()) {
+                    callback.run();
+                }
+            }
+        });
+    }
+
     @Nullable
     private String readStream(InputStream in, boolean gzip) throws IOException {
         if (in == null) {
             return null;
         }
 
+        HttpEvent event = HttpEvent.current();
+        CountingInputStream countingStream = null;
+        if (event != null) {
+            event.start(Phase.RESPONSE_READ);
+            in = countingStream = new CountingInputStream(in);
+        }
+
         try {
             if (gzip) {
                 in = new GZIPInputStream(in);
@@ -318,6 +721,11 @@ public class HttpClient<T extends HttpClient> {
                 out.write(buffer, 0, count);
             }
 
+            if (event != null) {
+                event.end(Phase.RESPONSE_READ);
+                event.setBytesReceived(countingStream.mCount, out.size(), gzip);
+            }
+
             return new String(out.toByteArray(), UTF_8);
         } finally {
             try {
@@ -325,4 +733,52 @@ public class HttpClient<T extends HttpClient> {
             } catch (IOException ignored) {}
         }
     }
+
+    private static class CountingInputStream extends FilterInputStream {
+
+        long mCount;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value != -1) {
+                mCount++;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int count = super.read(buffer, offset, length);
+            if (count > 0) {
+                mCount += count;
+            }
+            return count;
+        }
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        long mCount;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int value) throws IOException {
+            out.write(value);
+            mCount++;
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) throws IOException {
+            out.write(buffer, offset, length);
+            mCount += length;
+        }
+    }
 }
@@ -0,0 +1,217 @@
+package com.braintreepayments.api.internal;
+
+import android.support.annotation.Nullable;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Timing and size information for a single HTTP request made by {@link HttpClient}, delivered to an
+ * {@link com.braintreepayments.api.interfaces.HttpEventListener}. Timestamps are {@link System#nanoTime()} values
+ * and phases that were not observed, such as DNS or TLS on a reused connection, report {@code -1}.
+ */
+public class HttpEvent {
+
+    public static final String OPERATION_CONFIGURATION = "configuration";
+    public static final String OPERATION_TOKENIZE = "tokenize";
+    public static final String OPERATION_THREE_D_SECURE = "three_d_secure";
+    public static final String OPERATION_PAYPAL = "paypal";
+    public static final String OPERATION_UNIONPAY = "unionpay";
+    public static final String OPERATION_ANALYTICS = "analytics";
+    public static final String OPERATION_FPTI = "fpti";
+    public static final String OPERATION_UNKNOWN = "http";
+
+    public enum Phase {
+        DNS,
+        CONNECT,
+        SECURE_CONNECT,
+        REQUEST_WRITE,
+        TIME_TO_FIRST_BYTE,
+        RESPONSE_READ,
+        TOTAL
+    }
+
+    private static final ThreadLocal<HttpEvent> sCurrentEvent = new ThreadLocal<>();
+
+    private final String mOperation;
+    private final String mMethod;
+    private final String mUrl;
+    private final AtomicLongArray mStarts = new AtomicLongArray(Phase.values().length);
+    private final AtomicLongArray mEnds = new AtomicLongArray(Phase.values().length);
+
+    private int mResponseCode = -1;
+    private long mBytesSent;
+    private long mBytesReceived;
+    private long mDecodedBytesReceived;
+    private boolean mGzip;
+    private Exception mException;
+
+    HttpEvent(String operation, String method, String url) {
+        mOperation = operation;
+        mMethod = method;
+        mUrl = url;
+        for (int i = 0; i < mStarts.length(); i++) {
+            mStarts.set(i, -1);
+            mEnds.set(i, -1);
+        }
+    }
+
+    /**
+     * @return the {@link HttpEvent} for the request being made on the current thread, or {@code null} if
+     * no {@link com.braintreepayments.api.interfaces.HttpEventListener} is set.
+     */
+    @Nullable
+    static HttpEvent current() {
+        return sCurrentEvent.get();
+    }
+
+    static void setCurrent(@Nullable HttpEvent event) {
+        if (event == null) {
+            sCurrentEvent.remove();
+        } else {
+            sCurrentEvent.set(event);
+        }
+    }
+
+    void start(Phase phase) {
+        mStarts.set(phase.ordinal(), System.nanoTime());
+    }
+
+    void end(Phase phase) {
+        mEnds.set(phase.ordinal(), System.nanoTime());
+    }
+
+    /**
+     * @return {@code true} if the phase has started and not yet ended.
+     */
+    boolean isInProgress(Phase phase) {
+        return mStarts.get(phase.ordinal()) != -1 && mEnds.get(phase.ordinal()) == -1;
+    }
+
+    void setResponseCode(int responseCode) {
+        mResponseCode = responseCode;
+    }
+
+    void setBytesSent(long bytesSent) {
+        mBytesSent = bytesSent;
+    }
+
+    void setBytesReceived(long bytesReceived, long decodedBytesReceived, boolean gzip) {
+        mBytesReceived = bytesReceived;
+        mDecodedBytesReceived = decodedBytesReceived;
+        mGzip = gzip;
+    }
+
+    void setException(Exception exception) {
+        mException = exception;
+    }
+
+    /**
+     * @return the logical operation the request was made for, one of the {@code OPERATION_} constants.
+     */
+    public String getOperation() {
+        return mOperation;
+    }
+
+    public String getMethod() {
+        return mMethod;
+    }
+
+    public String getUrl() {
+        return mUrl;
+    }
+
+    /**
+     * @return the {@link System#nanoTime()} the phase started at, or {@code -1} if it was not observed.
+     */
+    public long getStartNanos(Phase phase) {
+        return mStarts.get(phase.ordinal());
+    }
+
+    /**
+     * @return the {@link System#nanoTime()} the phase ended at, or {@code -1} if it was not observed.
+     */
+    public long getEndNanos(Phase phase) {
+        return mEnds.get(phase.ordinal());
+    }
+
+    /**
+     * @return the duration of the phase in milliseconds, or {@code -1} if it was not observed.
+     */
+    public long getDurationMillis(Phase phase) {
+        long start = mStarts.get(phase.ordinal());
+        long end = mEnds.get(phase.ordinal());
+        if (start == -1 || end == -1) {
+            return -1;
+        }
+
+        return TimeUnit.NANOSECONDS.toMillis(end - start);
+    }
+
+    /**
+     * @return the HTTP response code, or {@code -1} if no response was received.
+     */
+    public int getResponseCode() {
+        return mResponseCode;
+    }
+
+    /**
+     * @return the number of request body bytes written.
+     */
+    public long getBytesSent() {
+        return mBytesSent;
+    }
+
+    /**
+     * @return the number of response body bytes read from the network, before decompression.
+     */
+    public long getBytesReceived() {
+        return mBytesReceived;
+    }
+
+    /**
+     * @return the number of response body bytes after decompression.
+     */
+    public long getDecodedBytesReceived() {
+        return mDecodedBytesReceived;
+    }
+
+    public boolean isGzip() {
+        return mGzip;
+    }
+
+    /**
+     * @return the ratio of decompressed to received response bytes, {@code 1} for uncompressed or empty
+     * responses.
+     */
+    public double getGzipRatio() {
+        if (!mGzip || mBytesReceived == 0) {
+            return 1;
+        }
+
+        return (double) mDecodedBytesReceived / mBytesReceived;
+    }
+
+    /**
+     * @return the {@link Exception} the request failed with, or {@code null} if it succeeded.
+     */
+    @Nullable
+    public Exception getException() {
+        return mException;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(mOperation)
+                .append(' ').append(mMethod)
+                .append(' ').append(mResponseCode);
+        for (Phase phase : Phase.values()) {
+            builder.append(' ').append(phase.name().toLowerCase()).append('=').append(getDurationMillis(phase));
+        }
+
+        return builder.append(" sent=").append(mBytesSent)
+                .append(" received=").append(mBytesReceived)
+                .append(" decoded=").append(mDecodedBytesReceived)
+                .toString();
+    }
+}
@@ -0,0 +1,146 @@
+package com.braintreepayments.api.internal;
+
+import android.support.annotation.Nullable;
+
+import java.net.HttpURLConnection;
+import java.util.Set;
+import java.util.concurrent.Future;
+
+/**
+ * Handle to an asynchronous request made by {@link HttpClient}. Cancelling a request drops it if it has not
+ * started, disconnects it if it is in flight, and suppresses its
+ * {@link com.braintreepayments.api.interfaces.HttpResponseCallback} in either case.
+ */
+public class HttpRequest {
+
+    private static final ThreadLocal<HttpRequest> sCurrentRequest = new ThreadLocal<>();
+
+    private final Object mLock = new Object();
+    private final Set<HttpRequest> mOutstandingRequests;
+
+    private Future<?> mFuture;
+    private HttpURLConnection mConnection;
+    private Runnable mCancellationListener;
+    private boolean mCancelled;
+    private boolean mFinished;
+
+    HttpRequest(Set<HttpRequest> outstandingRequests) {
+        mOutstandingRequests = outstandingRequests;
+    }
+
+    /**
+     * Cancels the request. The callback will not be called once this method returns.
+     *
+     * @return {@code true} if the request was cancelled, {@code false} if it had already been cancelled or its
+     * callback has already been called.
+     */
+    public boolean cancel() {
+        Future<?> future;
+        HttpURLConnection connection;
+        Runnable listener;
+        synchronized (mLock) {
+            if (mCancelled || mFinished) {
+                return false;
+            }
+
+            mCancelled = true;
+            future = mFuture;
+            connection = mConnection;
+            listener = mCancellationListener;
+            mConnection = null;
+            mCancellationListener = null;
+        }
+
+        mOutstandingRequests.remove(this);
+        if (future != null) {
+            future.cancel(false);
+        }
+        if (connection != null) {
+            connection.disconnect();
+        }
+        if (listener != null) {
+            listener.run();
+        }
+
+        return true;
+    }
+
+    public boolean isCancelled() {
+        synchronized (mLock) {
+            return mCancelled;
+        }
+    }
+
+    /**
+     * Sets a listener that runs on the cancelling thread when the request is cancelled, so work waiting for the
+     * suppressed callback can be released. Runs immediately if the request has already been cancelled.
+     */
+    public void setCancellationListener(@Nullable Runnable listener) {
+        synchronized (mLock) {
+            if (!mCancelled) {
+                mCancellationListener = mFinished ? null : listener;
+                return;
+            }
+        }
+
+        if (listener != null) {
+            listener.run();
+        }
+    }
+
+    /**
+     * @return the {@link HttpRequest} being made on the current thread, or {@code null} for synchronous requests.
+     */
+    @Nullable
+    static HttpRequest current() {
+        return sCurrentRequest.get();
+    }
+
+    static void setCurrent(@Nullable HttpRequest request) {
+        if (request == null) {
+            sCurrentRequest.remove();
+        } else {
+            sCurrentRequest.set(request);
+        }
+    }
+
+    void setFuture(Future<?> future) {
+        synchronized (mLock) {
+            mFuture = future;
+        }
+    }
+
+    /**
+     * Registers the connection so {@link #cancel()} can abort it.
+     *
+     * @return {@code false} if the request has been cancelled and the connection must not be used.
+     */
+    boolean setConnection(@Nullable HttpURLConnection connection) {
+        synchronized (mLock) {
+            if (mCancelled) {
+                return false;
+            }
+            mConnection = connection;
+            return true;
+        }
+    }
+
+    /**
+     * Marks the request as finished immediately before its callback is called.
+     *
+     * @return {@code false} if the request was cancelled and the callback must not be called.
+     */
+    boolean finish() {
+        synchronized (mLock) {
+            if (mCancelled || mFinished) {
+                return false;
+            }
+            mFinished = true;
+            mConnection = null;
+            mCancellationListener = null;
+        }
+
+        mOutstandingRequests.remove(this);
+        return true;
+    }
+}
@@ -0,0 +1,778 @@
+package com.braintreepayments.api.internal;
+
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * {@link SharedPreferences} stored in a memory-mapped append log. Each commit appends one checksummed record with
+ * the changes it makes, so writing a key costs the size of the change rather than a rewrite of every value as
+ * with the XML files behind {@link android.content.Context#getSharedPreferences(String, int)}.
+ * <p/>
+ * Values are kept in memory and the log is replayed when the store is opened, stopping at the first record that is
+ * torn or fails its checksum. Once less than half of the log is live the current values are written to a new file
+ * that atomically replaces the log. Records are written to the mapped file, which the OS persists even if the
+ * process dies. {@link Editor#commit()} also forces them to disk, {@link Editor#apply()} does not.
+ * <p/>
+ * The log is opened and replayed on a background thread shared by all stores, so creating a store does no I/O on
+ * the calling thread. Reads and writes block until loading has finished, as they do for {@link SharedPreferences}
+ * from the framework.
+ * <p/>
+ * If an existing log cannot be opened for writing its last good values are read without mapping it, and the store
+ * is read-only until it is opened again: changes are visible in memory but {@link Editor#commit()} returns
+ * {@code false}.
+ * <p/>
+ * A store is not safe to use from multiple processes.
+ */
+public class MappedKeyValueStore implements SharedPreferences {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int MAGIC = 0x42544b56;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int PAGE_SIZE = 4096;
+    private static final int MIN_COMPACTION_SIZE = 4 * PAGE_SIZE;
+
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_INT = 2;
+    private static final byte TYPE_LONG = 3;
+    private static final byte TYPE_FLOAT = 4;
+    private static final byte TYPE_BOOLEAN = 5;
+    private static final byte TYPE_STRING_SET = 6;
+    private static final byte TYPE_REMOVE = 7;
+    private static final byte TYPE_CLEAR = 8;
+
+    private static final Object REMOVED = new Object();
+
+    private final Object mLock = new Object();
+    private final File mFile;
+    private final SharedPreferences mLegacyPreferences;
+    private final Map<String, Object> mValues = new HashMap<>();
+    private final Map<String, Integer> mEntrySizes = new HashMap<>();
+    private final WeakHashMap<OnSharedPreferenceChangeListener, Object> mListeners = new WeakHashMap<>();
+
+    private RandomAccessFile mRandomAccessFile;
+    private MappedByteBuffer mBuffer;
+    private int mEnd;
+    private int mLiveBytes;
+    private boolean mLoaded;
+    private SharedPreferences mFallback;
+
+    /**
+     * Opens the store at {@code file} on a background thread, creating it if it does not exist.
+     * <p/>
+     * A new log only replaces {@code legacyPreferences} once a complete snapshot of their values has been renamed
+     * into place, so a store whose migration was interrupted migrates again the next time it is opened. If no log
+     * has been written and one cannot be created the store reads and writes {@code legacyPreferences} instead.
+     *
+     * @param file the log file.
+     * @param legacyPreferences {@link SharedPreferences} whose values are moved into the store when it is created.
+     */
+    public MappedKeyValueStore(File file, @Nullable SharedPreferences legacyPreferences) {
+        mFile = file;
+        mLegacyPreferences = legacyPreferences;
+        Loader.EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                load();
+            }
+        });
+    }
+
+    @Override
+    public Map<String, ?> getAll() {
+        synchronized (mLock) {
+            awaitLoaded();
+            return new HashMap<>(mValues);
+        }
+    }
+
+    @Nullable
+    @Override
+    public String getString(String key, @Nullable String defValue) {
+        synchronized (mLock) {
+            awaitLoaded();
+            String value = (String) mValues.get(key);
+            return value != null ? value : defValue;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    @Override
+    public Set<String> getStringSet(String key, @Nullable Set<String> defValues) {
+        synchronized (mLock) {
+            awaitLoaded();
+            Set<String> values = (Set<String>) mValues.get(key);
+            return values != null ? values : defValues;
+        }
+    }
+
+    @Override
+    public int getInt(String key, int defValue) {
+        synchronized (mLock) {
+            awaitLoaded();
+            Integer value = (Integer) mValues.get(key);
+            return value != null ? value : defValue;
+        }
+    }
+
+    @Override
+    public long getLong(String key, long defValue) {
+        synchronized (mLock) {
+            awaitLoaded();
+            Long value = (Long) mValues.get(key);
+            return value != null ? value : defValue;
+        }
+    }
+
+    @Override
+    public float getFloat(String key, float defValue) {
+        synchronized (mLock) {
+            awaitLoaded();
+            Float value = (Float) mValues.get(key);
+            return value != null ? value : defValue;
+        }
+    }
+
+    @Override
+    public boolean getBoolean(String key, boolean defValue) {
+        synchronized (mLock) {
+            awaitLoaded();
+            Boolean value = (Boolean) mValues.get(key);
+            return value != null ? value : defValue;
+        }
+    }
+
+    @Override
+    public boolean contains(String key) {
+        synchronized (mLock) {
+            awaitLoaded();
+            return mValues.containsKey(key);
+        }
+    }
+
+    @Override
+    public Editor edit() {
+        return new StoreEditor();
+    }
+
+    @Override
+    public void registerOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+        synchronized (mLock) {
+            mListeners.put(listener, null);
+        }
+    }
+
+    @Override
+    public void unregisterOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+        synchronized (mLock) {
+            mListeners.remove(listener);
+        }
+    }
+
+    /**
+     * @return the number of bytes of the log in use, for tests.
+     */
+    int getLogSize() {
+        synchronized (mLock) {
+            awaitLoaded();
+            return mEnd;
+        }
+    }
+
+    private void load() {
+        synchronized (mLock) {
+            try {
+                open();
+            } catch (IOException e) {
+                close();
+                mValues.clear();
+                mEntrySizes.clear();
+                mLiveBytes = 0;
+                if (!readLog()) {
+                    mFallback = mLegacyPreferences;
+                    if (mFallback != null) {
+                        putAll(mFallback.getAll());
+                    }
+                }
+            }
+
+            mLoaded = true;
+            mLock.notifyAll();
+        }
+    }
+
+    private void open() throws IOException {
+        File directory = mFile.getParentFile();
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create " + directory);
+        }
+
+        if (mFile.length() >= HEADER_SIZE) {
+            mRandomAccessFile = new RandomAccessFile(mFile, "rw");
+            mBuffer = map(mRandomAccessFile, roundToPage(mRandomAccessFile.length()));
+            if (mBuffer.getInt(0) == MAGIC && mBuffer.getInt(4) == VERSION) {
+                mEnd = replay(mBuffer.duplicate());
+                if (mEnd + 4 <= mBuffer.capacity()) {
+                    mBuffer.putInt(mEnd, 0);
+                }
+                return;
+            }
+        }
+
+        // The header is only written by compact(), which renames a complete file into place, so a log without one
+        // was never finished and the legacy preferences still hold the values.
+        if (mLegacyPreferences != null) {
+            putAll(mLegacyPreferences.getAll());
+        }
+        compact();
+        if (!mValues.isEmpty()) {
+            mLegacyPreferences.edit().clear().apply();
+        }
+    }
+
+    /**
+     * Replays the log without mapping or writing it, for when it cannot be opened for writing. Once the log holds a
+     * complete snapshot {@link #mLegacyPreferences} have been cleared, so this is the only copy of the values.
+     *
+     * @return {@code true} if the log had a valid header and its records were replayed.
+     */
+    private boolean readLog() {
+        if (mFile.length() < HEADER_SIZE) {
+            return false;
+        }
+
+        try {
+            RandomAccessFile randomAccessFile = new RandomAccessFile(mFile, "r");
+            try {
+                byte[] log = new byte[(int) randomAccessFile.length()];
+                randomAccessFile.readFully(log);
+                ByteBuffer buffer = ByteBuffer.wrap(log);
+                if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                    return false;
+                }
+
+                replay(buffer);
+                return true;
+            } finally {
+                randomAccessFile.close();
+            }
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void close() {
+        mBuffer = null;
+        if (mRandomAccessFile != null) {
+            try {
+                mRandomAccessFile.close();
+            } catch (IOException ignored) {}
+            mRandomAccessFile = null;
+        }
+    }
+
+    /**
+     * Blocks until the log has been loaded. Must be called with {@link #mLock} held.
+     */
+    private void awaitLoaded() {
+        while (!mLoaded) {
+            try {
+                mLock.wait();
+            } catch (InterruptedException ignored) {}
+        }
+    }
+
+    private boolean commit(boolean clear, Map<String, Object> changes, boolean force) {
+        final List<String> changedKeys = new ArrayList<>();
+        final List<OnSharedPreferenceChangeListener> listeners;
+        boolean success = true;
+        synchronized (mLock) {
+            awaitLoaded();
+            if (clear) {
+                changedKeys.addAll(mValues.keySet());
+                mValues.clear();
+                mEntrySizes.clear();
+                mLiveBytes = 0;
+            }
+
+            for (Map.Entry<String, Object> change : changes.entrySet()) {
+                if (change.getValue() == REMOVED) {
+                    remove(change.getKey());
+                } else {
+                    put(change.getKey(), change.getValue());
+                }
+                changedKeys.add(change.getKey());
+            }
+
+            if (mFallback != null) {
+                success = writeFallback(clear, changes, force);
+            } else if (mBuffer == null) {
+                success = false;
+            } else {
+                try {
+                    write(encode(clear, changes), force);
+                } catch (IOException e) {
+                    success = false;
+                }
+            }
+
+            listeners = new ArrayList<>(mListeners.keySet());
+        }
+
+        if (!listeners.isEmpty() && !changedKeys.isEmpty()) {
+            notifyListeners(listeners, changedKeys);
+        }
+        return success;
+    }
+
+    private void put(String key, Object value) {
+        if (value instanceof Set) {
+            @SuppressWarnings("unchecked")
+            Set<String> set = Collections.unmodifiableSet(new HashSet<>((Set<String>) value));
+            value = set;
+        }
+
+        mValues.put(key, value);
+        int size = entrySize(key, value);
+        Integer previous = mEntrySizes.put(key, size);
+        mLiveBytes += size - (previous == null ? 0 : previous);
+    }
+
+    private void remove(String key) {
+        mValues.remove(key);
+        Integer previous = mEntrySizes.remove(key);
+        if (previous != null) {
+            mLiveBytes -= previous;
+        }
+    }
+
+    private void putAll(Map<String, ?> values) {
+        for (Map.Entry<String, ?> entry : values.entrySet()) {
+            if (entry.getValue() != null) {
+                put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean writeFallback(boolean clear, Map<String, Object> changes, boolean force) {
+        Editor editor = mFallback.edit();
+        if (clear) {
+            editor.clear();
+        }
+
+        for (Map.Entry<String, Object> change : changes.entrySet()) {
+            String key = change.getKey();
+            Object value = change.getValue();
+            if (value == REMOVED) {
+                editor.remove(key);
+            } else if (value instanceof String) {
+                editor.putString(key, (String) value);
+            } else if (value instanceof Integer) {
+                editor.putInt(key, (Integer) value);
+            } else if (value instanceof Long) {
+                editor.putLong(key, (Long) value);
+            } else if (value instanceof Float) {
+                editor.putFloat(key, (Float) value);
+            } else if (value instanceof Boolean) {
+                editor.putBoolean(key, (Boolean) value);
+            } else if (value instanceof Set) {
+                editor.putStringSet(key, (Set<String>) value);
+            }
+        }
+
+        if (force) {
+            return editor.commit();
+        }
+        editor.apply();
+        return true;
+    }
+
+    /**
+     * Appends a record, or compacts the log if the record does not fit or most of the log is no longer live.
+     */
+    private void write(byte[] record, boolean force) throws IOException {
+        int end = mEnd + RECORD_HEADER_SIZE + record.length;
+        boolean mostlyDead = end > MIN_COMPACTION_SIZE && liveLogSize() * 2 < end;
+        if (end + 4 > mBuffer.capacity() || mostlyDead) {
+            compact();
+        } else {
+            CRC32 crc = new CRC32();
+            crc.update(record);
+
+            mBuffer.position(mEnd + RECORD_HEADER_SIZE);
+            mBuffer.put(record);
+            mBuffer.putInt(end, 0);
+            mBuffer.putInt(mEnd + 4, (int) crc.getValue());
+            mBuffer.putInt(mEnd, record.length);
+            mEnd = end;
+        }
+
+        if (force) {
+            mBuffer.force();
+        }
+    }
+
+    /**
+     * Writes the current values to a new file with room for the log to double and atomically replaces the log
+     * with it.
+     */
+    private void compact() throws IOException {
+        byte[] snapshot = encode(false, new LinkedHashMap<>(mValues));
+        int size = HEADER_SIZE + RECORD_HEADER_SIZE + snapshot.length + 4;
+        int capacity = roundToPage(size * 2L);
+
+        File compacted = new File(mFile.getPath() + ".tmp");
+        RandomAccessFile randomAccessFile = new RandomAccessFile(compacted, "rw");
+        try {
+            randomAccessFile.setLength(0);
+            MappedByteBuffer buffer = map(randomAccessFile, capacity);
+
+            CRC32 crc = new CRC32();
+            crc.update(snapshot);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(HEADER_SIZE, snapshot.length);
+            buffer.putInt(HEADER_SIZE + 4, (int) crc.getValue());
+            buffer.position(HEADER_SIZE + RECORD_HEADER_SIZE);
+            buffer.put(snapshot);
+            buffer.putInt(size - 4, 0);
+            buffer.force();
+
+            if (!compacted.renameTo(mFile)) {
+                throw new IOException("Unable to replace " + mFile);
+            }
+
+            RandomAccessFile previous = mRandomAccessFile;
+            mRandomAccessFile = randomAccessFile;
+            mBuffer = buffer;
+            mEnd = size - 4;
+            randomAccessFile = previous;
+        } finally {
+            if (randomAccessFile != null) {
+                randomAccessFile.close();
+            }
+        }
+    }
+
+    /**
+     * Applies the records in {@code buffer} up to the first one that is torn or fails its checksum.
+     *
+     * @return the offset just past the last record applied.
+     */
+    private int replay(ByteBuffer buffer) {
+        int position = HEADER_SIZE;
+        CRC32 crc = new CRC32();
+        while (position + RECORD_HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            int end = position + RECORD_HEADER_SIZE + length;
+            if (length <= 0 || end > buffer.capacity()) {
+                break;
+            }
+
+            byte[] record = new byte[length];
+            buffer.position(position + RECORD_HEADER_SIZE);
+            buffer.get(record);
+            crc.reset();
+            crc.update(record);
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                break;
+            }
+
+            try {
+                apply(ByteBuffer.wrap(record));
+            } catch (RuntimeException e) {
+                break;
+            }
+            position = end;
+        }
+
+        return position;
+    }
+
+    private void apply(ByteBuffer record) {
+        int count = record.getInt();
+        for (int i = 0; i < count; i++) {
+            byte type = record.get();
+            if (type == TYPE_CLEAR) {
+                mValues.clear();
+                mEntrySizes.clear();
+                mLiveBytes = 0;
+                continue;
+            }
+
+            String key = readString(record);
+            switch (type) {
+                case TYPE_STRING:
+                    put(key, readString(record));
+                    break;
+                case TYPE_INT:
+                    put(key, record.getInt());
+                    break;
+                case TYPE_LONG:
+                    put(key, record.getLong());
+                    break;
+                case TYPE_FLOAT:
+                    put(key, record.getFloat());
+                    break;
+                case TYPE_BOOLEAN:
+                    put(key, record.get() != 0);
+                    break;
+                case TYPE_STRING_SET:
+                    int size = record.getInt();
+                    Set<String> values = new HashSet<>(size);
+                    for (int j = 0; j < size; j++) {
+                        values.add(readString(record));
+                    }
+                    put(key, values);
+                    break;
+                case TYPE_REMOVE:
+                    remove(key);
+                    break;
+                default:
+                    return;
+            }
+        }
+    }
+
+    private int liveLogSize() {
+        return HEADER_SIZE + RECORD_HEADER_SIZE + 4 + mLiveBytes + 4;
+    }
+
+    private static byte[] encode(boolean clear, Map<String, Object> changes) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(changes.size() + (clear ? 1 : 0));
+        if (clear) {
+            out.writeByte(TYPE_CLEAR);
+        }
+
+        for (Map.Entry<String, Object> change : changes.entrySet()) {
+            Object value = change.getValue();
+            out.writeByte(typeOf(value));
+            writeString(out, change.getKey());
+            if (value instanceof String) {
+                writeString(out, (String) value);
+            } else if (value instanceof Integer) {
+                out.writeInt((Integer) value);
+            } else if (value instanceof Long) {
+                out.writeLong((Long) value);
+            } else if (value instanceof Float) {
+                out.writeFloat((Float) value);
+            } else if (value instanceof Boolean) {
+                out.writeBoolean((Boolean) value);
+            } else if (value instanceof Set) {
+                Set<?> set = (Set<?>) value;
+                out.writeInt(set.size());
+                for (Object item : set) {
+                    writeString(out, (String) item);
+                }
+            }
+        }
+
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static byte typeOf(Object value) {
+        if (value == REMOVED) {
+            return TYPE_REMOVE;
+        } else if (value instanceof String) {
+            return TYPE_STRING;
+        } else if (value instanceof Integer) {
+            return TYPE_INT;
+        } else if (value instanceof Long) {
+            return TYPE_LONG;
+        } else if (value instanceof Float) {
+            return TYPE_FLOAT;
+        } else if (value instanceof Boolean) {
+            return TYPE_BOOLEAN;
+        } else if (value instanceof Set) {
+            return TYPE_STRING_SET;
+        }
+        throw new IllegalArgumentException("Unsupported value type " + value.getClass());
+    }
+
+    private static int entrySize(String key, Object value) {
+        int size = 1 + 4 + key.getBytes(UTF_8).length;
+        if (value instanceof String) {
+            return size + 4 + ((String) value).getBytes(UTF_8).length;
+        } else if (value instanceof Integer || value instanceof Float) {
+            return size + 4;
+        } else if (value instanceof Long) {
+            return size + 8;
+        } else if (value instanceof Boolean) {
+            return size + 1;
+        }
+
+        size += 4;
+        for (Object item : (Set<?>) value) {
+            size += 4 + ((String) item).getBytes(UTF_8).length;
+        }
+        return size;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static MappedByteBuffer map(RandomAccessFile file, long size) throws IOException {
+        if (file.length() < size) {
+            file.setLength(size);
+        }
+        return file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    private static int roundToPage(long size) {
+        return (int) ((size + PAGE_SIZE - 1) / PAGE_SIZE * PAGE_SIZE);
+    }
+
+    private void notifyListeners(final List<OnSharedPreferenceChangeListener> listeners,
+            final List<String> changedKeys) {
+        Runnable notify = new Runnable() {
+            @Override
+            public void run() {
+                for (String key : changedKeys) {
+                    for (OnSharedPreferenceChangeListener listener : listeners) {
+                        listener.onSharedPreferenceChanged(MappedKeyValueStore.this, key);
+                    }
+                }
+            }
+        };
+
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            notify.run();
+        } else {
+            new Handler(Looper.getMainLooper()).post(notify);
+        }
+    }
+
+    private static class Loader {
+
+        static final Executor EXECUTOR = new ThreadPoolExecutor(0, 1, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "MappedKeyValueStore-load");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+    }
+
+    private class StoreEditor implements Editor {
+
+        private final Map<String, Object> mChanges = new LinkedHashMap<>();
+        private boolean mClear;
+
+        @Override
+        public Editor putString(String key, @Nullable String value) {
+            return put(key, value);
+        }
+
+        @Override
+        public Editor putStringSet(String key, @Nullable Set<String> values) {
+            return put(key, values == null ? null : new HashSet<>(values));
+        }
+
+        @Override
+        public Editor putInt(String key, int value) {
+            return put(key, value);
+        }
+
+        @Override
+        public Editor putLong(String key, long value) {
+            return put(key, value);
+        }
+
+        @Override
+        public Editor putFloat(String key, float value) {
+            return put(key, value);
+        }
+
+        @Override
+        public Editor putBoolean(String key, boolean value) {
+            return put(key, value);
+        }
+
+        @Override
+        public Editor remove(String key) {
+            return put(key, null);
+        }
+
+        @Override
+        public Editor clear() {
+            synchronized (this) {
+                mClear = true;
+            }
+            return this;
+        }
+
+        @Override
+        public boolean commit() {
+            return commitChanges(true);
+        }
+
+        @Override
+        public void apply() {
+            commitChanges(false);
+        }
+
+        private Editor put(String key, @Nullable Object value) {
+            synchronized (this) {
+                mChanges.put(key, value == null ? REMOVED : value);
+            }
+            return this;
+        }
+
+        private boolean commitChanges(boolean force) {
+            boolean clear;
+            Map<String, Object> changes;
+            synchronized (this) {
+                clear = mClear;
+                changes = new LinkedHashMap<>(mChanges);
+                mClear = false;
+                mChanges.clear();
+            }
+            return MappedKeyValueStore.this.commit(clear, changes, force);
+        }
+    }
+}
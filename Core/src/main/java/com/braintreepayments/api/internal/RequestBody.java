@@ -0,0 +1,19 @@
+package com.braintreepayments.api.internal;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Body of a HTTP POST request that is written directly to the connection's output stream, avoiding building
+ * the whole body as a {@link String} first.
+ */
+public interface RequestBody {
+
+    /**
+     * Writes the body. Called on the thread making the request. {@link HttpClient} closes the stream once this
+     * method returns.
+     *
+     * @param outputStream the connection's output stream.
+     */
+    void writeTo(OutputStream outputStream) throws IOException;
+}
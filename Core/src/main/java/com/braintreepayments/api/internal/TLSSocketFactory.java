@@ -110,13 +110,31 @@ public class TLSSocketFactory extends SSLSocketFactory {
                 mInternalSSLSocketFactory.createSocket(address, port, localAddress, localPort));
     }
 
-    private Socket enableTLSOnSocket(Socket socket) {
+    /**
+     * Restricts the socket to TLSv1.2. When the connection phase of an {@link HttpEvent} is being timed the
+     * handshake is done here, so {@link HttpEvent.Phase#SECURE_CONNECT} has ended before the connection is
+     * used and the event is delivered.
+     */
+    private Socket enableTLSOnSocket(Socket socket) throws IOException {
         if (socket instanceof SSLSocket) {
+            SSLSocket sslSocket = (SSLSocket) socket;
             ArrayList<String> supportedProtocols =
-                    new ArrayList<>(Arrays.asList(((SSLSocket) socket).getSupportedProtocols()));
+                    new ArrayList<>(Arrays.asList(sslSocket.getSupportedProtocols()));
             supportedProtocols.retainAll(Collections.singletonList("TLSv1.2"));
 
-            ((SSLSocket) socket).setEnabledProtocols(supportedProtocols.toArray(new String[supportedProtocols.size()]));
+            sslSocket.setEnabledProtocols(supportedProtocols.toArray(new String[supportedProtocols.size()]));
+
+            HttpEvent event = HttpEvent.current();
+            if (event != null && event.isInProgress(HttpEvent.Phase.CONNECT)) {
+                event.start(HttpEvent.Phase.SECURE_CONNECT);
+                try {
+                    sslSocket.startHandshake();
+                } catch (IOException e) {
+                    sslSocket.close();
+                    throw e;
+                }
+                event.end(HttpEvent.Phase.SECURE_CONNECT);
+            }
         }
 
         return socket;
@@ -1,12 +1,12 @@
 package com.braintreepayments.demo.test.utilities;
 
 import android.Manifest.permission;
-import android.content.Context;
 import android.content.pm.PackageManager;
 import android.preference.PreferenceManager;
 import android.support.v4.content.ContextCompat;
 import android.widget.Spinner;
 
+import com.braintreepayments.api.internal.BraintreeSharedPreferences;
 import com.lukekorth.deviceautomator.DeviceAutomator;
 
 import static android.support.test.InstrumentationRegistry.getTargetContext;
@@ -40,7 +40,7 @@ public class TestHelper {
     }
 
     private void clearPreference(String preference) {
-        getTargetContext().getSharedPreferences(preference, Context.MODE_PRIVATE)
+        BraintreeSharedPreferences.getSharedPreferences(getTargetContext(), preference)
                 .edit()
                 .clear()
                 .commit();
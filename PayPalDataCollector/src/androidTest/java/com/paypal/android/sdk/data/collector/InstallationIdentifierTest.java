@@ -1,9 +1,10 @@
 package com.paypal.android.sdk.data.collector;
 
-import android.content.Context;
 import android.content.SharedPreferences;
 import android.support.test.runner.AndroidJUnit4;
 
+import com.braintreepayments.api.internal.BraintreeSharedPreferences;
+
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -22,7 +23,7 @@ public class InstallationIdentifierTest {
 
     @Before
     public void setup() {
-        mPrefs = getTargetContext().getSharedPreferences("PayPalOTC", Context.MODE_PRIVATE);
+        mPrefs = BraintreeSharedPreferences.getSharedPreferences(getTargetContext(), "PayPalOTC");
         mPrefs.edit().clear().apply();
     }
 
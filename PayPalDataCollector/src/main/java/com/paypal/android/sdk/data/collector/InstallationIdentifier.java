@@ -3,6 +3,8 @@ package com.paypal.android.sdk.data.collector;
 import android.content.Context;
 import android.content.SharedPreferences;
 
+import com.braintreepayments.api.internal.BraintreeSharedPreferences;
+
 import java.util.UUID;
 
 public class InstallationIdentifier {
@@ -10,7 +12,7 @@ public class InstallationIdentifier {
     private static final String INSTALL_GUID = "InstallationGUID";
 
     public static String getInstallationGUID(Context context) {
-        SharedPreferences preferences = context.getSharedPreferences("PayPalOTC", Context.MODE_PRIVATE);
+        SharedPreferences preferences = BraintreeSharedPreferences.getSharedPreferences(context, "PayPalOTC");
         String existingGUID = preferences.getString(INSTALL_GUID, null);
         if (existingGUID != null) {
             return existingGUID;
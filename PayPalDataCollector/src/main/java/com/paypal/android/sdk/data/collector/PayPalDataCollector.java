@@ -9,6 +9,7 @@ import com.paypal.android.sdk.onetouch.core.metadata.MetadataIdProviderImpl;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 public class PayPalDataCollector {
@@ -67,12 +68,14 @@ public class PayPalDataCollector {
 
             String clientMetadataId = sMetadataIdProvider.init(context.getApplicationContext(), applicationGuid, params);
 
-            Executors.newSingleThreadExecutor().submit(new Runnable() {
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            executor.submit(new Runnable() {
                 @Override
                 public void run() {
                     sMetadataIdProvider.flush();
                 }
             });
+            executor.shutdown();
 
             return clientMetadataId;
         } else {
@@ -30,6 +30,9 @@ import com.paypal.android.sdk.onetouch.core.network.EnvironmentManager;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.security.InvalidAlgorithmParameterException;
@@ -325,6 +328,46 @@ public class AuthorizationRequest extends Request<AuthorizationRequest> implemen
         source.readByteArray(mEncryptionKey);
     }
 
+    @Override
+    void writeTo(DataOutput out) throws IOException {
+        super.writeTo(out);
+
+        RequestCodec.writeString(out, mPrivacyUrl);
+        RequestCodec.writeString(out, mUserAgreementUrl);
+        out.writeInt(mScopes.size());
+        for (String scope : mScopes) {
+            out.writeUTF(scope);
+        }
+        out.writeInt(mAdditionalPayloadAttributes.size());
+        for (Entry<String, String> attribute : mAdditionalPayloadAttributes.entrySet()) {
+            out.writeUTF(attribute.getKey());
+            RequestCodec.writeString(out, attribute.getValue());
+        }
+        RequestCodec.writeString(out, mMsgGuid);
+        out.writeInt(mEncryptionKey.length);
+        out.write(mEncryptionKey);
+    }
+
+    AuthorizationRequest(DataInput in) throws IOException {
+        super(in);
+
+        mPrivacyUrl = RequestCodec.readString(in);
+        mUserAgreementUrl = RequestCodec.readString(in);
+        int scopeCount = in.readInt();
+        mScopes = new HashSet<>();
+        for (int i = 0; i < scopeCount; i++) {
+            mScopes.add(in.readUTF());
+        }
+        int attributeCount = in.readInt();
+        mAdditionalPayloadAttributes = new HashMap<>();
+        for (int i = 0; i < attributeCount; i++) {
+            mAdditionalPayloadAttributes.put(in.readUTF(), RequestCodec.readString(in));
+        }
+        mMsgGuid = RequestCodec.readString(in);
+        mEncryptionKey = new byte[in.readInt()];
+        in.readFully(mEncryptionKey);
+    }
+
     public static final Parcelable.Creator<AuthorizationRequest> CREATOR = new Creator<AuthorizationRequest>() {
         @Override
         public AuthorizationRequest[] newArray(int size) {
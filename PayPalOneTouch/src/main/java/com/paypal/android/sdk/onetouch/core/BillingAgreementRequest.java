@@ -8,6 +8,9 @@ import com.paypal.android.sdk.onetouch.core.config.OtcConfiguration;
 import com.paypal.android.sdk.onetouch.core.config.Recipe;
 import com.paypal.android.sdk.onetouch.core.enums.RequestTarget;
 
+import java.io.DataInput;
+import java.io.IOException;
+
 public class BillingAgreementRequest extends CheckoutRequest {
 
     private static final String TOKEN_QUERY_PARAM_KEY_BA_TOKEN = "ba_token";
@@ -37,12 +40,25 @@ public class BillingAgreementRequest extends CheckoutRequest {
 
     @Override
     public Recipe getRecipeToExecute(Context context, OtcConfiguration config) {
+        return getRecipeToExecute(context, config, false);
+    }
+
+    @Override
+    public Recipe getAppSwitchRecipe(Context context, OtcConfiguration config) {
+        return getRecipeToExecute(context, config, true);
+    }
+
+    private Recipe getRecipeToExecute(Context context, OtcConfiguration config, boolean appSwitchOnly) {
         for (BillingAgreementRecipe recipe : config.getBillingAgreementRecipes()) {
             if (RequestTarget.wallet == recipe.getTarget()) {
                 if (recipe.isValidAppTarget(context)) {
                     return recipe;
                 }
             } else if (RequestTarget.browser == recipe.getTarget()) {
+                if (appSwitchOnly) {
+                    return null;
+                }
+
                 String browserSwitchUrl = getBrowserSwitchUrl(context, config);
 
                 if (recipe.isValidBrowserTarget(context, browserSwitchUrl)) {
@@ -57,6 +73,10 @@ public class BillingAgreementRequest extends CheckoutRequest {
         super(source);
     }
 
+    BillingAgreementRequest(DataInput in) throws IOException {
+        super(in);
+    }
+
     public static final Creator<BillingAgreementRequest> CREATOR = new Creator<BillingAgreementRequest>() {
         @Override
         public BillingAgreementRequest[] newArray(int size) {
@@ -21,6 +21,9 @@ import com.paypal.android.sdk.onetouch.core.fpti.TrackingPoint;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -116,12 +119,25 @@ public class CheckoutRequest extends Request<CheckoutRequest> implements Parcela
 
     @Override
     public Recipe getRecipeToExecute(Context context, OtcConfiguration config) {
+        return getRecipeToExecute(context, config, false);
+    }
+
+    @Override
+    public Recipe getAppSwitchRecipe(Context context, OtcConfiguration config) {
+        return getRecipeToExecute(context, config, true);
+    }
+
+    private Recipe getRecipeToExecute(Context context, OtcConfiguration config, boolean appSwitchOnly) {
         for (CheckoutRecipe recipe : config.getCheckoutRecipes()) {
             if (RequestTarget.wallet == recipe.getTarget()) {
                 if (recipe.isValidAppTarget(context)) {
                     return recipe;
                 }
             } else if (RequestTarget.browser == recipe.getTarget()) {
+                if (appSwitchOnly) {
+                    return null;
+                }
+
                 String browserSwitchUrl = getBrowserSwitchUrl(context, config);
 
                 if (recipe.isValidBrowserTarget(context, browserSwitchUrl)) {
@@ -160,6 +176,23 @@ public class CheckoutRequest extends Request<CheckoutRequest> implements Parcela
         mPairingId = source.readString();
     }
 
+    @Override
+    void writeTo(DataOutput out) throws IOException {
+        super.writeTo(out);
+
+        RequestCodec.writeString(out, mApprovalUrl);
+        RequestCodec.writeString(out, mTokenQueryParamKey);
+        RequestCodec.writeString(out, mPairingId);
+    }
+
+    CheckoutRequest(DataInput in) throws IOException {
+        super(in);
+
+        mApprovalUrl = RequestCodec.readString(in);
+        mTokenQueryParamKey = RequestCodec.readString(in);
+        mPairingId = RequestCodec.readString(in);
+    }
+
     public static final Creator<CheckoutRequest> CREATOR = new Creator<CheckoutRequest>() {
         @Override
         public CheckoutRequest[] newArray(int size) {
@@ -3,6 +3,7 @@ package com.paypal.android.sdk.onetouch.core;
 import android.content.Context;
 import android.content.Intent;
 import android.support.annotation.MainThread;
+import android.support.annotation.Nullable;
 
 import com.paypal.android.sdk.data.collector.PayPalDataCollector;
 import com.paypal.android.sdk.onetouch.core.base.ContextInspector;
@@ -69,8 +70,49 @@ public class PayPalOneTouchCore {
         // calling this method functionally does nothing, but ensures that we send off FPTI data about wallet installs.
         isWalletAppInstalled(context);
 
-        Recipe recipe = request.getRecipeToExecute(context, sConfigManager.getConfig());
+        return createPendingRequest(context, request, request.getRecipeToExecute(context, sConfigManager.getConfig()));
+    }
+
+    /**
+     * Resolves the app switch {@link Recipe} for a {@link Request} before its browser switch url is known, such as
+     * while a PayPal payment resource is being created. Checking for the wallet app is the slowest part of
+     * {@link #getStartIntent(Context, Request)}, and does not depend on the url.
+     *
+     * @param context
+     * @param request a {@link Request} with everything but its browser switch url populated.
+     * @return the app switch {@link Recipe} to pass to {@link #getStartIntent(Context, Request, Recipe)}, or
+     *         {@code null} if the {@link Recipe} must be resolved once the browser switch url is known.
+     */
+    public static Recipe getAppSwitchRecipe(Context context, Request request) {
+        initService(context);
+
+        // calling this method functionally does nothing, but ensures that we send off FPTI data about wallet installs.
+        isWalletAppInstalled(context);
+
+        return request.getAppSwitchRecipe(context, sConfigManager.getConfig());
+    }
+
+    /**
+     * Get a {@link PendingRequest} as in {@link #getStartIntent(Context, Request)} using a {@link Recipe} resolved
+     * by {@link #getAppSwitchRecipe(Context, Request)}.
+     *
+     * @param context
+     * @param request the {@link Request} used to build the {@link Intent}.
+     * @param appSwitchRecipe the result of {@link #getAppSwitchRecipe(Context, Request)}.
+     * @return {@link PendingRequest}
+     */
+    public static PendingRequest getStartIntent(Context context, Request request, @Nullable Recipe appSwitchRecipe) {
+        initService(context);
+
+        Recipe recipe = appSwitchRecipe;
+        if (recipe == null) {
+            recipe = request.getRecipeToExecute(context, sConfigManager.getConfig());
+        }
+
+        return createPendingRequest(context, request, recipe);
+    }
 
+    private static PendingRequest createPendingRequest(Context context, Request request, Recipe recipe) {
         if (recipe == null) {
             return new PendingRequest(false, null, null, null);
         }
@@ -15,6 +15,9 @@ import com.paypal.android.sdk.onetouch.core.fpti.TrackingPoint;
 
 import org.json.JSONException;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
@@ -106,6 +109,18 @@ public abstract class Request<T extends Request<T>> implements Parcelable {
 
     public abstract Recipe getRecipeToExecute(Context context, OtcConfiguration config);
 
+    /**
+     * Resolves the {@link Recipe} to execute if it switches to an app, which does not depend on
+     * {@link #getBrowserSwitchUrl(Context, OtcConfiguration)}, so it can be done before the browser switch url is
+     * known.
+     *
+     * @return the app switch {@link Recipe} {@link #getRecipeToExecute(Context, OtcConfiguration)} would return, or
+     * {@code null} if the {@link Recipe} can only be resolved once the browser switch url is known.
+     */
+    public Recipe getAppSwitchRecipe(Context context, OtcConfiguration config) {
+        return null;
+    }
+
     public abstract void trackFpti(Context context, TrackingPoint trackingPoint, Protocol protocol);
 
     protected Request() {}
@@ -131,4 +146,20 @@ public abstract class Request<T extends Request<T>> implements Parcelable {
         mCancelUrl = source.readString();
         mSuccessUrl = source.readString();
     }
+
+    void writeTo(DataOutput out) throws IOException {
+        RequestCodec.writeString(out, mEnvironment);
+        RequestCodec.writeString(out, mClientId);
+        RequestCodec.writeString(out, mClientMetadataId);
+        RequestCodec.writeString(out, mCancelUrl);
+        RequestCodec.writeString(out, mSuccessUrl);
+    }
+
+    Request(DataInput in) throws IOException {
+        mEnvironment = RequestCodec.readString(in);
+        mClientId = RequestCodec.readString(in);
+        mClientMetadataId = RequestCodec.readString(in);
+        mCancelUrl = RequestCodec.readString(in);
+        mSuccessUrl = RequestCodec.readString(in);
+    }
 }
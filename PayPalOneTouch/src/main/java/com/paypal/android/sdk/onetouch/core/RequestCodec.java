@@ -0,0 +1,95 @@
+package com.paypal.android.sdk.onetouch.core;
+
+import android.support.annotation.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Compact binary encoding of {@link Request}s for persisting them across a browser or app switch. Unlike
+ * {@link android.os.Parcel#marshall()} the format does not depend on the OS version; it starts with a version and a
+ * type byte, followed by the fields of the {@link Request}.
+ */
+public class RequestCodec {
+
+    static final int VERSION = 1;
+
+    private static final int TYPE_AUTHORIZATION = 1;
+    private static final int TYPE_CHECKOUT = 2;
+    private static final int TYPE_BILLING_AGREEMENT = 3;
+
+    public static byte[] encode(Request request) {
+        int type;
+        if (request instanceof AuthorizationRequest) {
+            type = TYPE_AUTHORIZATION;
+        } else if (request instanceof BillingAgreementRequest) {
+            type = TYPE_BILLING_AGREEMENT;
+        } else if (request instanceof CheckoutRequest) {
+            type = TYPE_CHECKOUT;
+        } else {
+            throw new IllegalArgumentException("Unsupported request type " + request.getClass().getName());
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeByte(VERSION);
+            out.writeByte(type);
+            request.writeTo(out);
+            out.flush();
+        } catch (IOException e) {
+            // writing to a ByteArrayOutputStream does not fail
+            throw new IllegalStateException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return the decoded {@link Request}, or {@code null} if {@code data} is empty, malformed or was written by a
+     * different version.
+     */
+    @Nullable
+    public static Request decode(@Nullable byte[] data) {
+        if (data == null || data.length < 2) {
+            return null;
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        try {
+            if (in.readUnsignedByte() != VERSION) {
+                return null;
+            }
+
+            switch (in.readUnsignedByte()) {
+                case TYPE_AUTHORIZATION:
+                    return new AuthorizationRequest(in);
+                case TYPE_CHECKOUT:
+                    return new CheckoutRequest(in);
+                case TYPE_BILLING_AGREEMENT:
+                    return new BillingAgreementRequest(in);
+                default:
+                    return null;
+            }
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    static void writeString(DataOutput out, @Nullable String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    @Nullable
+    static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
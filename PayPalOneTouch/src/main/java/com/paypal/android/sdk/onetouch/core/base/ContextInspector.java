@@ -4,6 +4,8 @@ import android.content.Context;
 import android.content.SharedPreferences;
 import android.support.annotation.NonNull;
 
+import com.braintreepayments.api.internal.BraintreeSharedPreferences;
+
 public class ContextInspector {
 
     private final Context mContext;
@@ -11,7 +13,7 @@ public class ContextInspector {
 
     public ContextInspector(@NonNull Context context) {
         mContext = context.getApplicationContext();
-        mPreferences = mContext.getSharedPreferences("PayPalOTC", Context.MODE_PRIVATE);
+        mPreferences = BraintreeSharedPreferences.getSharedPreferences(mContext, "PayPalOTC");
     }
 
     public String getStringPreference(String key) {
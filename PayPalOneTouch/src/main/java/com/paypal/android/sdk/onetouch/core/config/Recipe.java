@@ -9,6 +9,7 @@ import com.braintreepayments.browserswitch.ChromeCustomTabs;
 import com.paypal.android.sdk.onetouch.core.enums.Protocol;
 import com.paypal.android.sdk.onetouch.core.enums.RequestTarget;
 import com.paypal.android.sdk.onetouch.core.sdk.AppSwitchHelper;
+import com.paypal.android.sdk.onetouch.core.sdk.CustomTabsHelper;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -113,7 +114,7 @@ public abstract class Recipe<T extends Recipe<T>> {
             intent.setPackage(allowedBrowserPackage);
         }
 
-        return ChromeCustomTabs.addChromeCustomTabsExtras(context, intent);
+        return CustomTabsHelper.addSession(ChromeCustomTabs.addChromeCustomTabsExtras(context, intent));
     }
 
     public Protocol getProtocol() {
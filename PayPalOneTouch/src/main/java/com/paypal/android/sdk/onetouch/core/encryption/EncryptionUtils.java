@@ -13,16 +13,23 @@ import java.security.cert.X509Certificate;
  */
 public class EncryptionUtils {
 
-    private static final SecureRandom RANDOM;
+    /**
+     * Holds the {@link SecureRandom} so that {@link PRNGFixes} are only applied when random data is first
+     * requested, rather than whenever one of the encoding helpers is used.
+     */
+    private static class RandomHolder {
 
-    static {
-        PRNGFixes.apply();
-        RANDOM = new SecureRandom();
+        private static final SecureRandom RANDOM;
+
+        static {
+            PRNGFixes.apply();
+            RANDOM = new SecureRandom();
+        }
     }
 
     public static byte[] generateRandomData(int size) {
         byte[] output = new byte[size];
-        RANDOM.nextBytes(output);
+        RandomHolder.RANDOM.nextBytes(output);
         return output;
     }
 
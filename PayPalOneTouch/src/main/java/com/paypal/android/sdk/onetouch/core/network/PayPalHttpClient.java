@@ -3,6 +3,7 @@ package com.paypal.android.sdk.onetouch.core.network;
 import android.support.annotation.VisibleForTesting;
 
 import com.braintreepayments.api.internal.HttpClient;
+import com.braintreepayments.api.internal.HttpEvent;
 import com.braintreepayments.api.internal.TLSSocketFactory;
 import com.paypal.android.sdk.onetouch.core.BuildConfig;
 import com.paypal.android.sdk.onetouch.core.base.DeviceInspector;
@@ -27,6 +28,17 @@ public class PayPalHttpClient extends HttpClient<PayPalHttpClient> {
         }
     }
 
+    @Override
+    protected String getOperation(String method, String url) {
+        if (url.contains("tracking/events")) {
+            return HttpEvent.OPERATION_FPTI;
+        } else if (url.contains("otc-config")) {
+            return HttpEvent.OPERATION_CONFIGURATION;
+        }
+
+        return super.getOperation(method, url);
+    }
+
     @VisibleForTesting
     @Override
     protected HttpURLConnection init(String url) throws IOException {
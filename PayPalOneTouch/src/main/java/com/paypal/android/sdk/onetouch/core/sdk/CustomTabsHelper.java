@@ -0,0 +1,164 @@
+package com.paypal.android.sdk.onetouch.core.sdk;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.net.Uri;
+import android.support.customtabs.CustomTabsClient;
+import android.support.customtabs.CustomTabsIntent;
+import android.support.customtabs.CustomTabsServiceConnection;
+import android.support.customtabs.CustomTabsSession;
+
+/**
+ * Keeps a Custom Tabs session with the default browser so browser switches open in a warmed up browser process.
+ * The service is bound once with the application context while at least one caller of {@link #bind(Context)} has
+ * not called {@link #unbind(Context)}, and the session is reused across browser switches. If the browser process
+ * dies the session is dropped until the service reconnects.
+ */
+public class CustomTabsHelper {
+
+    private static final Object sLock = new Object();
+
+    private static int sReferences;
+    private static Connection sConnection;
+    private static String sPackageName;
+    private static CustomTabsSession sSession;
+    private static Uri sLikelyUrl;
+
+    /**
+     * Binds to the Custom Tabs service of the default browser, if it has one, and warms up the browser process.
+     * Only binds once if a session is bound or being bound. Every call must be balanced by {@link #unbind(Context)}.
+     */
+    public static void bind(Context context) {
+        Context applicationContext = context.getApplicationContext();
+        synchronized (sLock) {
+            sReferences++;
+            if (sConnection != null) {
+                return;
+            }
+
+            String packageName = CustomTabsClient.getPackageName(applicationContext, null);
+            if (packageName == null) {
+                return;
+            }
+
+            Connection connection = new Connection();
+            sConnection = connection;
+            sPackageName = packageName;
+            try {
+                if (CustomTabsClient.bindCustomTabsService(applicationContext, packageName, connection)) {
+                    return;
+                }
+            } catch (SecurityException ignored) {}
+
+            sConnection = null;
+            sPackageName = null;
+        }
+    }
+
+    /**
+     * Releases a {@link #bind(Context)}. The service is unbound when every caller has released it.
+     */
+    public static void unbind(Context context) {
+        Connection connection;
+        synchronized (sLock) {
+            if (sReferences == 0 || --sReferences > 0) {
+                return;
+            }
+
+            connection = sConnection;
+            sConnection = null;
+            sPackageName = null;
+            sSession = null;
+            sLikelyUrl = null;
+        }
+
+        if (connection != null) {
+            try {
+                context.getApplicationContext().unbindService(connection);
+            } catch (IllegalArgumentException ignored) {}
+        }
+    }
+
+    /**
+     * Tells the browser {@code url} is likely to be opened so it can start loading it. The hint is kept until a
+     * session is available if the service is still being bound.
+     */
+    public static void mayLaunchUrl(String url) {
+        CustomTabsSession session;
+        Uri uri = Uri.parse(url);
+        synchronized (sLock) {
+            sLikelyUrl = uri;
+            session = sSession;
+        }
+
+        if (session != null) {
+            session.mayLaunchUrl(uri, null, null);
+        }
+    }
+
+    /**
+     * Associates a browser switch {@link Intent} with the warmed up session if it opens a Custom Tab in the
+     * browser the session is bound to.
+     *
+     * @return {@code intent}.
+     */
+    public static Intent addSession(Intent intent) {
+        CustomTabsSession session;
+        synchronized (sLock) {
+            if (sSession == null || (intent.getPackage() != null && !intent.getPackage().equals(sPackageName))) {
+                return intent;
+            }
+            session = sSession;
+            sLikelyUrl = null;
+        }
+
+        if (intent.hasExtra(CustomTabsIntent.EXTRA_SESSION)) {
+            intent.putExtras(new CustomTabsIntent.Builder(session).build().intent);
+        }
+        return intent;
+    }
+
+    static boolean isBound() {
+        synchronized (sLock) {
+            return sConnection != null;
+        }
+    }
+
+    static int getReferenceCount() {
+        synchronized (sLock) {
+            return sReferences;
+        }
+    }
+
+    private static class Connection extends CustomTabsServiceConnection {
+
+        @Override
+        public void onCustomTabsServiceConnected(ComponentName name, CustomTabsClient client) {
+            client.warmup(0);
+            CustomTabsSession session = client.newSession(null);
+
+            Uri likelyUrl;
+            synchronized (sLock) {
+                if (sConnection != this) {
+                    return;
+                }
+                sSession = session;
+                likelyUrl = sLikelyUrl;
+            }
+
+            if (session != null && likelyUrl != null) {
+                session.mayLaunchUrl(likelyUrl, null, null);
+            }
+        }
+
+        @Override
+        public void onServiceDisconnected(ComponentName name) {
+            synchronized (sLock) {
+                if (sConnection == this) {
+                    sSession = null;
+                }
+            }
+        }
+    }
+}
@@ -243,4 +243,31 @@ public class AuthorizationRequestUnitTest {
         assertEquals("{payload-key=payload-value}", parceledRequest.getAdditionalPayloadAttributes().toString());
         assertEquals("address email", parceledRequest.getScopeString());
     }
+
+    @Test
+    public void encodes() {
+        AuthorizationRequest request = new AuthorizationRequest(RuntimeEnvironment.application);
+        request.environment("test");
+        request.clientId("client-id");
+        request.clientMetadataId("client-metadata-id");
+        request.cancelUrl("com.braintreepayments.demo.braintree.cancel", "cancel");
+        request.successUrl("com.braintreepayments.demo.braintree.success", "success");
+        request.privacyUrl("privacy-url");
+        request.userAgreementUrl("user-agreement-url");
+        request.withAdditionalPayloadAttribute("payload-key", "payload-value");
+        request.withScopeValue("email");
+        request.withScopeValue("address");
+
+        AuthorizationRequest decodedRequest = (AuthorizationRequest) RequestCodec.decode(RequestCodec.encode(request));
+
+        assertEquals("test", decodedRequest.getEnvironment());
+        assertEquals("client-id", decodedRequest.getClientId());
+        assertEquals("client-metadata-id", decodedRequest.getClientMetadataId());
+        assertEquals("com.braintreepayments.demo.braintree.cancel://onetouch/v1/cancel", decodedRequest.getCancelUrl());
+        assertEquals("com.braintreepayments.demo.braintree.success://onetouch/v1/success", decodedRequest.getSuccessUrl());
+        assertEquals("privacy-url", decodedRequest.getPrivacyUrl());
+        assertEquals("user-agreement-url", decodedRequest.getUserAgreementUrl());
+        assertEquals("{payload-key=payload-value}", decodedRequest.getAdditionalPayloadAttributes().toString());
+        assertEquals("address email", decodedRequest.getScopeString());
+    }
 }
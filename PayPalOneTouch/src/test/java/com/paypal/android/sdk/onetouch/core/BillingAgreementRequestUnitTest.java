@@ -8,6 +8,7 @@ import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
 
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
 
 @RunWith(RobolectricTestRunner.class)
 public class BillingAgreementRequestUnitTest {
@@ -45,4 +46,28 @@ public class BillingAgreementRequestUnitTest {
         assertEquals("com.braintreepayments.demo.braintree.approval-url://?ba_token=TOKEN", parceledRequest.mApprovalUrl);
         assertEquals("ba_token", parceledRequest.mTokenQueryParamKey);
     }
+
+    @Test
+    public void encodes() {
+        BillingAgreementRequest request = new BillingAgreementRequest();
+        request.environment("test");
+        request.clientId("client-id");
+        request.pairingId(RuntimeEnvironment.application, "pairing-id");
+        request.clientMetadataId("client-metadata-id");
+        request.cancelUrl("com.braintreepayments.demo.braintree.cancel", "cancel");
+        request.successUrl("com.braintreepayments.demo.braintree.success", "success");
+        request.approvalURL("com.braintreepayments.demo.braintree.approval-url://?ba_token=TOKEN");
+
+        Request decodedRequest = RequestCodec.decode(RequestCodec.encode(request));
+
+        assertTrue(decodedRequest instanceof BillingAgreementRequest);
+        BillingAgreementRequest decodedBillingAgreementRequest = (BillingAgreementRequest) decodedRequest;
+        assertEquals("test", decodedBillingAgreementRequest.getEnvironment());
+        assertEquals("client-id", decodedBillingAgreementRequest.getClientId());
+        assertEquals("client-metadata-id", decodedBillingAgreementRequest.getClientMetadataId());
+        assertEquals("pairing-id", decodedBillingAgreementRequest.getPairingId());
+        assertEquals("com.braintreepayments.demo.braintree.approval-url://?ba_token=TOKEN",
+                decodedBillingAgreementRequest.mApprovalUrl);
+        assertEquals("ba_token", decodedBillingAgreementRequest.mTokenQueryParamKey);
+    }
 }
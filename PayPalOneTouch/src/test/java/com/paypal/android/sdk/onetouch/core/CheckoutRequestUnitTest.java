@@ -8,6 +8,7 @@ import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
 
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
 
 @RunWith(RobolectricTestRunner.class)
 public class CheckoutRequestUnitTest {
@@ -45,4 +46,38 @@ public class CheckoutRequestUnitTest {
         assertEquals("com.braintreepayments.demo.braintree.approval-url", parceledRequest.mApprovalUrl);
         assertEquals("token", parceledRequest.mTokenQueryParamKey);
     }
+
+    @Test
+    public void encodes() {
+        CheckoutRequest request = new CheckoutRequest()
+                .environment("test")
+                .clientId("client-id")
+                .pairingId(RuntimeEnvironment.application, "pairing-id")
+                .clientMetadataId("client-metadata-id")
+                .cancelUrl("com.braintreepayments.demo.braintree.cancel", "cancel")
+                .successUrl("com.braintreepayments.demo.braintree.success", "success")
+                .approvalURL("com.braintreepayments.demo.braintree.approval-url");
+
+        Request decodedRequest = RequestCodec.decode(RequestCodec.encode(request));
+
+        assertEquals(CheckoutRequest.class, decodedRequest.getClass());
+        CheckoutRequest decodedCheckoutRequest = (CheckoutRequest) decodedRequest;
+        assertEquals("test", decodedCheckoutRequest.getEnvironment());
+        assertEquals("client-id", decodedCheckoutRequest.getClientId());
+        assertEquals("client-metadata-id", decodedCheckoutRequest.getClientMetadataId());
+        assertEquals("pairing-id", decodedCheckoutRequest.getPairingId());
+        assertEquals("com.braintreepayments.demo.braintree.cancel://onetouch/v1/cancel", decodedCheckoutRequest.getCancelUrl());
+        assertEquals("com.braintreepayments.demo.braintree.success://onetouch/v1/success", decodedCheckoutRequest.getSuccessUrl());
+        assertEquals("com.braintreepayments.demo.braintree.approval-url", decodedCheckoutRequest.mApprovalUrl);
+        assertEquals("token", decodedCheckoutRequest.mTokenQueryParamKey);
+    }
+
+    @Test
+    public void decode_returnsNullForOtherVersions() {
+        byte[] data = RequestCodec.encode(new CheckoutRequest());
+        data[0] = RequestCodec.VERSION + 1;
+
+        assertNull(RequestCodec.decode(data));
+        assertNull(RequestCodec.decode(new byte[0]));
+    }
 }
@@ -1,5 +1,6 @@
 package com.paypal.android.sdk.onetouch.core.network;
 
+import com.braintreepayments.api.internal.HttpEvent;
 import com.paypal.android.sdk.onetouch.core.BuildConfig;
 import com.paypal.android.sdk.onetouch.core.base.DeviceInspector;
 
@@ -35,4 +36,15 @@ public class PayPalHttpClientUnitTest {
 
         assertEquals(90000, connection.getConnectTimeout());
     }
+
+    @Test
+    public void getOperation_tagsFptiAndConfigurationRequests() {
+        PayPalHttpClient httpClient = new PayPalHttpClient();
+
+        assertEquals(HttpEvent.OPERATION_FPTI,
+                httpClient.getOperation("POST", "https://api-m.paypal.com/v1/tracking/events"));
+        assertEquals(HttpEvent.OPERATION_CONFIGURATION, httpClient.getOperation("GET",
+                "https://www.paypalobjects.com/webstatic/otc/otc-config.android.json"));
+        assertEquals(HttpEvent.OPERATION_UNKNOWN, httpClient.getOperation("GET", "https://example.com"));
+    }
 }
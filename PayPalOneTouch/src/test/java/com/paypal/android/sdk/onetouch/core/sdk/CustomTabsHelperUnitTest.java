@@ -0,0 +1,59 @@
+package com.paypal.android.sdk.onetouch.core.sdk;
+
+import android.content.Intent;
+import android.net.Uri;
+import android.os.Bundle;
+import android.support.customtabs.CustomTabsIntent;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+
+@RunWith(RobolectricTestRunner.class)
+public class CustomTabsHelperUnitTest {
+
+    @Test
+    public void bind_doesNothingWhenNoBrowserSupportsCustomTabs() {
+        CustomTabsHelper.bind(RuntimeEnvironment.application);
+
+        assertFalse(CustomTabsHelper.isBound());
+        CustomTabsHelper.unbind(RuntimeEnvironment.application);
+    }
+
+    @Test
+    public void unbind_releasesOneReferencePerBind() {
+        CustomTabsHelper.bind(RuntimeEnvironment.application);
+        CustomTabsHelper.bind(RuntimeEnvironment.application);
+        assertEquals(2, CustomTabsHelper.getReferenceCount());
+
+        CustomTabsHelper.unbind(RuntimeEnvironment.application);
+        assertEquals(1, CustomTabsHelper.getReferenceCount());
+
+        CustomTabsHelper.unbind(RuntimeEnvironment.application);
+        CustomTabsHelper.unbind(RuntimeEnvironment.application);
+        assertEquals(0, CustomTabsHelper.getReferenceCount());
+        assertFalse(CustomTabsHelper.isBound());
+    }
+
+    @Test
+    public void addSession_leavesIntentUnchangedWithoutASession() {
+        Bundle extras = new Bundle();
+        extras.putBinder(CustomTabsIntent.EXTRA_SESSION, null);
+        Intent intent = new Intent(Intent.ACTION_VIEW, Uri.parse("https://paypal.com"))
+                .putExtras(extras);
+
+        assertSame(intent, CustomTabsHelper.addSession(intent));
+        assertNull(intent.getExtras().getBinder(CustomTabsIntent.EXTRA_SESSION));
+    }
+
+    @Test
+    public void mayLaunchUrl_doesNotThrowWithoutASession() {
+        CustomTabsHelper.mayLaunchUrl("https://paypal.com");
+    }
+}
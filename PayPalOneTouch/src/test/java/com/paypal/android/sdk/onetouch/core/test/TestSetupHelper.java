@@ -12,6 +12,7 @@ import android.content.pm.ResolveInfo;
 import android.preference.PreferenceManager;
 import android.telephony.TelephonyManager;
 
+import com.braintreepayments.api.internal.BraintreeSharedPreferences;
 import com.paypal.android.sdk.onetouch.core.base.ContextInspector;
 
 import org.robolectric.RuntimeEnvironment;
@@ -51,7 +52,7 @@ public class TestSetupHelper {
         ContextInspector contextInspector = mock(ContextInspector.class);
         when(contextInspector.getContext()).thenReturn(context);
 
-        RuntimeEnvironment.application.getSharedPreferences("PayPalOTC", Context.MODE_PRIVATE)
+        BraintreeSharedPreferences.getSharedPreferences(RuntimeEnvironment.application, "PayPalOTC")
                 .edit()
                 .putString("InstallationGUID", "installation-guid")
                 .apply();
@@ -0,0 +1,439 @@
+package com.braintreepayments.api.test;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+
+/**
+ * An in-process stand-in for the Braintree Gateway that serves configuration, tokenization, 3D Secure lookup,
+ * UnionPay, analytics and FPTI requests without a sandbox. Latency, errors and gzip can be scripted per
+ * {@link Endpoint} to drive load and failure testing of the SDK's http clients.
+ */
+public class StandInGateway {
+
+    public enum Endpoint {
+        CONFIGURATION,
+        TOKENIZE,
+        THREE_D_SECURE_LOOKUP,
+        UNIONPAY_CAPABILITIES,
+        UNIONPAY_ENROLLMENT,
+        ANALYTICS,
+        FPTI,
+        UNKNOWN
+    }
+
+    public static final String MERCHANT_ID = "integration_merchant_id";
+    public static final String MERCHANT_ACCOUNT_ID = "integration_merchant_account_id";
+    public static final String AUTHORIZATION_FINGERPRINT = "stand_in_authorization_fingerprint";
+
+    private final MockWebServer mServer = new MockWebServer();
+    private final Map<Endpoint, Behavior> mBehaviors = new ConcurrentHashMap<>();
+    private final Map<Endpoint, AtomicInteger> mRequestCounts = new EnumMap<>(Endpoint.class);
+    private final Random mRandom = new Random();
+    private volatile boolean mGzipEnabled;
+
+    public StandInGateway() {
+        for (Endpoint endpoint : Endpoint.values()) {
+            mBehaviors.put(endpoint, new Behavior());
+            mRequestCounts.put(endpoint, new AtomicInteger());
+        }
+
+        mServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                return StandInGateway.this.dispatch(request);
+            }
+        });
+    }
+
+    /**
+     * Starts the server on a free local port.
+     *
+     * @return {@link StandInGateway} for method chaining.
+     */
+    public StandInGateway start() throws IOException {
+        mServer.start();
+        return this;
+    }
+
+    public void shutdown() throws IOException {
+        mServer.shutdown();
+    }
+
+    /**
+     * @return the base url of the server, ending in a "/".
+     */
+    public String getUrl() {
+        return mServer.url("/").toString();
+    }
+
+    public String getClientApiUrl() {
+        return getUrl() + "merchants/" + MERCHANT_ID + "/client_api";
+    }
+
+    public String getConfigUrl() {
+        return getClientApiUrl() + "/v1/configuration";
+    }
+
+    public String getAnalyticsUrl() {
+        return getUrl() + "analytics";
+    }
+
+    public String getFptiUrl() {
+        return getUrl() + "v1/tracking/events";
+    }
+
+    /**
+     * @return a client token whose configuration url points at this server.
+     */
+    public String getClientToken() {
+        try {
+            return new JSONObject()
+                    .put("version", 2)
+                    .put("authorizationFingerprint", AUTHORIZATION_FINGERPRINT)
+                    .put("configUrl", getConfigUrl())
+                    .toString();
+        } catch (JSONException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Delays every response from all endpoints.
+     *
+     * @param millis the time to wait before responding.
+     * @return {@link StandInGateway} for method chaining.
+     */
+    public StandInGateway setLatency(long millis) {
+        for (Endpoint endpoint : Endpoint.values()) {
+            setLatency(endpoint, millis, millis);
+        }
+        return this;
+    }
+
+    /**
+     * Delays every response from an endpoint.
+     *
+     * @param endpoint the {@link Endpoint} to delay.
+     * @param millis the time to wait before responding.
+     * @return {@link StandInGateway} for method chaining.
+     */
+    public StandInGateway setLatency(Endpoint endpoint, long millis) {
+        return setLatency(endpoint, millis, millis);
+    }
+
+    /**
+     * Delays every response from an endpoint by a uniformly distributed amount of time.
+     *
+     * @param endpoint the {@link Endpoint} to delay.
+     * @param minMillis the minimum time to wait before responding.
+     * @param maxMillis the maximum time to wait before responding.
+     * @return {@link StandInGateway} for method chaining.
+     */
+    public StandInGateway setLatency(Endpoint endpoint, long minMillis, long maxMillis) {
+        Behavior behavior = mBehaviors.get(endpoint);
+        synchronized (behavior) {
+            behavior.minLatency = minMillis;
+            behavior.maxLatency = Math.max(minMillis, maxMillis);
+        }
+        return this;
+    }
+
+    /**
+     * Responds to the next {@code count} requests to an endpoint with an error.
+     *
+     * @param endpoint the {@link Endpoint} to fail.
+     * @param statusCode the http status code to respond with, e.g. 422, 429 or 503.
+     * @param count the number of requests to fail.
+     * @return {@link StandInGateway} for method chaining.
+     */
+    public StandInGateway enqueueError(Endpoint endpoint, int statusCode, int count) {
+        Behavior behavior = mBehaviors.get(endpoint);
+        synchronized (behavior) {
+            for (int i = 0; i < count; i++) {
+                behavior.scriptedErrors.add(statusCode);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Responds to a fraction of requests to an endpoint with an error.
+     *
+     * @param endpoint the {@link Endpoint} to fail.
+     * @param statusCode the http status code to respond with, e.g. 422, 429 or 503.
+     * @param rate the fraction of requests to fail, between 0 and 1.
+     * @return {@link StandInGateway} for method chaining.
+     */
+    public StandInGateway setErrorRate(Endpoint endpoint, int statusCode, double rate) {
+        Behavior behavior = mBehaviors.get(endpoint);
+        synchronized (behavior) {
+            behavior.errorStatusCode = statusCode;
+            behavior.errorRate = rate;
+        }
+        return this;
+    }
+
+    /**
+     * @param gzipEnabled when {@code true} all response bodies are gzipped.
+     * @return {@link StandInGateway} for method chaining.
+     */
+    public StandInGateway setGzipEnabled(boolean gzipEnabled) {
+        mGzipEnabled = gzipEnabled;
+        return this;
+    }
+
+    /**
+     * @param endpoint the {@link Endpoint} to check.
+     * @return the number of requests the endpoint has received.
+     */
+    public int getRequestCount(Endpoint endpoint) {
+        return mRequestCounts.get(endpoint).get();
+    }
+
+    /**
+     * @return the total number of requests the server has received.
+     */
+    public int getRequestCount() {
+        return mServer.getRequestCount();
+    }
+
+    /**
+     * Clears all scripted latency, errors and request counts.
+     */
+    public void reset() {
+        for (Endpoint endpoint : Endpoint.values()) {
+            mBehaviors.put(endpoint, new Behavior());
+            mRequestCounts.get(endpoint).set(0);
+        }
+        mGzipEnabled = false;
+    }
+
+    private MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+        Endpoint endpoint = getEndpoint(request);
+        mRequestCounts.get(endpoint).incrementAndGet();
+
+        Behavior behavior = mBehaviors.get(endpoint);
+        long latency;
+        Integer errorStatusCode;
+        synchronized (behavior) {
+            latency = behavior.minLatency;
+            if (behavior.maxLatency > behavior.minLatency) {
+                latency += (long) (mRandom.nextDouble() * (behavior.maxLatency - behavior.minLatency));
+            }
+
+            errorStatusCode = behavior.scriptedErrors.poll();
+            if (errorStatusCode == null && behavior.errorRate > 0 && mRandom.nextDouble() < behavior.errorRate) {
+                errorStatusCode = behavior.errorStatusCode;
+            }
+        }
+
+        if (latency > 0) {
+            Thread.sleep(latency);
+        }
+
+        try {
+            if (errorStatusCode != null) {
+                return respond(errorStatusCode, errorBody(errorStatusCode));
+            }
+
+            switch (endpoint) {
+                case CONFIGURATION:
+                    return respond(200, configuration());
+                case TOKENIZE:
+                    return respond(201, tokenizeResponse(request.getPath()));
+                case THREE_D_SECURE_LOOKUP:
+                    return respond(201, threeDSecureLookupResponse());
+                case UNIONPAY_CAPABILITIES:
+                    return respond(200, unionPayCapabilitiesResponse(request.getPath()));
+                case UNIONPAY_ENROLLMENT:
+                    return respond(201, new JSONObject()
+                            .put("unionPayEnrollmentId", UUID.randomUUID().toString())
+                            .put("smsCodeRequired", true)
+                            .toString());
+                case ANALYTICS:
+                case FPTI:
+                    return respond(200, "{}");
+                default:
+                    return respond(404, "");
+            }
+        } catch (JSONException e) {
+            return respond(500, "");
+        }
+    }
+
+    private static Endpoint getEndpoint(RecordedRequest request) {
+        String path = request.getPath();
+        int queryIndex = path.indexOf('?');
+        if (queryIndex >= 0) {
+            path = path.substring(0, queryIndex);
+        }
+
+        if (path.endsWith("/v1/configuration")) {
+            return Endpoint.CONFIGURATION;
+        } else if (path.endsWith("/three_d_secure/lookup")) {
+            return Endpoint.THREE_D_SECURE_LOOKUP;
+        } else if (path.endsWith("/v1/payment_methods/credit_cards/capabilities")) {
+            return Endpoint.UNIONPAY_CAPABILITIES;
+        } else if (path.endsWith("/v1/union_pay_enrollments")) {
+            return Endpoint.UNIONPAY_ENROLLMENT;
+        } else if (path.contains("/v1/payment_methods/") && "POST".equals(request.getMethod())) {
+            return Endpoint.TOKENIZE;
+        } else if (path.equals("/analytics")) {
+            return Endpoint.ANALYTICS;
+        } else if (path.equals("/v1/tracking/events")) {
+            return Endpoint.FPTI;
+        }
+
+        return Endpoint.UNKNOWN;
+    }
+
+    private MockResponse respond(int statusCode, String body) {
+        MockResponse response = new MockResponse()
+                .setResponseCode(statusCode)
+                .setHeader("Content-Type", "application/json");
+
+        if (mGzipEnabled) {
+            response.setHeader("Content-Encoding", "gzip")
+                    .setBody(new Buffer().write(gzip(body)));
+        } else {
+            response.setBody(body);
+        }
+
+        return response;
+    }
+
+    private String configuration() throws JSONException {
+        return new JSONObject()
+                .put("clientApiUrl", getClientApiUrl())
+                .put("environment", "development")
+                .put("merchantId", MERCHANT_ID)
+                .put("merchantAccountId", MERCHANT_ACCOUNT_ID)
+                .put("challenges", new JSONArray())
+                .put("analytics", new JSONObject().put("url", getAnalyticsUrl()))
+                .put("threeDSecureEnabled", true)
+                .put("paypalEnabled", false)
+                .put("unionPay", new JSONObject()
+                        .put("enabled", true)
+                        .put("merchantAccountId", MERCHANT_ACCOUNT_ID))
+                .put("creditCards", new JSONObject()
+                        .put("supportedCardTypes", new JSONArray()
+                                .put("American Express")
+                                .put("Discover")
+                                .put("MasterCard")
+                                .put("Visa")
+                                .put("UnionPay")))
+                .toString();
+    }
+
+    private static String tokenizeResponse(String path) throws JSONException {
+        if (path.endsWith("/paypal_accounts")) {
+            return new JSONObject()
+                    .put("paypalAccounts", new JSONArray().put(new JSONObject()
+                            .put("type", "PayPalAccount")
+                            .put("nonce", UUID.randomUUID().toString())
+                            .put("description", "PayPal")
+                            .put("details", new JSONObject().put("email", "paypal@example.com"))))
+                    .toString();
+        }
+
+        return new JSONObject()
+                .put("creditCards", new JSONArray().put(creditCard()))
+                .toString();
+    }
+
+    private static String threeDSecureLookupResponse() throws JSONException {
+        JSONObject threeDSecureInfo = new JSONObject()
+                .put("liabilityShifted", true)
+                .put("liabilityShiftPossible", true);
+
+        return new JSONObject()
+                .put("lookup", new JSONObject()
+                        .put("acsUrl", JSONObject.NULL)
+                        .put("md", "merchant-descriptor")
+                        .put("termUrl", "https://term-url/")
+                        .put("pareq", "pareq"))
+                .put("paymentMethod", creditCard().put("threeDSecureInfo", threeDSecureInfo))
+                .put("threeDSecureInfo", threeDSecureInfo)
+                .toString();
+    }
+
+    private static String unionPayCapabilitiesResponse(String path) throws JSONException {
+        boolean isUnionPay = path.contains("creditCard%5Bnumber%5D=62") || path.contains("creditCard[number]=62");
+        return new JSONObject()
+                .put("isUnionPay", isUnionPay)
+                .put("isDebit", false)
+                .put("unionPay", new JSONObject()
+                        .put("supportsTwoStepAuthAndCapture", isUnionPay)
+                        .put("isSupported", isUnionPay))
+                .toString();
+    }
+
+    private static JSONObject creditCard() throws JSONException {
+        return new JSONObject()
+                .put("type", "CreditCard")
+                .put("nonce", UUID.randomUUID().toString())
+                .put("description", "ending in 11")
+                .put("default", false)
+                .put("isLocked", false)
+                .put("securityQuestions", new JSONArray())
+                .put("details", new JSONObject()
+                        .put("cardType", "Visa")
+                        .put("lastTwo", "11"));
+    }
+
+    private static String errorBody(int statusCode) throws JSONException {
+        if (statusCode == 422) {
+            return new JSONObject()
+                    .put("error", new JSONObject().put("message", "Credit card is invalid"))
+                    .put("fieldErrors", new JSONArray().put(new JSONObject()
+                            .put("field", "creditCard")
+                            .put("fieldErrors", new JSONArray().put(new JSONObject()
+                                    .put("field", "number")
+                                    .put("message", "Credit card number is invalid")))))
+                    .toString();
+        }
+
+        return new JSONObject()
+                .put("error", new JSONObject().put("message", "Stand-in gateway error " + statusCode))
+                .toString();
+    }
+
+    private static byte[] gzip(String body) {
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            GZIPOutputStream gzip = new GZIPOutputStream(out);
+            gzip.write(body.getBytes("UTF-8"));
+            gzip.close();
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static class Behavior {
+        long minLatency;
+        long maxLatency;
+        int errorStatusCode;
+        double errorRate;
+        final Queue<Integer> scriptedErrors = new ArrayDeque<>();
+    }
+}
@@ -0,0 +1,97 @@
+package com.braintreepayments.testutils;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * A point in time measurement of the process resources the SDK can leak: live threads, open file
+ * descriptors, open SQLite database files and used heap. Used by soak tests to assert that repeated flows
+ * do not grow resource usage without bound.
+ */
+public class ResourceSnapshot {
+
+    private static final String FILE_DESCRIPTOR_DIRECTORY = "/proc/self/fd";
+    private static final String BSD_FILE_DESCRIPTOR_DIRECTORY = "/dev/fd";
+
+    public final int threads;
+    public final int fileDescriptors;
+    public final int databaseFiles;
+    public final long usedHeapBytes;
+
+    private ResourceSnapshot(int threads, int fileDescriptors, int databaseFiles, long usedHeapBytes) {
+        this.threads = threads;
+        this.fileDescriptors = fileDescriptors;
+        this.databaseFiles = databaseFiles;
+        this.usedHeapBytes = usedHeapBytes;
+    }
+
+    /**
+     * Takes a snapshot after requesting garbage collection, so heap and descriptor counts reflect reachable
+     * resources. Threads are counted across all thread groups. Descriptors are listed from {@code /proc/self/fd},
+     * falling back to {@code /dev/fd} where database files cannot be identified and are reported as {@code -1}.
+     * Both counts are {@code -1} on platforms with neither.
+     */
+    public static ResourceSnapshot take() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            System.runFinalization();
+        }
+
+        Runtime runtime = Runtime.getRuntime();
+        int fileDescriptors = -1;
+        int databaseFiles = -1;
+
+        File[] descriptors = new File(FILE_DESCRIPTOR_DIRECTORY).listFiles();
+        if (descriptors == null) {
+            descriptors = new File(BSD_FILE_DESCRIPTOR_DIRECTORY).listFiles();
+            if (descriptors != null) {
+                fileDescriptors = descriptors.length;
+            }
+        } else {
+            fileDescriptors = descriptors.length;
+            databaseFiles = 0;
+            for (File descriptor : descriptors) {
+                try {
+                    String target = descriptor.getCanonicalPath();
+                    if (target.endsWith(".db") || target.endsWith(".db-journal") || target.endsWith(".db-wal")) {
+                        databaseFiles++;
+                    }
+                } catch (IOException ignored) {}
+            }
+        }
+
+        return new ResourceSnapshot(liveThreadCount(), fileDescriptors, databaseFiles,
+                runtime.totalMemory() - runtime.freeMemory());
+    }
+
+    /**
+     * Waits for threads started by completed work to exit, then takes a snapshot.
+     *
+     * @param maxThreads the thread count to wait for.
+     * @param timeoutMillis the maximum time to wait.
+     * @return {@link ResourceSnapshot} taken once the thread count is at most {@code maxThreads} or the timeout
+     * has elapsed.
+     */
+    public static ResourceSnapshot awaitThreadsAtMost(int maxThreads, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (liveThreadCount() > maxThreads && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        return take();
+    }
+
+    /**
+     * @return the number of live threads in every thread group, unlike {@link Thread#activeCount()} which only
+     * counts the current thread's group.
+     */
+    private static int liveThreadCount() {
+        return Thread.getAllStackTraces().size();
+    }
+
+    @Override
+    public String toString() {
+        return "threads=" + threads + ", fileDescriptors=" + fileDescriptors + ", databaseFiles=" + databaseFiles +
+                ", usedHeapBytes=" + usedHeapBytes;
+    }
+}
@@ -5,10 +5,12 @@ import android.content.SharedPreferences;
 import android.net.Uri;
 import android.util.Base64;
 
+import com.braintreepayments.api.internal.BraintreeSharedPreferences;
+
 public class SharedPreferencesHelper {
 
     public static SharedPreferences getSharedPreferences(Context context) {
-        return context.getSharedPreferences("BraintreeApi", Context.MODE_PRIVATE);
+        return BraintreeSharedPreferences.getSharedPreferences(context);
     }
 
     public static void clearSharedPreferences(Context context) {